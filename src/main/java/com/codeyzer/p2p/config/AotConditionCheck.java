@@ -0,0 +1,61 @@
+package com.codeyzer.p2p.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.codeyzer.p2p.service.CleanupService;
+import com.codeyzer.p2p.service.SignalingService;
+import com.codeyzer.p2p.service.persistence.ShareJournal;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * AOT ile derlenmiş bağlamda @ConditionalOnProperty koşulları derleme anındaki değerlerle sabitlenir;
+ * çalışma anında değiştirilen bir özellik sessizce yok sayılırdı. Koşullu bean'lerin varlığı derleme
+ * anındaki değeri gösterdiğinden, çalışma anındaki değer farklıysa uygulama port açılmadan durdurulur.
+ */
+@Component
+@RequiredArgsConstructor
+public class AotConditionCheck implements SmartInitializingSingleton {
+
+    // Özellik → yalnızca özellik "true" iken oluşturulan bean
+    private static final Map<String, Class<?>> CONDITIONAL_BEANS = new LinkedHashMap<>();
+
+    static {
+        CONDITIONAL_BEANS.put("server.http2.enabled", Http2Config.class);
+        CONDITIONAL_BEANS.put("file-share.heartbeat.enabled", CleanupService.class);
+        CONDITIONAL_BEANS.put("file-share.persistence.enabled", ShareJournal.class);
+        CONDITIONAL_BEANS.put("file-share.signaling.enabled", SignalingService.class);
+        CONDITIONAL_BEANS.put("file-share.netty.enabled", NettyRelayConfig.class);
+    }
+
+    private final Environment environment;
+    private final ListableBeanFactory beanFactory;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!AotDetector.useGeneratedArtifacts()) {
+            return;
+        }
+        List<String> mismatches = new ArrayList<>();
+        CONDITIONAL_BEANS.forEach((property, beanType) -> {
+            boolean runtime = "true".equalsIgnoreCase(environment.getProperty(property));
+            boolean built = beanFactory.getBeanNamesForType(beanType, true, false).length > 0;
+            if (runtime != built) {
+                mismatches.add(property + "=" + runtime + " (AOT derlemesi: " + built + ")");
+            }
+        });
+        if (!mismatches.isEmpty()) {
+            throw new IllegalStateException("AOT derlemesindeki koşullardan farklı yapılandırma; "
+                    + "uygulama bu değerlerle yeniden derlenmelidir: " + String.join(", ", mismatches));
+        }
+    }
+}
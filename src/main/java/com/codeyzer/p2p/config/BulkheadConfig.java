@@ -0,0 +1,85 @@
+package com.codeyzer.p2p.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.codeyzer.p2p.service.monitoring.ExecutorPoolMonitor;
+
+/**
+ * Uzun süren aktarımlar, kısa kontrol istekleri ve WebSocket mesajları için ayrı iş parçacığı
+ * havuzları tanımlar. Aktarımlar servlet async ile Tomcat havuzundan bu havuza devredildiğinden,
+ * binlerce aktarım sürerken bile Tomcat iş parçacıkları share/info/stats isteklerine açık kalır.
+ */
+@Configuration
+public class BulkheadConfig {
+
+    /**
+     * İndirmelerin çalıştığı havuz. Havuz ve kuyruk doluysa istek 503 ile reddedilir.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor transferExecutor(FileShareProperties fileShareProperties,
+                                                   ExecutorPoolMonitor executorPoolMonitor) {
+        ThreadPoolTaskExecutor executor = boundedExecutor("transfer-",
+                fileShareProperties.getBulkhead().getTransfer());
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            executorPoolMonitor.recordRejection(ExecutorPoolMonitor.TRANSFER_POOL);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Aktarım kapasitesi dolu");
+        });
+        executorPoolMonitor.register(ExecutorPoolMonitor.TRANSFER_POOL, executor);
+        return executor;
+    }
+
+    /**
+     * Sahip yüklemelerinin ve yükleme yuvalarının havuzu. İndirmeler sahibi beklerken iş parçacığı
+     * tuttuğundan, aynı havuzu paylaşsalar dolu bir havuzda bekleyen indirmeler onları tamamlayacak
+     * yüklemelerin reddedilmesine yol açardı. Havuz ve kuyruk doluysa istek 503 ile reddedilir.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor ownerUploadExecutor(FileShareProperties fileShareProperties,
+                                                      ExecutorPoolMonitor executorPoolMonitor) {
+        ThreadPoolTaskExecutor executor = boundedExecutor("owner-upload-",
+                fileShareProperties.getBulkhead().getOwnerUpload());
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            executorPoolMonitor.recordRejection(ExecutorPoolMonitor.OWNER_UPLOAD_POOL);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Yükleme kapasitesi dolu");
+        });
+        executorPoolMonitor.register(ExecutorPoolMonitor.OWNER_UPLOAD_POOL, executor);
+        return executor;
+    }
+
+    /**
+     * İstemciden gelen STOMP mesajlarının havuzu. Kuyruk dolarsa mesaj, geri basınç uygulamak için
+     * gönderen WebSocket bağlantısının iş parçacığında işlenir; kalp atışları düşürülmez.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor websocketInboundExecutor(FileShareProperties fileShareProperties,
+                                                           ExecutorPoolMonitor executorPoolMonitor) {
+        ThreadPoolTaskExecutor executor = boundedExecutor("ws-inbound-",
+                fileShareProperties.getBulkhead().getWebsocketInbound());
+        ThreadPoolExecutor.CallerRunsPolicy callerRuns = new ThreadPoolExecutor.CallerRunsPolicy();
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            executorPoolMonitor.recordRejection(ExecutorPoolMonitor.WEBSOCKET_INBOUND_POOL);
+            callerRuns.rejectedExecution(task, pool);
+        });
+        executorPoolMonitor.register(ExecutorPoolMonitor.WEBSOCKET_INBOUND_POOL, executor);
+        return executor;
+    }
+
+    private static ThreadPoolTaskExecutor boundedExecutor(String threadNamePrefix,
+                                                          FileShareProperties.PoolProperties settings) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        // Kuyruk yalnızca tüm iş parçacıkları meşgulken kullanılsın diye çekirdek ve azami boyut eşittir
+        executor.setCorePoolSize(settings.getMaxThreads());
+        executor.setMaxPoolSize(settings.getMaxThreads());
+        executor.setQueueCapacity(settings.getQueueCapacity());
+        executor.setKeepAliveSeconds(settings.getKeepAliveSeconds());
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        return executor;
+    }
+}
@@ -0,0 +1,35 @@
+package com.codeyzer.p2p.config;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+/**
+ * WebSocket el sıkışmasındaki istemci adresini oturum özniteliklerine yazar; STOMP mesajlarını işleyenler
+ * istemciyi bu adresle sınırlar. Vekil sunucu başlıkları Tomcat tarafından çözüldüğünden adres HTTP
+ * uçlarındakiyle aynıdır.
+ */
+public class ClientIpHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String CLIENT_IP_ATTRIBUTE = "clientIp";
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler,
+                                   Map<String, Object> attributes) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress != null) {
+            attributes.put(CLIENT_IP_ATTRIBUTE, remoteAddress.getHostString());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler,
+                               Exception exception) {
+        // El sıkışmasından sonra yapılacak bir şey yok
+    }
+}
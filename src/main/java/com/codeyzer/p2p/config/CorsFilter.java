@@ -1,6 +1,7 @@
 package com.codeyzer.p2p.config;
 
 import java.io.IOException;
+import java.util.Map;
 
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
@@ -27,35 +28,34 @@ public class CorsFilter implements Filter {
     private static final String ALLOWED_METHODS = "POST, GET, OPTIONS, DELETE, PUT";
 
     // CORS için izin verilen HTTP başlıkları
-    private static final String ALLOWED_HEADERS = "Authorization, Content-Type, Accept, X-Requested-With, x-owner-token";
+    private static final String ALLOWED_HEADERS = "Authorization, Content-Type, Accept, X-Requested-With, x-owner-token, x-upload-offset";
 
     // CORS için izin verilen Header'ların istemciye gönderilmesi
-    private static final String EXPOSED_HEADERS = "Content-Disposition, Content-Length";
+    private static final String EXPOSED_HEADERS = "Content-Disposition, Content-Length, X-Content-Digest";
 
     // CORS için ön uçak (preflight) isteklerinin önbelleğe alınacağı saniye
     private static final String MAX_AGE = "3600";
+
+    /**
+     * Origin'den bağımsız CORS yanıt başlıkları; Netty aktarım katmanı da kullanır
+     */
+    public static final Map<String, String> FIXED_HEADERS = Map.of(
+            "Access-Control-Allow-Methods", ALLOWED_METHODS,
+            "Access-Control-Max-Age", MAX_AGE,
+            "Access-Control-Allow-Headers", ALLOWED_HEADERS,
+            "Access-Control-Expose-Headers", EXPOSED_HEADERS,
+            "Access-Control-Allow-Credentials", "true");
     
     @Override
     public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
         HttpServletResponse response = (HttpServletResponse) res;
         HttpServletRequest request = (HttpServletRequest) req;
 
-        String origin = request.getHeader("Origin");
-        var allowedOrigins = corsProperties.getCors().getAllowedOrigins();
-
-        // Origin kontrolü ile daha güvenli CORS yapılandırması
-        if (origin != null && allowedOrigins.contains(origin)) {
-            response.setHeader("Access-Control-Allow-Origin", origin);
-        } else if (!allowedOrigins.isEmpty()) {
-            // Hiçbir origin eşleşmediyse, varsayılan olarak listedeki ilk origin'e izin ver
-            response.setHeader("Access-Control-Allow-Origin", allowedOrigins.get(0));
+        String allowedOrigin = allowedOrigin(request.getHeader("Origin"));
+        if (allowedOrigin != null) {
+            response.setHeader("Access-Control-Allow-Origin", allowedOrigin);
         }
-
-        response.setHeader("Access-Control-Allow-Methods", ALLOWED_METHODS);
-        response.setHeader("Access-Control-Max-Age", MAX_AGE);
-        response.setHeader("Access-Control-Allow-Headers", ALLOWED_HEADERS);
-        response.setHeader("Access-Control-Expose-Headers", EXPOSED_HEADERS);
-        response.setHeader("Access-Control-Allow-Credentials", "true");
+        FIXED_HEADERS.forEach(response::setHeader);
 
         // OPTIONS metodu (preflight istekleri) için hızlı yanıt
         if ("OPTIONS".equalsIgnoreCase(request.getMethod())) {
@@ -65,6 +65,22 @@ public class CorsFilter implements Filter {
         }
     }
 
+    /**
+     * İsteğin Origin başlığına göre Access-Control-Allow-Origin değeri; izinli origin yoksa null
+     */
+    public String allowedOrigin(String origin) {
+        var allowedOrigins = corsProperties.getCors().getAllowedOrigins();
+
+        // Origin kontrolü ile daha güvenli CORS yapılandırması
+        if (origin != null && allowedOrigins.contains(origin)) {
+            return origin;
+        } else if (!allowedOrigins.isEmpty()) {
+            // Hiçbir origin eşleşmediyse, varsayılan olarak listedeki ilk origin'e izin ver
+            return allowedOrigins.get(0);
+        }
+        return null;
+    }
+
     @Override
     public void init(FilterConfig filterConfig) {
         // Başlatma işlemi gerekmediğinde boş bırakılabilir
@@ -21,17 +21,112 @@ public class FileShareProperties {
     // @Min(1024) // Örnek validasyon
     private int bufferSize = 8192;
 
+    /**
+     * Aktarım tamponunun ölçülen hıza göre stream başına uyarlanması ayarları.
+     * Kapalıysa tüm aktarımlar bufferSize kullanır.
+     */
+    private AdaptiveBufferProperties adaptiveBuffer = new AdaptiveBufferProperties();
+
     /**
      * Oluşturulacak paylaşım hash'lerinin uzunluğu.
      */
     // @Min(4)
     private int hashLength = 4;
 
+    /**
+     * Paylaşım kaydının başlangıç kapasitesi. Çok sayıda paylaşım beklenen ortamlarda
+     * yeniden boyutlandırma maliyetini önlemek için yükseltilebilir.
+     */
+    private int registryInitialCapacity = 1024;
+
+    /**
+     * Sahibin yükleme bağlantısı koptuğunda, indirmenin açık tutulup aynı stream'e
+     * yeniden yükleme bekleneceği süre (saniye). 0 ise devam ettirme kapalıdır.
+     */
+    private long resumeGracePeriodSeconds = 30;
+
+    /**
+     * İndirme isteğinden sonra sahibin yükleme bağlantısını açması için beklenecek en uzun süre (saniye).
+     * Süre dolarsa indirme 504 ile sonlanır ve iş parçacığını bırakır. 0 ise süresiz beklenir.
+     */
+    private long pendingTimeoutSeconds = 60;
+
+    /**
+     * Toplu paylaşım isteğinde izin verilen en fazla dosya sayısı.
+     */
+    private int maxBatchSize = 1000;
+
+    /**
+     * Aktarım sırasında iletilen byte'lar üzerinde hesaplanan özet algoritması:
+     * xxhash64 (varsayılan, hızlı), sha-256 veya none.
+     */
+    private String digestAlgorithm = "xxhash64";
+
     /**
      * Kalp atışı tabanlı temizleme mekanizması ayarları.
      */
     private HeartbeatCleanupProperties heartbeat = new HeartbeatCleanupProperties();
 
+    /**
+     * HTTP/2 (h2 ve h2c) bağlantı ayarları. Yalnızca server.http2.enabled=true iken uygulanır.
+     */
+    private Http2Properties http2 = new Http2Properties();
+
+    /**
+     * STOMP WebSocket taşıma katmanı sınırları (SockJS ve yerel uç için ortak).
+     */
+    private WebSocketTransportProperties websocket = new WebSocketTransportProperties();
+
+    /**
+     * Aktarılan dosyaların alıcıya giderken sıkıştırılması ayarları.
+     */
+    private CompressionProperties compression = new CompressionProperties();
+
+    /**
+     * WebRTC sinyal servisi ayarları.
+     */
+    private SignalingProperties signaling = new SignalingProperties();
+
+    /**
+     * Aynı içerik özetini bildiren paylaşımlardan çok kaynaklı indirme ayarları.
+     */
+    private SwarmProperties swarm = new SwarmProperties();
+
+    /**
+     * Uzun aktarımların, kontrol isteklerinin ve WebSocket mesajlarının ayrı iş parçacığı havuzları.
+     */
+    private BulkheadProperties bulkhead = new BulkheadProperties();
+
+    /**
+     * Paylaşım hash'i tarayan istemcileri tespit edip hızlıca reddetme ayarları.
+     */
+    private LookupGuardProperties lookupGuard = new LookupGuardProperties();
+
+    /**
+     * Paylaşım kaydının yeniden başlatmalarda korunması için günlük ve anlık görüntü ayarları.
+     */
+    private PersistenceProperties persistence = new PersistenceProperties();
+
+    /**
+     * /file/upload ve /file/download uçlarını ayrı bir portta Reactor Netty ile sunan aktarım katmanı.
+     */
+    private NettyRelayProperties netty = new NettyRelayProperties();
+
+    /**
+     * Sahiplerin indirme isteği gelmeden önce açık tuttuğu yükleme yuvaları.
+     */
+    private UploadSlotProperties uploadSlots = new UploadSlotProperties();
+
+    /**
+     * Kapanış öncesi boşaltma (drain) modu: yeni işler reddedilir, süren aktarımlar tamamlanır.
+     */
+    private DrainProperties drain = new DrainProperties();
+
+    /**
+     * Aynı alıcıdan gelen eş zamanlı aynı indirme isteklerinin tek sahip yüklemesinde birleştirilmesi.
+     */
+    private CoalescingProperties coalescing = new CoalescingProperties();
+
     // Kaldırıldı: Eski inaktivite tabanlı temizleme ayarları
     // private InactivityCleanupProperties cleanup = new InactivityCleanupProperties();
 
@@ -41,6 +136,11 @@ public class FileShareProperties {
     @Getter
     @Setter
     public static class HeartbeatCleanupProperties {
+        /**
+         * Bayatlamış paylaşımları silen temizlik servisi çalışsın mı?
+         */
+        private boolean enabled = false;
+
         /**
          * Paylaşımın bayatlamış (stale) sayılması için son kalp atışından sonra geçmesi gereken süre (saniye).
          */
@@ -54,4 +154,391 @@ public class FileShareProperties {
         private long initialGracePeriodSeconds = 180;
     }
 
-}
\ No newline at end of file
+    @Getter
+    @Setter
+    public static class Http2Properties {
+        /**
+         * Stream başına başlangıç akış kontrolü penceresi (byte). Büyük dosya aktarımında
+         * varsayılan 64KB pencere, gecikmeli bağlantılarda throughput'u sınırlar.
+         */
+        private int initialWindowSize = 1024 * 1024;
+
+        /**
+         * Tek bağlantı üzerinde izin verilen eşzamanlı stream sayısı.
+         */
+        private long maxConcurrentStreams = 200;
+
+        /**
+         * Tek bağlantı üzerinde aynı anda işlenen stream sayısı. Yükleme ve indirme stream'leri
+         * uzun ömürlü olduğundan, sahibin paralel yüklemelerinin sıraya girmemesi için yüksek tutulur.
+         */
+        private int maxConcurrentStreamExecution = 200;
+
+        /**
+         * Bir stream'in okuma için bekleyebileceği süre (ms). Yavaş sahip bağlantılarında artırılabilir.
+         */
+        private long streamReadTimeoutMs = 60000;
+
+        /**
+         * Bir stream'in akış kontrolü penceresi açılana kadar yazma için bekleyebileceği süre (ms).
+         */
+        private long streamWriteTimeoutMs = 60000;
+
+        /**
+         * Küçük DATA çerçeveleri için kötüye kullanım eşiği (byte). Küçük parçalar gönderen
+         * istemcilerin bağlantısının kesilmemesi için 0 ile devre dışı bırakılabilir.
+         */
+        private int overheadDataThreshold = 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class AdaptiveBufferProperties {
+        /**
+         * Tampon boyutu stream başına ölçülen hıza göre seçilsin mi?
+         */
+        private boolean enabled = true;
+
+        /**
+         * İlk ölçüm yapılana kadar kullanılan boyut (byte).
+         */
+        private int initialSize = 64 * 1024;
+
+        /**
+         * En küçük tampon (byte). Bütçe dolu olsa bile her aktarıma verilir.
+         */
+        private int minSize = 8 * 1024;
+
+        /**
+         * En büyük tampon (byte).
+         */
+        private int maxSize = 1024 * 1024;
+
+        /**
+         * Bir tamponun aktarılması hedeflenen süre (ms). Boyut, hız × bu süre olarak seçilir.
+         */
+        private long targetChunkMillis = 20;
+
+        /**
+         * Hızın ölçülüp boyutun yeniden seçildiği aralık (ms).
+         */
+        private long sampleIntervalMs = 250;
+
+        /**
+         * Tüm aktarım tamponlarının toplam bellek bütçesi (byte). En küçük boyutun üzerindeki büyümeler bununla sınırlıdır.
+         */
+        private long memoryBudgetBytes = 256L * 1024 * 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class WebSocketTransportProperties {
+        /**
+         * Gelen bir STOMP mesajının en fazla boyutu (byte). Kalp atışları küçüktür; sınır SDP teklifleri
+         * için yeterli pay bırakır. Yerel uçta her oturum bu boyutta bir tampon ayırır.
+         */
+        private int messageSizeLimit = 16 * 1024;
+
+        /**
+         * Bir oturuma tek gönderimin sürebileceği en uzun süre (ms). Aşılırsa oturum kapatılır.
+         */
+        private int sendTimeLimitMs = 10000;
+
+        /**
+         * Gönderim sürerken oturum başına bekletilebilecek en fazla mesaj byte'ı. Aşan yavaş istemci
+         * sınırsız tamponlanmak yerine bağlantıdan düşürülür.
+         */
+        private int sendBufferSizeLimit = 512 * 1024;
+
+        /**
+         * Bağlantı açıldıktan sonra ilk STOMP çerçevesinin (CONNECT) beklenme süresi (ms).
+         */
+        private int timeToFirstMessageMs = 30000;
+    }
+
+    @Getter
+    @Setter
+    public static class CompressionProperties {
+        /**
+         * İstemci Accept-Encoding ile gzip kabul ettiğinde aktarımın sıkıştırılıp sıkıştırılmayacağı.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Bu boyutun (byte) altındaki dosyalar sıkıştırılmaz.
+         */
+        private long minSize = 1024;
+
+        /**
+         * gzip kodlayıcısının iç buffer boyutu (byte).
+         */
+        private int bufferSize = 8192;
+
+        /**
+         * İçerik tespiti için ilk parçadan incelenecek en fazla byte.
+         */
+        private int sniffBytes = 4096;
+
+        /**
+         * Bu değerin (byte başına bit, 0-8) üzerinde entropiye sahip içerik zaten sıkıştırılmış sayılır.
+         */
+        private double maxEntropyBitsPerByte = 7.5;
+    }
+
+    @Getter
+    @Setter
+    public static class SignalingProperties {
+        /**
+         * Eşlerin doğrudan veri kanalı kurabilmesi için STOMP üzerinden sinyal servisi aktif mi?
+         */
+        private boolean enabled = false;
+
+        /**
+         * Sonucu bildirilmeyen sinyal oturumlarının tutulacağı süre (saniye).
+         */
+        private long sessionTimeoutSeconds = 120;
+
+        /**
+         * Bir paylaşım için aynı anda açık olabilecek en fazla sinyal oturumu; aşan teklifler reddedilir.
+         */
+        private int maxSessionsPerShare = 16;
+
+        /**
+         * Bir istemci adresinin aynı anda açık tutabileceği en fazla sinyal oturumu.
+         */
+        private int maxSessionsPerIp = 8;
+    }
+
+    @Getter
+    @Setter
+    public static class SwarmProperties {
+        /**
+         * İçerik özeti eşleşen paylaşımlardan paralel aralık indirmesi aktif mi? Açıkken de yalnızca
+         * ?swarm=true ile istenen ve "sha256:" özeti bildiren paylaşımların indirmeleri çok kaynaklı yapılır.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Bu boyutun altındaki dosyalar tek kaynaktan indirilir (byte).
+         */
+        private long minSize = 16L * 1024 * 1024;
+
+        /**
+         * Paylaşımda bildirilebilecek en büyük parça boyutu (byte). Sahiplerden tek istekte bir parça
+         * istenir; indirme başına bellek kullanımı en fazla iki katı kaynak sayısı kadar parçadır ve
+         * aktarım tampon bütçesinden ayrılır.
+         */
+        private int maxPieceSize = 16 * 1024 * 1024;
+
+        /**
+         * Bir indirmede aynı anda kullanılacak en fazla kaynak sayısı.
+         */
+        private int maxSources = 4;
+
+        /**
+         * Bu süre boyunca ilerleme olmayan aralık başka bir kaynağa devredilir (ms).
+         */
+        private long stallTimeoutMs = 10000;
+
+        /**
+         * Kalan aralıkların hepsi dağıtılmışken, boştaki bir kaynağın hızının bu oranının
+         * altında kalan aralıklar boştaki kaynağa devredilir.
+         */
+        private double slowSourceRatio = 0.5;
+    }
+
+    @Getter
+    @Setter
+    public static class BulkheadProperties {
+        /**
+         * /file/download isteklerinin çalıştığı havuz. Tomcat havuzu yalnızca kısa süren kontrol
+         * isteklerine (share, info, stats) kalır.
+         */
+        private PoolProperties transfer = new PoolProperties(1000, 100);
+
+        /**
+         * /file/upload ve /file/upload-slot isteklerinin çalıştığı havuz. Her indirme bir yükleme
+         * beklediğinden en az transfer havuzu artı bekleyen yuva sayısı kadar olmalıdır.
+         */
+        private PoolProperties ownerUpload = new PoolProperties(1200, 100);
+
+        /**
+         * İstemciden gelen STOMP mesajlarının (kalp atışı, sinyal) işlendiği havuz.
+         */
+        private PoolProperties websocketInbound = new PoolProperties(
+                Math.max(4, Runtime.getRuntime().availableProcessors() * 2), 10000);
+    }
+
+    @Getter
+    @Setter
+    public static class PoolProperties {
+        /**
+         * Havuzdaki en fazla iş parçacığı sayısı.
+         */
+        private int maxThreads;
+
+        /**
+         * Tüm iş parçacıkları meşgulken bekletilecek en fazla iş sayısı.
+         */
+        private int queueCapacity;
+
+        /**
+         * Boşta kalan iş parçacıklarının kapatılmadan önce bekleyeceği süre (saniye).
+         */
+        private int keepAliveSeconds = 60;
+
+        public PoolProperties() {
+        }
+
+        public PoolProperties(int maxThreads, int queueCapacity) {
+            this.maxThreads = maxThreads;
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class LookupGuardProperties {
+        /**
+         * Bulunamayan hash isteklerinin istemci bazında sayılıp sınırlanması aktif mi?
+         */
+        private boolean enabled = true;
+
+        /**
+         * Bir istemcinin pencere içinde yapabileceği en fazla başarısız arama sayısı.
+         */
+        private int maxMisses = 30;
+
+        /**
+         * Başarısız aramaların sayıldığı pencere (saniye).
+         */
+        private long windowSeconds = 60;
+
+        /**
+         * Sınırı aşan istemcinin aramalarının 429 ile reddedileceği süre (saniye).
+         */
+        private long blockSeconds = 300;
+
+        /**
+         * Takip edilen en fazla istemci sayısı. Dolduğunda yeni istemciler sayılmaz.
+         */
+        private int maxTrackedClients = 100000;
+    }
+
+    @Getter
+    @Setter
+    public static class PersistenceProperties {
+        /**
+         * Paylaşım kaydı diske yazılıp açılışta geri yüklensin mi?
+         */
+        private boolean enabled = false;
+
+        /**
+         * Günlük ve anlık görüntü dosyalarının bulunduğu dizin.
+         */
+        private String directory = "data/registry";
+
+        /**
+         * Günlüğün sıkıştırılmış bir anlık görüntüye dönüştürülme aralığı (saniye).
+         */
+        private long snapshotIntervalSeconds = 300;
+
+        /**
+         * Günlük tamponunun diske yazılma aralığı (milisaniye). Çökmede en fazla bu kadarlık kayıt kaybolur.
+         */
+        private long flushIntervalMs = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class NettyRelayProperties {
+        /**
+         * Netty aktarım katmanı başlatılsın mı? netty profili ile açılır.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Netty aktarım katmanının dinlediği port. Kontrol uçları ve STOMP server.port üzerinde kalır.
+         */
+        private int port = 8081;
+
+        /**
+         * Olay döngüsü iş parçacığı sayısı. 0 ise işlemci çekirdeği sayısı kullanılır.
+         */
+        private int eventLoopThreads = 0;
+    }
+
+    @Getter
+    @Setter
+    public static class UploadSlotProperties {
+        /**
+         * Sahiplerin /file/upload-slot/{shareHash} ile yükleme yuvası açmasına izin verilsin mi?
+         */
+        private boolean enabled = true;
+
+        /**
+         * Paylaşım başına aynı anda bekleyebilecek en fazla yuva. Her bekleyen yuva aktarım
+         * havuzundan bir iş parçacığı tutar.
+         */
+        private int maxPerShare = 2;
+
+        /**
+         * Tüm paylaşımlarda aynı anda bekleyebilecek en fazla yuva. Bekleyen yuvaların aktarım havuzunu
+         * doldurup indirmeleri aç bırakmaması için bulkhead.transfer.max-threads değerinin epey altında
+         * tutulmalıdır.
+         */
+        private int maxTotal = 200;
+
+        /**
+         * İndirme gelmezse yuvanın bekleyeceği süre (saniye); süre dolunca 204 döner ve sahip yeni
+         * yuva açar.
+         */
+        private long parkTimeoutSeconds = 60;
+    }
+
+    @Getter
+    @Setter
+    public static class DrainProperties {
+        /**
+         * Uygulama kapanırken (ör. SIGTERM) önce boşaltma yapılsın mı? Kapalıysa süren aktarımlar kesilir.
+         */
+        private boolean onShutdown = true;
+
+        /**
+         * Süren aktarımların tamamlanması için beklenecek en uzun süre (saniye). Kalan aktarımlar
+         * raporlanır ve kapanış devam eder.
+         */
+        private long deadlineSeconds = 120;
+
+        /**
+         * Boşaltma sırasında reddedilen isteklere dönen Retry-After değeri (saniye).
+         */
+        private long retryAfterSeconds = 30;
+
+        /**
+         * POST /admin/drain için X-Admin-Token değeri. Boşsa uç kapalıdır; boşaltma yalnızca kapanışta başlar.
+         */
+        private String adminToken = "";
+    }
+
+    @Getter
+    @Setter
+    public static class CoalescingProperties {
+        /**
+         * Aynı paylaşım, IP, User-Agent ve Range ile gelen eş zamanlı indirmeler birleştirilsin mi?
+         */
+        private boolean enabled = true;
+
+        /**
+         * Öncü istekten sonra aynı isteklerin gruba katılabileceği süre (milisaniye). Sahipten ilk byte
+         * geldiğinde pencere süresinden önce kapanır.
+         */
+        private long joinWindowMs = 2000;
+
+        /**
+         * Grup başına tampon (byte). Yalnızca gruba izleyici katıldıysa kullanılır; en yavaş izleyici bu
+         * kadar geride kalırsa yükleme bekletilir.
+         */
+        private int bufferBytes = 2 * 1024 * 1024;
+    }
+}
@@ -0,0 +1,111 @@
+package com.codeyzer.p2p.config;
+
+import org.apache.coyote.Adapter;
+import org.apache.coyote.Request;
+import org.apache.coyote.http2.Http2AsyncUpgradeHandler;
+import org.apache.coyote.http2.Http2Protocol;
+import org.apache.coyote.http11.upgrade.InternalHttpUpgradeHandler;
+import org.apache.tomcat.util.net.SocketWrapperBase;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.Http2;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tomcat'in HTTP/2 protokolünü aktarım yüküne göre ayarlar. server.http2.enabled=true olduğunda Spring
+ * Boot'un eklediği Http2Protocol yerine (TLS olmadan h2c olarak) burada oluşturulan protokol bağlanır;
+ * akış kontrolü pencereleri ve eşzamanlılık limitleri file-share.http2 ayarlarından uygulanır.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "server.http2", name = "enabled", havingValue = "true")
+@Slf4j
+public class Http2Config {
+
+    // RFC 9113: bağlantı penceresinin başlangıç değeri; SETTINGS ile değiştirilemez
+    private static final int DEFAULT_CONNECTION_WINDOW_SIZE = 65535;
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> http2ProtocolCustomizer(
+            FileShareProperties fileShareProperties) {
+        FileShareProperties.Http2Properties settings = fileShareProperties.getHttp2();
+        return factory -> {
+            Http2 disabled = new Http2();
+            disabled.setEnabled(false);
+            factory.setHttp2(disabled);
+            factory.addConnectorCustomizers(connector -> connector.addUpgradeProtocol(createProtocol(settings)));
+        };
+    }
+
+    private static Http2Protocol createProtocol(FileShareProperties.Http2Properties settings) {
+        int connectionWindowSize = (int) Math.min(Integer.MAX_VALUE,
+                Math.max(1L, settings.getMaxConcurrentStreams()) * settings.getInitialWindowSize());
+        Http2Protocol http2Protocol = new ConnectionWindowHttp2Protocol(connectionWindowSize);
+        http2Protocol.setInitialWindowSize(settings.getInitialWindowSize());
+        http2Protocol.setMaxConcurrentStreams(settings.getMaxConcurrentStreams());
+        http2Protocol.setMaxConcurrentStreamExecution(settings.getMaxConcurrentStreamExecution());
+        http2Protocol.setStreamReadTimeout(settings.getStreamReadTimeoutMs());
+        http2Protocol.setStreamWriteTimeout(settings.getStreamWriteTimeoutMs());
+        http2Protocol.setOverheadDataThreshold(settings.getOverheadDataThreshold());
+        log.info("HTTP/2 configured: initialWindowSize={}, connectionWindowSize={}, maxConcurrentStreams={}, maxConcurrentStreamExecution={}",
+                settings.getInitialWindowSize(), connectionWindowSize, settings.getMaxConcurrentStreams(),
+                settings.getMaxConcurrentStreamExecution());
+        return http2Protocol;
+    }
+
+    /**
+     * Bağlantı düzeyindeki akış kontrolü penceresini stream pencerelerinin toplamı kadar açan protokol.
+     * Tomcat bağlantı penceresini stream penceresi kadar açar ve yalnızca uygulama gövdeyi okudukça
+     * yeniler; okunmayan tek bir gövde (alınmayı bekleyen bir yükleme yuvası, yavaş alıcıyı bekleyen bir
+     * yükleme) pencerenin tamamını tutar ve sahibin aynı bağlantıdaki diğer yüklemeleri ve istekleri
+     * durur. Tomcat alırken yalnızca stream pencerelerini denetlediğinden bellek kullanımı değişmez.
+     */
+    static class ConnectionWindowHttp2Protocol extends Http2Protocol {
+
+        private final int connectionWindowSize;
+
+        ConnectionWindowHttp2Protocol(int connectionWindowSize) {
+            this.connectionWindowSize = connectionWindowSize;
+        }
+
+        int getConnectionWindowSize() {
+            return connectionWindowSize;
+        }
+
+        @Override
+        public InternalHttpUpgradeHandler getInternalUpgradeHandler(SocketWrapperBase<?> socketWrapper,
+                                                                    Adapter adapter, Request coyoteRequest) {
+            if (!socketWrapper.hasAsyncIO()) {
+                // Senkron işleyici Tomcat dışından genişletilemez; pencere stream penceresi kadar kalır
+                return super.getInternalUpgradeHandler(socketWrapper, adapter, coyoteRequest);
+            }
+            return new Http2AsyncUpgradeHandler(this, adapter, coyoteRequest, socketWrapper) {
+                @Override
+                protected byte[] createWindowUpdateForSettings() {
+                    return connectionWindowUpdate(connectionWindowSize - DEFAULT_CONNECTION_WINDOW_SIZE);
+                }
+            };
+        }
+
+        /**
+         * Bağlantı (stream 0) için WINDOW_UPDATE çerçevesi; artış yoksa boş dizi
+         */
+        private static byte[] connectionWindowUpdate(int increment) {
+            if (increment <= 0) {
+                return new byte[0];
+            }
+            byte[] frame = new byte[13];
+            // Yük uzunluğu 4, tür WINDOW_UPDATE (0x8), bayrak yok, stream 0
+            frame[2] = 4;
+            frame[3] = 0x8;
+            frame[9] = (byte) ((increment >>> 24) & 0x7F);
+            frame[10] = (byte) (increment >>> 16);
+            frame[11] = (byte) (increment >>> 8);
+            frame[12] = (byte) increment;
+            return frame;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.codeyzer.p2p.config;
+
+import java.util.regex.Pattern;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.codeyzer.p2p.service.FileService;
+import com.codeyzer.p2p.service.relay.NettyRelayServer;
+
+/**
+ * file-share.netty.enabled=true (netty profili) olduğunda yükleme ve indirme uçlarını ayrıca Reactor Netty
+ * üzerinde sunar. Tomcat kontrol uçları, STOMP ve servlet aktarımları için çalışmaya devam eder.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "file-share.netty", name = "enabled", havingValue = "true")
+public class NettyRelayConfig {
+
+    @Bean
+    public NettyRelayServer nettyRelayServer(FileService fileService, FileShareProperties fileShareProperties,
+                                             CorsFilter corsFilter, ServerProperties serverProperties) {
+        // Tomcat ile aynı vekil sunucular güvenilir sayılır; native dışındaki stratejilerde başlık yok sayılır
+        Pattern trustedProxies = serverProperties.getForwardHeadersStrategy() == ServerProperties.ForwardHeadersStrategy.NATIVE
+                ? Pattern.compile(serverProperties.getTomcat().getRemoteip().getInternalProxies())
+                : null;
+        return new NettyRelayServer(fileService, fileShareProperties.getNetty(), corsFilter, trustedProxies);
+    }
+}
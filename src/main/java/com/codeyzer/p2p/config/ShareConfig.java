@@ -1,17 +1,47 @@
 package com.codeyzer.p2p.config;
 
-import com.codeyzer.p2p.dto.FileShareWrapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import com.codeyzer.p2p.service.ShareRegistry;
+import com.codeyzer.p2p.service.persistence.ShareJournal;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
 @Configuration
 public class ShareConfig {
 
+    /**
+     * Kayıt, web sunucusu başlatılmadan önce oluşturulduğundan geri yükleme port açılmadan tamamlanır
+     */
+    @Bean
+    public ShareRegistry shareRegistry(FileShareProperties fileShareProperties,
+                                       ObjectProvider<ShareJournal> shareJournal) {
+        ShareRegistry registry = new ShareRegistry(fileShareProperties.getRegistryInitialCapacity());
+        ShareJournal journal = shareJournal.getIfAvailable();
+        if (journal != null) {
+            try {
+                journal.restore(registry);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Paylaşım kaydı geri yüklenemedi", e);
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Geri yüklenen paylaşımlar yalnızca kalp atışı temizliğiyle silinir; temizlik kapalıyken sahibi
+     * dönmeyen paylaşımlar kayıtta ve diskte sonsuza kadar kalacağından uygulama başlatılmaz
+     */
     @Bean
-    public Map<String, FileShareWrapper> shareMap() {
-        return new ConcurrentHashMap<>();
+    @ConditionalOnProperty(prefix = "file-share.persistence", name = "enabled", havingValue = "true")
+    public ShareJournal shareJournal(FileShareProperties fileShareProperties) {
+        if (!fileShareProperties.getHeartbeat().isEnabled()) {
+            throw new IllegalStateException(
+                    "file-share.persistence.enabled için file-share.heartbeat.enabled=true gereklidir");
+        }
+        return new ShareJournal(fileShareProperties.getPersistence());
     }
 }
@@ -0,0 +1,47 @@
+package com.codeyzer.p2p.config;
+
+import java.io.IOException;
+
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.catalina.valves.ValveBase;
+import org.apache.coyote.ActionCode;
+import org.apache.coyote.CloseNowException;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletException;
+
+@Configuration
+public class TomcatConfig {
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> closeNowValveCustomizer() {
+        return factory -> factory.addContextValves(new CloseNowValve());
+    }
+
+    /**
+     * Uygulamanın fırlattığı {@link CloseNowException}'da bağlantıyı hemen kapattırır. Tomcat bu istisnayı
+     * yalnızca kendi yazması başarısız olduğunda bağlantı hatası sayar; uygulamadan gelen istisna sıradan
+     * bir hata gibi işlenir ve yanıt başlamış olsa da hata sayfası gövdenin sonuna eklenir. Hata durumu
+     * burada işaretlendiğinde hata sayfası yazılmaz, HTTP/1.1'de chunked sonlandırıcı gönderilmeden
+     * bağlantı kapanır, HTTP/2'de stream sıfırlanır.
+     */
+    static class CloseNowValve extends ValveBase {
+
+        CloseNowValve() {
+            super(true);
+        }
+
+        @Override
+        public void invoke(Request request, Response response) throws IOException, ServletException {
+            getNext().invoke(request, response);
+            if (request.getAttribute(RequestDispatcher.ERROR_EXCEPTION) instanceof CloseNowException e) {
+                response.getCoyoteResponse().action(ActionCode.CLOSE_NOW, e);
+            }
+        }
+    }
+}
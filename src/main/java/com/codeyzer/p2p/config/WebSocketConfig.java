@@ -1,10 +1,15 @@
 package com.codeyzer.p2p.config;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
 
 import lombok.RequiredArgsConstructor;
 
@@ -13,7 +18,15 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    /**
+     * SockJS olmadan doğrudan WebSocket üzerinden STOMP ucu; istemciler önce bunu denemelidir
+     */
+    public static final String NATIVE_ENDPOINT = "/ws";
+    public static final String SOCKJS_ENDPOINT = "/gs-guide-websocket";
+
     private final CorsProperties corsProperties;
+    private final FileShareProperties fileShareProperties;
+    private final ThreadPoolTaskExecutor websocketInboundExecutor;
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
@@ -21,15 +34,48 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Kalp atışları ve sinyal mesajları aktarımlardan bağımsız, sınırlı kuyruklu bir havuzda işlenir
+        registration.executor(websocketInboundExecutor);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        FileShareProperties.WebSocketTransportProperties settings = fileShareProperties.getWebsocket();
+        // Gönderim tamponu veya süresi aşılan oturum kapatılır; yavaş istemci için mesaj biriktirilmez
+        registration.setMessageSizeLimit(settings.getMessageSizeLimit())
+                .setSendTimeLimit(settings.getSendTimeLimitMs())
+                .setSendBufferSizeLimit(settings.getSendBufferSizeLimit())
+                .setTimeToFirstMessage(settings.getTimeToFirstMessageMs());
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
-        registry.addEndpoint("/gs-guide-websocket")
-               .setAllowedOrigins(
-                    corsProperties.getWebsocket().getAllowedOrigins()
-                        .toArray(new String[0])
-               )
+        String[] allowedOrigins = corsProperties.getWebsocket().getAllowedOrigins().toArray(new String[0]);
+
+        registry.addEndpoint(NATIVE_ENDPOINT)
+               .setAllowedOrigins(allowedOrigins)
+               .addInterceptors(new ClientIpHandshakeInterceptor());
+
+        // WebSocket kullanamayan istemciler için yedek
+        registry.addEndpoint(SOCKJS_ENDPOINT)
+               .setAllowedOrigins(allowedOrigins)
+               .addInterceptors(new ClientIpHandshakeInterceptor())
                .withSockJS()
                .setClientLibraryUrl("https://cdn.jsdelivr.net/npm/sockjs-client@1/dist/sockjs.min.js");
     }
 
+    /**
+     * Yerel uçta metin çerçevesi tamponunu STOMP mesaj sınırıyla eşitler. Tomcat bu tamponu her oturum
+     * için ayırdığından sınır oturum başına belleği doğrudan belirler; STOMP ikili çerçeve
+     * kullanmadığından ikili tampon varsayılanda bırakılır.
+     */
+    @Bean
+    public ServletServerContainerFactoryBean webSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(fileShareProperties.getWebsocket().getMessageSizeLimit());
+        return container;
+    }
+
 }
@@ -0,0 +1,46 @@
+package com.codeyzer.p2p.controller;
+
+import com.codeyzer.p2p.config.FileShareProperties;
+import com.codeyzer.p2p.service.drain.DrainService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+@Slf4j
+public class DrainController {
+
+    private final DrainService drainService;
+    private final FileShareProperties fileShareProperties;
+
+    /**
+     * Boşaltmayı başlatır; yük dengeleyiciden çıkarılmadan önce çağrılır. Token tanımlı değilse uç kapalıdır.
+     */
+    @PostMapping("/drain")
+    public Map<String, Object> drain(@RequestHeader(value = "X-Admin-Token", required = false) String adminToken) {
+        String expected = fileShareProperties.getDrain().getAdminToken();
+        if (expected == null || expected.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        if (adminToken == null || !MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                adminToken.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Unauthorized drain attempt");
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Yetkisiz işlem: Geçersiz yönetici tokenı");
+        }
+        drainService.start("admin");
+        return drainService.getStatus();
+    }
+
+    @GetMapping("/drain")
+    public Map<String, Object> getDrainStatus() {
+        return drainService.getStatus();
+    }
+}
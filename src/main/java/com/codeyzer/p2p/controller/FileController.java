@@ -1,16 +1,27 @@
 package com.codeyzer.p2p.controller;
 
+import com.codeyzer.p2p.dto.BatchShareRequestDTO;
+import com.codeyzer.p2p.dto.BatchShareResponseDTO;
+import com.codeyzer.p2p.dto.BatchUnshareRequestDTO;
+import com.codeyzer.p2p.dto.BundleShareRequestDTO;
+import com.codeyzer.p2p.dto.BundleShareResponseDTO;
 import com.codeyzer.p2p.dto.FileInfoDTO;
 import com.codeyzer.p2p.dto.ShareRequestDTO;
 import com.codeyzer.p2p.dto.ShareResponseDTO;
 import com.codeyzer.p2p.dto.UnshareRequestDTO;
 import com.codeyzer.p2p.service.FileService;
 import jakarta.servlet.http.HttpServletRequest;
+import com.codeyzer.p2p.service.lookup.StacklessStatusException;
+import com.codeyzer.p2p.service.monitoring.ExecutorPoolMonitor;
+import com.codeyzer.p2p.service.monitoring.PerformanceMonitorService;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
-import java.io.IOException;
 import java.util.Map;
 
 @RestController
@@ -18,42 +29,101 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class FileController {
 
+    // Aktarımların süresi sahibin bağlantısına bağlı olduğundan async zaman aşımı uygulanmaz
+    private static final long NO_TIMEOUT = -1L;
+
     private final FileService fileService;
+    private final ThreadPoolTaskExecutor transferExecutor;
+    private final ThreadPoolTaskExecutor ownerUploadExecutor;
+    private final ExecutorPoolMonitor executorPoolMonitor;
+    private final PerformanceMonitorService performanceMonitorService;
 
     @PostMapping("/share")
     public ShareResponseDTO share(@RequestBody ShareRequestDTO request) {
         return fileService.share(request);
     }
 
+    @PostMapping("/share/batch")
+    public BatchShareResponseDTO shareBatch(@RequestBody BatchShareRequestDTO request) {
+        return fileService.shareBatch(request);
+    }
+
+    @PostMapping("/share/bundle")
+    public BundleShareResponseDTO shareBundle(@RequestBody BundleShareRequestDTO request) {
+        return fileService.shareBundle(request);
+    }
+
     @PostMapping("/unshare")
     public void unshare(@RequestBody UnshareRequestDTO request) {
         fileService.unshare(request);
     }
 
+    @PostMapping("/unshare/batch")
+    public void unshareBatch(@RequestBody BatchUnshareRequestDTO request) {
+        fileService.unshareBatch(request);
+    }
+
     @PostMapping("/upload/{shareHash}/{streamHash}")
-    public void upload(
+    public WebAsyncTask<Void> upload(
             @PathVariable String shareHash, 
             @PathVariable String streamHash, 
-            HttpServletRequest request) throws IOException {
-        fileService.upload(shareHash, streamHash, request);
+            HttpServletRequest request) {
+        return new WebAsyncTask<>(NO_TIMEOUT, ownerUploadExecutor, () -> {
+            fileService.upload(shareHash, streamHash, request);
+            return null;
+        });
+    }
+
+    /**
+     * Sahibin yükleme yuvası. Süre dolarsa okunmamış gövde nedeniyle bağlantı kapatılır ve 204 döner;
+     * sahip yeni bir yuva açar.
+     */
+    @PostMapping("/upload-slot/{shareHash}")
+    public WebAsyncTask<ResponseEntity<Void>> uploadSlot(
+            @PathVariable String shareHash,
+            HttpServletRequest request) {
+        return new WebAsyncTask<>(NO_TIMEOUT, ownerUploadExecutor, () -> fileService.uploadSlot(shareHash, request)
+                ? ResponseEntity.ok().<Void>build()
+                : ResponseEntity.noContent().header(HttpHeaders.CONNECTION, "close").<Void>build());
     }
 
     @GetMapping("/download/{shareHash}")
-    public void download(
+    public WebAsyncTask<Void> download(
             @PathVariable String shareHash, 
             HttpServletRequest request, 
-            HttpServletResponse response) throws IOException, InterruptedException {
-        fileService.download(shareHash, request, response);
+            HttpServletResponse response) {
+        return new WebAsyncTask<>(NO_TIMEOUT, transferExecutor, () -> {
+            fileService.download(shareHash, request, response);
+            return null;
+        });
+    }
+    
+    @GetMapping("/stats/pools")
+    public Map<String, Object> getPoolStats() {
+        return executorPoolMonitor.getPoolStats();
+    }
+    
+    @GetMapping("/stats/global")
+    public Map<String, Object> getGlobalStats() {
+        return performanceMonitorService.getGlobalStats();
     }
     
     @GetMapping("/stats/{shareHash}")
-    public Map<String, Object> getStats(@PathVariable String shareHash) {
-        return fileService.getStats(shareHash);
+    public Map<String, Object> getStats(@PathVariable String shareHash, HttpServletRequest request) {
+        return fileService.getStats(shareHash, fileService.clientIp(request));
     }
 
     @GetMapping("/info/{hash}")
-    public FileInfoDTO getFileInfo(@PathVariable String hash) {
-        // Bu metodun FileService içinde tanımlanması gerekecek
-        return fileService.getFileInfo(hash);
+    public FileInfoDTO getFileInfo(@PathVariable String hash, HttpServletRequest request) {
+        return fileService.getFileInfo(hash, fileService.clientIp(request));
+    }
+
+    /**
+     * Bulunamayan paylaşım ve engellenen tarayıcı yanıtları, hata sayfası yönlendirmesi
+     * yapılmadan yalnızca durum kodu ve başlıklarla döner
+     */
+    @ExceptionHandler(StacklessStatusException.class)
+    public ResponseEntity<Void> handleStacklessStatus(StacklessStatusException e) {
+        return ResponseEntity.status(e.getStatusCode()).headers(e.getHeaders()).build();
     }
 }
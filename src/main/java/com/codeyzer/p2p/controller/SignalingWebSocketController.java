@@ -0,0 +1,49 @@
+package com.codeyzer.p2p.controller;
+
+import com.codeyzer.p2p.config.ClientIpHandshakeInterceptor;
+import com.codeyzer.p2p.dto.SignalMessageDTO;
+import com.codeyzer.p2p.dto.SignalResultDTO;
+import com.codeyzer.p2p.service.SignalingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Controller;
+
+/**
+ * WebRTC sinyal mesajlarını (SDP ve ICE) alır. Doğrudan bağlantı kurulamadığında
+ * istemciler mevcut HTTP indirme/yükleme akışını kullanmaya devam eder.
+ */
+@Controller
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "file-share.signaling", name = "enabled", havingValue = "true")
+public class SignalingWebSocketController {
+
+    private final SignalingService signalingService;
+
+    @MessageMapping("/p2p/signal/offer") // İndiren taraf: /app/p2p/signal/offer
+    public void handleOffer(@Payload SignalMessageDTO message, SimpMessageHeaderAccessor headerAccessor) {
+        Object ip = headerAccessor.getSessionAttributes() != null
+                ? headerAccessor.getSessionAttributes().get(ClientIpHandshakeInterceptor.CLIENT_IP_ATTRIBUTE)
+                : null;
+        signalingService.offer(message, ip != null ? ip.toString() : "");
+    }
+
+    @MessageMapping("/p2p/signal/answer") // Paylaşım sahibi: /app/p2p/signal/answer
+    public void handleAnswer(@Payload SignalMessageDTO message) {
+        signalingService.answer(message);
+    }
+
+    @MessageMapping("/p2p/signal/candidate") // Her iki taraf: /app/p2p/signal/candidate
+    public void handleCandidate(@Payload SignalMessageDTO message) {
+        signalingService.candidate(message);
+    }
+
+    @MessageMapping("/p2p/signal/result") // İndiren taraf: /app/p2p/signal/result
+    public void handleResult(@Payload SignalResultDTO result) {
+        signalingService.result(result);
+    }
+}
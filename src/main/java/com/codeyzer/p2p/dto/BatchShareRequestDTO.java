@@ -0,0 +1,15 @@
+package com.codeyzer.p2p.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchShareRequestDTO {
+
+    private List<ShareRequestDTO> files;
+}
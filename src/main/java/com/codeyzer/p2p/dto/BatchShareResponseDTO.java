@@ -0,0 +1,17 @@
+package com.codeyzer.p2p.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchShareResponseDTO {
+
+    // İstekteki dosya sırasıyla aynı sırada
+    private List<String> shareHashes;
+    private String ownerToken;
+}
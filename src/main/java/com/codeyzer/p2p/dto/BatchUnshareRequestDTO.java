@@ -0,0 +1,16 @@
+package com.codeyzer.p2p.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchUnshareRequestDTO {
+
+    private List<String> shareHashes;
+    private String ownerToken;
+}
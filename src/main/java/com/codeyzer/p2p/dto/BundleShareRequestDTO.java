@@ -0,0 +1,17 @@
+package com.codeyzer.p2p.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BundleShareRequestDTO {
+
+    // İndirilecek ZIP arşivinin adı
+    private String filename;
+    private List<ShareRequestDTO> files;
+}
@@ -0,0 +1,19 @@
+package com.codeyzer.p2p.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BundleShareResponseDTO {
+
+    // ZIP olarak indirilecek paket paylaşımının hash'i
+    private String shareHash;
+    // Paket içindeki dosyaların paylaşım hash'leri, istekteki sırayla
+    private List<String> shareHashes;
+    private String ownerToken;
+}
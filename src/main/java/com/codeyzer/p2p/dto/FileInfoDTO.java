@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+/**
+ * /file/info yanıtı. Paylaşım oluşturulurken bir kez hazırlanır ve her istekte aynı nesne döner.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -11,5 +14,7 @@ public class FileInfoDTO {
     private String fileName;
     private long fileSize;
     private String fileType;
+    // Son tamamlanan aktarımın içerik özeti ("algoritma=hex"), henüz aktarım yoksa null
+    private String contentDigest;
     // İsteğe bağlı olarak başka alanlar da eklenebilir
 } 
\ No newline at end of file
@@ -1,24 +1,242 @@
 package com.codeyzer.p2p.dto;
 
-import lombok.*;
+import lombok.AccessLevel;
+import lombok.Getter;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
 
+/**
+ * Paylaşım kaydı. Milyonlarca boşta paylaşımı küçük bir heap ile tutabilmek için
+ * alanlar primitive tutulur; sahip tokenı iki long olarak saklanır ve stream tablosu
+ * yalnızca ilk indirme isteğinde oluşturulur. Dosya adı ve boyutu, /file/info yanıtı olarak
+ * paylaşım anında bir kez oluşturulan {@link FileInfoDTO} içinde tutulur.
+ */
 @Getter
-@Setter
-@NoArgsConstructor
-@AllArgsConstructor
-@Builder
 public class FileShareWrapper {
 
-    private String filename;
-    private Long size;
-    private Map<String, FileStreamWrapper> streamMap;
+    private static final int INITIAL_STREAM_CAPACITY = 2;
 
-    @Builder.Default
-    private final long creationTimestamp = 0L;
-    private long lastHeartbeatTimestamp;
-    
-    @Builder.Default
-    private final String ownerToken = "";
+    private final long creationTimestamp;
+
+    // /file/info yanıtı; içerik özeti değiştiğinde yenisiyle değiştirilir, yerinde değiştirilmez
+    private volatile FileInfoDTO info;
+
+    @Getter(AccessLevel.NONE)
+    private volatile long lastHeartbeatTimestamp;
+
+    // Toplu paylaşımlarda kalp atışı grup üzerinden tutulur, tekil paylaşımlarda null
+    @Getter(AccessLevel.NONE)
+    private final ShareGroup group;
+
+    @Getter(AccessLevel.NONE)
+    private final long ownerTokenMsb;
+    @Getter(AccessLevel.NONE)
+    private final long ownerTokenLsb;
+
+    // Sahibin bildirdiği içerik özeti; aynı özete sahip paylaşımlar çok kaynaklı indirmede birlikte kullanılır
+    private final String contentHash;
+
+    // Çok kaynaklı indirmede aralıkların doğrulandığı parça özetleri; bildirilmediyse null
+    private final PieceHashes pieceHashes;
+
+    // Paket (ZIP) paylaşımlarında sırasıyla üye paylaşım hash'leri, normal paylaşımlarda null
+    @Getter(AccessLevel.NONE)
+    private final String[] memberHashes;
+
+    // Boşta paylaşımlar için null kalır, erişim this üzerinden senkronize edilir
+    @Getter(AccessLevel.NONE)
+    private FileStreamWrapper[] streams;
+    @Getter(AccessLevel.NONE)
+    private int streamCount;
+
+    public FileShareWrapper(String filename, long size, long creationTimestamp, UUID ownerToken) {
+        this(filename, size, creationTimestamp, ownerToken, null);
+    }
+
+    public FileShareWrapper(String filename, long size, long creationTimestamp, UUID ownerToken, ShareGroup group) {
+        this(filename, size, creationTimestamp, ownerToken, group, null);
+    }
+
+    public FileShareWrapper(String filename, long size, long creationTimestamp, UUID ownerToken, ShareGroup group,
+                            List<String> memberHashes) {
+        this(filename, size, creationTimestamp, ownerToken, group, memberHashes, null);
+    }
+
+    public FileShareWrapper(String filename, long size, long creationTimestamp, UUID ownerToken, ShareGroup group,
+                            List<String> memberHashes, String contentHash) {
+        this(filename, size, creationTimestamp, ownerToken, group, memberHashes, contentHash, null);
+    }
+
+    public FileShareWrapper(String filename, long size, long creationTimestamp, UUID ownerToken, ShareGroup group,
+                            List<String> memberHashes, String contentHash, PieceHashes pieceHashes) {
+        this.info = new FileInfoDTO(filename, size, fileTypeOf(filename), null);
+        this.creationTimestamp = creationTimestamp;
+        this.lastHeartbeatTimestamp = creationTimestamp;
+        this.ownerTokenMsb = ownerToken.getMostSignificantBits();
+        this.ownerTokenLsb = ownerToken.getLeastSignificantBits();
+        this.group = group;
+        this.memberHashes = memberHashes != null ? memberHashes.toArray(new String[0]) : null;
+        this.contentHash = contentHash;
+        this.pieceHashes = pieceHashes;
+    }
+
+    public String getFilename() {
+        return info.getFileName();
+    }
+
+    public long getSize() {
+        return info.getFileSize();
+    }
+
+    /**
+     * Son tamamlanan aktarımda hesaplanan içerik özeti ("algoritma=hex"), henüz yoksa null
+     */
+    public String getContentDigest() {
+        return info.getContentDigest();
+    }
+
+    public void setContentDigest(String contentDigest) {
+        FileInfoDTO current = info;
+        if (!Objects.equals(current.getContentDigest(), contentDigest)) {
+            info = new FileInfoDTO(current.getFileName(), current.getFileSize(), current.getFileType(), contentDigest);
+        }
+    }
+
+    /**
+     * Dosya adının uzantısı; uzantı yoksa "unknown". Farklı uzantı sayısı az olduğundan
+     * değerler paylaşımlar arasında ortak tutulur.
+     */
+    private static String fileTypeOf(String filename) {
+        int lastDotIndex = filename.lastIndexOf('.');
+        if (lastDotIndex > 0 && lastDotIndex < filename.length() - 1) {
+            return filename.substring(lastDotIndex + 1).intern();
+        }
+        return "unknown";
+    }
+
+    public boolean isBundle() {
+        return memberHashes != null;
+    }
+
+    /**
+     * Paket paylaşımının üye hash'lerini ZIP içindeki sırasıyla döndürür
+     */
+    public List<String> getMemberHashes() {
+        return memberHashes != null ? List.of(memberHashes) : List.of();
+    }
+
+    public long getLastHeartbeatTimestamp() {
+        return group != null ? group.getLastHeartbeatTimestamp() : lastHeartbeatTimestamp;
+    }
+
+    public void setLastHeartbeatTimestamp(long timestamp) {
+        if (group != null) {
+            group.setLastHeartbeatTimestamp(timestamp);
+        } else {
+            lastHeartbeatTimestamp = timestamp;
+        }
+    }
+
+    /**
+     * Toplu veya paket paylaşımı olarak kalp atışını bir grupla ortak tutuyorsa true
+     */
+    public boolean isGrouped() {
+        return group != null;
+    }
+
+    /**
+     * Sahip tokenını UUID metni olarak döndürür
+     */
+    public String getOwnerToken() {
+        return getOwnerTokenUuid().toString();
+    }
+
+    public UUID getOwnerTokenUuid() {
+        return new UUID(ownerTokenMsb, ownerTokenLsb);
+    }
+
+    /**
+     * Verilen tokenın bu paylaşımın sahibine ait olup olmadığını kontrol eder
+     * @param token İstemcinin gönderdiği token, geçersiz formatta ise eşleşmez
+     */
+    public boolean isOwner(String token) {
+        if (token == null) {
+            return false;
+        }
+        try {
+            UUID uuid = UUID.fromString(token);
+            return uuid.getMostSignificantBits() == ownerTokenMsb
+                    && uuid.getLeastSignificantBits() == ownerTokenLsb;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Stream'i tabloya ekler
+     * @return Aynı hash ile kayıtlı bir stream varsa false
+     */
+    public synchronized boolean addStream(FileStreamWrapper stream) {
+        if (indexOf(stream.getStreamHash()) >= 0) {
+            return false;
+        }
+        if (streams == null) {
+            streams = new FileStreamWrapper[INITIAL_STREAM_CAPACITY];
+        } else if (streamCount == streams.length) {
+            streams = Arrays.copyOf(streams, streamCount * 2);
+        }
+        streams[streamCount++] = stream;
+        return true;
+    }
+
+    public synchronized FileStreamWrapper getStream(String streamHash) {
+        int index = indexOf(streamHash);
+        return index >= 0 ? streams[index] : null;
+    }
+
+    /**
+     * Stream'i tablodan çıkarır; tablo boşalırsa bellek geri verilir
+     */
+    public synchronized FileStreamWrapper removeStream(String streamHash) {
+        int index = indexOf(streamHash);
+        if (index < 0) {
+            return null;
+        }
+        FileStreamWrapper removed = streams[index];
+        streamCount--;
+        streams[index] = streams[streamCount];
+        streams[streamCount] = null;
+        if (streamCount == 0) {
+            streams = null;
+        }
+        return removed;
+    }
+
+    public synchronized int getActiveStreamCount() {
+        return streamCount;
+    }
+
+    /**
+     * Aktif stream'lerin anlık kopyasını döndürür
+     */
+    public synchronized List<FileStreamWrapper> getStreams() {
+        List<FileStreamWrapper> snapshot = new ArrayList<>(streamCount);
+        for (int i = 0; i < streamCount; i++) {
+            snapshot.add(streams[i]);
+        }
+        return snapshot;
+    }
+
+    private int indexOf(String streamHash) {
+        for (int i = 0; i < streamCount; i++) {
+            if (streams[i].getStreamHash().equals(streamHash)) {
+                return i;
+            }
+        }
+        return -1;
+    }
 }
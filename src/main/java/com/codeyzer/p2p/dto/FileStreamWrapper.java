@@ -1,7 +1,11 @@
 package com.codeyzer.p2p.dto;
 
+import com.codeyzer.p2p.service.digest.StreamDigest;
+import com.codeyzer.p2p.service.monitoring.event.OwnerConnectedEvent;
+import com.codeyzer.p2p.service.monitoring.event.StreamPendingEvent;
 import lombok.*;
 
+import java.io.Closeable;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.concurrent.CountDownLatch;
@@ -13,8 +17,160 @@ import java.util.concurrent.CountDownLatch;
 @Builder
 public class FileStreamWrapper {
 
+    public static final int STATUS_FAILED = -1;
+    public static final int STATUS_PENDING = 0;
+    public static final int STATUS_COMPLETED = 1;
+    public static final int STATUS_SUSPENDED = 2;
+
+    private String streamHash;
+    // Sahibe bildirimlerin gönderildiği paylaşım hash'i (/topic/{topic})
+    private String topic;
     private CountDownLatch latch;
     private InputStream inputStream;
     private OutputStream outputStream;
-    private int status;
+    // Stream Netty aktarım katmanında açıldıysa alıcı bağlantısı; paylaşım kapatılırken kapatılır.
+    // Bu stream'lere servlet üzerinden yükleme yapılamaz. Stream paylaşıma eklendikten sonra atanıp
+    // yüklemenin olay döngüsünden okunduğundan volatile'dır.
+    private volatile Closeable relay;
+    private volatile int status;
+
+    // Sahipten istenen bölümün dosyadaki başlangıcı ve uzunluğu; tüm dosya isteniyorsa 0 ve dosya boyutu
+    private long offset;
+    private long length;
+    // Çok kaynaklı indirmede yalnızca bir aralık istendiyse true
+    private boolean range;
+    // Sahibin bekleyen bir yükleme yuvasına bağlandıysa true
+    private boolean slotted;
+
+    // Alıcıya iletilen byte sayısı (offset'e göre); sahip yeniden bağlandığında buradan devam edilir
+    private volatile long bytesDelivered;
+
+    // Yüklemenin kullandığı güncel tampon boyutu ve son ölçülen hız (byte/sn); yükleme yokken 0
+    private volatile int bufferSize;
+    private volatile long throughputBytesPerSecond;
+
+    // Alıcıya iletilen byte'ların artımlı özeti, özet kapalıysa null
+    private StreamDigest digest;
+
+    // Askıya alınmış stream'in yeniden yükleme için beklediği son an (epoch ms)
+    private long resumeDeadline;
+    // Sahibin ilk yükleme bağlantısını açması gereken son an (epoch ms); sınır yoksa veya yükleme bağlandıysa 0
+    private long pendingDeadline;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean uploadActive;
+    // Her bağlanan yükleme bağlantısına verilen sıra numarası; alıcıya yalnızca güncel bağlantı yazabilir
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int uploadGeneration;
+    // Alıcıya bir parçanın yazılması ile yüklemenin başka bağlantıya devri bu kilitle sıralanır
+    private final Object writeLock = new Object();
+
+    // JFR olayları; indirme isteği anında başlatılır
+    private StreamPendingEvent pendingEvent;
+    private OwnerConnectedEvent ttfbEvent;
+
+    /**
+     * Stream'e bir yükleme bağlantısı bağlar. Devralmada eski bağlantının sürmekte olan yazması beklenir,
+     * okuduğu akış kapatılır ve o andan sonra alıcıya yazamaz.
+     * @param takeOver Aktif bir yükleme varsa yerine geçilsin mi (sahibin X-Upload-Offset ile yeniden bağlanması)
+     * @return Bağlantının sıra numarası; başka bir yükleme aktifken devralınmıyorsa veya stream sonlanmışsa -1
+     */
+    public int attachUpload(boolean takeOver) {
+        InputStream stale;
+        int generation;
+        synchronized (writeLock) {
+            synchronized (this) {
+                if ((uploadActive && !takeOver) || status == STATUS_COMPLETED || status == STATUS_FAILED) {
+                    return -1;
+                }
+                stale = uploadActive ? inputStream : null;
+                uploadActive = true;
+                pendingDeadline = 0;
+                status = STATUS_PENDING;
+                generation = ++uploadGeneration;
+            }
+        }
+        forceClose(stale);
+        return generation;
+    }
+
+    /**
+     * @return Bağlantı yükleme başka bir bağlantıya devredilmediyse true
+     */
+    public synchronized boolean isCurrentUpload(int generation) {
+        return generation == uploadGeneration;
+    }
+
+    /**
+     * Yükleme bağlantısı koptuğunda stream'i yeniden bağlanma için askıya alır
+     * @return Stream bu arada sonlandırılmışsa veya yükleme başka bir bağlantıya devredildiyse false
+     */
+    public synchronized boolean suspend(long deadline, int generation) {
+        if (generation != uploadGeneration) {
+            return false;
+        }
+        uploadActive = false;
+        if (status == STATUS_FAILED) {
+            return false;
+        }
+        status = STATUS_SUSPENDED;
+        resumeDeadline = deadline;
+        return true;
+    }
+
+    /**
+     * Yükleme bağlantısını ayırır; yükleme başka bir bağlantıya devredildiyse stream'e dokunulmaz
+     * @return Bağlantı ayrıldıysa true
+     */
+    public synchronized boolean detachUpload(int generation) {
+        if (generation != uploadGeneration) {
+            return false;
+        }
+        uploadActive = false;
+        return true;
+    }
+
+    public synchronized void detachUpload() {
+        uploadActive = false;
+    }
+
+    /**
+     * Aktarımı sonlandırır: yükleme, alıcı ve Netty bağlantıları kapatılır, stream başarısız olarak
+     * işaretlenir ve bekleyen indirme serbest bırakılır
+     */
+    public void abort() {
+        forceClose(inputStream);
+        forceClose(outputStream);
+        forceClose(relay);
+        status = STATUS_FAILED;
+        if (latch != null) {
+            latch.countDown();
+        }
+    }
+
+    private static void forceClose(Closeable closeable) {
+        try {
+            if (closeable != null) {
+                closeable.close();
+            }
+        } catch (Exception ignored) {
+            // Hata durumunda sessizce devam et
+        }
+    }
+
+    /**
+     * Yeniden bağlanma süresi dolmuş askıdaki veya sahibin süresinde bağlanmadığı stream'i başarısız
+     * olarak işaretler
+     * @return Süre dolduysa ve stream sonlandırıldıysa true
+     */
+    public synchronized boolean expireIfDue(long now) {
+        if ((status == STATUS_SUSPENDED && now > resumeDeadline)
+                || (status == STATUS_PENDING && pendingDeadline > 0 && now > pendingDeadline)) {
+            status = STATUS_FAILED;
+            return true;
+        }
+        return false;
+    }
 }
@@ -0,0 +1,53 @@
+package com.codeyzer.p2p.dto;
+
+import java.util.Arrays;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Sahibin bildirdiği parça özetleri. Dosya pieceSize byte'lık parçalara bölünür (son parça kısa
+ * olabilir) ve her parçanın SHA-256 özeti sırayla tek bir dizide tutulur. Çok kaynaklı indirmede
+ * her aralık alıcıya yazılmadan önce bu özetlerle doğrulanır.
+ */
+@Getter
+public class PieceHashes {
+
+    public static final int DIGEST_LENGTH = 32;
+
+    private final int pieceSize;
+
+    @Getter(AccessLevel.NONE)
+    private final byte[] digests;
+
+    /**
+     * @param digests Parça özetlerinin art arda eklenmiş hali; uzunluğu {@link #DIGEST_LENGTH}'in katı olmalıdır
+     */
+    public PieceHashes(int pieceSize, byte[] digests) {
+        if (pieceSize <= 0 || digests.length == 0 || digests.length % DIGEST_LENGTH != 0) {
+            throw new IllegalArgumentException("Geçersiz parça özetleri");
+        }
+        this.pieceSize = pieceSize;
+        this.digests = digests;
+    }
+
+    public int getCount() {
+        return digests.length / DIGEST_LENGTH;
+    }
+
+    /**
+     * @return Parçanın SHA-256 özeti bildirilenle eşleşiyorsa true
+     */
+    public boolean matches(int index, byte[] sha256) {
+        int from = index * DIGEST_LENGTH;
+        return sha256.length == DIGEST_LENGTH
+                && Arrays.equals(digests, from, from + DIGEST_LENGTH, sha256, 0, DIGEST_LENGTH);
+    }
+
+    /**
+     * Kalıcı kayıt için özetlerin kopyası
+     */
+    public byte[] toByteArray() {
+        return digests.clone();
+    }
+}
@@ -0,0 +1,20 @@
+package com.codeyzer.p2p.dto;
+
+import lombok.*;
+
+/**
+ * Sunucu boşaltma moduna geçtiğinde /topic/{shareHash} üzerinden sahibe gönderilir. Sahip süren
+ * yüklemelerini bitirir, ardından yük dengeleyici üzerinden yeniden bağlanıp paylaşımı sürdürür.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconnectHintDTO {
+
+    @Builder.Default
+    private String type = "reconnect";
+    private String shareHash;
+    private long retryAfterSeconds;
+}
@@ -0,0 +1,19 @@
+package com.codeyzer.p2p.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Toplu paylaşımla oluşturulan paylaşımların ortak kalp atışı kaydı.
+ * Gruptaki herhangi bir paylaşım için gelen kalp atışı tüm grubu canlı tutar.
+ */
+@Getter
+@Setter
+public class ShareGroup {
+
+    private volatile long lastHeartbeatTimestamp;
+
+    public ShareGroup(long creationTimestamp) {
+        this.lastHeartbeatTimestamp = creationTimestamp;
+    }
+}
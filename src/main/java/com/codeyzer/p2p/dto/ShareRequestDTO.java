@@ -2,6 +2,8 @@ package com.codeyzer.p2p.dto;
 
 import lombok.*;
 
+import java.util.List;
+
 @Getter
 @Setter
 @NoArgsConstructor
@@ -11,4 +13,9 @@ public class ShareRequestDTO {
 
     private String filename;
     private Long size;
+    // İsteğe bağlı içerik özeti; aynı özeti bildiren paylaşımlar birlikte kaynak olarak kullanılabilir
+    private String contentHash;
+    // Çok kaynaklı indirme için isteğe bağlı parça boyutu ve sırayla her parçanın SHA-256 özeti (hex)
+    private Integer pieceSize;
+    private List<String> pieceHashes;
 }
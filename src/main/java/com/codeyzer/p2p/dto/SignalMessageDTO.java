@@ -0,0 +1,33 @@
+package com.codeyzer.p2p.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.Map;
+
+/**
+ * WebRTC sinyal mesajı (SDP offer/answer ve ICE adayları). İndiren taraf mesajları
+ * /topic/signal/{sessionId} üzerinden, sahip ise /topic/{shareHash} üzerinden alır.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SignalMessageDTO {
+
+    // rtc-offer, rtc-answer, rtc-candidate veya rtc-rejected
+    private String type;
+    private String shareHash;
+    // İndiren tarafın oluşturduğu oturum kimliği
+    private String sessionId;
+    private String sdp;
+    // RTCIceCandidateInit (candidate, sdpMid, sdpMLineIndex)
+    private Map<String, Object> candidate;
+    // Yalnızca sahipten gelen mesajlarda; iletilen mesajlara eklenmez
+    private String ownerToken;
+    // Yalnızca rtc-rejected mesajlarında; HTTP karşılığı durum kodu ve açıklama
+    private Integer status;
+    private String reason;
+}
@@ -0,0 +1,21 @@
+package com.codeyzer.p2p.dto;
+
+import lombok.*;
+
+/**
+ * İndiren tarafın, sinyal oturumunun sonucunu (doğrudan bağlantı kurulup kurulamadığını) bildirdiği mesaj
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SignalResultDTO {
+
+    private String shareHash;
+    private String sessionId;
+    // Veri kanalı üzerinden doğrudan aktarım yapıldıysa true, HTTP aktarımına dönüldüyse false
+    private boolean direct;
+    // İstemcinin bildirdiği doğrudan aktarılan byte sayısı; doğrulanamadığından metriklerde paylaşım boyutu kullanılır
+    private long bytes;
+}
@@ -1,5 +1,6 @@
 package com.codeyzer.p2p.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 @Getter
@@ -7,9 +8,13 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class SocketShareDTO {
 
     private String shareHash;
     private String streamHash;
     private String ip;
+    // Çok kaynaklı indirmelerde istenen byte aralığı; tüm dosya isteniyorsa null
+    private Long offset;
+    private Long length;
 }
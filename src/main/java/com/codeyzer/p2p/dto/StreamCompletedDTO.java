@@ -0,0 +1,22 @@
+package com.codeyzer.p2p.dto;
+
+import lombok.*;
+
+/**
+ * Bir aktarım alıcıya eksiksiz iletildiğinde /topic/{shareHash} üzerinden sahibe gönderilir.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StreamCompletedDTO {
+
+    @Builder.Default
+    private String type = "complete";
+    private String shareHash;
+    private String streamHash;
+    private long bytes;
+    // İletilen byte'ların özeti ("algoritma=hex"), özet kapalıysa null
+    private String digest;
+}
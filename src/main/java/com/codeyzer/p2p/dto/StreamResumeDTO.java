@@ -0,0 +1,21 @@
+package com.codeyzer.p2p.dto;
+
+import lombok.*;
+
+/**
+ * Sahibin yükleme bağlantısı koptuğunda /topic/{shareHash} üzerinden gönderilir.
+ * Sahip aynı streamHash'e offset'ten itibaren yeni bir yükleme başlatır.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StreamResumeDTO {
+
+    @Builder.Default
+    private String type = "resume";
+    private String shareHash;
+    private String streamHash;
+    private long offset;
+}
@@ -0,0 +1,21 @@
+package com.codeyzer.p2p.dto;
+
+import lombok.*;
+
+/**
+ * Bir indirme sahibin bekleyen yükleme yuvasına bağlandığında /topic/{shareHash} üzerinden gönderilir.
+ * Yuvadaki gövde zaten aktarılmaktadır; sahip yalnızca yerine yeni bir yuva açar.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSlotClaimedDTO {
+
+    @Builder.Default
+    private String type = "slot-claimed";
+    private String shareHash;
+    private String streamHash;
+    private String ip;
+}
@@ -4,7 +4,6 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -14,6 +13,7 @@ import org.springframework.stereotype.Service;
 import com.codeyzer.p2p.config.FileShareProperties;
 import com.codeyzer.p2p.dto.FileShareWrapper;
 import com.codeyzer.p2p.dto.UnshareRequestDTO;
+import com.codeyzer.p2p.service.monitoring.event.HeartbeatExpiredEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -23,7 +23,7 @@ import lombok.extern.slf4j.Slf4j;
 @ConditionalOnProperty(prefix = "file-share.heartbeat", name = "enabled", havingValue = "true")
 public class CleanupService {
 
-    private final Map<String, FileShareWrapper> shareMap;
+    private final ShareRegistry shareRegistry;
     private final FileService fileService;
     private final FileShareProperties fileShareProperties;
     
@@ -36,7 +36,7 @@ public class CleanupService {
 
         List<String> removedShareHashes = new ArrayList<>();
 
-        shareMap.forEach((hash, shareWrapper) -> {
+        shareRegistry.forEach((hash, shareWrapper) -> {
             boolean isStale = false;
             long lastHeartbeat = shareWrapper.getLastHeartbeatTimestamp(); 
             long creationTime = shareWrapper.getCreationTimestamp();     
@@ -55,7 +55,15 @@ public class CleanupService {
             }
 
             if (isStale) {
-                if (shareWrapper.getStreamMap() == null || shareWrapper.getStreamMap().isEmpty()) {
+                HeartbeatExpiredEvent event = new HeartbeatExpiredEvent();
+                if (event.shouldCommit()) {
+                    event.shareHash = hash;
+                    event.neverReceived = lastHeartbeat == 0L;
+                    event.silenceMillis = currentTimeMillis - (lastHeartbeat == 0L ? creationTime : lastHeartbeat);
+                    event.commit();
+                }
+
+                if (shareWrapper.getActiveStreamCount() == 0) {
                     log.info("Attempting to unshare stale share: {}", hash);
                     try {
                         fileService.unshare(UnshareRequestDTO.builder().shareHash(hash).ownerToken(shareWrapper.getOwnerToken()).build());
@@ -65,7 +73,7 @@ public class CleanupService {
                         log.error("Error while unsharing stale share '{}': {}", hash, e.getMessage(), e);
                     }
                 } else {
-                    log.info("Share '{}' is stale but has {} active streams. Skipping cleanup for now.", hash, shareWrapper.getStreamMap().size());
+                    log.info("Share '{}' is stale but has {} active streams. Skipping cleanup for now.", hash, shareWrapper.getActiveStreamCount());
                 }
             }
         });
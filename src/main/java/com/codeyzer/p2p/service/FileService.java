@@ -4,26 +4,61 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
+import org.apache.commons.io.IOUtils;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 
+import com.codeyzer.p2p.dto.BatchShareRequestDTO;
+import com.codeyzer.p2p.dto.BatchShareResponseDTO;
+import com.codeyzer.p2p.dto.BatchUnshareRequestDTO;
+import com.codeyzer.p2p.dto.BundleShareRequestDTO;
+import com.codeyzer.p2p.dto.BundleShareResponseDTO;
 import com.codeyzer.p2p.dto.FileShareWrapper;
 import com.codeyzer.p2p.dto.FileStreamWrapper;
+import com.codeyzer.p2p.dto.PieceHashes;
 import com.codeyzer.p2p.dto.ShareRequestDTO;
+import com.codeyzer.p2p.dto.ShareGroup;
 import com.codeyzer.p2p.dto.ShareResponseDTO;
 import com.codeyzer.p2p.dto.SocketShareDTO;
+import com.codeyzer.p2p.dto.StreamCompletedDTO;
+import com.codeyzer.p2p.dto.StreamResumeDTO;
 import com.codeyzer.p2p.dto.UnshareRequestDTO;
+import com.codeyzer.p2p.dto.UploadSlotClaimedDTO;
 import com.codeyzer.p2p.dto.FileInfoDTO;
+import com.codeyzer.p2p.service.buffer.AdaptiveBuffer;
+import com.codeyzer.p2p.service.buffer.TransferBufferBudget;
+import com.codeyzer.p2p.service.bundle.ZipStreamWriter;
+import com.codeyzer.p2p.service.coalesce.CoalescedDownload;
+import com.codeyzer.p2p.service.coalesce.DownloadCoalescer;
+import com.codeyzer.p2p.service.compression.NegotiatedEncodingOutputStream;
+import com.codeyzer.p2p.service.digest.StreamDigest;
+import com.codeyzer.p2p.service.drain.DrainService;
+import com.codeyzer.p2p.service.lookup.ShareLookupGuard;
 import com.codeyzer.p2p.service.monitoring.PerformanceMonitorService;
+import com.codeyzer.p2p.service.monitoring.StartupTimeRecorder;
+import com.codeyzer.p2p.service.monitoring.event.ChunkFlushStallEvent;
+import com.codeyzer.p2p.service.monitoring.event.OwnerConnectedEvent;
+import com.codeyzer.p2p.service.monitoring.event.ShareCreatedEvent;
+import com.codeyzer.p2p.service.monitoring.event.ShareUnsharedEvent;
+import com.codeyzer.p2p.service.monitoring.event.StreamPendingEvent;
+import com.codeyzer.p2p.service.monitoring.event.TransferCompletedEvent;
+import com.codeyzer.p2p.service.slot.UploadSlot;
+import com.codeyzer.p2p.service.slot.UploadSlotPool;
+import com.codeyzer.p2p.service.swarm.SwarmDownload;
 import com.codeyzer.p2p.config.FileShareProperties;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -36,45 +71,239 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class FileService {
 
-    private final Map<String, FileShareWrapper> shareMap;
+    private static final String CONTENT_DIGEST_TRAILER = "X-Content-Digest";
+    // Alıcıya bu kadar byte iletildikçe flush yapılır
+    private static final long FLUSH_INTERVAL_BYTES = 10 * 1024 * 1024;
+    private static final Pattern CONTENT_HASH_PATTERN = Pattern.compile("[a-z0-9:=_-]{8,128}");
+    // Çok kaynaklı indirme yalnızca sunucunun birleştirilmiş içerikle doğrulayabildiği özetlerde yapılır
+    private static final String SWARM_HASH_PREFIX = "sha256:";
+    private static final Pattern SWARM_HASH_PATTERN = Pattern.compile("sha256:[0-9a-f]{64}");
+    private static final Pattern PIECE_HASH_PATTERN = Pattern.compile("[0-9a-fA-F]{64}");
+    private static final int MIN_PIECE_SIZE = 64 * 1024;
+
+    private final ShareRegistry shareRegistry;
     private final SimpMessagingTemplate template;
     private final HashService hashService;
     private final PerformanceMonitorService monitorService;
     private final FileShareProperties fileShareProperties;
+    private final ShareLookupGuard lookupGuard;
+    private final StartupTimeRecorder startupTimeRecorder;
+    private final TransferBufferBudget bufferBudget;
+    private final UploadSlotPool uploadSlotPool;
+    private final DrainService drainService;
+    private final DownloadCoalescer downloadCoalescer;
 
     /**
      * Dosya paylaşımı başlatır
      */
     public ShareResponseDTO share(ShareRequestDTO request) {
+        drainService.checkAccepting();
         if (request.getFilename() == null || request.getSize() == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Dosya adı ve boyutu zorunludur");
         }
 
-        String shareHash;
-        do {
-            shareHash = hashService.generateHash();
-        } while (shareMap.containsKey(shareHash));
+        UUID ownerToken = UUID.randomUUID();
+        String contentHash = normalizeContentHash(request.getContentHash());
+        FileShareWrapper newShare = new FileShareWrapper(
+                request.getFilename(),
+                request.getSize(),
+                System.currentTimeMillis(),
+                ownerToken,
+                null,
+                null,
+                contentHash,
+                parsePieceHashes(request, contentHash));
+
+        String shareHash = register(newShare);
+        startupTimeRecorder.recordFirstShare();
+        return ShareResponseDTO.builder()
+                .shareHash(shareHash)
+                .ownerToken(ownerToken.toString())
+                .build();
+    }
+
+    /**
+     * Birden çok dosyayı tek sahip tokenı altında paylaşır. Paylaşımlar ortak bir kalp atışı
+     * grubuna bağlanır; gruptaki herhangi bir paylaşım için gönderilen kalp atışı tümünü canlı tutar.
+     * @return İstekteki dosya sırasıyla paylaşım hash'leri
+     */
+    public BatchShareResponseDTO shareBatch(BatchShareRequestDTO request) {
+        drainService.checkAccepting();
+        validateBatch(request.getFiles());
 
+        UUID ownerToken = UUID.randomUUID();
         long currentTime = System.currentTimeMillis();
-        String ownerToken = UUID.randomUUID().toString();
-
-        FileShareWrapper newShare = FileShareWrapper.builder()
-                .filename(request.getFilename())
-                .size(request.getSize())
-                .streamMap(new ConcurrentHashMap<>())
-                .creationTimestamp(currentTime)
-                .lastHeartbeatTimestamp(currentTime)
-                .ownerToken(ownerToken)
+        List<String> shareHashes = registerGroup(request.getFiles(), ownerToken, new ShareGroup(currentTime), currentTime);
+        log.debug("Batch share registered {} files", shareHashes.size());
+
+        return BatchShareResponseDTO.builder()
+                .shareHashes(shareHashes)
+                .ownerToken(ownerToken.toString())
                 .build();
+    }
 
-        shareMap.put(shareHash, newShare);
-                
-        return ShareResponseDTO.builder()
-                .shareHash(shareHash)
-                .ownerToken(ownerToken)
+    /**
+     * Dosyaları tek bir ZIP arşivi olarak indirilebilen bir paket paylaşımı oluşturur. Her dosya
+     * ayrıca kendi hash'iyle de paylaşılır; paket indirildiğinde dosyalar sırayla sahipten istenir.
+     * Arşiv sıkıştırmasız olduğundan toplam boyut paylaşım anında bilinir.
+     */
+    public BundleShareResponseDTO shareBundle(BundleShareRequestDTO request) {
+        drainService.checkAccepting();
+        List<ShareRequestDTO> files = request.getFiles();
+        validateBatch(files);
+
+        UUID ownerToken = UUID.randomUUID();
+        long currentTime = System.currentTimeMillis();
+        ShareGroup group = new ShareGroup(currentTime);
+        List<String> memberHashes = registerGroup(files, ownerToken, group, currentTime);
+
+        List<String> entryNames = new ArrayList<>(files.size());
+        long[] sizes = new long[files.size()];
+        for (int i = 0; i < files.size(); i++) {
+            entryNames.add(toZipEntryName(files.get(i).getFilename()));
+            sizes[i] = files.get(i).getSize();
+        }
+
+        String filename = Optional.ofNullable(request.getFilename())
+                .filter(name -> !name.isBlank())
+                .orElse("bundle.zip");
+        String bundleHash = register(new FileShareWrapper(
+                filename,
+                ZipStreamWriter.archiveLength(entryNames, sizes),
+                currentTime,
+                ownerToken,
+                group,
+                memberHashes));
+        log.debug("Bundle share {} registered with {} files", bundleHash, memberHashes.size());
+
+        return BundleShareResponseDTO.builder()
+                .shareHash(bundleHash)
+                .shareHashes(memberHashes)
+                .ownerToken(ownerToken.toString())
                 .build();
     }
 
+    private void validateBatch(List<ShareRequestDTO> files) {
+        if (files == null || files.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Paylaşılacak dosya listesi zorunludur");
+        }
+        if (files.size() > fileShareProperties.getMaxBatchSize()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Tek istekte en fazla " + fileShareProperties.getMaxBatchSize() + " dosya paylaşılabilir");
+        }
+        for (ShareRequestDTO file : files) {
+            if (file == null || file.getFilename() == null || file.getSize() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Dosya adı ve boyutu zorunludur");
+            }
+        }
+    }
+
+    /**
+     * Dosyaları ortak sahip tokenı ve kalp atışı grubu altında kaydeder
+     * @return İstekteki sırayla paylaşım hash'leri
+     */
+    private List<String> registerGroup(List<ShareRequestDTO> files, UUID ownerToken, ShareGroup group, long currentTime) {
+        List<String> shareHashes = new ArrayList<>(files.size());
+        for (ShareRequestDTO file : files) {
+            String contentHash = normalizeContentHash(file.getContentHash());
+            shareHashes.add(register(new FileShareWrapper(
+                    file.getFilename(),
+                    file.getSize(),
+                    currentTime,
+                    ownerToken,
+                    group,
+                    null,
+                    contentHash,
+                    parsePieceHashes(file, contentHash))));
+        }
+        return shareHashes;
+    }
+
+    /**
+     * İsteğe bağlı içerik özetini küçük harfe çevirir ve biçimini doğrular
+     * @return Özet bildirilmediyse null
+     */
+    private static String normalizeContentHash(String contentHash) {
+        if (contentHash == null || contentHash.isBlank()) {
+            return null;
+        }
+        String normalized = contentHash.trim().toLowerCase();
+        if (!CONTENT_HASH_PATTERN.matcher(normalized).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Geçersiz içerik özeti");
+        }
+        return normalized;
+    }
+
+    /**
+     * İsteğe bağlı parça özetlerini doğrular. Parçalar yalnızca "sha256:" içerik özetiyle birlikte bildirilebilir
+     * ve dosyayı tam olarak kapsamalıdır.
+     * @return Parça özetleri bildirilmediyse null
+     */
+    private PieceHashes parsePieceHashes(ShareRequestDTO request, String contentHash) {
+        List<String> hashes = request.getPieceHashes();
+        if (request.getPieceSize() == null && (hashes == null || hashes.isEmpty())) {
+            return null;
+        }
+        if (request.getPieceSize() == null || hashes == null || contentHash == null
+                || !SWARM_HASH_PATTERN.matcher(contentHash).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Parça özetleri pieceSize ve sha256 içerik özetiyle birlikte bildirilmelidir");
+        }
+        int pieceSize = request.getPieceSize();
+        int maxPieceSize = fileShareProperties.getSwarm().getMaxPieceSize();
+        if (pieceSize < MIN_PIECE_SIZE || pieceSize > maxPieceSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Parça boyutu " + MIN_PIECE_SIZE + " ile " + maxPieceSize + " byte arasında olmalıdır");
+        }
+        long expectedCount = (request.getSize() + pieceSize - 1) / pieceSize;
+        if (hashes.size() != expectedCount) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Parça özeti sayısı dosyayı kapsamıyor; beklenen " + expectedCount);
+        }
+        byte[] digests = new byte[hashes.size() * PieceHashes.DIGEST_LENGTH];
+        for (int i = 0; i < hashes.size(); i++) {
+            String hash = hashes.get(i);
+            if (hash == null || !PIECE_HASH_PATTERN.matcher(hash).matches()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Geçersiz parça özeti: " + i);
+            }
+            System.arraycopy(HexFormat.of().parseHex(hash), 0, digests, i * PieceHashes.DIGEST_LENGTH,
+                    PieceHashes.DIGEST_LENGTH);
+        }
+        return new PieceHashes(pieceSize, digests);
+    }
+
+    /**
+     * İstemcinin gönderdiği göreli yolu ZIP girdisi adına çevirir; arşiv dışına çıkan yollar engellenir
+     */
+    private static String toZipEntryName(String filename) {
+        String name = filename.replace('\\', '/');
+        List<String> segments = new ArrayList<>();
+        for (String segment : name.split("/")) {
+            if (!segment.isEmpty() && !segment.equals(".") && !segment.equals("..")) {
+                segments.add(segment);
+            }
+        }
+        return segments.isEmpty() ? "file" : String.join("/", segments);
+    }
+
+    /**
+     * Paylaşıma benzersiz bir hash ayırıp kaydeder
+     */
+    private String register(FileShareWrapper share) {
+        String shareHash;
+        do {
+            shareHash = hashService.generateHash();
+        } while (!shareRegistry.register(shareHash, share));
+
+        ShareCreatedEvent event = new ShareCreatedEvent();
+        if (event.shouldCommit()) {
+            event.shareHash = shareHash;
+            event.fileSize = share.getSize();
+            event.commit();
+        }
+        return shareHash;
+    }
+
     /**
      * Dosya paylaşımını sonlandırır
      */
@@ -83,31 +312,66 @@ public class FileService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Share hash ve owner token zorunludur");
         }
 
-        FileShareWrapper fileShareWrapper = shareMap.get(request.getShareHash());
+        FileShareWrapper fileShareWrapper = shareRegistry.get(request.getShareHash());
 
         if (fileShareWrapper == null) {
             log.info("Unshare request for non-existent or already cleaned up share: {}", request.getShareHash());
             return;
         }
 
-        if (!fileShareWrapper.getOwnerToken().equals(request.getOwnerToken())) {
+        if (!fileShareWrapper.isOwner(request.getOwnerToken())) {
             log.warn("Unauthorized unshare attempt for share: {} with token: {}", request.getShareHash(), request.getOwnerToken());
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Yetkisiz işlem: Geçersiz sahip tokenı");
         }
         
         log.info("Unsharing file: {} requested by owner.", request.getShareHash());
+        release(request.getShareHash(), fileShareWrapper);
+    }
+
+    /**
+     * Birden çok paylaşımı sonlandırır. Tüm paylaşımların sahiplik kontrolü, herhangi biri
+     * kaldırılmadan önce yapılır; bulunamayan paylaşımlar atlanır.
+     */
+    public void unshareBatch(BatchUnshareRequestDTO request) {
+        if (request.getShareHashes() == null || request.getOwnerToken() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Share hash listesi ve owner token zorunludur");
+        }
+
+        Map<String, FileShareWrapper> owned = new LinkedHashMap<>();
+        for (String shareHash : request.getShareHashes()) {
+            FileShareWrapper fileShareWrapper = shareHash != null ? shareRegistry.get(shareHash) : null;
+            if (fileShareWrapper == null) {
+                continue;
+            }
+            if (!fileShareWrapper.isOwner(request.getOwnerToken())) {
+                log.warn("Unauthorized batch unshare attempt for share: {}", shareHash);
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Yetkisiz işlem: Geçersiz sahip tokenı");
+            }
+            owned.put(shareHash, fileShareWrapper);
+        }
+
+        log.info("Batch unsharing {} files requested by owner.", owned.size());
+        owned.forEach(this::release);
+    }
+
+    /**
+     * Paylaşımın aktif stream'lerini kapatır ve kayıttan siler
+     */
+    private void release(String shareHash, FileShareWrapper fileShareWrapper) {
         try {
-             fileShareWrapper.getStreamMap().values().forEach(fileStreamWrapper -> {
-                forceClose(fileStreamWrapper.getInputStream());
-                forceClose(fileStreamWrapper.getOutputStream());
-                fileStreamWrapper.setStatus(-1);
-                Optional.ofNullable(fileStreamWrapper.getLatch())
-                        .ifPresent(CountDownLatch::countDown);
-            });
+             fileShareWrapper.getStreams().forEach(FileStreamWrapper::abort);
         } finally {
-            monitorService.clearMetric(request.getShareHash());
-            shareMap.remove(request.getShareHash());
-            log.info("Successfully unshared: {}", request.getShareHash());
+            monitorService.clearMetric(shareHash);
+            shareRegistry.remove(shareHash);
+            uploadSlotPool.closeAll(shareHash);
+            log.info("Successfully unshared: {}", shareHash);
+
+            ShareUnsharedEvent event = new ShareUnsharedEvent();
+            if (event.shouldCommit()) {
+                event.shareHash = shareHash;
+                event.activeStreams = fileShareWrapper.getActiveStreamCount();
+                event.commit();
+            }
         }        
     }
 
@@ -117,44 +381,326 @@ public class FileService {
     public void upload(String shareHash, String streamHash, HttpServletRequest request)
             throws IOException {
         
+        FileShareWrapper fileShareWrapper = authorizeOwner(shareHash, request.getHeader("X-Owner-Token"));
+        FileStreamWrapper fileStreamWrapper = requireStream(fileShareWrapper, shareHash, streamHash);
+        if (fileStreamWrapper.getRelay() != null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Stream Netty aktarım katmanında açıldı");
+        }
+
+        long uploadOffset = parseUploadOffset(request);
+        if (uploadOffset > fileStreamWrapper.getBytesDelivered()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Yükleme offset'i iletilen byte sayısını aşıyor: " + fileStreamWrapper.getBytesDelivered());
+        }
+
+        // X-Upload-Offset ile gelen yeniden bağlanma, eski bağlantı sunucu tarafında henüz kopmamış olsa da
+        // yüklemeyi devralır; aksi halde sahip eski soket zaman aşımına uğrayana kadar bekletilirdi
+        boolean resume = request.getHeader("X-Upload-Offset") != null;
+        receive(shareHash, fileShareWrapper, fileStreamWrapper, request, uploadOffset, resume);
+    }
+
+    /**
+     * Sahibin indirme gelmeden açtığı yükleme bağlantısını bekletir. Bir indirme yuvayı alırsa gövde
+     * dosyanın başından itibaren o stream'e aktarılır; böylece bildirim ve yeni bağlantı beklenmez.
+     * @return Yuva bir indirmeye bağlanıp aktarım yapıldıysa true; süre dolduysa false
+     */
+    public boolean uploadSlot(String shareHash, HttpServletRequest request) throws IOException, InterruptedException {
+        FileShareProperties.UploadSlotProperties settings = fileShareProperties.getUploadSlots();
+        if (!settings.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, "Yükleme yuvaları kapalı");
+        }
+        drainService.checkAccepting();
+        FileShareWrapper fileShareWrapper = authorizeOwner(shareHash, request.getHeader("X-Owner-Token"));
+        if (fileShareWrapper.isBundle()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Yuvalar paketin üye paylaşımlarına açılmalıdır");
+        }
+
+        UploadSlot slot = uploadSlotPool.park(shareHash);
+        if (slot == null) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Bekleyen yuva sınırına ulaşıldı (paylaşım başına " + settings.getMaxPerShare()
+                            + ", toplam " + settings.getMaxTotal() + ")");
+        }
+        FileStreamWrapper fileStreamWrapper = null;
+        try {
+            fileStreamWrapper = slot.await(settings.getParkTimeoutSeconds(), TimeUnit.SECONDS);
+        } finally {
+            uploadSlotPool.remove(shareHash, slot);
+            // Bekleme kesildiği anda yuvayı alan bir indirme varsa sahipsiz kalmaması için sonlandırılır
+            FileStreamWrapper orphan = fileStreamWrapper == null ? slot.close() : null;
+            if (orphan != null) {
+                orphan.setStatus(FileStreamWrapper.STATUS_FAILED);
+                orphan.getLatch().countDown();
+            }
+        }
+
+        if (fileStreamWrapper == null) {
+            if (shareRegistry.get(shareHash) == null) {
+                throw new ResponseStatusException(HttpStatus.GONE, "Paylaşım sonlandırıldı");
+            }
+            return false;
+        }
+        log.debug("Upload slot of share: {} bound to stream: {}", shareHash, fileStreamWrapper.getStreamHash());
+        receive(shareHash, fileShareWrapper, fileStreamWrapper, request, 0L, false);
+        return true;
+    }
+
+    /**
+     * Yükleme gövdesini stream'e aktarır; bağlantı erken koparsa stream'i devam ettirme için askıya alır.
+     * Yükleme başka bir bağlantıya devredildiyse stream'in durumu yeni bağlantıya bırakılır.
+     * @param takeOver Aktif bir yükleme varsa yerine geçilsin mi
+     */
+    private void receive(String shareHash, FileShareWrapper fileShareWrapper, FileStreamWrapper fileStreamWrapper,
+                         HttpServletRequest request, long uploadOffset, boolean takeOver) throws IOException {
+        String streamHash = fileStreamWrapper.getStreamHash();
+        int generation = attachUpload(shareHash, fileStreamWrapper, takeOver);
+
+        TransferCompletedEvent transferEvent = new TransferCompletedEvent();
+        transferEvent.begin();
+        long deliveredBefore = fileStreamWrapper.getBytesDelivered();
+        boolean finished = true;
+        try {
+            InputStream inputStream = request.getInputStream();
+            fileStreamWrapper.setInputStream(inputStream);
+            skipMultipartHeadersAndBoundary(inputStream);
+            skipAlreadyDelivered(inputStream, fileStreamWrapper, uploadOffset);
+            flow(inputStream, fileStreamWrapper, shareHash, fileStreamWrapper.getLength(), generation);
+
+            if (fileStreamWrapper.getBytesDelivered() >= fileStreamWrapper.getLength()) {
+                fileStreamWrapper.setStatus(FileStreamWrapper.STATUS_COMPLETED);
+                transferEvent.success = true;
+                monitorService.recordUpload(shareHash, fileStreamWrapper.getLength());
+                reportCompletion(shareHash, fileShareWrapper, fileStreamWrapper);
+            } else {
+                finished = !suspendForResume(shareHash, fileStreamWrapper, generation);
+            }
+        } catch (IOException e) {
+            // Alıcıya yazma hataları flow içinde STATUS_FAILED olarak işaretlenir
+            if (fileStreamWrapper.getStatus() != FileStreamWrapper.STATUS_FAILED) {
+                finished = !suspendForResume(shareHash, fileStreamWrapper, generation);
+            }
+            throw e;
+        } finally {
+            // Devredilmiş bağlantı stream'i sonlandırmaz
+            finished = finished && fileStreamWrapper.detachUpload(generation);
+            if (finished) {
+                if (fileStreamWrapper.getStatus() != FileStreamWrapper.STATUS_COMPLETED) {
+                    fileStreamWrapper.setStatus(FileStreamWrapper.STATUS_FAILED);
+                }
+            }
+            transferEvent.end();
+            if (transferEvent.shouldCommit()) {
+                transferEvent.shareHash = shareHash;
+                transferEvent.streamHash = streamHash;
+                transferEvent.bytesTransferred = fileStreamWrapper.getBytesDelivered() - deliveredBefore;
+                transferEvent.commit();
+            }
+            if (finished) {
+                Optional.ofNullable(fileStreamWrapper.getLatch())
+                        .ifPresent(CountDownLatch::countDown);
+            }
+        }
+    }
+
+    /**
+     * Sahip tokenını doğrulayıp paylaşımı döndürür
+     */
+    private FileShareWrapper authorizeOwner(String shareHash, String ownerTokenHeader) {
         // Owner Token kontrolü
-        String ownerTokenHeader = request.getHeader("X-Owner-Token");
         if (ownerTokenHeader == null || ownerTokenHeader.trim().isEmpty()) {
             log.warn("Upload attempt for share {} without X-Owner-Token header.", shareHash);
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Eksik sahip tokenı");
         }
 
-        FileShareWrapper fileShareWrapper = shareMap.get(shareHash);
+        FileShareWrapper fileShareWrapper = shareRegistry.get(shareHash);
         if (fileShareWrapper == null) {
              log.warn("Upload attempt for non-existent share: {}", shareHash);
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Dosya paylaşımı bulunamadı");
         }
 
         // Owner token'ı doğrula
-        if (!fileShareWrapper.getOwnerToken().equals(ownerTokenHeader)) {
+        if (!fileShareWrapper.isOwner(ownerTokenHeader)) {
              log.warn("Unauthorized upload attempt for share: {} with token: {}", shareHash, ownerTokenHeader);
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Yetkisiz işlem: Geçersiz sahip tokenı");
         }
+        return fileShareWrapper;
+    }
 
+    private FileStreamWrapper requireStream(FileShareWrapper fileShareWrapper, String shareHash, String streamHash) {
         // Token doğrulandı, işleme devam et
-        log.info("Authorized upload starting for share: {} with stream: {}", shareHash, streamHash);
-        FileStreamWrapper fileStreamWrapper = fileShareWrapper.getStreamMap().get(streamHash);
+        log.debug("Authorized upload starting for share: {} with stream: {}", shareHash, streamHash);
+        FileStreamWrapper fileStreamWrapper = fileShareWrapper.getStream(streamHash);
         if (fileStreamWrapper == null) {
              log.warn("Upload attempt for non-existent stream: {} for share: {}", streamHash, shareHash);
              throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Stream bulunamadı");
         }
+        return fileStreamWrapper;
+    }
+
+    /**
+     * Stream'e yükleme bağlantısını bağlar ve bekleme olayını kapatır
+     * @param takeOver Aktif bir yükleme varsa yerine geçilsin mi
+     * @return Bağlantının sıra numarası
+     */
+    private int attachUpload(String shareHash, FileStreamWrapper fileStreamWrapper, boolean takeOver) {
+        String streamHash = fileStreamWrapper.getStreamHash();
+        int generation = fileStreamWrapper.attachUpload(takeOver);
+        if (generation < 0) {
+            log.warn("Upload attempt for stream: {} of share: {} which is already active or finished", streamHash, shareHash);
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Stream zaten aktif veya tamamlanmış");
+        }
+
+        Optional.ofNullable(fileStreamWrapper.getPendingEvent()).ifPresent(pending -> {
+            pending.end();
+            if (pending.shouldCommit()) {
+                pending.shareHash = shareHash;
+                pending.streamHash = streamHash;
+                pending.commit();
+            }
+            fileStreamWrapper.setPendingEvent(null);
+        });
+        return generation;
+    }
+
+    /**
+     * Netty aktarım katmanı için indirme stream'i açar ve sahibe bildirir. Byte'lar sahibin yüklemesinden
+     * alıcıya Netty tarafından kopyalanmadan aktarıldığından özet hesaplanmaz; paket paylaşımları ve
+     * çok kaynaklı indirme desteklenmez. Stream {@link #finishRelay} ile kapatılmalıdır.
+     * @param relay Paylaşım kapatılırken indirmeyi sonlandırmak için kapatılacak bağlantı
+     */
+    public FileStreamWrapper openRelayStream(String shareHash, String ip, Closeable relay) {
+        drainService.checkAccepting();
+        FileShareWrapper fileShareWrapper = lookup(shareHash, ip);
+        if (fileShareWrapper.isBundle()) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, "Paket indirmesi Netty aktarım katmanında desteklenmez");
+        }
+
+        FileStreamWrapper fileStreamWrapper = openStream(shareHash, fileShareWrapper, null);
+        fileStreamWrapper.setDigest(null);
+        fileStreamWrapper.setRelay(relay);
+        monitorService.downloadStarted();
+        notifyOwner(fileStreamWrapper, shareHash, ip);
+        return fileStreamWrapper;
+    }
+
+    /**
+     * Netty üzerinden gelen yüklemeyi yetkilendirip stream'e bağlar. Yeniden bağlanma (X-Upload-Offset)
+     * bu katmanda desteklenmez.
+     */
+    public FileStreamWrapper attachRelayUpload(String shareHash, String streamHash, String ownerToken) {
+        FileShareWrapper fileShareWrapper = authorizeOwner(shareHash, ownerToken);
+        FileStreamWrapper fileStreamWrapper = requireStream(fileShareWrapper, shareHash, streamHash);
+        if (fileStreamWrapper.getRelay() == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Stream servlet aktarım katmanında açıldı");
+        }
+        attachUpload(shareHash, fileStreamWrapper, false);
+        return fileStreamWrapper;
+    }
+
+    /**
+     * Netty katmanında alıcıya iletilen bir parçayı kaydeder; olay döngüsünde çağrıldığından yalnızca sayaçlar güncellenir
+     */
+    public void recordRelayed(String shareHash, FileStreamWrapper stream, int bytes) {
+        if (stream.getBytesDelivered() == 0) {
+            commitTtfb(stream, shareHash);
+        }
+        stream.setBytesDelivered(stream.getBytesDelivered() + bytes);
+        monitorService.recordBytesRelayed(bytes);
+    }
+
+    /**
+     * Netty katmanındaki indirme bittiğinde stream'i sonlandırır, metrikleri kaydeder ve sahibe bildirir
+     * @param sent İndirme yanıtı hatasız tamamlandıysa true
+     */
+    public void finishRelay(String shareHash, FileStreamWrapper stream, boolean sent, long elapsedTime) {
+        boolean completed = sent && stream.getStatus() != FileStreamWrapper.STATUS_FAILED
+                && stream.getBytesDelivered() >= stream.getLength();
+        stream.detachUpload();
+        stream.setStatus(completed ? FileStreamWrapper.STATUS_COMPLETED : FileStreamWrapper.STATUS_FAILED);
+        monitorService.downloadEnded();
+
+        FileShareWrapper fileShareWrapper = shareRegistry.get(shareHash);
+        if (fileShareWrapper != null) {
+            fileShareWrapper.removeStream(stream.getStreamHash());
+        }
+        if (completed) {
+            monitorService.recordUpload(shareHash, stream.getLength());
+            monitorService.recordDownload(shareHash, stream.getLength(), elapsedTime);
+            if (fileShareWrapper != null) {
+                reportCompletion(shareHash, fileShareWrapper, stream);
+            }
+        } else {
+            monitorService.recordFailure(shareHash);
+        }
+        stream.getLatch().countDown();
+    }
+
+    /**
+     * Tamamlanan aktarımın özetini paylaşıma kaydeder ve sahibe bildirir
+     */
+    private void reportCompletion(String shareHash, FileShareWrapper share, FileStreamWrapper stream) {
+        String digest = Optional.ofNullable(stream.getDigest()).map(StreamDigest::getValue).orElse(null);
+        if (digest != null) {
+            share.setContentDigest(digest);
+        }
+        template.convertAndSend("/topic/" + stream.getTopic(), StreamCompletedDTO.builder()
+                .shareHash(shareHash)
+                .streamHash(stream.getStreamHash())
+                .bytes(stream.getBytesDelivered())
+                .digest(digest)
+                .build());
+    }
+
+    /**
+     * Yükleme bağlantısı erken kapandığında stream'i askıya alır ve sahibe kaldığı offset'i bildirir
+     * @return Stream yeniden bağlanma için askıya alındıysa true
+     */
+    private boolean suspendForResume(String shareHash, FileStreamWrapper stream, int generation) {
+        long gracePeriodMillis = TimeUnit.SECONDS.toMillis(fileShareProperties.getResumeGracePeriodSeconds());
+        if (gracePeriodMillis <= 0) {
+            return false;
+        }
+        if (!stream.suspend(System.currentTimeMillis() + gracePeriodMillis, generation)) {
+            return false;
+        }
+
+        log.info("Upload for stream: {} of share: {} dropped at offset {}. Waiting {}s for owner to resume.",
+                stream.getStreamHash(), shareHash, stream.getBytesDelivered(), fileShareProperties.getResumeGracePeriodSeconds());
+        template.convertAndSend("/topic/" + stream.getTopic(), StreamResumeDTO.builder()
+                .shareHash(shareHash)
+                .streamHash(stream.getStreamHash())
+                .offset(stream.getBytesDelivered())
+                .build());
+        return true;
+    }
 
+    /**
+     * İstemcinin gönderdiği X-Upload-Offset başlığını okur; başlık yoksa yükleme dosyanın başından başlar
+     */
+    private long parseUploadOffset(HttpServletRequest request) {
+        String header = request.getHeader("X-Upload-Offset");
+        if (header == null || header.isBlank()) {
+            return 0L;
+        }
         try {
-            InputStream inputStream = request.getInputStream();
-            fileStreamWrapper.setInputStream(inputStream);
-            skipMultipartHeadersAndBoundary(inputStream);
-            flow(inputStream, fileStreamWrapper.getOutputStream());
-            fileStreamWrapper.setStatus(1);
-            monitorService.recordUpload(shareHash, fileShareWrapper.getSize());
-        } finally {
-            Optional.ofNullable(fileStreamWrapper)
-                    .map(FileStreamWrapper::getLatch)
-                    .ifPresent(CountDownLatch::countDown);
+            long offset = Long.parseLong(header.trim());
+            if (offset < 0) {
+                throw new NumberFormatException();
+            }
+            return offset;
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Geçersiz X-Upload-Offset");
+        }
+    }
+
+    /**
+     * Alıcıya daha önce iletilmiş byte'ları yeni yükleme gövdesinden atlar
+     */
+    private void skipAlreadyDelivered(InputStream inputStream, FileStreamWrapper stream, long uploadOffset)
+            throws IOException {
+        long toSkip = stream.getBytesDelivered() - uploadOffset;
+        if (toSkip > 0) {
+            IOUtils.skipFully(inputStream, toSkip);
         }
     }
     
@@ -184,59 +730,409 @@ public class FileService {
      */
     public void download(String shareHash, HttpServletRequest request, HttpServletResponse response) 
             throws IOException, InterruptedException {
-            
-        FileShareWrapper fileShareWrapper = Optional.ofNullable(shareMap.get(shareHash))
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Dosya bulunamadı"));
+        drainService.checkAccepting();
+        FileShareWrapper fileShareWrapper = lookup(shareHash, clientIp(request));
+
+        monitorService.downloadStarted();
+        boolean completed = false;
+        try {
+            completed = fileShareWrapper.isBundle()
+                    ? downloadBundle(shareHash, fileShareWrapper, request, response)
+                    : downloadFile(shareHash, fileShareWrapper, request, response);
+            if (!completed) {
+                // Yarıda kalan yanıt normal biterse alıcı, Content-Length'te kalan byte'ları açık tutulan
+                // bağlantıda bekler; chunked (gzip veya trailer) yanıtta ise kesik gövdeyi tam sanar.
+                // İstisna, sonlandırıcı yazılmadan bağlantıyı kapattırır.
+                throw new IncompleteDownloadException(shareHash);
+            }
+        } finally {
+            monitorService.downloadEnded();
+            if (!completed) {
+                monitorService.recordFailure(shareHash);
+            }
+        }
+    }
 
+    /**
+     * Tek dosyalık paylaşımı tek veya çok kaynaktan indirir
+     * @return Dosyanın tamamı aktarıldıysa true
+     */
+    private boolean downloadFile(String shareHash, FileShareWrapper fileShareWrapper, HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException, InterruptedException {
         response.setHeader("Content-Disposition", "attachment; filename=\"" + fileShareWrapper.getFilename() + "\"");
-        response.setHeader("Content-Length", fileShareWrapper.getSize().toString());
 
-        String streamHash;
-        do {
-            streamHash = hashService.generateHash();
-        } while (fileShareWrapper.getStreamMap().containsKey(streamHash));
+        OutputStream outputStream = response.getOutputStream();
+        NegotiatedEncodingOutputStream encodingStream = null;
+        FileShareProperties.CompressionProperties compression = fileShareProperties.getCompression();
+        if (compression.isEnabled()) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+        if (compression.isEnabled() && fileShareWrapper.getSize() >= compression.getMinSize()
+                && NegotiatedEncodingOutputStream.acceptsGzip(request.getHeader("Accept-Encoding"))) {
+            // Content-Length veya Content-Encoding, sahipten gelen ilk parça incelendikten sonra belirlenir
+            encodingStream = new NegotiatedEncodingOutputStream(
+                    response, outputStream, fileShareWrapper.getSize(), compression);
+            outputStream = encodingStream;
+        } else {
+            response.setHeader("Content-Length", Long.toString(fileShareWrapper.getSize()));
+        }
 
         long startTime = System.currentTimeMillis();
-        
-        CountDownLatch latch = new CountDownLatch(1);
+        boolean completed;
+
+        List<SwarmDownload.Source> swarmSources = "true".equals(request.getParameter("swarm"))
+                ? findSwarmSources(shareHash, fileShareWrapper)
+                : List.of();
+        if (swarmSources.size() > 1) {
+            completed = downloadSwarm(shareHash, fileShareWrapper, swarmSources, clientIp(request), outputStream);
+        } else {
+            completed = downloadCoalesced(shareHash, fileShareWrapper, request, response, outputStream);
+        }
+
+        if (encodingStream != null && completed) {
+            encodingStream.finish();
+            if (encodingStream.isCompressed()) {
+                monitorService.recordCompression(shareHash, encodingStream.getUncompressedBytes(),
+                        encodingStream.getCompressedBytes(), encodingStream.getCpuNanos());
+            }
+        }
+
+        // İndirme performans metriğini kaydet
+        if (completed) {
+            long elapsedTime = System.currentTimeMillis() - startTime;
+            monitorService.recordDownload(shareHash, fileShareWrapper.getSize(), elapsedTime);
+        }
+        return completed;
+    }
+
+    /**
+     * Dosyayı tek sahipten indirir. Aynı alıcıdan aynı istek kısa süre önce gelmişse yeni stream açılmaz;
+     * istek o indirmenin sahip yüklemesini izler. Aksi halde istek öncü olur ve yüklemesi katılıma açılır.
+     * @return Dosyanın tamamı aktarıldıysa true
+     */
+    private boolean downloadCoalesced(String shareHash, FileShareWrapper fileShareWrapper, HttpServletRequest request,
+                                      HttpServletResponse response, OutputStream outputStream)
+            throws IOException, InterruptedException {
+        String ip = clientIp(request);
+        String fingerprint = downloadCoalescer.fingerprint(shareHash, ip, request);
+        CoalescedDownload coalesced = null;
+        if (fingerprint != null) {
+            CoalescedDownload.Follower follower = downloadCoalescer.join(fingerprint);
+            if (follower == null) {
+                coalesced = downloadCoalescer.lead(fingerprint, outputStream);
+                // Aynı istek araya girip öncü olduysa ona katılınır
+                follower = coalesced == null ? downloadCoalescer.join(fingerprint) : null;
+            }
+            if (follower != null) {
+                return followDownload(shareHash, follower, request, response, outputStream);
+            }
+        }
+
+        boolean completed = false;
+        boolean handedOff = false;
+        try {
+            FileStreamWrapper fileStreamWrapper = openStream(shareHash, fileShareWrapper,
+                    coalesced != null ? coalesced.getOutput() : outputStream);
+            if (coalesced != null) {
+                coalesced.setStream(fileStreamWrapper);
+            }
+            if (fileStreamWrapper.getDigest() != null && acceptsTrailers(request)) {
+                offerDigestTrailer(response, fileStreamWrapper);
+            }
+            requestUpload(fileStreamWrapper, shareHash, ip);
+
+            boolean awaited = false;
+            try {
+                awaitTransfer(shareHash, fileStreamWrapper);
+                awaited = true;
+                completed = fileStreamWrapper.getStatus() == FileStreamWrapper.STATUS_COMPLETED;
+                if (!completed && fileStreamWrapper.getPendingDeadline() > 0 && !response.isCommitted()) {
+                    throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Sahip yüklemeye başlamadı");
+                }
+            } finally {
+                // Bekleme alıcının kopmasıyla kesildiyse yükleme izleyiciler için sürer; stream'i son izleyici bırakır
+                Runnable release = () -> fileShareWrapper.removeStream(fileStreamWrapper.getStreamHash());
+                handedOff = !awaited && coalesced != null
+                        && downloadCoalescer.handOff(fingerprint, coalesced, release);
+                if (!handedOff) {
+                    release.run();
+                }
+            }
+        } finally {
+            if (coalesced != null && !handedOff) {
+                downloadCoalescer.finish(fingerprint, coalesced, completed);
+            }
+        }
+        // Öncünün alıcısı koptuysa yükleme yalnızca izleyiciler için tamamlanmıştır
+        return completed && (coalesced == null || !coalesced.isLeaderDetached());
+    }
+
+    /**
+     * Süren bir indirmenin sahip yüklemesini, grubun tamponundan bu isteğin yanıtına yazar
+     * @return Dosyanın tamamı aktarıldıysa true
+     */
+    private boolean followDownload(String shareHash, CoalescedDownload.Follower follower, HttpServletRequest request,
+                                   HttpServletResponse response, OutputStream outputStream) throws InterruptedException {
+        FileStreamWrapper leaderStream = follower.awaitStream();
+        if (leaderStream == null) {
+            return false;
+        }
+        if (leaderStream.getDigest() != null && acceptsTrailers(request)) {
+            offerDigestTrailer(response, leaderStream);
+        }
+        log.debug("Download of share {} joined stream {}", shareHash, leaderStream.getStreamHash());
+        boolean completed = follower.transferTo(outputStream);
+        monitorService.recordCoalesced(shareHash, follower.getBytesWritten());
+        return completed;
+    }
+
+    /**
+     * Paylaşım bir SHA-256 içerik özeti ve parça özetleri bildirdiyse, aynı özet ve boyuttaki diğer paylaşımları
+     * kaynak olarak toplar. Diğer kaynakların gönderdiği aralıklar istenen paylaşımın parça özetleriyle
+     * doğrulandığından onların parça bildirmesi gerekmez. Alıcı indirmede ?swarm=true ile çok kaynağı ayrıca
+     * istemelidir.
+     * @return İstenen paylaşım başta olmak üzere kaynaklar; tek kaynak varsa boş liste
+     */
+    private List<SwarmDownload.Source> findSwarmSources(String shareHash, FileShareWrapper share) {
+        FileShareProperties.SwarmProperties swarm = fileShareProperties.getSwarm();
+        if (!swarm.isEnabled() || share.getContentHash() == null || share.getPieceHashes() == null
+                || share.getSize() < swarm.getMinSize()
+                || !SWARM_HASH_PATTERN.matcher(share.getContentHash()).matches()) {
+            return List.of();
+        }
+
+        List<SwarmDownload.Source> sources = new ArrayList<>();
+        sources.add(new SwarmDownload.Source(shareHash, share));
+        for (String candidateHash : shareRegistry.findByContentHash(share.getContentHash())) {
+            if (sources.size() >= swarm.getMaxSources()) {
+                break;
+            }
+            FileShareWrapper candidate = shareRegistry.get(candidateHash);
+            if (!candidateHash.equals(shareHash) && candidate != null && candidate.getSize() == share.getSize()) {
+                sources.add(new SwarmDownload.Source(candidateHash, candidate));
+            }
+        }
+        return sources.size() > 1 ? sources : List.of();
+    }
+
+    /**
+     * Dosyayı birden çok sahipten aralıklar halinde indirip sırayla çıkışa yazar
+     * @return Dosyanın tamamı aktarıldıysa true
+     */
+    private boolean downloadSwarm(String shareHash, FileShareWrapper share, List<SwarmDownload.Source> sources,
+                                  String ip, OutputStream outputStream) throws IOException, InterruptedException {
+        log.debug("Swarm download for share {} using {} sources", shareHash, sources.size());
+        byte[] expectedSha256 = HexFormat.of().parseHex(share.getContentHash().substring(SWARM_HASH_PREFIX.length()));
+        SwarmDownload swarmDownload = new SwarmDownload(sources, share.getSize(), expectedSha256,
+                share.getPieceHashes(), fileShareProperties.getSwarm(), bufferBudget,
+                new SwarmDownload.RangeRequester() {
+                    @Override
+                    public FileStreamWrapper request(SwarmDownload.Source source, long offset, long length, OutputStream sink) {
+                        FileStreamWrapper stream = openStream(source.getShareHash(), source.getShare(), sink, offset, length);
+                        notifyOwner(stream, source.getShareHash(), ip);
+                        return stream;
+                    }
+
+                    @Override
+                    public void release(SwarmDownload.Source source, FileStreamWrapper stream) {
+                        source.getShare().removeStream(stream.getStreamHash());
+                    }
+                });
+        return swarmDownload.transfer(outputStream);
+    }
+
+    /**
+     * Paket paylaşımını ZIP arşivi olarak indirir. Üye dosyalar sırayla sahipten istenir ve
+     * gelen byte'lar doğrudan arşive yazılır; bir üyenin aktarımı başarısız olursa indirme yarıda kalır.
+     * @return Arşivin tamamı aktarıldıysa true
+     */
+    private boolean downloadBundle(String bundleHash, FileShareWrapper bundle, HttpServletRequest request,
+                                HttpServletResponse response) throws IOException, InterruptedException {
+        List<String> memberHashes = bundle.getMemberHashes();
+        List<FileShareWrapper> members = new ArrayList<>(memberHashes.size());
+        for (String memberHash : memberHashes) {
+            FileShareWrapper member = shareRegistry.get(memberHash);
+            if (member == null) {
+                throw new ResponseStatusException(HttpStatus.GONE, "Paketteki dosya artık paylaşılmıyor: " + memberHash);
+            }
+            members.add(member);
+        }
+
+        response.setContentType("application/zip");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + bundle.getFilename() + "\"");
+        response.setHeader("Content-Length", Long.toString(bundle.getSize()));
+
+        long startTime = System.currentTimeMillis();
+        String ip = clientIp(request);
+        ZipStreamWriter zip = new ZipStreamWriter(response.getOutputStream());
+
+        for (int i = 0; i < members.size(); i++) {
+            String memberHash = memberHashes.get(i);
+            FileShareWrapper member = members.get(i);
+
+            OutputStream entry = zip.startEntry(toZipEntryName(member.getFilename()), member.getSize());
+            FileStreamWrapper stream = openStream(bundleHash, member, entry);
+            requestUpload(stream, memberHash, ip);
+            try {
+                awaitTransfer(memberHash, stream);
+            } finally {
+                member.removeStream(stream.getStreamHash());
+            }
+
+            if (stream.getStatus() != FileStreamWrapper.STATUS_COMPLETED) {
+                log.info("Bundle download {} aborted at member {} ({}/{})", bundleHash, memberHash, i + 1, members.size());
+                return false;
+            }
+            zip.finishEntry();
+        }
+        zip.finish();
+
+        long elapsedTime = System.currentTimeMillis() - startTime;
+        monitorService.recordDownload(bundleHash, bundle.getSize(), elapsedTime);
+        return true;
+    }
+
+    /**
+     * Paylaşım için yeni bir stream oluşturup tabloya ekler
+     * @param topic Sahibe bildirimlerin gönderileceği paylaşım hash'i
+     * @param outputStream Sahipten gelen byte'ların yazılacağı akış
+     */
+    private FileStreamWrapper openStream(String topic, FileShareWrapper share, OutputStream outputStream) {
+        return openStream(topic, share, outputStream, 0, share.getSize(), false);
+    }
+
+    /**
+     * Sahipten dosyanın yalnızca bir aralığını isteyen stream oluşturur. Aralıklar çok kaynaklı
+     * indirmede birleştirildiğinden stream başına özet hesaplanmaz.
+     */
+    private FileStreamWrapper openStream(String topic, FileShareWrapper share, OutputStream outputStream,
+                                         long offset, long length) {
+        return openStream(topic, share, outputStream, offset, length, true);
+    }
+
+    private FileStreamWrapper openStream(String topic, FileShareWrapper share, OutputStream outputStream,
+                                         long offset, long length, boolean range) {
+        // Olaylar sahibin bağlanması ve ilk byte'ın iletilmesi anında kapatılır
+        StreamPendingEvent pendingEvent = new StreamPendingEvent();
+        pendingEvent.begin();
+        OwnerConnectedEvent ttfbEvent = new OwnerConnectedEvent();
+        ttfbEvent.begin();
+
         FileStreamWrapper fileStreamWrapper = FileStreamWrapper.builder()
-                .latch(latch)
-                .outputStream(response.getOutputStream())
-                .status(0)
+                .topic(topic)
+                .offset(offset)
+                .length(length)
+                .range(range)
+                .digest(range ? null : StreamDigest.create(fileShareProperties.getDigestAlgorithm()))
+                .latch(new CountDownLatch(1))
+                .outputStream(outputStream)
+                .status(FileStreamWrapper.STATUS_PENDING)
+                .pendingDeadline(fileShareProperties.getPendingTimeoutSeconds() > 0
+                        ? System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(fileShareProperties.getPendingTimeoutSeconds())
+                        : 0)
+                .pendingEvent(pendingEvent)
+                .ttfbEvent(ttfbEvent)
                 .build();
-        fileShareWrapper.getStreamMap().put(streamHash, fileStreamWrapper);
 
-        String ip = Optional.ofNullable(request.getHeader("X-Forwarded-For"))
-                .orElse(request.getRemoteHost());
+        do {
+            fileStreamWrapper.setStreamHash(hashService.generateHash());
+        } while (!share.addStream(fileStreamWrapper));
+        return fileStreamWrapper;
+    }
 
-        template.convertAndSend("/topic/" + shareHash, SocketShareDTO.builder()
+    /**
+     * HTTP/1.1'de trailer eklemek yanıtı chunked yapıp Content-Length'i kaldırdığından,
+     * trailer yalnızca istemci "TE: trailers" ile istediğinde veya HTTP/2 üzerinde gönderilir
+     */
+    private boolean acceptsTrailers(HttpServletRequest request) {
+        String te = request.getHeader("TE");
+        return "HTTP/2.0".equals(request.getProtocol())
+                || (te != null && te.toLowerCase().contains("trailers"));
+    }
+
+    /**
+     * İletilen byte'ların özetini yanıt trailer'ı olarak ekler. Trailer'ı desteklemeyen
+     * bağlantılarda (ör. HTTP/1.0) özet yalnızca /file/info ve sahip bildirimi ile sunulur.
+     */
+    private void offerDigestTrailer(HttpServletResponse response, FileStreamWrapper stream) {
+        try {
+            response.setTrailerFields(() -> stream.getStatus() == FileStreamWrapper.STATUS_COMPLETED
+                    ? Map.of(CONTENT_DIGEST_TRAILER, stream.getDigest().getValue())
+                    : Map.of());
+            response.setHeader("Trailer", CONTENT_DIGEST_TRAILER);
+        } catch (IllegalStateException e) {
+            log.debug("Trailer fields not supported for this response: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Paylaşımın bekleyen bir yükleme yuvası varsa stream'i ona bağlar ve sahibe yuvayı yenilemesini
+     * bildirir; yoksa sahipten yükleme başlatmasını ister. Aralık stream'leri yuva kullanmaz.
+     */
+    private void requestUpload(FileStreamWrapper stream, String shareHash, String ip) {
+        if (stream.isRange() || !uploadSlotPool.claim(shareHash, stream)) {
+            notifyOwner(stream, shareHash, ip);
+            return;
+        }
+        stream.setSlotted(true);
+        template.convertAndSend("/topic/" + stream.getTopic(), UploadSlotClaimedDTO.builder()
                 .shareHash(shareHash)
-                .streamHash(streamHash)
+                .streamHash(stream.getStreamHash())
                 .ip(ip)
                 .build());
+    }
 
-        latch.await();
-        
-        // İndirme performans metriğini kaydet
-        long elapsedTime = System.currentTimeMillis() - startTime;
-        monitorService.recordDownload(shareHash, fileShareWrapper.getSize(), elapsedTime);
+    /**
+     * Sahibe, verilen paylaşım için yükleme başlatması gerektiğini bildirir.
+     * Aralık isteklerinde sahip yalnızca offset'ten itibaren length byte yükler.
+     */
+    private void notifyOwner(FileStreamWrapper stream, String shareHash, String ip) {
+        template.convertAndSend("/topic/" + stream.getTopic(), SocketShareDTO.builder()
+                .shareHash(shareHash)
+                .streamHash(stream.getStreamHash())
+                .ip(ip)
+                .offset(stream.isRange() ? stream.getOffset() : null)
+                .length(stream.isRange() ? stream.getLength() : null)
+                .build());
+    }
 
-        fileShareWrapper.getStreamMap().remove(streamHash);
+    /**
+     * İstemci adresi. X-Forwarded-For yalnızca güvenilen bir vekil sunucudan geldiğinde Tomcat'in
+     * RemoteIpValve'i tarafından uygulanır (server.forward-headers-strategy: native); istemcinin kendi
+     * gönderdiği başlık tarama korumasını atlatmak veya başka bir adresi engelletmek için kullanılamaz.
+     */
+    public String clientIp(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+
+    /**
+     * Aktarımın bitmesini bekler; sahip süresinde bağlanmazsa veya askıya alınmış stream'in yeniden
+     * bağlanma süresi dolarsa beklemeyi bırakır
+     */
+    private void awaitTransfer(String shareHash, FileStreamWrapper stream) throws InterruptedException {
+        while (!stream.getLatch().await(1, TimeUnit.SECONDS)) {
+            if (stream.expireIfDue(System.currentTimeMillis())) {
+                log.info("Owner did not connect or resume stream: {} of share: {} in time. Download ends at offset {}.",
+                        stream.getStreamHash(), shareHash, stream.getBytesDelivered());
+                return;
+            }
+        }
     }
 
     /**
      * Dosya paylaşımı istatistiklerini getirir
      */
-    public Map<String, Object> getStats(String shareHash) {
+    public Map<String, Object> getStats(String shareHash, String ip) {
+        FileShareWrapper fileShareWrapper = lookup(shareHash, ip);
+
         // Bu dosya paylaşımı için istatistikleri getir
         Map<String, Object> stats = new HashMap<>();
         
-        FileShareWrapper fileShareWrapper = Optional.ofNullable(shareMap.get(shareHash))
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Dosya bulunamadı"));
-                
         stats.put("filename", fileShareWrapper.getFilename());
         stats.put("size", fileShareWrapper.getSize());
-        stats.put("activeStreams", fileShareWrapper.getStreamMap().size());
+        stats.put("activeStreams", fileShareWrapper.getActiveStreamCount());
+        stats.put("contentDigest", fileShareWrapper.getContentDigest());
+        stats.put("parkedUploadSlots", uploadSlotPool.getParkedCount(shareHash));
         
         monitorService.getMetric(shareHash).ifPresent(metric -> {
             stats.put("uploadCount", metric.getUploadCount());
@@ -244,64 +1140,184 @@ public class FileService {
             stats.put("averageSpeedMbps", metric.getAverageDownloadSpeedMbps());
             stats.put("maxSpeedMbps", metric.getMaxDownloadSpeedBps().get() * 8.0 / (1024.0 * 1024.0));
             stats.put("minSpeedMbps", metric.getMinDownloadSpeedBps().get() * 8.0 / (1024.0 * 1024.0));
+            stats.put("compressedDownloads", metric.getCompressedTransfers().get());
+            stats.put("compressionRatio", metric.getCompressionRatio());
+            stats.put("compressionSavedBytes", metric.getCompressionInputBytes().get() - metric.getCompressionOutputBytes().get());
+            stats.put("compressionCpuMs", metric.getCompressionCpuNanos().get() / 1_000_000.0);
+            stats.put("directTransfers", metric.getDirectTransfers().get());
+            stats.put("fallbackTransfers", metric.getFallbackTransfers().get());
+            stats.put("directBytesSaved", metric.getDirectBytes().get());
         });
+
+        List<Map<String, Object>> streams = new ArrayList<>();
+        for (FileStreamWrapper stream : fileShareWrapper.getStreams()) {
+            Map<String, Object> streamStats = new LinkedHashMap<>();
+            streamStats.put("streamHash", stream.getStreamHash());
+            streamStats.put("bytesDelivered", stream.getBytesDelivered());
+            streamStats.put("bufferSize", stream.getBufferSize());
+            streamStats.put("throughputBytesPerSecond", stream.getThroughputBytesPerSecond());
+            streams.add(streamStats);
+        }
+        stats.put("streams", streams);
         
         return stats;
     }
 
     /**
-     * Kaynakları temizler
+     * Veri akışını sağlar. Paylaşım boyutuna ulaşıldığında durur; böylece multipart kapanış
+     * sınırı alıcıya iletilmez. İletilen byte sayısı stream üzerinde tutulur.
+     * Sahipten okuma hataları yükselir, alıcıya yazma hataları stream'i STATUS_FAILED yapar. Yükleme başka
+     * bir bağlantıya devredildiyse alıcıya yazmadan hata verir.
      */
-    private void forceClose(Closeable closeable) {
-        try {
-            if (closeable != null) {
-                closeable.close();
+    private void flow(InputStream is, FileStreamWrapper stream, String shareHash, long size, int generation)
+            throws IOException {
+        OutputStream os = stream.getOutputStream();
+        StreamDigest digest = stream.getDigest();
+        int bytesRead;
+        long totalBytes = stream.getBytesDelivered();
+
+        try (AdaptiveBuffer adaptiveBuffer = bufferBudget.open()) {
+            byte[] buffer = adaptiveBuffer.array();
+            stream.setBufferSize(buffer.length);
+            while (totalBytes < size
+                    && (bytesRead = readChunk(is, buffer, (int) Math.min(buffer.length, size - totalBytes))) != -1) {
+                // Yavaş alıcı çoğunlukla küçük servlet tamponu dolduğunda write içinde bekler; olay yazma ve
+                // varsa ardından gelen flush'ı birlikte ölçer
+                ChunkFlushStallEvent stall = new ChunkFlushStallEvent();
+                stall.begin();
+                synchronized (stream.getWriteLock()) {
+                    requireCurrentUpload(stream, generation);
+                    try {
+                        os.write(buffer, 0, bytesRead);
+                    } catch (IOException e) {
+                        stream.setStatus(FileStreamWrapper.STATUS_FAILED);
+                        throw e;
+                    }
+                    if (digest != null) {
+                        digest.update(buffer, 0, bytesRead);
+                    }
+                    if (totalBytes == 0) {
+                        commitTtfb(stream, shareHash);
+                    }
+                    long previousTotal = totalBytes;
+                    totalBytes += bytesRead;
+                    stream.setBytesDelivered(totalBytes);
+                    monitorService.recordBytesRelayed(bytesRead);
+
+                    if (totalBytes / FLUSH_INTERVAL_BYTES != previousTotal / FLUSH_INTERVAL_BYTES) {
+                        flush(os, stream);
+                    }
+                }
+                commitStall(stall, stream, shareHash, bytesRead, totalBytes);
+                if (adaptiveBuffer.record(bytesRead)) {
+                    buffer = adaptiveBuffer.array();
+                    stream.setBufferSize(buffer.length);
+                }
+                stream.setThroughputBytesPerSecond(adaptiveBuffer.getThroughputBytesPerSecond());
             }
-        } catch (Exception ignored) {
-            // Hata durumunda sessizce devam et
+        } finally {
+            stream.setBufferSize(0);
+        }
+        ChunkFlushStallEvent stall = new ChunkFlushStallEvent();
+        stall.begin();
+        synchronized (stream.getWriteLock()) {
+            requireCurrentUpload(stream, generation);
+            flush(os, stream);
         }
+        commitStall(stall, stream, shareHash, 0, totalBytes);
     }
 
     /**
-     * Veri akışını sağlar
+     * Yükleme başka bir bağlantıya devredildiyse eski bağlantının okumasını sonlandırır
      */
-    private void flow(InputStream is, OutputStream os) throws IOException {
-        byte[] buffer = new byte[fileShareProperties.getBufferSize()];
-        int bytesRead;
-        long totalBytes = 0;
-        
-        while ((bytesRead = is.read(buffer)) != -1) {
-            os.write(buffer, 0, bytesRead);
-            totalBytes += bytesRead;
-            
-            if (totalBytes % (10 * 1024 * 1024) < fileShareProperties.getBufferSize()) {
-                os.flush();
+    private static void requireCurrentUpload(FileStreamWrapper stream, int generation) throws IOException {
+        if (!stream.isCurrentUpload(generation)) {
+            throw new IOException("Yükleme yeni bağlantıya devredildi: " + stream.getStreamHash());
+        }
+    }
+
+    /**
+     * Bir okumayla başlayıp hazırda bekleyen veri bittiği veya tampon dolduğu sürece okumaya devam eder.
+     * Kapsayıcı tek okumada soket tamponu kadar veri döndürdüğünden, büyük tamponun alıcıya tek
+     * yazmayla iletilmesi bu sayede sağlanır; hazırda veri yoksa beklenmez.
+     * @return Okunan byte sayısı, akış bittiyse -1
+     */
+    private static int readChunk(InputStream is, byte[] buffer, int length) throws IOException {
+        int total = is.read(buffer, 0, length);
+        if (total <= 0) {
+            return total;
+        }
+        while (total < length && is.available() > 0) {
+            int read = is.read(buffer, total, length - total);
+            if (read == -1) {
+                break;
             }
+            total += read;
         }
-        os.flush();
+        return total;
     }
 
     /**
-     * Verilen hash'e ait dosya bilgilerini döndürür
+     * Alıcıya flush yapar. Alıcıya yazılamazsa stream yeniden bağlanılamaz olarak işaretlenir.
      */
-    public FileInfoDTO getFileInfo(String hash) {
-        FileShareWrapper fileShareWrapper = Optional.ofNullable(shareMap.get(hash))
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Dosya bulunamadı hash: " + hash));
+    private void flush(OutputStream os, FileStreamWrapper stream) throws IOException {
+        try {
+            os.flush();
+        } catch (IOException e) {
+            stream.setStatus(FileStreamWrapper.STATUS_FAILED);
+            throw e;
+        }
+    }
 
-        // Dosya tipi için basit bir çıkarım yapılabilir veya FileShareWrapper'a eklenebilir.
-        // Şimdilik dosya adından uzantıyı alarak basit bir çıkarım yapalım.
-        String fileName = fileShareWrapper.getFilename();
-        String fileType = "unknown";
-        int lastDotIndex = fileName.lastIndexOf('.');
-        if (lastDotIndex > 0 && lastDotIndex < fileName.length() - 1) {
-            fileType = fileName.substring(lastDotIndex + 1);
+    /**
+     * Alıcıya yazma ve flush beklemesi eşiği aştıysa JFR olayını kaydeder
+     */
+    private void commitStall(ChunkFlushStallEvent event, FileStreamWrapper stream, String shareHash,
+                             int chunkBytes, long totalBytes) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.shareHash = shareHash;
+            event.streamHash = stream.getStreamHash();
+            event.chunkBytes = chunkBytes;
+            event.bytesTransferred = totalBytes;
+            event.commit();
+        }
+    }
+
+    private void commitTtfb(FileStreamWrapper stream, String shareHash) {
+        OwnerConnectedEvent event = stream.getTtfbEvent();
+        if (event == null) {
+            return;
         }
+        stream.setTtfbEvent(null);
+        event.end();
+        if (event.shouldCommit()) {
+            event.shareHash = shareHash;
+            event.streamHash = stream.getStreamHash();
+            event.slot = stream.isSlotted();
+            event.commit();
+        }
+    }
 
-        return new FileInfoDTO(
-                fileShareWrapper.getFilename(),
-                fileShareWrapper.getSize(),
-                fileType
-        );
+    /**
+     * Verilen hash'e ait dosya bilgilerini döndürür
+     */
+    public FileInfoDTO getFileInfo(String hash, String ip) {
+        // Yanıt paylaşım oluşturulurken hazırlandığından istek başına nesne oluşturulmaz
+        return lookup(hash, ip).getInfo();
+    }
+
+    /**
+     * Herkese açık uçlar için paylaşımı bulur. Bulunamayan aramalar istemci bazında sayılır ve
+     * yığın izi olmayan ortak bir 404 istisnası fırlatılır; tarama yapan istemciler 429 alır.
+     */
+    private FileShareWrapper lookup(String shareHash, String ip) {
+        lookupGuard.checkAllowed(ip);
+        FileShareWrapper fileShareWrapper = shareRegistry.get(shareHash);
+        if (fileShareWrapper == null) {
+            throw lookupGuard.recordMiss(ip);
+        }
+        return fileShareWrapper;
     }
 
     /**
@@ -309,9 +1325,9 @@ public class FileService {
      * @param shareHash Kalp atışı alınan paylaşımın hash'i.
      */
     public void updateHeartbeat(String shareHash, String ownerToken) {
-        FileShareWrapper shareWrapper = shareMap.get(shareHash);
+        FileShareWrapper shareWrapper = shareRegistry.get(shareHash);
         if (shareWrapper != null) {
-            if (shareWrapper.getOwnerToken() != null && shareWrapper.getOwnerToken().equals(ownerToken)) {
+            if (shareWrapper.isOwner(ownerToken)) {
                 shareWrapper.setLastHeartbeatTimestamp(System.currentTimeMillis());
                 log.debug("Heartbeat updated for share: {} with matching owner token", shareHash);
             } else {
@@ -0,0 +1,22 @@
+package com.codeyzer.p2p.service;
+
+import org.apache.coyote.CloseNowException;
+
+/**
+ * Yanıtı başlamış ancak tamamlanamamış bir indirmeyi, yanıt sonlandırılmadan kesmek için fırlatılır.
+ * TomcatConfig'teki valve bu istisnada bağlantıyı hata sayfası yazdırmadan hemen kapattırır;
+ * Content-Length gönderilen yanıtlarda alıcı kalan byte'ları beklemez, gönderilmeyenlerde kesik gövdeyi
+ * tam sanmaz. Sahibin dönmemesi beklenen
+ * bir durum olduğundan yığın izi toplanmaz.
+ */
+public class IncompleteDownloadException extends CloseNowException {
+
+    public IncompleteDownloadException(String shareHash) {
+        super("Paylaşımın indirmesi tamamlanamadı: " + shareHash);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,97 @@
+package com.codeyzer.p2p.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+import com.codeyzer.p2p.dto.FileShareWrapper;
+import com.codeyzer.p2p.service.persistence.ShareJournal;
+
+/**
+ * Aktif paylaşımların kaydı. Genel amaçlı bir Map yerine yalnızca paylaşım
+ * yaşam döngüsünün ihtiyaç duyduğu işlemleri sunar. İçerik özeti bildiren
+ * paylaşımlar ayrıca özete göre indekslenir. Günlük bağlandıysa her kayıt ve silme
+ * günlüğe de yazılır.
+ */
+public class ShareRegistry {
+
+    private final Map<String, FileShareWrapper> shares;
+    private final Map<String, Set<String>> sharesByContentHash = new ConcurrentHashMap<>();
+    private volatile ShareJournal journal;
+
+    public ShareRegistry(int initialCapacity) {
+        this.shares = new ConcurrentHashMap<>(initialCapacity);
+    }
+
+    /**
+     * Sonraki kayıt ve silmeleri günlüğe yazdırır. Geri yükleme günlüğe yazılmadan yapılabilsin
+     * diye günlük, kayıt geri yüklendikten sonra bağlanır.
+     */
+    public void attachJournal(ShareJournal journal) {
+        this.journal = journal;
+    }
+
+    public FileShareWrapper get(String shareHash) {
+        return shares.get(shareHash);
+    }
+
+    public boolean contains(String shareHash) {
+        return shares.containsKey(shareHash);
+    }
+
+    /**
+     * Paylaşımı kaydeder
+     * @return Hash daha önce alınmışsa false
+     */
+    public boolean register(String shareHash, FileShareWrapper share) {
+        if (shares.putIfAbsent(shareHash, share) != null) {
+            return false;
+        }
+        if (share.getContentHash() != null) {
+            // Ekleme, boşalan kümeyi silen remove ile yarışmaması için compute içinde yapılır
+            sharesByContentHash.compute(share.getContentHash(), (contentHash, hashes) -> {
+                Set<String> result = hashes != null ? hashes : ConcurrentHashMap.newKeySet();
+                result.add(shareHash);
+                return result;
+            });
+        }
+        ShareJournal currentJournal = journal;
+        if (currentJournal != null) {
+            currentJournal.appendRegister(shareHash, share);
+        }
+        return true;
+    }
+
+    public FileShareWrapper remove(String shareHash) {
+        FileShareWrapper removed = shares.remove(shareHash);
+        if (removed != null && removed.getContentHash() != null) {
+            sharesByContentHash.computeIfPresent(removed.getContentHash(), (contentHash, hashes) -> {
+                hashes.remove(shareHash);
+                return hashes.isEmpty() ? null : hashes;
+            });
+        }
+        ShareJournal currentJournal = journal;
+        if (removed != null && currentJournal != null) {
+            currentJournal.appendRemove(shareHash);
+        }
+        return removed;
+    }
+
+    /**
+     * Verilen içerik özetini bildiren paylaşımların hash'lerini döndürür
+     */
+    public List<String> findByContentHash(String contentHash) {
+        Set<String> hashes = sharesByContentHash.get(contentHash);
+        return hashes != null ? List.copyOf(hashes) : List.of();
+    }
+
+    public int size() {
+        return shares.size();
+    }
+
+    public void forEach(BiConsumer<String, FileShareWrapper> action) {
+        shares.forEach(action);
+    }
+}
@@ -0,0 +1,238 @@
+package com.codeyzer.p2p.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.codeyzer.p2p.config.FileShareProperties;
+import com.codeyzer.p2p.dto.FileShareWrapper;
+import com.codeyzer.p2p.dto.SignalMessageDTO;
+import com.codeyzer.p2p.dto.SignalResultDTO;
+import com.codeyzer.p2p.service.monitoring.PerformanceMonitorService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * İndiren taraf ile paylaşım sahibi arasında WebRTC SDP ve ICE mesajlarını iletir.
+ * Doğrudan bağlantı kurulamazsa indiren taraf HTTP aktarımına (FileService) döner;
+ * oturum sonucu bildirildiğinde doğrudan/aktarımlı oranı ve tasarruf edilen byte kaydedilir.
+ * Açık oturumlar paylaşım ve istemci adresi başına sınırlanır; sınırı aşan teklif indiren tarafa
+ * rtc-rejected (429) ile reddedilir.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "file-share.signaling", name = "enabled", havingValue = "true")
+public class SignalingService {
+
+    public static final String TYPE_OFFER = "rtc-offer";
+    public static final String TYPE_ANSWER = "rtc-answer";
+    public static final String TYPE_CANDIDATE = "rtc-candidate";
+    public static final String TYPE_REJECTED = "rtc-rejected";
+
+    private final ShareRegistry shareRegistry;
+    private final SimpMessagingTemplate template;
+    private final PerformanceMonitorService monitorService;
+    private final FileShareProperties fileShareProperties;
+
+    private final Map<String, SignalSession> sessions = new ConcurrentHashMap<>();
+    // Paylaşım ve istemci adresi başına açık oturum sayıları; sıfıra inen kayıt silinir
+    private final Map<String, Integer> sessionsPerShare = new ConcurrentHashMap<>();
+    private final Map<String, Integer> sessionsPerIp = new ConcurrentHashMap<>();
+
+    /**
+     * İndiren tarafın SDP teklifini sahibe iletir ve oturumu başlatır
+     * @param ip Teklifi gönderen istemcinin adresi
+     */
+    public void offer(SignalMessageDTO message, String ip) {
+        if (isBlank(message.getSessionId()) || isBlank(message.getSdp()) || isBlank(message.getShareHash())) {
+            log.warn("Received an incomplete WebRTC offer.");
+            return;
+        }
+        FileShareWrapper share = shareRegistry.get(message.getShareHash());
+        if (share == null) {
+            log.warn("WebRTC offer for non-existent share: {}", message.getShareHash());
+            return;
+        }
+        FileShareProperties.SignalingProperties settings = fileShareProperties.getSignaling();
+        if (!acquire(sessionsPerShare, message.getShareHash(), settings.getMaxSessionsPerShare())) {
+            reject(message, "Paylaşım için açık sinyal oturumu sınırına ulaşıldı");
+            return;
+        }
+        if (!acquire(sessionsPerIp, ip, settings.getMaxSessionsPerIp())) {
+            release(sessionsPerShare, message.getShareHash());
+            reject(message, "İstemci için açık sinyal oturumu sınırına ulaşıldı");
+            return;
+        }
+        SignalSession existing = sessions.putIfAbsent(message.getSessionId(),
+                new SignalSession(message.getShareHash(), ip, share.getSize(), System.currentTimeMillis()));
+        if (existing != null) {
+            release(sessionsPerShare, message.getShareHash());
+            release(sessionsPerIp, ip);
+            log.warn("WebRTC offer for already used session: {}", message.getSessionId());
+            return;
+        }
+
+        template.convertAndSend("/topic/" + message.getShareHash(), SignalMessageDTO.builder()
+                .type(TYPE_OFFER)
+                .shareHash(message.getShareHash())
+                .sessionId(message.getSessionId())
+                .sdp(message.getSdp())
+                .build());
+    }
+
+    /**
+     * Sahibin SDP cevabını, sahiplik doğrulandıktan sonra indiren tarafa iletir
+     */
+    public void answer(SignalMessageDTO message) {
+        SignalSession session = ownedSession(message);
+        if (session == null || isBlank(message.getSdp())) {
+            return;
+        }
+        template.convertAndSend("/topic/signal/" + message.getSessionId(), SignalMessageDTO.builder()
+                .type(TYPE_ANSWER)
+                .shareHash(session.shareHash)
+                .sessionId(message.getSessionId())
+                .sdp(message.getSdp())
+                .build());
+    }
+
+    /**
+     * ICE adayını karşı tarafa iletir. Sahip tokenı içeren mesajlar sahipten gelmiş sayılır.
+     */
+    public void candidate(SignalMessageDTO message) {
+        if (message.getCandidate() == null) {
+            return;
+        }
+        boolean fromOwner = message.getOwnerToken() != null;
+        SignalSession session = fromOwner ? ownedSession(message) : sessions.get(nullToEmpty(message.getSessionId()));
+        if (session == null) {
+            return;
+        }
+
+        String destination = fromOwner
+                ? "/topic/signal/" + message.getSessionId()
+                : "/topic/" + session.shareHash;
+        template.convertAndSend(destination, SignalMessageDTO.builder()
+                .type(TYPE_CANDIDATE)
+                .shareHash(session.shareHash)
+                .sessionId(message.getSessionId())
+                .candidate(message.getCandidate())
+                .build());
+    }
+
+    /**
+     * Oturumun sonucunu kaydeder ve oturumu kapatır. İstemcinin bildirdiği byte sayısı doğrulanamadığından
+     * doğrudan aktarımda sunucudan geçmeyen byte olarak paylaşımın bildirilen boyutu kaydedilir.
+     */
+    public void result(SignalResultDTO result) {
+        SignalSession session = sessions.remove(nullToEmpty(result.getSessionId()));
+        if (session == null) {
+            log.debug("WebRTC result for unknown or expired session: {}", result.getSessionId());
+            return;
+        }
+        close(session);
+        monitorService.recordSignalingResult(session.shareHash, result.isDirect(), result.isDirect() ? session.size : 0);
+    }
+
+    /**
+     * Sonucu bildirilmeyen oturumları kaldırır; bunlar doğrudan bağlantı kurulamamış sayılır
+     */
+    @Scheduled(fixedRateString = "${file-share.signaling.session-timeout-seconds:120}000")
+    public void evictStaleSessions() {
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(fileShareProperties.getSignaling().getSessionTimeoutSeconds());
+        long now = System.currentTimeMillis();
+        sessions.entrySet().removeIf(entry -> {
+            if (now - entry.getValue().createdAt <= timeoutMillis) {
+                return false;
+            }
+            close(entry.getValue());
+            monitorService.recordSignalingResult(entry.getValue().shareHash, false, 0);
+            return true;
+        });
+    }
+
+    private SignalSession ownedSession(SignalMessageDTO message) {
+        SignalSession session = sessions.get(nullToEmpty(message.getSessionId()));
+        if (session == null) {
+            log.debug("WebRTC message for unknown session: {}", message.getSessionId());
+            return null;
+        }
+        FileShareWrapper share = shareRegistry.get(session.shareHash);
+        if (share == null || !share.isOwner(message.getOwnerToken())) {
+            log.warn("Unauthorized WebRTC message for share: {}", session.shareHash);
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * Teklifi indiren tarafın oturum konusuna rtc-rejected ile reddeder
+     */
+    private void reject(SignalMessageDTO message, String reason) {
+        log.debug("WebRTC offer for share {} rejected: {}", message.getShareHash(), reason);
+        template.convertAndSend("/topic/signal/" + message.getSessionId(), SignalMessageDTO.builder()
+                .type(TYPE_REJECTED)
+                .shareHash(message.getShareHash())
+                .sessionId(message.getSessionId())
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .reason(reason)
+                .build());
+    }
+
+    private void close(SignalSession session) {
+        release(sessionsPerShare, session.shareHash);
+        release(sessionsPerIp, session.ip);
+    }
+
+    /**
+     * Anahtarın açık oturum sayısını sınırı aşmıyorsa bir artırır
+     * @return Sayı artırıldıysa true
+     */
+    private static boolean acquire(Map<String, Integer> counts, String key, int max) {
+        boolean[] acquired = new boolean[1];
+        counts.compute(key, (k, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= max) {
+                return count;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    private static void release(Map<String, Integer> counts, String key) {
+        counts.computeIfPresent(key, (k, count) -> count <= 1 ? null : count - 1);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static final class SignalSession {
+        private final String shareHash;
+        private final String ip;
+        // Teklif anında paylaşımın bildirdiği boyut
+        private final long size;
+        private final long createdAt;
+
+        private SignalSession(String shareHash, String ip, long size, long createdAt) {
+            this.shareHash = shareHash;
+            this.ip = ip;
+            this.size = size;
+            this.createdAt = createdAt;
+        }
+    }
+}
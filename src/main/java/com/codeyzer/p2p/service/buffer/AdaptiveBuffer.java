@@ -0,0 +1,114 @@
+package com.codeyzer.p2p.service.buffer;
+
+/**
+ * Tek bir aktarımın okuma/yazma tamponu. Her örnekleme aralığında ölçülen aktarım hızına göre boyut,
+ * bir tamponun yaklaşık {@code targetChunkMillis} süresinde aktarılacağı şekilde ikinin kuvvetine
+ * yuvarlanarak yeniden seçilir; büyüme adım adım, küçülme tek seferde yapılır. Hızlı bağlantılarda
+ * daha az sistem çağrısıyla büyük parçalar, yavaş bağlantılarda ise az bellek kullanılır. Büyümeler
+ * {@link TransferBufferBudget} bütçesiyle sınırlıdır.
+ * Sınıf iş parçacığı güvenli değildir; yalnızca aktarımı yürüten iş parçacığı tarafından kullanılır.
+ */
+public class AdaptiveBuffer implements AutoCloseable {
+
+    private final TransferBufferBudget budget;
+    private final int minSize;
+    private final int maxSize;
+    private final long targetChunkMillis;
+    private final long sampleIntervalNanos;
+
+    private byte[] array;
+    private long windowStart;
+    private long windowBytes;
+    private long throughputBytesPerSecond;
+    private boolean closed;
+
+    AdaptiveBuffer(TransferBufferBudget budget, int initialSize, int minSize, int maxSize,
+                   long targetChunkMillis, long sampleIntervalMs) {
+        this.budget = budget;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetChunkMillis = targetChunkMillis;
+        this.sampleIntervalNanos = sampleIntervalMs == Long.MAX_VALUE ? Long.MAX_VALUE : sampleIntervalMs * 1_000_000;
+        this.array = new byte[budget.reserve(clamp(initialSize), minSize)];
+        this.windowStart = System.nanoTime();
+    }
+
+    /**
+     * Güncel tampon; boyut {@link #record(int)} çağrısından sonra değişebilir
+     */
+    public byte[] array() {
+        return array;
+    }
+
+    public int size() {
+        return array.length;
+    }
+
+    /**
+     * Son ölçülen aktarım hızı (byte/sn); ilk örnekleme aralığı dolana kadar 0
+     */
+    public long getThroughputBytesPerSecond() {
+        return throughputBytesPerSecond;
+    }
+
+    /**
+     * Aktarılan byte'ları kaydeder; örnekleme aralığı dolduysa tampon boyutunu yeniden seçer
+     * @return Tampon boyutu değiştiyse true
+     */
+    public boolean record(int bytes) {
+        windowBytes += bytes;
+        long now = System.nanoTime();
+        long elapsed = now - windowStart;
+        if (elapsed < sampleIntervalNanos) {
+            return false;
+        }
+        throughputBytesPerSecond = windowBytes * 1_000_000_000L / elapsed;
+        windowStart = now;
+        windowBytes = 0;
+
+        // Bağlantı başında soket tamponları dolarken ölçülen hız yanıltıcı olduğundan büyüme her örnekte
+        // en fazla iki katla sınırlıdır; küçülme ise doğrudan hedefe yapılır
+        long target = Math.min(throughputBytesPerSecond * targetChunkMillis / 1000, 2L * array.length);
+        int size = clamp(target);
+        if (size == array.length) {
+            return false;
+        }
+        int current = array.length;
+        if (size > current) {
+            // Yalnızca büyüme kısmı bütçeden istenir; yer yoksa mevcut boyutta kalınır
+            int granted = budget.reserve(size - current, 0);
+            if (granted < size - current) {
+                budget.release(granted);
+                return false;
+            }
+        } else {
+            budget.release(current - size);
+        }
+        array = new byte[size];
+        return true;
+    }
+
+    /**
+     * Tamponu bütçeye iade eder
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            budget.release(array.length);
+        }
+    }
+
+    /**
+     * Boyutu ikinin kuvvetine yuvarlayıp sınırlar içine alır
+     */
+    private int clamp(long size) {
+        if (size <= minSize) {
+            return minSize;
+        }
+        if (size >= maxSize) {
+            return maxSize;
+        }
+        return (int) Math.max(minSize, Long.highestOneBit(size - 1) << 1);
+    }
+}
@@ -0,0 +1,86 @@
+package com.codeyzer.p2p.service.buffer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Service;
+
+import com.codeyzer.p2p.config.FileShareProperties;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Aktarım tamponlarının toplam bellek bütçesi. Her aktarım en küçük tampon boyutunu her zaman alır;
+ * bunun üzerindeki büyümeler yalnızca bütçede yer varsa verilir. Böylece binlerce yavaş indirme küçük
+ * tamponlarla çalışırken hızlı bağlantılar kalan bütçeden büyük tampon alabilir.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransferBufferBudget {
+
+    private final FileShareProperties fileShareProperties;
+
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    /**
+     * Yeni bir aktarım tamponu açar; tampon {@link AdaptiveBuffer#close()} ile bütçeye iade edilmelidir.
+     * Uyarlama kapalıysa sabit {@code file-share.buffer-size} kullanılır.
+     */
+    public AdaptiveBuffer open() {
+        FileShareProperties.AdaptiveBufferProperties settings = fileShareProperties.getAdaptiveBuffer();
+        if (!settings.isEnabled()) {
+            int fixedSize = fileShareProperties.getBufferSize();
+            return new AdaptiveBuffer(this, fixedSize, fixedSize, fixedSize, 0, Long.MAX_VALUE);
+        }
+        return new AdaptiveBuffer(this, settings.getInitialSize(), settings.getMinSize(), settings.getMaxSize(),
+                settings.getTargetChunkMillis(), settings.getSampleIntervalMs());
+    }
+
+    /**
+     * İstenen boyutu bütçeden ayırır
+     * @return Ayrılan boyut; bütçe yetmezse en küçük boyuta kadar düşürülür, en küçük boyut her zaman verilir
+     */
+    int reserve(int requested, int minSize) {
+        long budget = fileShareProperties.getAdaptiveBuffer().getMemoryBudgetBytes();
+        while (true) {
+            long current = reservedBytes.get();
+            int granted = (int) Math.max(minSize, Math.min(requested, budget - current));
+            if (reservedBytes.compareAndSet(current, current + granted)) {
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * Aktarım tamponu dışındaki sabit boyutlu bir tampon için bütçeden yer ayırır
+     * (ör. çok kaynaklı indirmenin aralık tamponları)
+     * @param force Bütçe yetmese de ayrılsın mı; ilerleyebilmek için tampona mutlaka ihtiyaç duyan çağıranlar içindir
+     * @return Yer ayrıldıysa true; ayrılan boyut {@link #release(int)} ile iade edilmelidir
+     */
+    public boolean tryReserve(int size, boolean force) {
+        long budget = fileShareProperties.getAdaptiveBuffer().getMemoryBudgetBytes();
+        while (true) {
+            long current = reservedBytes.get();
+            if (!force && current + size > budget) {
+                return false;
+            }
+            if (reservedBytes.compareAndSet(current, current + size)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(int size) {
+        reservedBytes.addAndGet(-size);
+    }
+
+    /**
+     * Açık aktarım tamponlarının toplam boyutu
+     */
+    public long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    public long getBudgetBytes() {
+        return fileShareProperties.getAdaptiveBuffer().getMemoryBudgetBytes();
+    }
+}
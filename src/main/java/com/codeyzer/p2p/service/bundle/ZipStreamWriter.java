@@ -0,0 +1,286 @@
+package com.codeyzer.p2p.service.bundle;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Sıkıştırmasız (stored) girdilerden oluşan bir ZIP arşivini, içerikleri belleğe almadan
+ * doğrudan çıkışa yazar. CRC değerleri veri aktıkça hesaplanır ve her girdinin ardından
+ * data descriptor olarak yazılır. Girdi boyutları önceden bilindiği için arşivin toplam
+ * uzunluğu {@link #archiveLength(List, long[])} ile aktarım başlamadan hesaplanabilir.
+ * 4GB'ı aşan girdi ve arşivler için ZIP64 kayıtları gerektiğinde eklenir.
+ */
+public class ZipStreamWriter {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private static final int LOCAL_HEADER_LENGTH = 30;
+    private static final int CENTRAL_HEADER_LENGTH = 46;
+    private static final int END_LENGTH = 22;
+    private static final int ZIP64_END_LENGTH = 56;
+    private static final int ZIP64_LOCATOR_LENGTH = 20;
+    private static final int ZIP64_LOCAL_EXTRA_LENGTH = 20;
+    private static final int ZIP64_CENTRAL_EXTRA_LENGTH = 28;
+
+    private static final long ZIP32_LIMIT = 0xFFFFFFFFL;
+    private static final int ZIP32_ENTRY_LIMIT = 0xFFFF;
+
+    // Bit 3: data descriptor, bit 11: UTF-8 dosya adı
+    private static final int GENERAL_PURPOSE_FLAGS = 0x0808;
+    private static final int VERSION_DEFAULT = 20;
+    private static final int VERSION_ZIP64 = 45;
+
+    private final OutputStream out;
+    private final int dosTime;
+    private final int dosDate;
+    private final List<Entry> entries = new ArrayList<>();
+
+    private long written;
+    private Entry current;
+    private EntryOutputStream currentStream;
+
+    public ZipStreamWriter(OutputStream out) {
+        this.out = out;
+        LocalDateTime now = LocalDateTime.now();
+        this.dosTime = (now.getHour() << 11) | (now.getMinute() << 5) | (now.getSecond() >> 1);
+        this.dosDate = ((Math.max(now.getYear(), 1980) - 1980) << 9) | (now.getMonthValue() << 5) | now.getDayOfMonth();
+    }
+
+    /**
+     * Verilen girdilerle yazılacak arşivin byte cinsinden tam uzunluğunu hesaplar
+     */
+    public static long archiveLength(List<String> names, long[] sizes) {
+        long offset = 0;
+        long centralSize = 0;
+        for (int i = 0; i < names.size(); i++) {
+            int nameLength = names.get(i).getBytes(StandardCharsets.UTF_8).length;
+            boolean zip64 = sizes[i] >= ZIP32_LIMIT;
+            boolean centralZip64 = zip64 || offset >= ZIP32_LIMIT;
+
+            offset += localHeaderLength(nameLength, zip64) + sizes[i] + dataDescriptorLength(zip64);
+            centralSize += CENTRAL_HEADER_LENGTH + nameLength + (centralZip64 ? ZIP64_CENTRAL_EXTRA_LENGTH : 0);
+        }
+        return offset + centralSize + endLength(names.size(), offset, centralSize);
+    }
+
+    /**
+     * Yeni bir girdi başlatır ve yerel başlığını yazar
+     * @return Girdinin içeriğinin yazılacağı akış; kapatılması alttaki akışı kapatmaz
+     */
+    public OutputStream startEntry(String name, long size) throws IOException {
+        if (current != null) {
+            throw new IllegalStateException("Önceki girdi tamamlanmadı: " + current.name);
+        }
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        current = new Entry(name, nameBytes, size, written, size >= ZIP32_LIMIT);
+
+        ByteBuffer header = buffer(localHeaderLength(nameBytes.length, current.zip64));
+        header.putInt(LOCAL_HEADER_SIGNATURE)
+                .putShort((short) (current.zip64 ? VERSION_ZIP64 : VERSION_DEFAULT))
+                .putShort((short) GENERAL_PURPOSE_FLAGS)
+                .putShort((short) 0)
+                .putShort((short) dosTime)
+                .putShort((short) dosDate)
+                // Data descriptor kullanıldığı için CRC ve boyutlar yerel başlıkta sıfırdır
+                .putInt(0)
+                .putInt(current.zip64 ? (int) ZIP32_LIMIT : 0)
+                .putInt(current.zip64 ? (int) ZIP32_LIMIT : 0)
+                .putShort((short) nameBytes.length)
+                .putShort((short) (current.zip64 ? ZIP64_LOCAL_EXTRA_LENGTH : 0))
+                .put(nameBytes);
+        if (current.zip64) {
+            header.putShort((short) 0x0001).putShort((short) 16).putLong(0).putLong(0);
+        }
+        write(header);
+
+        currentStream = new EntryOutputStream(out);
+        return currentStream;
+    }
+
+    /**
+     * Aktif girdiyi tamamlar ve CRC ile boyutları içeren data descriptor'ı yazar
+     */
+    public void finishEntry() throws IOException {
+        if (current == null) {
+            throw new IllegalStateException("Aktif girdi yok");
+        }
+        if (currentStream.count != current.size) {
+            throw new IOException("Girdi boyutu uyuşmuyor: " + current.name
+                    + " beklenen=" + current.size + " yazılan=" + currentStream.count);
+        }
+        written += currentStream.count;
+        current.crc = currentStream.crc.getValue();
+
+        ByteBuffer descriptor = buffer(dataDescriptorLength(current.zip64));
+        descriptor.putInt(DATA_DESCRIPTOR_SIGNATURE).putInt((int) current.crc);
+        if (current.zip64) {
+            descriptor.putLong(current.size).putLong(current.size);
+        } else {
+            descriptor.putInt((int) current.size).putInt((int) current.size);
+        }
+        write(descriptor);
+
+        entries.add(current);
+        current = null;
+        currentStream = null;
+    }
+
+    /**
+     * Merkez dizini ve arşiv sonu kayıtlarını yazar
+     */
+    public void finish() throws IOException {
+        if (current != null) {
+            throw new IllegalStateException("Aktif girdi tamamlanmadı: " + current.name);
+        }
+        long centralOffset = written;
+        for (Entry entry : entries) {
+            boolean zip64 = entry.zip64 || entry.offset >= ZIP32_LIMIT;
+            ByteBuffer header = buffer(CENTRAL_HEADER_LENGTH + entry.nameBytes.length
+                    + (zip64 ? ZIP64_CENTRAL_EXTRA_LENGTH : 0));
+            header.putInt(CENTRAL_HEADER_SIGNATURE)
+                    .putShort((short) (zip64 ? VERSION_ZIP64 : VERSION_DEFAULT))
+                    .putShort((short) (zip64 ? VERSION_ZIP64 : VERSION_DEFAULT))
+                    .putShort((short) GENERAL_PURPOSE_FLAGS)
+                    .putShort((short) 0)
+                    .putShort((short) dosTime)
+                    .putShort((short) dosDate)
+                    .putInt((int) entry.crc)
+                    .putInt(zip64 ? (int) ZIP32_LIMIT : (int) entry.size)
+                    .putInt(zip64 ? (int) ZIP32_LIMIT : (int) entry.size)
+                    .putShort((short) entry.nameBytes.length)
+                    .putShort((short) (zip64 ? ZIP64_CENTRAL_EXTRA_LENGTH : 0))
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putInt(0)
+                    .putInt(zip64 ? (int) ZIP32_LIMIT : (int) entry.offset)
+                    .put(entry.nameBytes);
+            if (zip64) {
+                header.putShort((short) 0x0001).putShort((short) 24)
+                        .putLong(entry.size).putLong(entry.size).putLong(entry.offset);
+            }
+            write(header);
+        }
+        long centralSize = written - centralOffset;
+        boolean zip64 = needsZip64End(entries.size(), centralOffset, centralSize);
+
+        if (zip64) {
+            long zip64EndOffset = written;
+            ByteBuffer end64 = buffer(ZIP64_END_LENGTH + ZIP64_LOCATOR_LENGTH);
+            end64.putInt(ZIP64_END_SIGNATURE)
+                    .putLong(ZIP64_END_LENGTH - 12)
+                    .putShort((short) VERSION_ZIP64)
+                    .putShort((short) VERSION_ZIP64)
+                    .putInt(0)
+                    .putInt(0)
+                    .putLong(entries.size())
+                    .putLong(entries.size())
+                    .putLong(centralSize)
+                    .putLong(centralOffset)
+                    .putInt(ZIP64_LOCATOR_SIGNATURE)
+                    .putInt(0)
+                    .putLong(zip64EndOffset)
+                    .putInt(1);
+            write(end64);
+        }
+
+        ByteBuffer end = buffer(END_LENGTH);
+        end.putInt(END_SIGNATURE)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) Math.min(entries.size(), ZIP32_ENTRY_LIMIT))
+                .putShort((short) Math.min(entries.size(), ZIP32_ENTRY_LIMIT))
+                .putInt((int) Math.min(centralSize, ZIP32_LIMIT))
+                .putInt((int) Math.min(centralOffset, ZIP32_LIMIT))
+                .putShort((short) 0);
+        write(end);
+        out.flush();
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        written += buffer.position();
+    }
+
+    private static ByteBuffer buffer(int length) {
+        return ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int localHeaderLength(int nameLength, boolean zip64) {
+        return LOCAL_HEADER_LENGTH + nameLength + (zip64 ? ZIP64_LOCAL_EXTRA_LENGTH : 0);
+    }
+
+    private static int dataDescriptorLength(boolean zip64) {
+        return zip64 ? 24 : 16;
+    }
+
+    private static boolean needsZip64End(int entryCount, long centralOffset, long centralSize) {
+        return entryCount >= ZIP32_ENTRY_LIMIT || centralOffset >= ZIP32_LIMIT || centralSize >= ZIP32_LIMIT;
+    }
+
+    private static int endLength(int entryCount, long centralOffset, long centralSize) {
+        return END_LENGTH + (needsZip64End(entryCount, centralOffset, centralSize)
+                ? ZIP64_END_LENGTH + ZIP64_LOCATOR_LENGTH : 0);
+    }
+
+    private static final class Entry {
+        private final String name;
+        private final byte[] nameBytes;
+        private final long size;
+        private final long offset;
+        private final boolean zip64;
+        private long crc;
+
+        private Entry(String name, byte[] nameBytes, long size, long offset, boolean zip64) {
+            this.name = name;
+            this.nameBytes = nameBytes;
+            this.size = size;
+            this.offset = offset;
+            this.zip64 = zip64;
+        }
+    }
+
+    /**
+     * Girdi içeriğini CRC hesaplayarak alttaki akışa kopyasız aktarır
+     */
+    private static final class EntryOutputStream extends FilterOutputStream {
+        private final CRC32 crc = new CRC32();
+        private long count;
+
+        private EntryOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            crc.update(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            crc.update(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() {
+            // Arşivin kendisi kapatılmamalı; girdinin sonu finishEntry ile belirlenir
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.codeyzer.p2p.service.coalesce;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import com.codeyzer.p2p.dto.FileStreamWrapper;
+import com.codeyzer.p2p.service.buffer.TransferBufferBudget;
+
+/**
+ * Tek bir sahip yüklemesini, aynı isteği yapan birden çok alıcıya dağıtır. Sahipten gelen byte'lar
+ * önce öncü isteğin yanıtına doğrudan yazılır; izleyici varsa bir kopyası sınırlı bir tampona eklenir ve
+ * her izleyici kendi iş parçacığında tampondan kendi yanıtına yazar. Tampon en geride kalan izleyiciden
+ * itibaren kapasiteyi aşarsa yükleme bekletilir; bellek kullanımı böylece sınırlı kalır ve gruptaki en
+ * yavaş alıcı yüklemenin hızını belirler. Tampondaki kopyalar aktarım tampon bütçesinden ayrılır; bütçe
+ * dolduğunda yeni izleyici kabul edilmez ve süren grubun yüklemesi izleyiciler tamponu boşaltana kadar bekler.
+ * İzleyiciler dosyanın başından başlar. Katılım yalnızca pencere dolmadan ve sahipten ilk byte gelmeden
+ * mümkündür; böylece izleyicisi olmayan bir indirme için hiçbir byte kopyalanmaz.
+ */
+public class CoalescedDownload {
+
+    private static final long HAND_OFF_POLL_MS = 1000;
+
+    private final OutputStream leaderOutput;
+    private final TransferBufferBudget bufferBudget;
+    private final int capacity;
+    private final long joinDeadline;
+    private final OutputStream output = new TeeOutputStream();
+
+    // Aşağıdaki alanlar this üzerinde senkronize erişilir
+    private final Deque<byte[]> segments = new ArrayDeque<>();
+    private final List<Follower> followers = new ArrayList<>();
+    private long segmentsStart;
+    private long produced;
+    private boolean joinable = true;
+    private boolean finished;
+    private boolean completed;
+    private FileStreamWrapper stream;
+    private Runnable release;
+    private volatile boolean leaderDetached;
+    private volatile boolean handedOff;
+
+    CoalescedDownload(OutputStream leaderOutput, TransferBufferBudget bufferBudget, int capacity, long joinWindowMs) {
+        this.leaderOutput = leaderOutput;
+        this.bufferBudget = bufferBudget;
+        this.capacity = capacity;
+        this.joinDeadline = System.currentTimeMillis() + joinWindowMs;
+    }
+
+    /**
+     * Sahip yüklemesinin yazılacağı çıkış; stream bu akışla açılmalıdır
+     */
+    public OutputStream getOutput() {
+        return output;
+    }
+
+    /**
+     * Öncünün stream'i açıldığında çağrılır; stream'i bekleyen izleyiciler devam eder
+     */
+    public synchronized void setStream(FileStreamWrapper stream) {
+        this.stream = stream;
+        notifyAll();
+    }
+
+    /**
+     * Öncü isteğin alıcısı aktarım sırasında koptuysa true; yükleme izleyiciler için devam etmiş olabilir
+     */
+    public boolean isLeaderDetached() {
+        return leaderDetached;
+    }
+
+    /**
+     * Yükleme bittiğinde öncü istek tarafından çağrılır; izleyiciler tamponun kalanını yazıp sonlanır
+     * @param completed Dosyanın tamamı sahipten alındıysa true
+     */
+    synchronized void finish(boolean completed) {
+        if (!finished) {
+            this.completed = completed;
+        }
+        finished = true;
+        joinable = false;
+        notifyAll();
+    }
+
+    /**
+     * Öncü istek yükleme bitmeden sonlandığında (ör. alıcısı koptuğunda) çağrılır. İzleyici varsa yükleme
+     * onlar için sürer; yüklemenin bitişini izleyiciler stream'den izler ve grubu kapatırken release çalışır.
+     * @return İzleyici yoksa false; grup çağıran tarafından kapatılmalıdır
+     */
+    synchronized boolean handOff(Runnable release) {
+        if (followers.isEmpty() || finished) {
+            return false;
+        }
+        this.release = release;
+        leaderDetached = true;
+        handedOff = true;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Öncü ayrıldıktan sonra stream'in bittiğini veya yeniden bağlanma süresinin dolduğunu denetler
+     */
+    private void pollHandedOffStream() {
+        FileStreamWrapper current;
+        synchronized (this) {
+            current = stream;
+        }
+        boolean done = current.getLatch().getCount() == 0;
+        if (!done && !current.expireIfDue(System.currentTimeMillis())) {
+            return;
+        }
+        Runnable pending;
+        synchronized (this) {
+            finish(done && current.getStatus() == FileStreamWrapper.STATUS_COMPLETED);
+            pending = release;
+            release = null;
+        }
+        if (pending != null) {
+            pending.run();
+        }
+    }
+
+    /**
+     * Grup yeni izleyici kabul ediyorsa true
+     */
+    synchronized boolean isJoinable() {
+        if (joinable && System.currentTimeMillis() > joinDeadline) {
+            closeJoinWindow();
+        }
+        return joinable;
+    }
+
+    /**
+     * Gruba, dosyanın başından okuyacak bir izleyici ekler
+     * @return Pencere dolduysa, sahipten byte gelmeye başladıysa, yükleme bittiyse veya aktarım tampon
+     * bütçesi dolduysa null
+     */
+    synchronized Follower join() {
+        if (!isJoinable() || bufferBudget.getReservedBytes() >= bufferBudget.getBudgetBytes()) {
+            return null;
+        }
+        Follower follower = new Follower();
+        followers.add(follower);
+        return follower;
+    }
+
+    private void write(byte[] b, int off, int len) throws IOException {
+        if (!leaderDetached) {
+            try {
+                leaderOutput.write(b, off, len);
+            } catch (IOException e) {
+                detachLeader(e);
+            }
+        }
+        synchronized (this) {
+            if (finished) {
+                throw new IOException("Birleştirilmiş indirme sonlandırıldı");
+            }
+            if (joinable) {
+                // İzleyiciler dosyanın başından okur; ilk byte'tan sonra katılım kabul edilmez
+                closeJoinWindow();
+            }
+            try {
+                if (!reserveSegment(len)) {
+                    if (finished) {
+                        throw new IOException("Birleştirilmiş indirme sonlandırıldı");
+                    }
+                    // İzleyici yok: kopya tutulmaz
+                    produced += len;
+                    segmentsStart = produced;
+                    return;
+                }
+                segments.addLast(Arrays.copyOfRange(b, off, off + len));
+                produced += len;
+                trim();
+                notifyAll();
+                while (!finished && !followers.isEmpty() && produced - slowestOffset() > capacity) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Birleştirilmiş indirme beklerken kesildi");
+            }
+            if (leaderDetached && followers.isEmpty()) {
+                throw new IOException("Birleştirilmiş indirmenin tüm alıcıları koptu");
+            }
+        }
+    }
+
+    /**
+     * İzleyiciler için tutulacak kopyaya aktarım tampon bütçesinden yer ayırır. Bütçe doluysa izleyiciler
+     * tamponu boşaltana kadar beklenir; tampon boşken bütçe dolu olsa da ayrılır, böylece grup en fazla
+     * bir parçalık aşımla ilerler.
+     * @return İzleyici kalmadıysa veya grup sonlandırıldıysa false; yer ayrılmamıştır
+     */
+    private boolean reserveSegment(int len) throws InterruptedException {
+        while (!finished && !followers.isEmpty()) {
+            if (bufferBudget.tryReserve(len, segments.isEmpty())) {
+                return true;
+            }
+            wait();
+        }
+        return false;
+    }
+
+    private void flushLeader() throws IOException {
+        if (!leaderDetached) {
+            try {
+                leaderOutput.flush();
+            } catch (IOException e) {
+                detachLeader(e);
+            }
+        }
+    }
+
+    /**
+     * Öncünün alıcısı koptuğunda izleyici varsa yükleme onlar için sürer; yoksa hata yüklemeye iletilir
+     */
+    private synchronized void detachLeader(IOException e) throws IOException {
+        if (followers.isEmpty()) {
+            throw e;
+        }
+        leaderDetached = true;
+    }
+
+    /**
+     * Stream sonlandırıldığında (paylaşım kapatma, boşaltma) izleyiciler de kesilir
+     */
+    private void close() throws IOException {
+        finish(false);
+        leaderOutput.close();
+    }
+
+    private void closeJoinWindow() {
+        joinable = false;
+        trim();
+    }
+
+    /**
+     * Tüm izleyicilerin yazdığı parçaları tampondan çıkarır
+     */
+    private void trim() {
+        long keepFrom = followers.isEmpty() ? produced : slowestOffset();
+        while (!segments.isEmpty() && segmentsStart + segments.peekFirst().length <= keepFrom) {
+            int length = segments.pollFirst().length;
+            segmentsStart += length;
+            bufferBudget.release(length);
+        }
+    }
+
+    private long slowestOffset() {
+        long slowest = produced;
+        for (Follower follower : followers) {
+            slowest = Math.min(slowest, follower.offset);
+        }
+        return slowest;
+    }
+
+    private synchronized void leave(Follower follower) {
+        followers.remove(follower);
+        trim();
+        notifyAll();
+    }
+
+    /**
+     * Gruba katılan bir isteğin tampon üzerindeki okuma konumu
+     */
+    public class Follower {
+
+        // CoalescedDownload.this üzerinde senkronize güncellenir
+        private long offset;
+
+        /**
+         * Tampondaki byte'ları yükleme bitene kadar çıkışa yazar
+         * @return Dosyanın tamamı yazıldıysa true
+         */
+        public boolean transferTo(OutputStream out) throws InterruptedException {
+            CoalescedDownload group = CoalescedDownload.this;
+            boolean unflushed = false;
+            try {
+                while (true) {
+                    if (handedOff) {
+                        pollHandedOffStream();
+                    }
+                    byte[] segment = null;
+                    int from = 0;
+                    synchronized (group) {
+                        if (offset == produced) {
+                            if (finished) {
+                                break;
+                            }
+                            if (!unflushed) {
+                                group.wait(handedOff ? HAND_OFF_POLL_MS : 0);
+                                continue;
+                            }
+                        } else {
+                            long segmentOffset = segmentsStart;
+                            for (byte[] candidate : segments) {
+                                if (offset < segmentOffset + candidate.length) {
+                                    segment = candidate;
+                                    from = (int) (offset - segmentOffset);
+                                    break;
+                                }
+                                segmentOffset += candidate.length;
+                            }
+                        }
+                    }
+                    if (segment == null) {
+                        // Tampon boşaldı; beklemeden önce yazılanlar alıcıya gönderilir
+                        out.flush();
+                        unflushed = false;
+                        continue;
+                    }
+                    out.write(segment, from, segment.length - from);
+                    unflushed = true;
+                    synchronized (group) {
+                        offset += segment.length - from;
+                        trim();
+                        group.notifyAll();
+                    }
+                }
+                out.flush();
+            } catch (IOException e) {
+                return false;
+            } finally {
+                leave(this);
+            }
+            synchronized (group) {
+                return completed;
+            }
+        }
+
+        /**
+         * Öncünün sahipten istediği stream; öncü stream'i henüz açmadıysa açılmasını bekler
+         * @return Öncü stream açamadan sonlandıysa null
+         */
+        public FileStreamWrapper awaitStream() throws InterruptedException {
+            CoalescedDownload group = CoalescedDownload.this;
+            synchronized (group) {
+                while (stream == null && !finished) {
+                    group.wait();
+                }
+                return stream;
+            }
+        }
+
+        /**
+         * İzleyicinin yazdığı byte sayısı
+         */
+        public long getBytesWritten() {
+            synchronized (CoalescedDownload.this) {
+                return offset;
+            }
+        }
+    }
+
+    private class TeeOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            CoalescedDownload.this.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushLeader();
+        }
+
+        @Override
+        public void close() throws IOException {
+            CoalescedDownload.this.close();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.codeyzer.p2p.service.coalesce;
+
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+
+import com.codeyzer.p2p.config.FileShareProperties;
+import com.codeyzer.p2p.service.buffer.TransferBufferBudget;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * İndirme yöneticilerinin ve yeniden deneyen istemcilerin milisaniyeler içinde açtığı aynı indirme
+ * isteklerini tek sahip yüklemesinde birleştirir. İstekler paylaşım, istemci IP'si, User-Agent ve Range
+ * başlığından oluşan parmak iziyle eşleştirilir; katılım penceresindeki ilk istek öncü olur, sahipten ilk
+ * byte gelmeden önce gelenler onun yüklemesini {@link CoalescedDownload} üzerinden izler.
+ */
+@Service
+@RequiredArgsConstructor
+public class DownloadCoalescer {
+
+    private final FileShareProperties fileShareProperties;
+    private final TransferBufferBudget bufferBudget;
+
+    private final Map<String, CoalescedDownload> downloads = new ConcurrentHashMap<>();
+
+    /**
+     * İsteğin parmak izi
+     * @return Birleştirme kapalıysa null
+     */
+    public String fingerprint(String shareHash, String ip, HttpServletRequest request) {
+        if (!fileShareProperties.getCoalescing().isEnabled()) {
+            return null;
+        }
+        return String.join("|", shareHash, Objects.toString(ip, ""),
+                Objects.toString(request.getHeader("User-Agent"), ""),
+                Objects.toString(request.getHeader("Range"), ""));
+    }
+
+    /**
+     * Aynı parmak izine sahip, katılıma açık bir indirme varsa ona izleyici olarak katılır
+     * @return Katılınabilecek indirme yoksa null; istek öncü olarak devam etmelidir
+     */
+    public CoalescedDownload.Follower join(String fingerprint) {
+        CoalescedDownload download = downloads.get(fingerprint);
+        return download != null ? download.join() : null;
+    }
+
+    /**
+     * Öncü isteğin çıkışını saran yeni bir grup oluşturup katılıma açar. Stream henüz açılmamıştır;
+     * erken gelen izleyiciler {@link CoalescedDownload#setStream} çağrılana kadar bekler.
+     * @return Aynı parmak izine sahip katılıma açık bir grup zaten varsa null; istek ona katılmalıdır
+     */
+    public CoalescedDownload lead(String fingerprint, OutputStream leaderOutput) {
+        FileShareProperties.CoalescingProperties settings = fileShareProperties.getCoalescing();
+        CoalescedDownload created = new CoalescedDownload(leaderOutput, bufferBudget, settings.getBufferBytes(),
+                settings.getJoinWindowMs());
+        CoalescedDownload current = downloads.compute(fingerprint,
+                (key, existing) -> existing != null && existing.isJoinable() ? existing : created);
+        return current == created ? created : null;
+    }
+
+    /**
+     * Öncü yükleme bitmeden ayrılırken çağrılır; izleyici varsa grubu onlara bırakır
+     * @param release Grup kapandığında çalışacak temizlik (ör. stream'in paylaşımdan çıkarılması)
+     * @return İzleyici yoksa false; grup {@link #finish} ile kapatılmalıdır
+     */
+    public boolean handOff(String fingerprint, CoalescedDownload download, Runnable release) {
+        return download.handOff(() -> {
+            downloads.remove(fingerprint, download);
+            release.run();
+        });
+    }
+
+    /**
+     * Öncünün aktarımı bittiğinde grubu kapatır; izleyiciler tamponda kalanı yazıp sonlanır
+     */
+    public void finish(String fingerprint, CoalescedDownload download, boolean completed) {
+        downloads.remove(fingerprint, download);
+        download.finish(completed);
+    }
+}
@@ -0,0 +1,74 @@
+package com.codeyzer.p2p.service.compression;
+
+/**
+ * Aktarılan içeriğin ilk byte'larından zaten sıkıştırılmış olup olmadığını tahmin eder
+ */
+public final class ContentSniffer {
+
+    private static final byte[][] COMPRESSED_SIGNATURES = {
+            { 0x1f, (byte) 0x8b },                                  // gzip
+            { 'P', 'K', 0x03, 0x04 },                               // zip, docx, jar, apk
+            { 0x28, (byte) 0xb5, 0x2f, (byte) 0xfd },               // zstd
+            { 'B', 'Z', 'h' },                                      // bzip2
+            { (byte) 0xfd, '7', 'z', 'X', 'Z', 0x00 },              // xz
+            { '7', 'z', (byte) 0xbc, (byte) 0xaf, 0x27, 0x1c },     // 7z
+            { 'R', 'a', 'r', '!' },                                 // rar
+            { (byte) 0x89, 'P', 'N', 'G' },                         // png
+            { (byte) 0xff, (byte) 0xd8, (byte) 0xff },              // jpeg
+            { 'G', 'I', 'F', '8' },                                 // gif
+            { 0x1a, 0x45, (byte) 0xdf, (byte) 0xa3 },               // mkv, webm
+            { 'O', 'g', 'g', 'S' },                                 // ogg
+            { 'I', 'D', '3' },                                      // mp3
+            { 'f', 'L', 'a', 'C' },                                 // flac
+    };
+
+    private static final byte[] FTYP = { 'f', 't', 'y', 'p' };
+    private static final byte[] RIFF = { 'R', 'I', 'F', 'F' };
+
+    private ContentSniffer() {
+    }
+
+    public static boolean hasCompressedSignature(byte[] b, int off, int len) {
+        for (byte[] signature : COMPRESSED_SIGNATURES) {
+            if (startsWith(b, off, len, signature, 0)) {
+                return true;
+            }
+        }
+        // mp4/mov/heic: 4. byte'tan itibaren "ftyp", webp/avi: RIFF konteyneri
+        return startsWith(b, off, len, FTYP, 4) || startsWith(b, off, len, RIFF, 0);
+    }
+
+    /**
+     * Örneklemin byte başına Shannon entropisi (0-8 bit). Sıkıştırılmış veya şifrelenmiş
+     * içerik 8'e yakın, metin ve loglar genellikle 5'in altında çıkar.
+     */
+    public static double entropyBitsPerByte(byte[] b, int off, int len) {
+        if (len <= 0) {
+            return 0.0;
+        }
+        int[] counts = new int[256];
+        for (int i = off; i < off + len; i++) {
+            counts[b[i] & 0xff]++;
+        }
+        double entropy = 0.0;
+        for (int count : counts) {
+            if (count > 0) {
+                double p = (double) count / len;
+                entropy -= p * (Math.log(p) / Math.log(2));
+            }
+        }
+        return entropy;
+    }
+
+    private static boolean startsWith(byte[] b, int off, int len, byte[] signature, int at) {
+        if (len < at + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (b[off + at + i] != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
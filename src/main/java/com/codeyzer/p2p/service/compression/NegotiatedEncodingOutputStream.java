@@ -0,0 +1,180 @@
+package com.codeyzer.p2p.service.compression;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.zip.GZIPOutputStream;
+
+import com.codeyzer.p2p.config.FileShareProperties;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.Getter;
+
+/**
+ * İndirme yanıtının içerik kodlamasını sahipten gelen ilk parçaya bakarak belirler.
+ * İçerik zaten sıkıştırılmış görünmüyorsa yanıt chunked
+ * gzip olarak akar; aksi halde bildirilen Content-Length ile olduğu gibi aktarılır.
+ * Başlıklar ilk byte yazılana kadar ayarlanmadığı için karar yanıt gönderilmeden önce verilir.
+ */
+public class NegotiatedEncodingOutputStream extends OutputStream {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final HttpServletResponse response;
+    private final OutputStream raw;
+    private final long declaredLength;
+    private final FileShareProperties.CompressionProperties settings;
+
+    private OutputStream target;
+    private CountingOutputStream compressedCounter;
+
+    @Getter
+    private boolean compressed;
+    @Getter
+    private long uncompressedBytes;
+    @Getter
+    private long cpuNanos;
+
+    /**
+     * @param raw Yanıtın çıkış akışı; yalnızca istemci gzip kabul ediyorsa bu sınıfla sarılmalıdır
+     */
+    public NegotiatedEncodingOutputStream(HttpServletResponse response, OutputStream raw, long declaredLength,
+                                          FileShareProperties.CompressionProperties settings) {
+        this.response = response;
+        this.raw = raw;
+        this.declaredLength = declaredLength;
+        this.settings = settings;
+    }
+
+    /**
+     * Accept-Encoding başlığında gzip'in kabul edilip edilmediğini kontrol eder
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (!coding.equalsIgnoreCase("gzip") && !coding.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=") && param.substring(2).trim().matches("0(\\.0*)?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sıkıştırma sonrası alıcıya giden byte sayısı; sıkıştırma yoksa iletilen byte sayısıdır
+     */
+    public long getCompressedBytes() {
+        return compressed ? compressedCounter.count : uncompressedBytes;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (target == null) {
+            decide(b, off, len);
+        }
+        uncompressedBytes += len;
+        if (compressed) {
+            long start = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+            target.write(b, off, len);
+            cpuNanos += THREAD_MX_BEAN.getCurrentThreadCpuTime() - start;
+        } else {
+            target.write(b, off, len);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (target != null) {
+            target.flush();
+        }
+    }
+
+    /**
+     * Aktarım başarıyla bittiğinde çağrılır; gzip kullanılıyorsa akışın sonunu yazar.
+     * Hiç byte yazılmadıysa (boş dosya) yanıt kodlamasız tamamlanır.
+     */
+    public void finish() throws IOException {
+        if (target == null) {
+            useIdentity();
+        }
+        if (compressed) {
+            long start = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+            ((GZIPOutputStream) target).finish();
+            cpuNanos += THREAD_MX_BEAN.getCurrentThreadCpuTime() - start;
+        }
+        target.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        raw.close();
+    }
+
+    private void decide(byte[] b, int off, int len) throws IOException {
+        if (isCompressible(b, off, len)) {
+            response.setHeader("Content-Encoding", "gzip");
+            compressedCounter = new CountingOutputStream(raw);
+            target = new GZIPOutputStream(compressedCounter, settings.getBufferSize(), true);
+            compressed = true;
+        } else {
+            useIdentity();
+        }
+    }
+
+    private void useIdentity() {
+        response.setHeader("Content-Length", Long.toString(declaredLength));
+        target = raw;
+    }
+
+    /**
+     * İlk parçanın sihirli byte'larına ve byte entropisine bakarak içeriğin sıkıştırılmaya
+     * değer olup olmadığını tahmin eder
+     */
+    private boolean isCompressible(byte[] b, int off, int len) {
+        if (ContentSniffer.hasCompressedSignature(b, off, len)) {
+            return false;
+        }
+        int sample = Math.min(len, settings.getSniffBytes());
+        // Küçük örneklemlerde ulaşılabilecek en yüksek entropi log2(örneklem) olduğundan eşik ölçeklenir
+        double maxPossible = Math.min(8.0, Math.log(Math.max(sample, 2)) / Math.log(2));
+        double threshold = settings.getMaxEntropyBitsPerByte() * maxPossible / 8.0;
+        return ContentSniffer.entropyBitsPerByte(b, off, sample) <= threshold;
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.codeyzer.p2p.service.digest;
+
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * JDK {@link MessageDigest} algoritmalarını {@link StreamDigest} olarak sunar
+ */
+class MessageStreamDigest implements StreamDigest {
+
+    private final String name;
+    private final MessageDigest digest;
+    private String value;
+
+    MessageStreamDigest(String name, MessageDigest digest) {
+        this.name = name;
+        this.digest = digest;
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        digest.update(b, off, len);
+    }
+
+    @Override
+    public String getValue() {
+        // MessageDigest.digest() durumu sıfırladığından sonuç bir kez hesaplanır
+        if (value == null) {
+            value = name + "=" + HexFormat.of().formatHex(digest.digest());
+        }
+        return value;
+    }
+}
@@ -0,0 +1,42 @@
+package com.codeyzer.p2p.service.digest;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Aktarılan byte'lar üzerinde, aktarım döngüsünün kendi buffer'ından beslenen artımlı özet
+ */
+public interface StreamDigest {
+
+    String XXHASH64 = "xxhash64";
+    String SHA256 = "sha-256";
+    String NONE = "none";
+
+    void update(byte[] b, int off, int len);
+
+    /**
+     * Şu ana kadar işlenen byte'ların özetini "algoritma=hex" biçiminde döndürür
+     */
+    String getValue();
+
+    /**
+     * Yapılandırmadaki algoritma adına göre yeni bir özet oluşturur
+     * @return Algoritma "none" ise null
+     */
+    static StreamDigest create(String algorithm) {
+        if (algorithm == null || algorithm.equalsIgnoreCase(NONE)) {
+            return null;
+        }
+        if (algorithm.equalsIgnoreCase(XXHASH64)) {
+            return new XxHash64Digest();
+        }
+        if (algorithm.equalsIgnoreCase(SHA256)) {
+            try {
+                return new MessageStreamDigest(SHA256, MessageDigest.getInstance("SHA-256"));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 desteklenmiyor", e);
+            }
+        }
+        throw new IllegalArgumentException("Desteklenmeyen özet algoritması: " + algorithm);
+    }
+}
@@ -0,0 +1,192 @@
+package com.codeyzer.p2p.service.drain;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import com.codeyzer.p2p.config.FileShareProperties;
+import com.codeyzer.p2p.dto.FileStreamWrapper;
+import com.codeyzer.p2p.dto.ReconnectHintDTO;
+import com.codeyzer.p2p.service.ShareRegistry;
+import com.codeyzer.p2p.service.lookup.StacklessStatusException;
+import com.codeyzer.p2p.service.monitoring.PerformanceMonitorService;
+import com.codeyzer.p2p.service.slot.UploadSlotPool;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sunucuyu kapanış öncesinde boşaltır. Boşaltma başladığında yeni paylaşım ve indirmeler hızlıca
+ * 503 ve Retry-After ile reddedilir; böylece yük dengeleyici onları diğer örneklere yönlendirir.
+ * Sahiplere yeniden bağlanma ipucu gönderilir, süren aktarımların bitmesi son tarihe kadar beklenir ve
+ * kalanlar raporlanır. Boşaltma kapanışta (SIGTERM) veya POST /admin/drain ile başlar ve geri alınamaz.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DrainService {
+
+    private static final long POLL_INTERVAL_MS = 250;
+
+    private final FileShareProperties fileShareProperties;
+    private final ShareRegistry shareRegistry;
+    private final SimpMessagingTemplate template;
+    private final PerformanceMonitorService monitorService;
+    private final UploadSlotPool uploadSlotPool;
+
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private HttpHeaders unavailableHeaders;
+
+    // Boşaltmanın başladığı ve bittiği an (epoch ms); başlamadıysa/bitmediyse 0
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile long deadlineAt;
+    private volatile long transfersAtStart;
+    private volatile long downloadedBytesAtStart;
+    private volatile long remainingTransfers;
+    private volatile long bytesSaved;
+
+    @PostConstruct
+    public void init() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(settings().getRetryAfterSeconds()));
+        unavailableHeaders = HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    /**
+     * Boşaltma sürüyorsa yeni işi kayda bakmadan reddeder
+     */
+    public void checkAccepting() {
+        if (startedAt != 0) {
+            throw new StacklessStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Sunucu boşaltılıyor",
+                    unavailableHeaders);
+        }
+    }
+
+    /**
+     * Boşaltmayı başlatır
+     * @param reason Loglanacak tetikleyici (ör. "shutdown", "admin")
+     * @return Boşaltma zaten sürüyorsa false
+     */
+    public synchronized boolean start(String reason) {
+        if (startedAt != 0) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        transfersAtStart = monitorService.getActiveDownloads();
+        downloadedBytesAtStart = monitorService.getTotalBytesDownloaded();
+        deadlineAt = now + TimeUnit.SECONDS.toMillis(settings().getDeadlineSeconds());
+        startedAt = now;
+        log.info("Drain started ({}): refusing new work, waiting up to {}s for {} active transfers",
+                reason, settings().getDeadlineSeconds(), transfersAtStart);
+
+        Thread watcher = new Thread(this::drain, "drain");
+        watcher.setDaemon(true);
+        watcher.start();
+        return true;
+    }
+
+    /**
+     * Kapanışta, bağlam bileşenleri durdurulmadan önce boşaltır; Tomcat, Netty ve STOMP aracısı
+     * aktarımlar bitene kadar çalışmaya devam eder
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void onContextClosed() throws InterruptedException {
+        if (!settings().isOnShutdown()) {
+            return;
+        }
+        start("shutdown");
+        finished.await();
+    }
+
+    /**
+     * Boşaltmanın anlık durumu ve metrikleri
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        long started = startedAt;
+        long ended = finishedAt;
+        status.put("draining", started != 0);
+        status.put("finished", ended != 0);
+        status.put("activeTransfers", monitorService.getActiveDownloads());
+        if (started != 0) {
+            status.put("startedAt", started);
+            status.put("deadlineAt", deadlineAt);
+            status.put("durationMs", (ended != 0 ? ended : System.currentTimeMillis()) - started);
+            status.put("transfersAtStart", transfersAtStart);
+            status.put("bytesSaved", ended != 0 ? bytesSaved : savedSoFar());
+        }
+        if (ended != 0) {
+            status.put("remainingTransfers", remainingTransfers);
+        }
+        return status;
+    }
+
+    private void drain() {
+        try {
+            uploadSlotPool.closeAll();
+            sendReconnectHints();
+            while (monitorService.getActiveDownloads() > 0 && System.currentTimeMillis() < deadlineAt) {
+                Thread.sleep(POLL_INTERVAL_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Drain interrupted by error, finishing early", e);
+        } finally {
+            finish();
+        }
+    }
+
+    /**
+     * Her paylaşımın sahibine, süren yüklemelerini bitirip başka bir örneğe bağlanmasını bildirir
+     */
+    private void sendReconnectHints() {
+        long retryAfterSeconds = settings().getRetryAfterSeconds();
+        shareRegistry.forEach((shareHash, share) -> template.convertAndSend("/topic/" + shareHash,
+                ReconnectHintDTO.builder()
+                        .shareHash(shareHash)
+                        .retryAfterSeconds(retryAfterSeconds)
+                        .build()));
+    }
+
+    private void finish() {
+        bytesSaved = savedSoFar();
+        remainingTransfers = Math.max(0, monitorService.getActiveDownloads());
+        finishedAt = System.currentTimeMillis();
+        if (remainingTransfers > 0) {
+            // Kapanışı bekletmemek için kalan aktarımlar burada kesilir; alıcının bağlantısı kapatılır
+            shareRegistry.forEach((shareHash, share) -> {
+                for (FileStreamWrapper stream : share.getStreams()) {
+                    log.warn("Drain deadline reached with transfer in progress: share {} stream {} at {}/{} bytes",
+                            shareHash, stream.getStreamHash(), stream.getBytesDelivered(), stream.getLength());
+                    stream.abort();
+                }
+            });
+        }
+        log.info("Drain finished in {} ms: {} of {} transfers completed, {} remaining, {} bytes saved",
+                finishedAt - startedAt, Math.max(0, transfersAtStart - remainingTransfers), transfersAtStart,
+                remainingTransfers, bytesSaved);
+        finished.countDown();
+    }
+
+    /**
+     * Boşaltma başladıktan sonra tamamlanan indirmelerin boyutu; kesilselerdi yeniden aktarılacaklardı
+     */
+    private long savedSoFar() {
+        return monitorService.getTotalBytesDownloaded() - downloadedBytesAtStart;
+    }
+
+    private FileShareProperties.DrainProperties settings() {
+        return fileShareProperties.getDrain();
+    }
+}
@@ -0,0 +1,137 @@
+package com.codeyzer.p2p.service.lookup;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.codeyzer.p2p.config.FileShareProperties;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulunamayan paylaşım aramalarını istemci bazında sayar. Kısa hash'ler tahmin edilebildiğinden
+ * /file/info, /file/stats ve /file/download uçları sürekli taranır; pencere içinde sınırı aşan
+ * istemcinin aramaları bir süre kayda bakılmadan 429 ile reddedilir. Takip edilen istemci sayısı
+ * sınırlıdır ve süresi dolan kayıtlar periyodik olarak silinir.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ShareLookupGuard {
+
+    private final FileShareProperties fileShareProperties;
+
+    private final Map<String, MissWindow> clients = new ConcurrentHashMap<>();
+    private final AtomicLong rejectedLookups = new AtomicLong();
+    private HttpHeaders tooManyMissesHeaders;
+
+    @PostConstruct
+    public void init() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(settings().getBlockSeconds()));
+        tooManyMissesHeaders = HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    /**
+     * İstemci engelliyse aramayı kayda bakmadan reddeder
+     */
+    public void checkAllowed(String client) {
+        if (!settings().isEnabled()) {
+            return;
+        }
+        MissWindow window = clients.get(client);
+        if (window != null && window.isBlocked(System.currentTimeMillis())) {
+            rejectedLookups.incrementAndGet();
+            throw new StacklessStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Çok sayıda bulunamayan paylaşım isteği", tooManyMissesHeaders);
+        }
+    }
+
+    /**
+     * Başarısız bir aramayı kaydeder
+     * @return Fırlatılacak 404 istisnası
+     */
+    public StacklessStatusException recordMiss(String client) {
+        FileShareProperties.LookupGuardProperties settings = settings();
+        if (!settings.isEnabled()) {
+            return notFound();
+        }
+        MissWindow window = clients.get(client);
+        if (window == null) {
+            if (clients.size() >= settings.getMaxTrackedClients()) {
+                return notFound();
+            }
+            window = clients.computeIfAbsent(client, k -> new MissWindow());
+        }
+        if (window.recordMiss(System.currentTimeMillis(), TimeUnit.SECONDS.toMillis(settings.getWindowSeconds()),
+                settings.getMaxMisses(), TimeUnit.SECONDS.toMillis(settings.getBlockSeconds()))) {
+            log.info("Client {} blocked for {}s after {} missed share lookups",
+                    client, settings.getBlockSeconds(), settings.getMaxMisses());
+        }
+        return notFound();
+    }
+
+    private static StacklessStatusException notFound() {
+        return new StacklessStatusException(HttpStatus.NOT_FOUND, "Dosya bulunamadı");
+    }
+
+    /**
+     * Engelli istemciler nedeniyle reddedilen arama sayısı
+     */
+    public long getRejectedLookups() {
+        return rejectedLookups.get();
+    }
+
+    /**
+     * Penceresi ve engeli sona eren istemci kayıtlarını siler
+     */
+    @Scheduled(fixedRate = 60000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        long windowMillis = TimeUnit.SECONDS.toMillis(settings().getWindowSeconds());
+        clients.values().removeIf(window -> window.isExpired(now, windowMillis));
+    }
+
+    private FileShareProperties.LookupGuardProperties settings() {
+        return fileShareProperties.getLookupGuard();
+    }
+
+    private static final class MissWindow {
+        private long windowStart;
+        private int misses;
+        private long blockedUntil;
+
+        /**
+         * @return İstemci bu kayıtla engellendiyse true
+         */
+        private synchronized boolean recordMiss(long now, long windowMillis, int maxMisses, long blockMillis) {
+            if (now - windowStart > windowMillis) {
+                windowStart = now;
+                misses = 0;
+            }
+            misses++;
+            if (misses > maxMisses && blockedUntil <= now) {
+                blockedUntil = now + blockMillis;
+                misses = 0;
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized boolean isBlocked(long now) {
+            return blockedUntil > now;
+        }
+
+        private synchronized boolean isExpired(long now, long windowMillis) {
+            return blockedUntil <= now && now - windowStart > windowMillis;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.codeyzer.p2p.service.lookup;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Sık ve beklenen hatalar (bulunamayan paylaşım, engellenen tarayıcı) için yığın izi toplamayan
+ * istisna. Oluşturmak ucuz olduğundan her fırlatmada yeni örnek kullanılır; {@link ResponseStatusException}
+ * bastırılan istisnaları kapatmaya izin vermediği için paylaşılan bir örneğin addSuppressed listesi
+ * istekler boyunca büyüyebilirdi. Sabit başlıklar örnekler arasında paylaşılabilir.
+ */
+public class StacklessStatusException extends ResponseStatusException {
+
+    private final HttpHeaders headers;
+
+    public StacklessStatusException(HttpStatus status, String reason) {
+        this(status, reason, HttpHeaders.EMPTY);
+    }
+
+    public StacklessStatusException(HttpStatus status, String reason, HttpHeaders headers) {
+        super(status, reason);
+        this.headers = headers;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,93 @@
+package com.codeyzer.p2p.service.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * İndirme, sahip yüklemesi, kontrol (Tomcat) ve WebSocket havuzlarının doluluğunu ve reddedilen iş sayılarını izler
+ */
+@Service
+@Slf4j
+public class ExecutorPoolMonitor {
+
+    public static final String TRANSFER_POOL = "transfer";
+    public static final String OWNER_UPLOAD_POOL = "ownerUpload";
+    public static final String CONTROL_POOL = "control";
+    public static final String WEBSOCKET_INBOUND_POOL = "websocketInbound";
+
+    private final Map<String, Supplier<Map<String, Object>>> pools = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> rejections = new ConcurrentHashMap<>();
+
+    /**
+     * Bir havuzu izlemeye ekler. Alttaki ThreadPoolExecutor bean başlatılırken oluşturulduğundan
+     * her okumada yeniden alınır.
+     */
+    public void register(String name, ThreadPoolTaskExecutor taskExecutor) {
+        pools.put(name, () -> {
+            ThreadPoolExecutor executor = taskExecutor.getThreadPoolExecutor();
+            return snapshot(name, executor.getActiveCount(), executor.getPoolSize(),
+                    executor.getMaximumPoolSize(), executor.getQueue().size(), executor.getQueue().remainingCapacity(),
+                    executor.getCompletedTaskCount());
+        });
+    }
+
+    /**
+     * Havuzun dolu olduğu için reddettiği (veya çağıran iş parçacığında çalıştırdığı) bir işi sayar
+     */
+    public void recordRejection(String name) {
+        rejections.computeIfAbsent(name, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Kontrol isteklerini işleyen Tomcat havuzunu sunucu başladığında izlemeye ekler
+     */
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        if (!(event.getWebServer() instanceof TomcatWebServer tomcatWebServer)) {
+            return;
+        }
+        ProtocolHandler protocolHandler = tomcatWebServer.getTomcat().getConnector().getProtocolHandler();
+        if (protocolHandler.getExecutor() instanceof org.apache.tomcat.util.threads.ThreadPoolExecutor executor) {
+            pools.put(CONTROL_POOL, () -> snapshot(CONTROL_POOL, executor.getActiveCount(), executor.getPoolSize(),
+                    executor.getMaximumPoolSize(), executor.getQueue().size(), executor.getQueue().remainingCapacity(),
+                    executor.getCompletedTaskCount()));
+        } else {
+            log.debug("Tomcat executor is not a ThreadPoolExecutor, control pool metrics are unavailable");
+        }
+    }
+
+    /**
+     * Tüm havuzların anlık durumunu döndürür
+     */
+    public Map<String, Object> getPoolStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        pools.forEach((name, supplier) -> stats.put(name, supplier.get()));
+        return stats;
+    }
+
+    private Map<String, Object> snapshot(String name, int active, int poolSize, int maxPoolSize, int queued,
+                                         int queueRemaining, long completed) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeThreads", active);
+        stats.put("poolSize", poolSize);
+        stats.put("maxPoolSize", maxPoolSize);
+        stats.put("queued", queued);
+        stats.put("queueRemainingCapacity", queueRemaining);
+        stats.put("completedTasks", completed);
+        stats.put("rejected", rejections.getOrDefault(name, new AtomicLong()).get());
+        return stats;
+    }
+}
@@ -1,35 +1,71 @@
 package com.codeyzer.p2p.service.monitoring;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
-import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Dosya paylaşım işlemlerinin performansını izleyen ve raporlayan servis.
  * Bu servis, dosya indirme ve yükleme işlemlerinin istatistiklerini toplar ve periyodik olarak raporlar.
+ * Genel sayaçlar çekirdekler arası çekişme yaratmamak için {@link LongAdder} ile tutulur; saniyede bir
+ * örneklenerek 1, 5 ve 15 dakikalık kayan pencerelere aktarılır ve hazır bir özet olarak yayımlanır.
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class PerformanceMonitorService {
 
-    @Getter
-    private AtomicLong totalUploads = new AtomicLong(0);
+    private static final int SAMPLE_INTERVAL_MS = 1000;
+    private static final int[] WINDOW_MINUTES = {1, 5, 15};
+    private static final int WINDOW_CAPACITY = 15 * 60 + 1;
+
+    private final LongAdder totalUploads = new LongAdder();
+    
+    private final LongAdder totalDownloads = new LongAdder();
+    
+    private final LongAdder totalBytesTransferred = new LongAdder();
+    
+    // Tamamlanan indirmelerin dosya boyutları toplamı
+    private final LongAdder totalBytesDownloaded = new LongAdder();
+    
+    // Sahipten alıcıya aktarılan byte; aktarım sürerken parça parça eklenir
+    private final LongAdder totalBytesRelayed = new LongAdder();
+    
+    private final LongAdder totalFailures = new LongAdder();
+    
+    private final LongAdder activeDownloads = new LongAdder();
+    
+    private final LongAdder totalDirectTransfers = new LongAdder();
+    
+    private final LongAdder totalFallbackTransfers = new LongAdder();
+    
+    // Doğrudan (WebRTC) aktarıldığı için sunucudan geçmeyen byte
+    private final LongAdder totalBytesSaved = new LongAdder();
     
-    @Getter
-    private AtomicLong totalDownloads = new AtomicLong(0);
+    // Başlayan indirme istekleri; birleştirme oranının paydası
+    private final LongAdder totalDownloadRequests = new LongAdder();
     
-    @Getter
-    private AtomicLong totalBytesTransferred = new AtomicLong(0);
+    // Başka bir isteğin sahip yüklemesini izleyerek sunulan indirmeler ve sahibin tekrar göndermediği byte
+    private final LongAdder totalCoalescedDownloads = new LongAdder();
+    
+    private final LongAdder totalCoalescedBytes = new LongAdder();
+    
+    private final RollingWindow bytesWindow = new RollingWindow(WINDOW_CAPACITY);
+    private final RollingWindow transfersWindow = new RollingWindow(WINDOW_CAPACITY);
+    private final RollingWindow failuresWindow = new RollingWindow(WINDOW_CAPACITY);
+    
+    // Son örneklemede oluşturulan özet; okuyucular sayaçlara dokunmaz
+    private volatile Map<String, Object> globalStats = Collections.emptyMap();
     
     private Map<String, TransferMetric> transferMetrics = new ConcurrentHashMap<>();
     
@@ -44,14 +80,17 @@ public class PerformanceMonitorService {
      * @param fileSize Dosya boyutu (byte)
      */
     public void recordUpload(String hash, long fileSize) {
-        totalUploads.incrementAndGet();
-        totalBytesTransferred.addAndGet(fileSize);
+        totalUploads.increment();
+        totalBytesTransferred.add(fileSize);
         
         TransferMetric metric = transferMetrics.computeIfAbsent(hash, k -> new TransferMetric());
         metric.recordUpload(fileSize);
         
-        double fileSizeMB = fileSize / (1024.0 * 1024.0);
-        log.info("Yükleme kaydedildi: {} - {} MB dosya yüklendi", hash, String.format("%.2f", fileSizeMB));
+        // Aktarım zaman çizelgesi JFR olaylarından izlenir; bu satır yalnızca hata ayıklama içindir
+        if (log.isDebugEnabled()) {
+            double fileSizeMB = fileSize / (1024.0 * 1024.0);
+            log.debug("Yükleme kaydedildi: {} - {} MB dosya yüklendi", hash, String.format("%.2f", fileSizeMB));
+        }
     }
     
     /**
@@ -61,18 +100,124 @@ public class PerformanceMonitorService {
      * @param timeMs İndirme süresi (ms)
      */
     public void recordDownload(String hash, long fileSize, long timeMs) {
-        totalDownloads.incrementAndGet();
-        totalBytesTransferred.addAndGet(fileSize);
+        totalDownloads.increment();
+        totalBytesTransferred.add(fileSize);
+        totalBytesDownloaded.add(fileSize);
         
         TransferMetric metric = transferMetrics.computeIfAbsent(hash, k -> new TransferMetric());
         metric.recordDownload(fileSize, timeMs);
         
-        double speedMbps = calculateSpeedMbps(fileSize, timeMs);
-        double fileSizeMB = fileSize / (1024.0 * 1024.0);
-        double timeSeconds = timeMs / 1000.0;
+        if (log.isDebugEnabled()) {
+            double speedMbps = calculateSpeedMbps(fileSize, timeMs);
+            double fileSizeMB = fileSize / (1024.0 * 1024.0);
+            double timeSeconds = timeMs / 1000.0;
+
+            log.debug("İndirme kaydedildi: {} - {} MB dosya, {} saniyede indirildi (hız: {} Mbps)",
+                    hash, String.format("%.2f", fileSizeMB), String.format("%.2f", timeSeconds), String.format("%.2f", speedMbps));
+        }
+    }
+    
+    /**
+     * Sahipten alıcıya aktarılan bir parçayı kaydet. Her parçada çağrıldığından yalnızca sayaç artırılır.
+     * @param bytes Aktarılan byte
+     */
+    public void recordBytesRelayed(long bytes) {
+        totalBytesRelayed.add(bytes);
+    }
+    
+    /**
+     * Tamamlanamayan bir indirmeyi kaydet
+     * @param hash Dosya hash değeri
+     */
+    public void recordFailure(String hash) {
+        totalFailures.increment();
+        log.debug("Başarısız indirme kaydedildi: {}", hash);
+    }
+    
+    /**
+     * Başlayan bir indirmeyi etkin aktarımlara ekle; {@link #downloadEnded()} ile eşlenmelidir
+     */
+    public void downloadStarted() {
+        activeDownloads.increment();
+        totalDownloadRequests.increment();
+    }
+    
+    public void downloadEnded() {
+        activeDownloads.decrement();
+    }
+    
+    /**
+     * Şu anda süren indirme sayısı (servlet ve Netty aktarımları)
+     */
+    public long getActiveDownloads() {
+        return activeDownloads.sum();
+    }
+    
+    /**
+     * Tamamlanan indirmelerin toplam boyutu (byte)
+     */
+    public long getTotalBytesDownloaded() {
+        return totalBytesDownloaded.sum();
+    }
+    
+    /**
+     * Sıkıştırılarak yapılan bir indirmeyi kaydet
+     * @param hash Dosya hash değeri
+     * @param inputBytes Sıkıştırma öncesi byte
+     * @param outputBytes Alıcıya giden byte
+     * @param cpuNanos Sıkıştırma için harcanan CPU süresi (ns)
+     */
+    public void recordCompression(String hash, long inputBytes, long outputBytes, long cpuNanos) {
+        TransferMetric metric = transferMetrics.computeIfAbsent(hash, k -> new TransferMetric());
+        metric.recordCompression(inputBytes, outputBytes, cpuNanos);
+    }
+    
+    /**
+     * Bir WebRTC sinyal oturumunun sonucunu kaydet
+     * @param hash Dosya hash değeri
+     * @param direct Veri kanalı üzerinden doğrudan aktarıldıysa true, HTTP aktarımına dönüldüyse false
+     * @param bytes Doğrudan aktarılan byte
+     */
+    public void recordSignalingResult(String hash, boolean direct, long bytes) {
+        if (direct) {
+            totalDirectTransfers.increment();
+            totalBytesSaved.add(bytes);
+        } else {
+            totalFallbackTransfers.increment();
+        }
         
-        log.info("İndirme kaydedildi: {} - {} MB dosya, {} saniyede indirildi (hız: {} Mbps)",
-                hash, String.format("%.2f", fileSizeMB), String.format("%.2f", timeSeconds), String.format("%.2f", speedMbps));
+        TransferMetric metric = transferMetrics.computeIfAbsent(hash, k -> new TransferMetric());
+        metric.recordSignalingResult(direct, bytes);
+    }
+    
+    /**
+     * Aynı isteğin süren bir sahip yüklemesine katılarak sunulan indirmesini kaydet
+     * @param hash Dosya hash değeri
+     * @param bytes İzleyicinin alıcısına yazılan byte; sahip bunları ikinci kez göndermedi
+     */
+    public void recordCoalesced(String hash, long bytes) {
+        totalCoalescedDownloads.increment();
+        totalCoalescedBytes.add(bytes);
+        log.debug("Birleştirilmiş indirme kaydedildi: {} - {} byte", hash, bytes);
+    }
+    
+    /**
+     * İndirme isteklerinden süren bir yüklemeye katılarak sunulanların oranı
+     * @return Oran (0-1) veya 0 (hiç istek yoksa)
+     */
+    public double getCoalescingRatio() {
+        long requests = totalDownloadRequests.sum();
+        return requests == 0 ? 0.0 : (double) totalCoalescedDownloads.sum() / requests;
+    }
+    
+    /**
+     * Sinyal oturumlarından doğrudan bağlantıyla tamamlananların oranı
+     * @return Oran (0-1) veya 0 (hiç oturum yoksa)
+     */
+    public double getDirectTransferRatio() {
+        long direct = totalDirectTransfers.sum();
+        long total = direct + totalFallbackTransfers.sum();
+        return total == 0 ? 0.0 : (double) direct / total;
     }
     
     /**
@@ -91,34 +236,70 @@ public class PerformanceMonitorService {
     public void clearMetric(String hash) {
         TransferMetric metric = transferMetrics.remove(hash);
         if (metric != null) {
-            log.info("Dosya paylaşımı kapatıldı: {} - Toplam yükleme: {}, Toplam indirme: {}", 
+            log.debug("Dosya paylaşımı kapatıldı: {} - Toplam yükleme: {}, Toplam indirme: {}", 
                     hash, metric.getUploadCount(), metric.getDownloadCount());
         }
     }
     
-    // Saatte bir istatistikleri logla
+    /**
+     * Genel istatistiklerin son örneklemedeki özeti
+     * @return Toplamlar, etkin indirmeler ve 1/5/15 dakikalık pencerelerde saniye başına byte, aktarım ve hata
+     */
+    public Map<String, Object> getGlobalStats() {
+        return globalStats;
+    }
+    
+    /**
+     * Sayaçları kayan pencerelere örnekler ve genel özeti yeniden oluşturur
+     */
+    @Scheduled(fixedRate = SAMPLE_INTERVAL_MS)
+    public void sample() {
+        long now = System.nanoTime();
+        bytesWindow.sample(totalBytesRelayed.sum(), now);
+        transfersWindow.sample(totalDownloads.sum(), now);
+        failuresWindow.sample(totalFailures.sum(), now);
+        
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sampledAt", System.currentTimeMillis());
+        stats.put("activeDownloads", activeDownloads.sum());
+        stats.put("totalUploads", totalUploads.sum());
+        stats.put("totalDownloads", totalDownloads.sum());
+        stats.put("totalFailures", totalFailures.sum());
+        stats.put("totalBytesRelayed", totalBytesRelayed.sum());
+        stats.put("directTransferRatio", getDirectTransferRatio());
+        stats.put("directBytesSaved", totalBytesSaved.sum());
+        stats.put("coalescedDownloads", totalCoalescedDownloads.sum());
+        stats.put("coalescingRatio", getCoalescingRatio());
+        stats.put("coalescedBytesSaved", totalCoalescedBytes.sum());
+        stats.put("bytesPerSecond", windowRates(bytesWindow));
+        stats.put("transfersPerSecond", windowRates(transfersWindow));
+        stats.put("failuresPerSecond", windowRates(failuresWindow));
+        globalStats = Collections.unmodifiableMap(stats);
+    }
+    
+    private static Map<String, Double> windowRates(RollingWindow window) {
+        Map<String, Double> rates = new LinkedHashMap<>();
+        for (int minutes : WINDOW_MINUTES) {
+            rates.put(minutes + "m", window.ratePerSecond(minutes * 60 * 1000 / SAMPLE_INTERVAL_MS));
+        }
+        return rates;
+    }
+    
+    // Saatte bir genel istatistikleri logla; anlık durum /file/stats/global ile izlenir
     @Scheduled(fixedRate = 3600000)
     public void logStats() {
-        double totalTransferMB = totalBytesTransferred.get() / (1024.0 * 1024.0);
-        int activeShares = transferMetrics.size();
+        double totalTransferMB = totalBytesTransferred.sum() / (1024.0 * 1024.0);
         
-        log.info("Performans İstatistikleri: Toplam Yüklemeler={}, Toplam İndirmeler={}, " +
-                 "Toplam Transfer={} MB, Aktif Paylaşımlar={}", 
-                totalUploads.get(), 
-                totalDownloads.get(),
+        log.info("Performans İstatistikleri: Toplam Yüklemeler={}, Toplam İndirmeler={}, Başarısız={}, " +
+                 "Toplam Transfer={} MB, Aktif Paylaşımlar={}, Doğrudan Aktarım Oranı={}, Tasarruf={} MB, Son 15 dk={} MB/s", 
+                totalUploads.sum(), 
+                totalDownloads.sum(),
+                totalFailures.sum(),
                 String.format("%.2f", totalTransferMB),
-                activeShares);
-        
-        // Aktif paylaşımların detaylı istatistiklerini de logla
-        if (activeShares > 0) {
-            transferMetrics.forEach((hash, metric) -> {
-                log.info("Paylaşım Detayı: {} - Yükleme: {}, İndirme: {}, Ort. Hız: {} Mbps", 
-                        hash, 
-                        metric.getUploadCount(), 
-                        metric.getDownloadCount(),
-                        String.format("%.2f", metric.getAverageDownloadSpeedMbps()));
-            });
-        }
+                transferMetrics.size(),
+                String.format("%.2f", getDirectTransferRatio()),
+                String.format("%.2f", totalBytesSaved.sum() / (1024.0 * 1024.0)),
+                String.format("%.2f", bytesWindow.ratePerSecond(WINDOW_CAPACITY - 1) / (1024.0 * 1024.0)));
     }
     
     /**
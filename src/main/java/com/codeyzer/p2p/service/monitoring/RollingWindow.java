@@ -0,0 +1,54 @@
+package com.codeyzer.p2p.service.monitoring;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Kümülatif bir sayacın periyodik örneklerini halka tamponda tutar. Pencere hızı, en son örnek ile
+ * pencere başındaki örneğin farkından hesaplanır; böylece kayıt yolunda yalnızca sayaç artırılır.
+ * Örnekler tek iş parçacığından (zamanlayıcı) yazılır, okumalar kilitsizdir.
+ */
+class RollingWindow {
+
+    private final AtomicLongArray values;
+    private final AtomicLongArray timesNanos;
+    private volatile long sampleCount;
+
+    /**
+     * @param capacity Tutulacak örnek sayısı; en uzun pencere (örnek aralığı cinsinden) artı bir olmalıdır
+     */
+    RollingWindow(int capacity) {
+        this.values = new AtomicLongArray(capacity);
+        this.timesNanos = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * Sayacın güncel değerini ekler; en eski örneğin üzerine yazılır
+     */
+    void sample(long value, long nanoTime) {
+        long count = sampleCount;
+        int index = (int) (count % values.length());
+        values.set(index, value);
+        timesNanos.set(index, nanoTime);
+        sampleCount = count + 1;
+    }
+
+    /**
+     * Son {@code samples} örnek aralığındaki saniye başına artış. Yeterli örnek yoksa mevcut
+     * örneklerin tamamı kullanılır.
+     * @return Saniye başına ortalama artış; hiç aralık yoksa 0
+     */
+    double ratePerSecond(int samples) {
+        long count = sampleCount;
+        int span = (int) Math.min(samples, Math.min(count - 1, values.length() - 1));
+        if (span <= 0) {
+            return 0.0;
+        }
+        int latest = (int) ((count - 1) % values.length());
+        int earliest = (int) ((count - 1 - span) % values.length());
+        long elapsedNanos = timesNanos.get(latest) - timesNanos.get(earliest);
+        if (elapsedNanos <= 0) {
+            return 0.0;
+        }
+        return (values.get(latest) - values.get(earliest)) * 1_000_000_000.0 / elapsedNanos;
+    }
+}
@@ -0,0 +1,57 @@
+package com.codeyzer.p2p.service.monitoring;
+
+import java.lang.management.ManagementFactory;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * JVM başlangıcından itibaren WebSocket broker'ının hazır olduğu, uygulamanın istek kabul ettiği ve
+ * ilk paylaşımın yanıtlandığı süreleri ölçer. AOT/AppCDS ile yapılan derlemelerin açılış kazancını
+ * karşılaştırmak için kullanılır.
+ */
+@Service
+@Slf4j
+public class StartupTimeRecorder {
+
+    private volatile long websocketReadyMillis = -1;
+    private volatile long applicationReadyMillis = -1;
+    private volatile long firstShareMillis = -1;
+
+    @EventListener
+    public void onBrokerAvailability(BrokerAvailabilityEvent event) {
+        if (event.isBrokerAvailable() && websocketReadyMillis < 0) {
+            websocketReadyMillis = uptime();
+            log.info("WebSocket broker ready {} ms after JVM start", websocketReadyMillis);
+        }
+    }
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        applicationReadyMillis = uptime();
+        log.info("Application ready {} ms after JVM start", applicationReadyMillis);
+    }
+
+    /**
+     * İlk paylaşım isteği yanıtlanırken çağrılır; sonraki çağrılar yalnızca bir alan okur
+     */
+    public void recordFirstShare() {
+        if (firstShareMillis >= 0) {
+            return;
+        }
+        synchronized (this) {
+            if (firstShareMillis < 0) {
+                firstShareMillis = uptime();
+                log.info("First share served {} ms after JVM start", firstShareMillis);
+            }
+        }
+    }
+
+    private static long uptime() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+}
@@ -23,6 +23,17 @@ public class TransferMetric {
     private final AtomicLong totalDownloadBytes = new AtomicLong(0);
     private final AtomicLong totalDownloadTimeMs = new AtomicLong(0);
     
+    // Sıkıştırma metrikleri
+    private final AtomicLong compressedTransfers = new AtomicLong(0);
+    private final AtomicLong compressionInputBytes = new AtomicLong(0);
+    private final AtomicLong compressionOutputBytes = new AtomicLong(0);
+    private final AtomicLong compressionCpuNanos = new AtomicLong(0);
+    
+    // WebRTC sinyal oturumu metrikleri
+    private final AtomicLong directTransfers = new AtomicLong(0);
+    private final AtomicLong fallbackTransfers = new AtomicLong(0);
+    private final AtomicLong directBytes = new AtomicLong(0);
+    
     // İstatistik veriler
     private final AtomicLong maxDownloadSpeedBps = new AtomicLong(0);
     private final AtomicLong minDownloadSpeedBps = new AtomicLong(Long.MAX_VALUE);
@@ -60,6 +71,43 @@ public class TransferMetric {
         lastUsed = Instant.now();
     }
     
+    /**
+     * Sıkıştırılarak yapılan bir aktarımın metriklerini günceller
+     * @param inputBytes Sıkıştırma öncesi byte
+     * @param outputBytes Alıcıya giden sıkıştırılmış byte
+     * @param cpuNanos Sıkıştırma için harcanan CPU süresi (ns)
+     */
+    public void recordCompression(long inputBytes, long outputBytes, long cpuNanos) {
+        compressedTransfers.incrementAndGet();
+        compressionInputBytes.addAndGet(inputBytes);
+        compressionOutputBytes.addAndGet(outputBytes);
+        compressionCpuNanos.addAndGet(cpuNanos);
+    }
+    
+    /**
+     * Bir sinyal oturumunun sonucunu kaydeder
+     * @param direct Doğrudan bağlantı kurulduysa true
+     * @param bytes Doğrudan aktarılan byte
+     */
+    public void recordSignalingResult(boolean direct, long bytes) {
+        if (direct) {
+            directTransfers.incrementAndGet();
+            directBytes.addAndGet(bytes);
+        } else {
+            fallbackTransfers.incrementAndGet();
+        }
+        lastUsed = Instant.now();
+    }
+    
+    /**
+     * Sıkıştırılmış aktarımlarda giden byte'ın kaynak byte'a oranı
+     * @return Oran (0-1) veya 1.0 (hiç sıkıştırma yoksa)
+     */
+    public double getCompressionRatio() {
+        long input = compressionInputBytes.get();
+        return input == 0 ? 1.0 : (double) compressionOutputBytes.get() / input;
+    }
+    
     /**
      * Maksimum indirme hızını günceller
      * @param speedBps Byte/saniye cinsinden hız
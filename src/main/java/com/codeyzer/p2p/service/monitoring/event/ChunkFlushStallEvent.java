@@ -0,0 +1,34 @@
+package com.codeyzer.p2p.service.monitoring.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Bir parçanın alıcıya yazılması (ve varsa ardından gelen flush) eşik süresini aştığında oluşturulur.
+ */
+@Name("com.codeyzer.p2p.ChunkFlushStall")
+@Threshold("20 ms")
+@Label("Chunk Flush Stall")
+@Category({"Codeyzer P2P", "Stream"})
+@Description("Bir parçanın alıcıya yazılması ve flush edilmesi eşik süresini aştığında oluşturulur.")
+public class ChunkFlushStallEvent extends Event {
+
+    @Label("Share Hash")
+    public String shareHash;
+
+    @Label("Stream Hash")
+    public String streamHash;
+
+    @Label("Chunk Size")
+    @DataAmount
+    public int chunkBytes;
+
+    @Label("Bytes Written So Far")
+    @DataAmount
+    public long bytesTransferred;
+}
@@ -0,0 +1,29 @@
+package com.codeyzer.p2p.service.monitoring.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Kalp atışı süresi dolan paylaşım temizliğe aday olduğunda oluşturulur.
+ */
+@Name("com.codeyzer.p2p.HeartbeatExpired")
+@Label("Heartbeat Expired")
+@Category({"Codeyzer P2P", "Share"})
+@Description("Kalp atışı süresi dolan paylaşım temizliğe aday olduğunda oluşturulur.")
+public class HeartbeatExpiredEvent extends Event {
+
+    @Label("Share Hash")
+    public String shareHash;
+
+    @Label("Silence")
+    @Description("Son kalp atışından (veya oluşturulmadan) bu yana geçen süre")
+    @Timespan(Timespan.MILLISECONDS)
+    public long silenceMillis;
+
+    @Label("Never Received Heartbeat")
+    public boolean neverReceived;
+}
@@ -0,0 +1,28 @@
+package com.codeyzer.p2p.service.monitoring.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * Sahip yükleme bağlantısını açtığında oluşturulur; süre, indirme isteğinden bu ana kadar geçen TTFB'dir.
+ */
+@Name("com.codeyzer.p2p.OwnerConnected")
+@Label("Owner Connected")
+@Category({"Codeyzer P2P", "Stream"})
+@Description("Sahip yükleme bağlantısını açtığında oluşturulur; süre, indirme isteğinden bu ana kadar geçen TTFB'dir.")
+public class OwnerConnectedEvent extends Event {
+
+    @Label("Share Hash")
+    public String shareHash;
+
+    @Label("Stream Hash")
+    public String streamHash;
+
+    @Label("Upload Slot")
+    @Description("Stream sahibin önceden açtığı bir yükleme yuvasına bağlandıysa true")
+    public boolean slot;
+}
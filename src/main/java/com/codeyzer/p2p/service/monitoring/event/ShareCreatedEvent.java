@@ -0,0 +1,25 @@
+package com.codeyzer.p2p.service.monitoring.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Yeni bir paylaşım kaydedildiğinde oluşturulur.
+ */
+@Name("com.codeyzer.p2p.ShareCreated")
+@Label("Share Created")
+@Category({"Codeyzer P2P", "Share"})
+@Description("Yeni bir paylaşım kaydedildiğinde oluşturulur.")
+public class ShareCreatedEvent extends Event {
+
+    @Label("Share Hash")
+    public String shareHash;
+
+    @Label("File Size")
+    @DataAmount
+    public long fileSize;
+}
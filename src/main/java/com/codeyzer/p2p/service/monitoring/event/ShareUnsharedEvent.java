@@ -0,0 +1,24 @@
+package com.codeyzer.p2p.service.monitoring.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * Paylaşım sahibi tarafından veya temizlik sırasında kaldırıldığında oluşturulur.
+ */
+@Name("com.codeyzer.p2p.ShareUnshared")
+@Label("Share Unshared")
+@Category({"Codeyzer P2P", "Share"})
+@Description("Paylaşım sahibi tarafından veya temizlik sırasında kaldırıldığında oluşturulur.")
+public class ShareUnsharedEvent extends Event {
+
+    @Label("Share Hash")
+    public String shareHash;
+
+    @Label("Active Streams")
+    public int activeStreams;
+}
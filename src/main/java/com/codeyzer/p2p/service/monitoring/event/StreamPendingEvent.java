@@ -0,0 +1,24 @@
+package com.codeyzer.p2p.service.monitoring.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * İndirme isteğinin, sahibin yüklemeye başlamasını beklediği süreyi kapsar.
+ */
+@Name("com.codeyzer.p2p.StreamPending")
+@Label("Stream Pending")
+@Category({"Codeyzer P2P", "Stream"})
+@Description("İndirme isteğinin, sahibin yüklemeye başlamasını beklediği süreyi kapsar.")
+public class StreamPendingEvent extends Event {
+
+    @Label("Share Hash")
+    public String shareHash;
+
+    @Label("Stream Hash")
+    public String streamHash;
+}
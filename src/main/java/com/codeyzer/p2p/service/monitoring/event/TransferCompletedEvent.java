@@ -0,0 +1,31 @@
+package com.codeyzer.p2p.service.monitoring.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Bir aktarım bittiğinde aktarılan byte ve süre ile oluşturulur.
+ */
+@Name("com.codeyzer.p2p.TransferCompleted")
+@Label("Transfer Completed")
+@Category({"Codeyzer P2P", "Stream"})
+@Description("Bir aktarım bittiğinde aktarılan byte ve süre ile oluşturulur.")
+public class TransferCompletedEvent extends Event {
+
+    @Label("Share Hash")
+    public String shareHash;
+
+    @Label("Stream Hash")
+    public String streamHash;
+
+    @Label("Bytes Transferred")
+    @DataAmount
+    public long bytesTransferred;
+
+    @Label("Success")
+    public boolean success;
+}
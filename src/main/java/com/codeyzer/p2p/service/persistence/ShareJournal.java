@@ -0,0 +1,447 @@
+package com.codeyzer.p2p.service.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.codeyzer.p2p.config.FileShareProperties;
+import com.codeyzer.p2p.dto.FileShareWrapper;
+import com.codeyzer.p2p.dto.PieceHashes;
+import com.codeyzer.p2p.dto.ShareGroup;
+import com.codeyzer.p2p.service.ShareRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Paylaşım kaydını yeniden başlatmalarda korur. Her kayıt ve silme sıradaki günlük dosyasının
+ * sonuna eklenir; periyodik olarak yeni bir günlüğe geçilip kaydın tamamı sıkıştırılmış bir anlık
+ * görüntüye yazılır ve eski günlükler silinir. Açılışta anlık görüntü belleğe eşlenerek okunur,
+ * ardından sonraki günlükler sırayla uygulanır. Geri yüklenen paylaşımların kalp atışı geri yükleme
+ * anından başlatılır; sahipleri süresi içinde STOMP oturumlarını yenilemezse normal temizlikle silinir.
+ *
+ * <p>Aynı kaydın iki kez uygulanması sonucu değiştirmez; bu nedenle anlık görüntü alınırken
+ * yeni günlüğe yazılan kayıtlar hem görüntüde hem günlükte bulunabilir.</p>
+ */
+@Slf4j
+public class ShareJournal implements AutoCloseable {
+
+    private static final int SNAPSHOT_MAGIC = 0x50325053; // "P2PS"
+    private static final int LOG_MAGIC = 0x5032504C;      // "P2PL"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte OP_REGISTER = 1;
+    private static final byte OP_REMOVE = 2;
+
+    private static final byte FLAG_GROUPED = 1;
+    private static final byte FLAG_BUNDLE = 2;
+    private static final byte FLAG_PIECES = 4;
+
+    private static final String SNAPSHOT_FILE = "shares.snapshot";
+    private static final String LOG_PREFIX = "shares-";
+    private static final String LOG_SUFFIX = ".log";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final Object snapshotLock = new Object();
+
+    private ShareRegistry registry;
+    private long logSequence;
+    private DataOutputStream journalOut;
+    private boolean closed;
+    private boolean failed;
+
+    public ShareJournal(FileShareProperties.PersistenceProperties settings) {
+        this.directory = Path.of(settings.getDirectory());
+    }
+
+    /**
+     * Anlık görüntüyü ve sonraki günlükleri kayda uygular, ardından kaydı yeni bir günlüğe bağlar
+     * @return Geri yüklenen paylaşım sayısı
+     */
+    public int restore(ShareRegistry target) throws IOException {
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        Map<UUID, ShareGroup> groups = new HashMap<>();
+
+        long firstLogSequence = 0;
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            ByteBuffer buffer = map(snapshot);
+            checkHeader(buffer, SNAPSHOT_MAGIC, snapshot);
+            firstLogSequence = buffer.getLong();
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                // Görüntüdeki hash'ler tekildir; kayıt boş olduğundan doğrudan eklenir
+                target.register(readString(buffer), readShare(buffer, groups, now));
+            }
+        }
+
+        long lastSequence = firstLogSequence - 1;
+        for (long sequence : listLogSequences()) {
+            Path logFile = logPath(sequence);
+            if (sequence < firstLogSequence) {
+                Files.deleteIfExists(logFile);
+                continue;
+            }
+            replay(logFile, target, groups, now);
+            lastSequence = Math.max(lastSequence, sequence);
+        }
+
+        log.info("Restored {} shares from {} in {} ms", target.size(), directory,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        synchronized (this) {
+            this.registry = target;
+            this.logSequence = lastSequence + 1;
+            this.journalOut = openLog(logSequence);
+        }
+        target.attachJournal(this);
+        return target.size();
+    }
+
+    public synchronized void appendRegister(String shareHash, FileShareWrapper share) {
+        if (journalOut == null) {
+            return;
+        }
+        try {
+            journalOut.writeByte(OP_REGISTER);
+            writeString(journalOut, shareHash);
+            writeShare(journalOut, share);
+        } catch (IOException e) {
+            onWriteFailure(e);
+        }
+    }
+
+    public synchronized void appendRemove(String shareHash) {
+        if (journalOut == null) {
+            return;
+        }
+        try {
+            journalOut.writeByte(OP_REMOVE);
+            writeString(journalOut, shareHash);
+        } catch (IOException e) {
+            onWriteFailure(e);
+        }
+    }
+
+    /**
+     * Günlük tamponunu diske yazar
+     */
+    @Scheduled(fixedRateString = "${file-share.persistence.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (journalOut == null) {
+            return;
+        }
+        try {
+            journalOut.flush();
+        } catch (IOException e) {
+            onWriteFailure(e);
+        }
+    }
+
+    /**
+     * Yeni bir günlüğe geçer ve kaydın tamamını anlık görüntüye yazar. Görüntü yerine taşındıktan
+     * sonra artık gerekmeyen günlükler silinir.
+     */
+    @Scheduled(fixedRateString = "${file-share.persistence.snapshot-interval-seconds:300}000",
+            initialDelayString = "${file-share.persistence.snapshot-interval-seconds:300}000")
+    public void snapshot() {
+        synchronized (snapshotLock) {
+            long firstLogSequence;
+            synchronized (this) {
+                if (registry == null || closed) {
+                    return;
+                }
+                closeLog();
+                firstLogSequence = ++logSequence;
+                journalOut = openLog(firstLogSequence);
+            }
+
+            long start = System.nanoTime();
+            try {
+                int count = writeSnapshot(firstLogSequence);
+                for (long sequence : listLogSequences()) {
+                    if (sequence < firstLogSequence) {
+                        Files.deleteIfExists(logPath(sequence));
+                    }
+                }
+                log.info("Registry snapshot of {} shares written in {} ms", count,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            } catch (IOException e) {
+                // Eski görüntü ve günlükler yerinde kaldığından geri yükleme bir önceki görüntüden yapılır
+                log.error("Registry snapshot failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Kapanışta son bir anlık görüntü alır; sonraki açılışta günlük uygulanmasına gerek kalmaz
+     */
+    @Override
+    public void close() {
+        snapshot();
+        synchronized (this) {
+            closeLog();
+            journalOut = null;
+            closed = true;
+        }
+    }
+
+    private int writeSnapshot(long firstLogSequence) throws IOException {
+        Path target = directory.resolve(SNAPSHOT_FILE);
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        int[] count = { 0 };
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, WRITE_BUFFER_SIZE))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(firstLogSequence);
+            // Sayı en son bilinir; kayıtlar yazıldıktan sonra başlığa yazılır
+            out.writeInt(0);
+            IOException[] failure = { null };
+            registry.forEach((hash, share) -> {
+                if (failure[0] != null) {
+                    return;
+                }
+                try {
+                    writeString(out, hash);
+                    writeShare(out, share);
+                    count[0]++;
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            out.flush();
+            file.getChannel().write(ByteBuffer.allocate(Integer.BYTES).putInt(0, count[0]), 16);
+            file.getChannel().force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count[0];
+    }
+
+    private void replay(Path logFile, ShareRegistry target, Map<UUID, ShareGroup> groups, long now)
+            throws IOException {
+        ByteBuffer buffer = map(logFile);
+        if (buffer.remaining() == 0) {
+            return;
+        }
+        checkHeader(buffer, LOG_MAGIC, logFile);
+        while (buffer.hasRemaining()) {
+            int recordStart = buffer.position();
+            try {
+                byte op = buffer.get();
+                String hash = readString(buffer);
+                if (op == OP_REGISTER) {
+                    restoreShare(target, hash, readShare(buffer, groups, now));
+                } else if (op == OP_REMOVE) {
+                    target.remove(hash);
+                } else {
+                    throw new IOException("Bilinmeyen günlük kaydı: " + op);
+                }
+            } catch (BufferUnderflowException e) {
+                // Çökme sırasında yarım kalan son kayıt atlanır
+                log.warn("Ignoring truncated record at {} in {}", recordStart, logFile);
+                return;
+            }
+        }
+    }
+
+    private static void restoreShare(ShareRegistry target, String hash, FileShareWrapper share) {
+        target.remove(hash);
+        target.register(hash, share);
+    }
+
+    private static void writeShare(DataOutputStream out, FileShareWrapper share) throws IOException {
+        UUID ownerToken = share.getOwnerTokenUuid();
+        out.writeLong(share.getCreationTimestamp());
+        out.writeLong(ownerToken.getMostSignificantBits());
+        out.writeLong(ownerToken.getLeastSignificantBits());
+        out.writeLong(share.getSize());
+        byte flags = 0;
+        if (share.isGrouped()) {
+            flags |= FLAG_GROUPED;
+        }
+        if (share.isBundle()) {
+            flags |= FLAG_BUNDLE;
+        }
+        PieceHashes pieceHashes = share.getPieceHashes();
+        if (pieceHashes != null) {
+            flags |= FLAG_PIECES;
+        }
+        out.writeByte(flags);
+        writeString(out, share.getFilename());
+        writeString(out, share.getContentHash());
+        writeString(out, share.getContentDigest());
+        if (share.isBundle()) {
+            List<String> members = share.getMemberHashes();
+            out.writeInt(members.size());
+            for (String member : members) {
+                writeString(out, member);
+            }
+        }
+        if (pieceHashes != null) {
+            byte[] digests = pieceHashes.toByteArray();
+            out.writeInt(pieceHashes.getPieceSize());
+            out.writeInt(digests.length);
+            out.write(digests);
+        }
+    }
+
+    /**
+     * Kayıtlı paylaşımı okur. Aynı sahibe ait grup paylaşımları (toplu paylaşım ve paketler)
+     * yeniden tek bir ortak kalp atışı kaydına bağlanır.
+     */
+    private static FileShareWrapper readShare(ByteBuffer buffer, Map<UUID, ShareGroup> groups, long now) {
+        long creationTimestamp = buffer.getLong();
+        UUID ownerToken = new UUID(buffer.getLong(), buffer.getLong());
+        long size = buffer.getLong();
+        byte flags = buffer.get();
+        String filename = readString(buffer);
+        String contentHash = readString(buffer);
+        String contentDigest = readString(buffer);
+        List<String> members = null;
+        if ((flags & FLAG_BUNDLE) != 0) {
+            int count = buffer.getInt();
+            members = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                members.add(readString(buffer));
+            }
+        }
+        PieceHashes pieceHashes = null;
+        if ((flags & FLAG_PIECES) != 0) {
+            int pieceSize = buffer.getInt();
+            byte[] digests = new byte[buffer.getInt()];
+            buffer.get(digests);
+            pieceHashes = new PieceHashes(pieceSize, digests);
+        }
+
+        ShareGroup group = (flags & FLAG_GROUPED) != 0
+                ? groups.computeIfAbsent(ownerToken, token -> new ShareGroup(now))
+                : null;
+        FileShareWrapper share = new FileShareWrapper(filename, size, creationTimestamp, ownerToken, group,
+                members, contentHash, pieceHashes);
+        if (contentDigest != null) {
+            share.setContentDigest(contentDigest);
+        }
+        share.setLastHeartbeatTimestamp(now);
+        return share;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Dosya belleğe eşlenemeyecek kadar büyük: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.load();
+            return buffer;
+        }
+    }
+
+    private static void checkHeader(ByteBuffer buffer, int magic, Path file) throws IOException {
+        if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != magic) {
+            throw new IOException("Tanınmayan dosya biçimi: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Desteklenmeyen dosya sürümü " + version + ": " + file);
+        }
+    }
+
+    private List<Long> listLogSequences() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(LOG_PREFIX) && name.endsWith(LOG_SUFFIX))
+                    .map(name -> name.substring(LOG_PREFIX.length(), name.length() - LOG_SUFFIX.length()))
+                    .filter(sequence -> sequence.chars().allMatch(Character::isDigit) && !sequence.isEmpty())
+                    .map(Long::parseLong)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path logPath(long sequence) {
+        return directory.resolve(LOG_PREFIX + sequence + LOG_SUFFIX);
+    }
+
+    private DataOutputStream openLog(long sequence) {
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(logPath(sequence).toFile()), WRITE_BUFFER_SIZE));
+            out.writeInt(LOG_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            failed = false;
+            return out;
+        } catch (IOException e) {
+            onWriteFailure(e);
+            return null;
+        }
+    }
+
+    private void closeLog() {
+        if (journalOut == null) {
+            return;
+        }
+        try {
+            journalOut.close();
+        } catch (IOException e) {
+            onWriteFailure(e);
+        }
+    }
+
+    /**
+     * Günlük hatası paylaşım isteklerini etkilemez; yalnızca ilk hata loglanır
+     */
+    private void onWriteFailure(IOException e) {
+        if (!failed) {
+            failed = true;
+            log.error("Registry journal write failed, changes may be lost on restart: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.codeyzer.p2p.service.relay;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * multipart/form-data yüklemesinden dosya içeriğini, gelen ByteBuf'ları kopyalamadan dilimleyerek ayırır.
+ * Parça başlıkları atlanır ve paylaşım boyutuna ulaşıldığında durulur; böylece kapanış sınırı alıcıya
+ * iletilmez. Tek bir yüklemenin olay döngüsünde sırayla kullanılır.
+ */
+class MultipartBodySlicer {
+
+    private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+
+    private int matched;
+    private boolean inBody;
+    private long remaining;
+
+    MultipartBodySlicer(long length) {
+        this.remaining = length;
+    }
+
+    /**
+     * Gelen tamponun dosya içeriğine düşen kısmını döndürür. Dönen dilim tamponun referansını devralır;
+     * iletilecek içerik yoksa tampon burada serbest bırakılır.
+     * @return İçerik dilimi veya null
+     */
+    ByteBuf next(ByteBuf buf) {
+        if (!inBody) {
+            int index = buf.readerIndex();
+            int end = buf.writerIndex();
+            while (index < end && !inBody) {
+                byte b = buf.getByte(index++);
+                matched = b == HEADER_END[matched] ? matched + 1 : (b == '\r' ? 1 : 0);
+                inBody = matched == HEADER_END.length;
+            }
+            buf.readerIndex(index);
+        }
+        if (!inBody || remaining == 0 || !buf.isReadable()) {
+            buf.release();
+            return null;
+        }
+        int length = (int) Math.min(buf.readableBytes(), remaining);
+        remaining -= length;
+        return buf.slice(buf.readerIndex(), length);
+    }
+
+    /**
+     * Paylaşım boyutu kadar içerik iletildiyse true
+     */
+    boolean isComplete() {
+        return inBody && remaining == 0;
+    }
+}
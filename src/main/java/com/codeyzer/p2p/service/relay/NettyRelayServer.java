@@ -0,0 +1,219 @@
+package com.codeyzer.p2p.service.relay;
+
+import java.net.InetSocketAddress;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.reactivestreams.Publisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.codeyzer.p2p.config.CorsFilter;
+import com.codeyzer.p2p.config.FileShareProperties;
+import com.codeyzer.p2p.dto.FileInfoDTO;
+import com.codeyzer.p2p.dto.FileStreamWrapper;
+import com.codeyzer.p2p.service.FileService;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * /file/upload ve /file/download uçlarını ayrı bir portta Reactor Netty ile sunar. Sahibin yüklemesinden
+ * gelen ByteBuf'lar referans sayımıyla doğrudan indirme kanalına yazılır; servlet katmanındaki
+ * giriş akışı → byte[] → çıkış akışı kopyaları yapılmaz. Paylaşım modeli, yetkilendirme ve STOMP
+ * bildirimleri {@link FileService} ile ortaktır; bir stream'in yüklemesi, indirmesinin açıldığı katmana
+ * yapılmalıdır.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class NettyRelayServer implements SmartLifecycle {
+
+    private final FileService fileService;
+    private final FileShareProperties.NettyRelayProperties settings;
+    private final CorsFilter corsFilter;
+    // X-Forwarded-For'un kabul edildiği vekil sunucu adresleri; null ise başlık yok sayılır
+    private final Pattern trustedProxies;
+
+    // Kapanışta kesilecek açık indirmeler; yükleme, pipe'ı stream'in relay alanından bulur
+    private final Set<RelayPipe> pipes = ConcurrentHashMap.newKeySet();
+
+    private LoopResources loopResources;
+    private volatile DisposableServer server;
+
+    @Override
+    public void start() {
+        int threads = settings.getEventLoopThreads() > 0
+                ? settings.getEventLoopThreads()
+                : Runtime.getRuntime().availableProcessors();
+        loopResources = LoopResources.create("relay", 1, threads, true);
+        server = HttpServer.create()
+                .port(settings.getPort())
+                .runOn(loopResources)
+                // Talep bittiğinde okuma durdurulur; olay başına tek okuma, durmadan önce okunan veriyi
+                // tek tampon boyutunda tutar
+                .childOption(ChannelOption.RCVBUF_ALLOCATOR, new AdaptiveRecvByteBufAllocator().maxMessagesPerRead(1))
+                .route(routes -> routes
+                        .post("/file/upload/{shareHash}/{streamHash}", this::upload)
+                        .get("/file/download/{shareHash}", this::download)
+                        .route(req -> HttpMethod.OPTIONS.equals(req.method()), this::preflight))
+                .bindNow();
+        log.info("Netty relay transport listening on port {} with {} event loop threads", server.port(), threads);
+    }
+
+    @Override
+    public void stop() {
+        Optional.ofNullable(server).ifPresent(DisposableServer::disposeNow);
+        server = null;
+        pipes.forEach(RelayPipe::close);
+        Optional.ofNullable(loopResources).ifPresent(LoopResources::dispose);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * İndirme stream'i açar ve sahibin yüklemesi bağlanana kadar yanıtı bekletir
+     */
+    private Publisher<Void> download(HttpServerRequest request, HttpServerResponse response) {
+        String shareHash = request.param("shareHash");
+        String ip = clientIp(request);
+        allowCors(request, response);
+
+        RelayPipe pipe = new RelayPipe();
+        FileInfoDTO info;
+        FileStreamWrapper stream;
+        try {
+            info = fileService.getFileInfo(shareHash, ip);
+            stream = fileService.openRelayStream(shareHash, ip, pipe);
+        } catch (ResponseStatusException e) {
+            return reject(response, e);
+        }
+        pipes.add(pipe);
+        response.withConnection(pipe::bind);
+
+        long startTime = System.currentTimeMillis();
+        return response
+                .header(HttpHeaderNames.CONTENT_DISPOSITION, "attachment; filename=\"" + info.getFileName() + "\"")
+                .header(HttpHeaderNames.CONTENT_LENGTH, Long.toString(info.getFileSize()))
+                .send(WritabilityGate.wrap(pipe.content(), response))
+                .then()
+                .doFinally(signal -> {
+                    pipes.remove(pipe);
+                    fileService.finishRelay(shareHash, stream, signal == SignalType.ON_COMPLETE,
+                            System.currentTimeMillis() - startTime);
+                    if (stream.getStatus() != FileStreamWrapper.STATUS_COMPLETED) {
+                        pipe.close();
+                    }
+                    pipe.finish();
+                });
+    }
+
+    /**
+     * Yüklemeyi eşleşen indirmeye bağlar; yanıt, indirme bittiğinde gönderilir
+     */
+    private Publisher<Void> upload(HttpServerRequest request, HttpServerResponse response) {
+        String shareHash = request.param("shareHash");
+        String streamHash = request.param("streamHash");
+        allowCors(request, response);
+
+        FileStreamWrapper stream;
+        try {
+            stream = fileService.attachRelayUpload(shareHash, streamHash, request.requestHeaders().get("X-Owner-Token"));
+        } catch (ResponseStatusException e) {
+            return reject(response, e);
+        }
+        // Stream hash'i yalnızca paylaşım içinde tekildir; pipe, paylaşımda bulunan stream'den alınır
+        if (!(stream.getRelay() instanceof RelayPipe pipe)) {
+            stream.setStatus(FileStreamWrapper.STATUS_FAILED);
+            return response.status(HttpResponseStatus.GONE).send();
+        }
+
+        MultipartBodySlicer slicer = new MultipartBodySlicer(stream.getLength());
+        Flux<ByteBuf> content = request.receive()
+                .retain()
+                .<ByteBuf>handle((buf, sink) -> {
+                    ByteBuf slice = slicer.next(buf);
+                    if (slice != null) {
+                        fileService.recordRelayed(shareHash, stream, slice.readableBytes());
+                        sink.next(slice);
+                    }
+                    if (slicer.isComplete()) {
+                        sink.complete();
+                    }
+                })
+                .concatWith(Mono.defer(() -> slicer.isComplete()
+                        ? Mono.empty()
+                        : Mono.error(new IllegalStateException("Yükleme dosya boyutuna ulaşmadan bitti"))))
+                // Yükleme koptuysa alıcının kanalında bekleyen veri yazılmadan indirme de kesilir
+                .doOnError(e -> pipe.close());
+
+        if (!pipe.attach(content)) {
+            stream.setStatus(FileStreamWrapper.STATUS_FAILED);
+            return response.status(HttpResponseStatus.GONE).send();
+        }
+        // Aktarım başarısız biterse pipe bağlantıyı keser; sahip, gövdenin kalanını göndermeyi beklemez
+        response.withConnection(pipe::bind);
+        return pipe.finished().then(Mono.defer(() -> stream.getStatus() == FileStreamWrapper.STATUS_COMPLETED
+                ? response.status(HttpResponseStatus.OK).send()
+                : Mono.empty()));
+    }
+
+    private Publisher<Void> preflight(HttpServerRequest request, HttpServerResponse response) {
+        allowCors(request, response);
+        return response.status(HttpResponseStatus.OK).send();
+    }
+
+    private void allowCors(HttpServerRequest request, HttpServerResponse response) {
+        String allowedOrigin = corsFilter.allowedOrigin(request.requestHeaders().get(HttpHeaderNames.ORIGIN));
+        if (allowedOrigin != null) {
+            response.header(HttpHeaderNames.ACCESS_CONTROL_ALLOW_ORIGIN, allowedOrigin);
+        }
+        CorsFilter.FIXED_HEADERS.forEach(response::header);
+    }
+
+    private static Publisher<Void> reject(HttpServerResponse response, ResponseStatusException e) {
+        e.getHeaders().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        return response.status(e.getStatusCode().value()).send();
+    }
+
+    /**
+     * Tomcat'in RemoteIpValve'i gibi: bağlantı güvenilen bir vekil sunucudan geliyorsa X-Forwarded-For
+     * sağdan sola okunur ve vekil olmayan ilk adres istemci sayılır; aksi halde bağlantı adresi kullanılır
+     */
+    private String clientIp(HttpServerRequest request) {
+        InetSocketAddress remoteAddress = request.remoteAddress();
+        String remote = remoteAddress != null ? remoteAddress.getHostString() : null;
+        String forwardedFor = request.requestHeaders().get("X-Forwarded-For");
+        if (trustedProxies == null || forwardedFor == null || remote == null
+                || !trustedProxies.matcher(remote).matches()) {
+            return remote;
+        }
+        String[] hops = forwardedFor.split(",");
+        String client = remote;
+        for (int i = hops.length - 1; i >= 0; i--) {
+            client = hops[i].trim();
+            if (!trustedProxies.matcher(client).matches()) {
+                break;
+            }
+        }
+        return client;
+    }
+}
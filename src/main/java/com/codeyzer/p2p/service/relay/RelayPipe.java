@@ -0,0 +1,79 @@
+package com.codeyzer.p2p.service.relay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import io.netty.buffer.ByteBuf;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.Connection;
+
+/**
+ * Bir indirme bağlantısını, sahibin ona bağlanan yükleme bağlantısıyla eşler. Yüklemenin ByteBuf akışı
+ * doğrudan indirme yanıtına abone edilir; geri basınç indirme kanalının yazılabilirliğinden yükleme
+ * kanalının okumasına kadar Reactor talebi ile taşınır.
+ */
+class RelayPipe implements Closeable {
+
+    private final Sinks.One<Flux<ByteBuf>> source = Sinks.one();
+    private final Sinks.One<Boolean> abort = Sinks.one();
+    private final Sinks.Empty<Void> finished = Sinks.empty();
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * İndirme yanıtına yazılacak içerik; yükleme bağlanana kadar bekler, pipe kapatılırsa hata ile biter
+     */
+    Flux<ByteBuf> content() {
+        return source.asMono()
+                .flatMapMany(Function.identity())
+                .takeUntilOther(abort.asMono())
+                .concatWith(Mono.defer(() -> closed
+                        ? Mono.error(new IOException("Stream sonlandırıldı"))
+                        : Mono.empty()));
+    }
+
+    /**
+     * Yüklemenin içerik akışını bağlar
+     * @return Pipe'a daha önce bir yükleme bağlandıysa veya pipe kapatıldıysa false
+     */
+    boolean attach(Flux<ByteBuf> upload) {
+        return !closed && source.tryEmitValue(upload).isSuccess();
+    }
+
+    /**
+     * İndirme yanıtı bittiğinde (başarılı veya değil) tamamlanır
+     */
+    Mono<Void> finished() {
+        return finished.asMono();
+    }
+
+    void finish() {
+        finished.tryEmitEmpty();
+    }
+
+    /**
+     * Pipe kapatıldığında kesilecek bağlantıyı kaydeder. Yavaş bir alıcının kanalında bekleyen veri veya
+     * okunmamış bir yükleme gövdesi, hata sinyalinin bağlantıyı kapatmasını geciktirmemelidir.
+     */
+    void bind(Connection connection) {
+        connections.add(connection);
+        if (closed) {
+            connection.dispose();
+        }
+    }
+
+    /**
+     * Aktarımı sonlandırır ve bağlı bağlantıları keser; paylaşım kapatıldığında da çağrılır
+     */
+    @Override
+    public void close() {
+        closed = true;
+        connections.forEach(Connection::dispose);
+        abort.tryEmitValue(Boolean.TRUE);
+    }
+}
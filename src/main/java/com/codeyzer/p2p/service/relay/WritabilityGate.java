@@ -0,0 +1,104 @@
+package com.codeyzer.p2p.service.relay;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.reactivestreams.Subscription;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.netty.NettyPipeline;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * Yüklemeden, yalnızca indirme kanalı yazılabilir olduğunda ve her seferinde tek tampon ister.
+ * Reactor Netty'nin gönderim operatörü talebi kanal durumundan bağımsız olarak 128 öğe ile başlattığından,
+ * bu kapı olmadan yavaş alıcılar için stream başına megabaytlarca veri bellekte beklerdi.
+ */
+class WritabilityGate extends ChannelInboundHandlerAdapter {
+
+    private final Channel channel;
+    private final AtomicBoolean outstanding = new AtomicBoolean();
+    private volatile FluxSink<ByteBuf> sink;
+    private volatile Subscription upstream;
+
+    private WritabilityGate(Channel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Kaynağı, yanıtın bağlantısının yazılabilirliğine göre talep edilecek şekilde sarar
+     */
+    static Flux<ByteBuf> wrap(Flux<ByteBuf> source, HttpServerResponse response) {
+        return Flux.create(sink -> {
+            Channel[] channel = new Channel[1];
+            response.withConnection(connection -> channel[0] = connection.channel());
+            WritabilityGate gate = new WritabilityGate(channel[0]);
+            gate.sink = sink;
+            // Yazılabilirlik olayını Reactor Netty köprüsünden önce görmek için köprünün önüne eklenir
+            channel[0].pipeline().addBefore(NettyPipeline.ReactiveBridge, null, gate);
+            sink.onRequest(n -> gate.pump());
+            sink.onDispose(gate::detach);
+            source.subscribe(new BaseSubscriber<ByteBuf>() {
+                @Override
+                protected void hookOnSubscribe(Subscription subscription) {
+                    gate.upstream = subscription;
+                    gate.pump();
+                }
+
+                @Override
+                protected void hookOnNext(ByteBuf value) {
+                    gate.outstanding.set(false);
+                    sink.next(value);
+                    gate.pump();
+                }
+
+                @Override
+                protected void hookOnComplete() {
+                    sink.complete();
+                }
+
+                @Override
+                protected void hookOnError(Throwable throwable) {
+                    sink.error(throwable);
+                }
+            });
+            sink.onCancel(() -> {
+                Subscription subscription = gate.upstream;
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+            });
+        });
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        pump();
+        super.channelWritabilityChanged(ctx);
+    }
+
+    /**
+     * Alt akış talep ediyor, kanal yazılabilir ve bekleyen istek yoksa yüklemeden bir tampon ister
+     */
+    private void pump() {
+        Subscription subscription = upstream;
+        FluxSink<ByteBuf> current = sink;
+        if (subscription != null && current != null && current.requestedFromDownstream() > 0
+                && channel.isWritable() && outstanding.compareAndSet(false, true)) {
+            subscription.request(1);
+        }
+    }
+
+    private void detach() {
+        channel.eventLoop().execute(() -> {
+            if (channel.pipeline().context(this) != null) {
+                channel.pipeline().remove(this);
+            }
+        });
+    }
+}
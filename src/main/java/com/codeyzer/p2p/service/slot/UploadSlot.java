@@ -0,0 +1,47 @@
+package com.codeyzer.p2p.service.slot;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.codeyzer.p2p.dto.FileStreamWrapper;
+
+/**
+ * Sahibin indirme gelmeden açtığı yükleme bağlantısı. Bir indirme yuvayı aldığında stream yuvanın
+ * iş parçacığına verilir ve sahibin zaten gönderdiği gövde doğrudan o stream'e aktarılır.
+ */
+public class UploadSlot {
+
+    private final CompletableFuture<FileStreamWrapper> claim = new CompletableFuture<>();
+
+    /**
+     * Stream'i yuvaya verir
+     * @return Yuva bu arada kapandıysa false
+     */
+    boolean offer(FileStreamWrapper stream) {
+        return claim.complete(stream);
+    }
+
+    /**
+     * Bir indirme yuvayı alana, yuva kapatılana veya süre dolana kadar bekler
+     * @return Yuvaya bağlanan stream; süre dolduysa veya yuva kapatıldıysa null
+     */
+    public FileStreamWrapper await(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            return claim.get(timeout, unit);
+        } catch (TimeoutException e) {
+            return close();
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Yuvayı kapatır. Kapanışla aynı anda bir indirme yuvayı aldıysa o stream döner.
+     */
+    public FileStreamWrapper close() {
+        claim.complete(null);
+        return claim.getNow(null);
+    }
+}
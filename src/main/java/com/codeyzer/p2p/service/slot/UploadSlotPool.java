@@ -0,0 +1,127 @@
+package com.codeyzer.p2p.service.slot;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Service;
+
+import com.codeyzer.p2p.config.FileShareProperties;
+import com.codeyzer.p2p.dto.FileStreamWrapper;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Paylaşımlar için bekleyen yükleme yuvaları. Yuvalar paylaşım kaydında değil burada tutulur; böylece
+ * yuva açmayan milyonlarca boşta paylaşım ek alan taşımaz. Bir paylaşımın kuyruğu yalnızca
+ * {@link ConcurrentHashMap#compute} içinde değiştirilir ve boşaldığında silinir. Bekleyen her yuva aktarım
+ * havuzundan bir iş parçacığı tuttuğundan tüm paylaşımlardaki yuva sayısı ayrıca sınırlanır.
+ */
+@Service
+@RequiredArgsConstructor
+public class UploadSlotPool {
+
+    private final FileShareProperties fileShareProperties;
+
+    private final Map<String, Deque<UploadSlot>> slots = new ConcurrentHashMap<>();
+    // Tüm paylaşımlardaki bekleyen yuva sayısı; yalnızca kuyruklar compute içinde değişirken güncellenir
+    private final AtomicInteger parkedTotal = new AtomicInteger();
+
+    /**
+     * Paylaşım için yeni bir yuva açar
+     * @return Paylaşımın veya sunucunun yuva sınırı doluysa null
+     */
+    public UploadSlot park(String shareHash) {
+        int maxPerShare = fileShareProperties.getUploadSlots().getMaxPerShare();
+        int maxTotal = fileShareProperties.getUploadSlots().getMaxTotal();
+        UploadSlot slot = new UploadSlot();
+        boolean[] parked = new boolean[1];
+        slots.compute(shareHash, (key, queue) -> {
+            Deque<UploadSlot> current = queue != null ? queue : new ArrayDeque<>();
+            if (current.size() < maxPerShare) {
+                if (parkedTotal.incrementAndGet() <= maxTotal) {
+                    current.addLast(slot);
+                    parked[0] = true;
+                } else {
+                    parkedTotal.decrementAndGet();
+                }
+            }
+            return current.isEmpty() ? null : current;
+        });
+        return parked[0] ? slot : null;
+    }
+
+    /**
+     * Stream'i paylaşımın en eski bekleyen yuvasına bağlar
+     * @return Bekleyen yuva yoksa false; stream sahibe ayrıca bildirilmelidir
+     */
+    public boolean claim(String shareHash, FileStreamWrapper stream) {
+        UploadSlot slot;
+        while ((slot = poll(shareHash)) != null) {
+            if (slot.offer(stream)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Süresi dolan veya aktarımı biten yuvayı kuyruktan çıkarır
+     */
+    public void remove(String shareHash, UploadSlot slot) {
+        slots.computeIfPresent(shareHash, (key, queue) -> {
+            if (queue.remove(slot)) {
+                parkedTotal.decrementAndGet();
+            }
+            return queue.isEmpty() ? null : queue;
+        });
+    }
+
+    /**
+     * Paylaşımın bekleyen yuvalarını kapatır; paylaşım sonlandırılırken çağrılır
+     */
+    public void closeAll(String shareHash) {
+        List<UploadSlot> closed = new ArrayList<>();
+        slots.computeIfPresent(shareHash, (key, queue) -> {
+            closed.addAll(queue);
+            parkedTotal.addAndGet(-queue.size());
+            return null;
+        });
+        closed.forEach(UploadSlot::close);
+    }
+
+    /**
+     * Tüm paylaşımların bekleyen yuvalarını kapatır; sunucu boşaltılırken çağrılır
+     */
+    public void closeAll() {
+        List.copyOf(slots.keySet()).forEach(this::closeAll);
+    }
+
+    /**
+     * Paylaşımın bekleyen yuva sayısı
+     */
+    public int getParkedCount(String shareHash) {
+        int[] count = new int[1];
+        slots.computeIfPresent(shareHash, (key, queue) -> {
+            count[0] = queue.size();
+            return queue;
+        });
+        return count[0];
+    }
+
+    private UploadSlot poll(String shareHash) {
+        UploadSlot[] polled = new UploadSlot[1];
+        slots.computeIfPresent(shareHash, (key, queue) -> {
+            polled[0] = queue.pollFirst();
+            if (polled[0] != null) {
+                parkedTotal.decrementAndGet();
+            }
+            return queue.isEmpty() ? null : queue;
+        });
+        return polled[0];
+    }
+}
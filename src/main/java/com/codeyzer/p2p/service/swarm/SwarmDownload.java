@@ -0,0 +1,462 @@
+package com.codeyzer.p2p.service.swarm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import com.codeyzer.p2p.config.FileShareProperties;
+import com.codeyzer.p2p.dto.FileShareWrapper;
+import com.codeyzer.p2p.dto.FileStreamWrapper;
+import com.codeyzer.p2p.dto.PieceHashes;
+import com.codeyzer.p2p.service.buffer.TransferBufferBudget;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Aynı içerik özetini bildiren birden çok paylaşımdan bir dosyayı parça boyutunda aralıklara bölerek
+ * indirir. Her boştaki kaynağa sıradaki aralık istenir; gelen byte'lar aralığın tamponuna yazılır ve
+ * tamamlanan aralıklar sırayla alıcıya aktarılır. Bağlantısı kopan, ilerlemesi duran veya
+ * son aralıklarda diğerlerinden belirgin şekilde yavaş kalan kaynakların aralıklarının kalanı
+ * başka bir kaynağa devredilir. Bellekte en fazla pencere boyutu kadar aralık tutulur; aralık tamponları
+ * aktarım tampon bütçesinden ayrılır ve bütçe doluysa pencere daralır.
+ * Kaynaklar yalnızca bildirdikleri özete göre seçildiğinden, her aralık istenen paylaşımın parça özetiyle
+ * doğrulanmadan alıcıya yazılmaz; eşleşmeyen aralık atılır, ona veri gönderen kaynaklar dışlanır ve aralık
+ * baştan istenir. Ayrıca alıcıya yazılan byte'ların SHA-256 özeti hesaplanır ve son aralık içerik özetiyle
+ * eşleşmeden yazılmaz.
+ */
+@Slf4j
+public class SwarmDownload {
+
+    private static final long POLL_INTERVAL_MS = 200;
+    // Yavaşlık kararı için bir aralığın en az bu kadar süredir aktarılıyor olması gerekir
+    private static final long MIN_RATE_SAMPLE_MS = 2000;
+
+    /**
+     * Sahiplere aralık isteği gönderen ve biten stream'leri paylaşımdan kaldıran köprü
+     */
+    public interface RangeRequester {
+        FileStreamWrapper request(Source source, long offset, long length, OutputStream sink);
+
+        void release(Source source, FileStreamWrapper stream);
+    }
+
+    private final List<Source> sources;
+    private final Range[] ranges;
+    private final int window;
+    private final RangeRequester requester;
+    private final FileShareProperties.SwarmProperties settings;
+    private final byte[] expectedSha256;
+    private final PieceHashes pieceHashes;
+    private final TransferBufferBudget bufferBudget;
+    private final MessageDigest digest;
+    private final Object signal = new Object();
+
+    /**
+     * @param expectedSha256 İstenen paylaşımın bildirdiği içeriğin SHA-256 özeti
+     * @param pieceHashes İstenen paylaşımın bildirdiği parça özetleri; aralıklar parça boyutundadır
+     */
+    public SwarmDownload(List<Source> sources, long size, byte[] expectedSha256, PieceHashes pieceHashes,
+                         FileShareProperties.SwarmProperties settings, TransferBufferBudget bufferBudget,
+                         RangeRequester requester) {
+        this.sources = sources;
+        this.expectedSha256 = expectedSha256;
+        this.pieceHashes = pieceHashes;
+        this.digest = sha256();
+        this.settings = settings;
+        this.bufferBudget = bufferBudget;
+        this.requester = requester;
+        this.window = Math.max(2, sources.size() * 2);
+
+        int pieceSize = pieceHashes.getPieceSize();
+        int count = (int) ((size + pieceSize - 1) / pieceSize);
+        if (count != pieceHashes.getCount()) {
+            throw new IllegalArgumentException("Parça özeti sayısı dosya boyutuyla uyuşmuyor");
+        }
+        this.ranges = new Range[count];
+        for (int i = 0; i < count; i++) {
+            long start = (long) i * pieceSize;
+            ranges[i] = new Range(i, start, (int) Math.min(pieceSize, size - start));
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 desteklenmiyor", e);
+        }
+    }
+
+    /**
+     * Tüm aralıkları sırayla çıkışa yazar
+     * @return Dosyanın tamamı aktarıldıysa true; tüm kaynaklar kaybedildiyse veya içerik özetle
+     * eşleşmediyse false
+     */
+    public boolean transfer(OutputStream out) throws IOException, InterruptedException {
+        int next = 0;
+        try {
+            while (next < ranges.length) {
+                long now = System.currentTimeMillis();
+                checkAssignments(now);
+                if (sources.stream().allMatch(Source::isFailed)) {
+                    log.info("All swarm sources lost, download ends at offset {}", ranges[next].start);
+                    return false;
+                }
+                assignIdleSources(next, now);
+                reassignSlowRanges(next, now);
+
+                // Yalnızca parça özetiyle doğrulanmış aralıklar yazılır
+                while (next < ranges.length && ranges[next].verified) {
+                    Range range = ranges[next];
+                    digest.update(range.data, 0, range.length);
+                    if (next == ranges.length - 1 && !MessageDigest.isEqual(digest.digest(), expectedSha256)) {
+                        log.warn("Swarm download content does not match sha256:{}, withholding the last {} bytes",
+                                HexFormat.of().formatHex(expectedSha256), range.length);
+                        return false;
+                    }
+                    out.write(range.data, 0, range.length);
+                    free(range);
+                    next++;
+                }
+                if (next < ranges.length) {
+                    synchronized (signal) {
+                        if (!ranges[next].isComplete()) {
+                            signal.wait(POLL_INTERVAL_MS);
+                        }
+                    }
+                }
+            }
+            out.flush();
+            return true;
+        } finally {
+            for (Range range : ranges) {
+                cancel(range);
+                free(range);
+            }
+        }
+    }
+
+    /**
+     * Biten, başarısız olan ve ilerlemesi duran aralık atamalarını sonuçlandırır. Biten aralık parça
+     * özetiyle doğrulanır; eşleşmezse ona veri gönderen kaynaklar dışlanır ve aralık baştan istenir.
+     */
+    private void checkAssignments(long now) {
+        for (Range range : ranges) {
+            Assignment assignment = range.assignment;
+            if (assignment == null) {
+                // Tamamlandığı anda iptal edilen aralık da doğrulanır
+                if (range.isComplete() && !range.verified) {
+                    verify(range);
+                }
+                continue;
+            }
+            if (range.isComplete()) {
+                synchronized (range) {
+                    range.assignment = null;
+                }
+                assignment.source.recordCompletion(range.filled - assignment.startFilled, now - assignment.assignedAt);
+                assignment.source.stalled = false;
+                assignment.source.busy = false;
+                requester.release(assignment.source, assignment.stream);
+                verify(range);
+            } else if (assignment.stream.getStatus() == FileStreamWrapper.STATUS_FAILED) {
+                log.debug("Swarm source {} failed at offset {}", assignment.source.shareHash, range.start + range.filled);
+                assignment.source.failed = true;
+                cancel(range);
+            } else if (now - assignment.lastProgressAt > settings.getStallTimeoutMs()) {
+                log.debug("Swarm source {} stalled at offset {}", assignment.source.shareHash, range.start + range.filled);
+                assignment.source.stalled = true;
+                cancel(range);
+            }
+        }
+    }
+
+    /**
+     * Tamamlanan aralığın parça özetini denetler
+     */
+    private void verify(Range range) {
+        byte[] actual;
+        synchronized (range) {
+            actual = range.sha256.digest();
+        }
+        if (pieceHashes.matches(range.index, actual)) {
+            range.verified = true;
+            return;
+        }
+        log.warn("Swarm piece {} at offset {} does not match its declared sha256, discarding it",
+                range.index, range.start);
+        synchronized (range) {
+            for (Source contributor : range.contributors) {
+                contributor.failed = true;
+            }
+            range.contributors.clear();
+            range.filled = 0;
+        }
+    }
+
+    /**
+     * Boştaki kaynaklara pencere içindeki sıradaki atanmamış aralıkları dağıtır. Tampon bütçesi doluysa
+     * yalnızca sıradaki aralığa tampon verilir.
+     */
+    private void assignIdleSources(int next, long now) {
+        int end = Math.min(ranges.length, next + window);
+        for (int i = next; i < end; i++) {
+            Range range = ranges[i];
+            if (range.assignment != null || range.isComplete()) {
+                continue;
+            }
+            Source source = pickIdleSource();
+            if (source == null || !allocate(range, i == next)) {
+                return;
+            }
+            assign(range, source, now);
+        }
+    }
+
+    /**
+     * Aralığın tamponunu ve özetini oluşturur; tampon aktarım tampon bütçesinden ayrılır
+     * @param required Bütçe dolu olsa da ayrılsın mı; alıcıya yazılacak sıradaki aralık için true
+     * @return Aralığın tamponu varsa true
+     */
+    private boolean allocate(Range range, boolean required) {
+        if (range.data != null) {
+            return true;
+        }
+        if (!bufferBudget.tryReserve(range.length, required)) {
+            return false;
+        }
+        synchronized (range) {
+            range.data = new byte[range.length];
+            range.sha256 = sha256();
+        }
+        return true;
+    }
+
+    /**
+     * Aralığın tamponunu bütçeye iade eder; aralığın ataması olmamalıdır
+     */
+    private void free(Range range) {
+        synchronized (range) {
+            if (range.data == null) {
+                return;
+            }
+            range.data = null;
+            range.sha256 = null;
+        }
+        bufferBudget.release(range.length);
+    }
+
+    /**
+     * Dağıtılacak aralık kalmadığında, boştaki hızlı bir kaynak varsa yavaş kalan aralığın kalanını ona devreder
+     */
+    private void reassignSlowRanges(int next, long now) {
+        int end = Math.min(ranges.length, next + window);
+        if (end < ranges.length) {
+            return;
+        }
+        for (int i = next; i < end; i++) {
+            if (ranges[i].assignment == null && !ranges[i].isComplete()) {
+                return;
+            }
+        }
+
+        Source idle = null;
+        for (Source source : sources) {
+            if (!source.busy && !source.failed && !source.stalled && source.getRate() > 0
+                    && (idle == null || source.getRate() > idle.getRate())) {
+                idle = source;
+            }
+        }
+        if (idle == null) {
+            return;
+        }
+        for (int i = next; i < end; i++) {
+            Range range = ranges[i];
+            Assignment assignment = range.assignment;
+            if (assignment == null || range.isComplete() || now - assignment.assignedAt < MIN_RATE_SAMPLE_MS) {
+                continue;
+            }
+            double rate = (double) (range.filled - assignment.startFilled) / (now - assignment.assignedAt);
+            if (rate < idle.getRate() * settings.getSlowSourceRatio()) {
+                log.debug("Swarm source {} is slow, moving offset {} to {}",
+                        assignment.source.shareHash, range.start + range.filled, idle.shareHash);
+                cancel(range);
+                assign(range, idle, now);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Boştaki kaynaklardan önce henüz ölçülmemiş olanı, yoksa en hızlısını seçer.
+     * Takılmış kaynaklar yalnızca başka kaynak kalmadığında kullanılır.
+     */
+    private Source pickIdleSource() {
+        boolean healthyLeft = sources.stream().anyMatch(source -> !source.failed && !source.stalled);
+        Source best = null;
+        for (Source source : sources) {
+            if (source.busy || source.failed || (source.stalled && healthyLeft)) {
+                continue;
+            }
+            if (source.getRate() <= 0) {
+                return source;
+            }
+            if (best == null || source.getRate() > best.getRate()) {
+                best = source;
+            }
+        }
+        return best;
+    }
+
+    private void assign(Range range, Source source, long now) {
+        Assignment assignment = new Assignment(source, range.filled, now);
+        synchronized (range) {
+            range.assignment = assignment;
+            if (!range.contributors.contains(source)) {
+                range.contributors.add(source);
+            }
+        }
+        source.busy = true;
+        assignment.stream = requester.request(source, range.start + range.filled, range.length - range.filled,
+                new RangeSink(range, assignment));
+    }
+
+    /**
+     * Aralığın aktif atamasını iptal eder; sahipten gelmeye devam eden byte'lar reddedilir
+     */
+    private void cancel(Range range) {
+        Assignment assignment;
+        synchronized (range) {
+            assignment = range.assignment;
+            range.assignment = null;
+        }
+        if (assignment == null) {
+            return;
+        }
+        assignment.source.busy = false;
+        if (assignment.stream != null) {
+            if (assignment.stream.getStatus() != FileStreamWrapper.STATUS_COMPLETED) {
+                assignment.stream.setStatus(FileStreamWrapper.STATUS_FAILED);
+            }
+            requester.release(assignment.source, assignment.stream);
+        }
+    }
+
+    /**
+     * Çok kaynaklı indirmeye katılan bir paylaşım
+     */
+    @Getter
+    public static final class Source {
+        private final String shareHash;
+        private final FileShareWrapper share;
+
+        private volatile boolean busy;
+        private volatile boolean failed;
+        private volatile boolean stalled;
+        private long completedBytes;
+        private long completedMillis;
+
+        public Source(String shareHash, FileShareWrapper share) {
+            this.shareHash = shareHash;
+            this.share = share;
+        }
+
+        /**
+         * Tamamlanan aralıklardan ölçülen hız (byte/ms); henüz ölçüm yoksa 0
+         */
+        public double getRate() {
+            return completedMillis > 0 ? (double) completedBytes / completedMillis : 0;
+        }
+
+        private void recordCompletion(long bytes, long millis) {
+            completedBytes += bytes;
+            completedMillis += Math.max(1, millis);
+        }
+    }
+
+    private static final class Range {
+        private final int index;
+        private final long start;
+        private final int length;
+        // Tampon ve özet aralık atanırken oluşturulur, alıcıya yazılınca bırakılır
+        private byte[] data;
+        private MessageDigest sha256;
+        private volatile int filled;
+        private volatile boolean verified;
+        private volatile Assignment assignment;
+        // Aralığa veri gönderen kaynaklar; parça özeti eşleşmezse hepsi dışlanır
+        private final List<Source> contributors = new ArrayList<>(2);
+
+        private Range(int index, long start, int length) {
+            this.index = index;
+            this.start = start;
+            this.length = length;
+        }
+
+        private boolean isComplete() {
+            return filled == length;
+        }
+    }
+
+    private static final class Assignment {
+        private final Source source;
+        private final int startFilled;
+        private final long assignedAt;
+        private volatile long lastProgressAt;
+        private FileStreamWrapper stream;
+
+        private Assignment(Source source, int startFilled, long assignedAt) {
+            this.source = source;
+            this.startFilled = startFilled;
+            this.assignedAt = assignedAt;
+            this.lastProgressAt = assignedAt;
+        }
+    }
+
+    /**
+     * Sahipten gelen byte'ları aralığın tamponuna yazar. Aralık başka bir kaynağa devredildiyse
+     * yazma reddedilir ve eski yükleme sonlanır.
+     */
+    private final class RangeSink extends OutputStream {
+        private final Range range;
+        private final Assignment assignment;
+
+        private RangeSink(Range range, Assignment assignment) {
+            this.range = range;
+            this.assignment = assignment;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            boolean complete;
+            synchronized (range) {
+                if (range.assignment != assignment) {
+                    throw new IOException("Aralık başka bir kaynağa devredildi: " + range.start);
+                }
+                if (range.filled + len > range.length) {
+                    throw new IOException("Aralık sınırı aşıldı: " + range.start);
+                }
+                System.arraycopy(b, off, range.data, range.filled, len);
+                range.sha256.update(b, off, len);
+                range.filled += len;
+                complete = range.isComplete();
+            }
+            assignment.lastProgressAt = System.currentTimeMillis();
+            if (complete) {
+                synchronized (signal) {
+                    signal.notifyAll();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.codeyzer.p2p.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import com.codeyzer.p2p.CodeyzerP2PApplication;
+import com.codeyzer.p2p.dto.ShareResponseDTO;
+import com.codeyzer.p2p.service.buffer.TransferBufferBudget;
+import com.codeyzer.p2p.support.RelayClient;
+
+/**
+ * Uyarlanan tamponu sabit 8KB tamponla hızlı ve yavaş bağlantılarda karşılaştırır. FAST birkaç büyük
+ * dosyayı okuma hızı sınırsız alıcılara aktarır; SLOW çok sayıda küçük dosyayı okuma hızı sınırlanmış
+ * alıcılara aktarır, yani yavaş mobil indirmeleri taklit eder. Yükleme tarafı her iki durumda da sınırsızdır.
+ * İşlem başına toplam hız megabytesPerSecond, yineleme boyunca örneklenen tampon bütçesinin en yüksek
+ * değeri peakBufferKilobytes, ortalaması meanBufferKilobytes ve sürecin en yüksek yerleşik belleği
+ * peakRssMegabytes olarak raporlanır. Uyarlanan tamponlar ilk ölçüme kadar başlangıç boyutunda
+ * olduğundan aynı anda başlayan aktarımlarda en yüksek değer bu başlangıcı gösterir. İstemci
+ * aynı JVM'de çalıştığından RSS iki tarafı birlikte içerir. JMH bu sayaçları tabloda yinelemeler
+ * üzerinden toplar; yineleme başına değerler yineleme satırlarındadır.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+// Soket tamponları sabitlenmezse çekirdek onları megabaytlarca büyütür ve yavaş alıcıya giden dosya
+// sunucunun beklemesine gerek kalmadan tamponlara sığar
+@Fork(value = 1, jvmArgsAppend = { "-Xmx1g", "-Djdk.httpclient.receiveBufferSize=" + AdaptiveBufferBenchmark.SOCKET_BUFFER })
+@State(Scope.Benchmark)
+public class AdaptiveBufferBenchmark {
+
+    static final String SOCKET_BUFFER = "65536";
+
+    public enum Buffering { FIXED, ADAPTIVE }
+
+    public enum Link {
+        FAST(4, 64 * 1024 * 1024, 0),
+        SLOW(50, 4 * 1024 * 1024, 256 * 1024);
+
+        private final int downloads;
+        private final int fileSize;
+        /** Alıcının saniyede okuduğu en fazla byte; 0 sınırsız */
+        private final int readRateBytesPerSecond;
+
+        Link(int downloads, int fileSize, int readRateBytesPerSecond) {
+            this.downloads = downloads;
+            this.fileSize = fileSize;
+            this.readRateBytesPerSecond = readRateBytesPerSecond;
+        }
+    }
+
+    @Param({ "FIXED", "ADAPTIVE" })
+    private Buffering buffering;
+
+    @Param({ "FAST", "SLOW" })
+    private Link link;
+
+    private ConfigurableApplicationContext context;
+    private TransferBufferBudget budget;
+    private RelayClient client;
+    private ExecutorService readers;
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void startServer() {
+        context = new SpringApplicationBuilder(CodeyzerP2PApplication.class)
+                .initializers(initialized -> ((GenericApplicationContext) initialized).registerBean(
+                        "socketBufferCustomizer", WebServerFactoryCustomizer.class, AdaptiveBufferBenchmark::socketBuffer))
+                .run(
+                "--server.port=0",
+                "--file-share.adaptive-buffer.enabled=" + (buffering == Buffering.ADAPTIVE),
+                "--file-share.digest-algorithm=none",
+                "--file-share.upload-slots.max-total=" + Math.max(200, link.downloads),
+                "--logging.level.root=warn",
+                "--logging.level.com.codeyzer.p2p=warn");
+        budget = context.getBean(TransferBufferBudget.class);
+        client = new RelayClient(((ServletWebServerApplicationContext) context).getWebServer().getPort(),
+                HttpClient.Version.HTTP_1_1);
+        readers = Executors.newFixedThreadPool(link.downloads);
+        byte[] content = new byte[link.fileSize];
+        new Random(41).nextBytes(content);
+        body = RelayClient.multipart(content);
+    }
+
+    private static WebServerFactoryCustomizer<TomcatServletWebServerFactory> socketBuffer() {
+        return factory -> factory.addConnectorCustomizers(
+                connector -> connector.setProperty("socket.txBufSize", SOCKET_BUFFER));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        readers.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public long relay(Footprint footprint) throws Exception {
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<Void>>> slots = new ArrayList<>();
+        List<ShareResponseDTO> shares = new ArrayList<>();
+        for (int i = 0; i < link.downloads; i++) {
+            ShareResponseDTO share = client.share("tampon-" + i + ".bin", link.fileSize);
+            shares.add(share);
+            slots.add(client.parkSlotWithBody(share, body));
+        }
+        List<CompletableFuture<Long>> downloads = new ArrayList<>();
+        for (ShareResponseDTO share : shares) {
+            client.awaitParkedSlots(share.getShareHash(), 1);
+            downloads.add(client.downloadStream(share.getShareHash())
+                    .thenApplyAsync(response -> read(response), readers));
+        }
+
+        long bytes = 0;
+        for (int i = 0; i < link.downloads; i++) {
+            long received = downloads.get(i).get(120, TimeUnit.SECONDS);
+            if (received != link.fileSize) {
+                throw new IllegalStateException("İndirme eksik: " + received);
+            }
+            slots.get(i).get(60, TimeUnit.SECONDS);
+            bytes += received;
+        }
+        footprint.megabytesPerSecond = bytes * 1e9 / (System.nanoTime() - start) / (1024 * 1024);
+        return bytes;
+    }
+
+    /**
+     * Yanıtı okur; yavaş bağlantıda okuma hızını sınırlar, alıcının tamponları dolunca sunucu yazamaz
+     */
+    private long read(HttpResponse<InputStream> response) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("İndirme başarısız: " + response.statusCode());
+        }
+        byte[] chunk = new byte[4096];
+        long received = 0;
+        long start = System.nanoTime();
+        try (InputStream in = response.body()) {
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                received += read;
+                if (link.readRateBytesPerSecond > 0) {
+                    long due = start + received * 1_000_000_000L / link.readRateBytesPerSecond;
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return received;
+    }
+
+    /**
+     * Yineleme boyunca tampon bütçesini ve sürecin yerleşik belleğini ayrı bir iş parçacığında örnekler
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+
+        public double megabytesPerSecond;
+        public long peakBufferKilobytes;
+        public long meanBufferKilobytes;
+        public long peakRssMegabytes;
+
+        private volatile boolean sampling;
+        private Thread sampler;
+
+        @Setup(Level.Iteration)
+        public void startSampling(AdaptiveBufferBenchmark benchmark) {
+            peakBufferKilobytes = 0;
+            meanBufferKilobytes = 0;
+            peakRssMegabytes = 0;
+            sampling = true;
+            sampler = new Thread(() -> {
+                long samples = 0;
+                long totalKilobytes = 0;
+                while (sampling) {
+                    long bufferKilobytes = benchmark.budget.getReservedBytes() / 1024;
+                    peakBufferKilobytes = Math.max(peakBufferKilobytes, bufferKilobytes);
+                    totalKilobytes += bufferKilobytes;
+                    meanBufferKilobytes = totalKilobytes / ++samples;
+                    peakRssMegabytes = Math.max(peakRssMegabytes, residentKilobytes() / 1024);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            sampler.setDaemon(true);
+            sampler.start();
+        }
+
+        @TearDown(Level.Iteration)
+        public void stopSampling() throws InterruptedException {
+            sampling = false;
+            sampler.join();
+        }
+
+        /**
+         * Linux'ta /proc/self/status içindeki VmRSS; okunamazsa 0
+         */
+        private static long residentKilobytes() {
+            try {
+                for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                    if (line.startsWith("VmRSS:")) {
+                        return Long.parseLong(line.replaceAll("\\D", ""));
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                // Linux dışında RSS raporlanmaz
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.codeyzer.p2p.benchmark;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.codeyzer.p2p.CodeyzerP2PApplication;
+import com.codeyzer.p2p.dto.ShareResponseDTO;
+import com.codeyzer.p2p.service.digest.StreamDigest;
+import com.codeyzer.p2p.support.RelayClient;
+
+/**
+ * Aktarım özetinin sunucu üzerinden tek bir aktarıma eklediği süreyi ölçer. Her işlemde sahip yükleme
+ * yuvasıyla dosyayı gönderir ve indiren HTTP/1.1 üzerinden alır; "none" özetsiz aktarımın kendisidir,
+ * diğer algoritmaların farkı özet maliyetidir. Alıcı trailer istemediğinden yanıt boyutu her durumda aynıdır.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DigestOverheadBenchmark {
+
+    @Param({ StreamDigest.NONE, StreamDigest.XXHASH64, StreamDigest.SHA256 })
+    private String algorithm;
+
+    @Param("67108864")
+    private int fileSize;
+
+    private ConfigurableApplicationContext context;
+    private RelayClient client;
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void startServer() {
+        // Komut satırı argümanları application.yml ve profil dosyalarını geçersiz kılar
+        context = new SpringApplicationBuilder(CodeyzerP2PApplication.class).run(
+                "--server.port=0",
+                "--file-share.digest-algorithm=" + algorithm,
+                "--logging.level.root=warn",
+                "--logging.level.com.codeyzer.p2p=warn");
+        client = new RelayClient(((ServletWebServerApplicationContext) context).getWebServer().getPort(),
+                HttpClient.Version.HTTP_1_1);
+        byte[] content = new byte[fileSize];
+        new Random(33).nextBytes(content);
+        // Gövde bir kez oluşturulur; istemcinin her işlemde tahsisi ölçüme gürültü katmaz
+        body = RelayClient.multipart(content);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        context.close();
+    }
+
+    @Benchmark
+    public long relay() throws Exception {
+        ShareResponseDTO share = client.share("ozet.bin", fileSize);
+        CompletableFuture<HttpResponse<Void>> slot = client.parkSlotWithBody(share, body);
+        client.awaitParkedSlots(share.getShareHash(), 1);
+        HttpResponse<InputStream> download = client.downloadStream(share.getShareHash()).get(60, TimeUnit.SECONDS);
+        long received;
+        try (InputStream in = download.body()) {
+            received = in.transferTo(OutputStream.nullOutputStream());
+        }
+        if (download.statusCode() != 200 || received != fileSize) {
+            throw new IllegalStateException("İndirme başarısız: " + download.statusCode() + " " + received);
+        }
+        slot.get(60, TimeUnit.SECONDS);
+        return received;
+    }
+}
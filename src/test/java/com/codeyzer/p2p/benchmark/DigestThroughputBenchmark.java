@@ -0,0 +1,56 @@
+package com.codeyzer.p2p.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codeyzer.p2p.service.digest.StreamDigest;
+
+/**
+ * Özetin aktarım döngüsündeki tamponlarla beslendiğinde harcadığı işlemci süresini ağdan bağımsız ölçer.
+ * {@link DigestOverheadBenchmark} uçtan uca farkı verir; tek çekirdekli makinede istemci ve sunucu aynı
+ * çekirdeği paylaştığından o fark gürültülüdür, buradaki değer özetin kendi payıdır.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DigestThroughputBenchmark {
+
+    @Param({ StreamDigest.XXHASH64, StreamDigest.SHA256 })
+    private String algorithm;
+
+    /** Aktarım döngüsünün bir okumada doldurduğu tampon boyutu */
+    @Param("65536")
+    private int bufferSize;
+
+    private byte[] buffer;
+    private StreamDigest digest;
+
+    @Setup
+    public void setUp() {
+        buffer = new byte[bufferSize];
+        new Random(33).nextBytes(buffer);
+        digest = StreamDigest.create(algorithm);
+    }
+
+    /** Saniyedeki işlem sayısı ile tampon boyutunun çarpımı özet hızıdır */
+    @Benchmark
+    public StreamDigest update() {
+        digest.update(buffer, 0, buffer.length);
+        return digest;
+    }
+}
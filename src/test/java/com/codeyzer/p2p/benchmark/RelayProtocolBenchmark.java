@@ -0,0 +1,162 @@
+package com.codeyzer.p2p.benchmark;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.coyote.AbstractProtocol;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.codeyzer.p2p.CodeyzerP2PApplication;
+import com.codeyzer.p2p.dto.ShareResponseDTO;
+import com.codeyzer.p2p.support.RelayClient;
+
+/**
+ * Aynı uygulamada HTTP/1.1 ve h2c üzerinden eşzamanlı aktarımları karşılaştırır. Her çağrıda sahip
+ * tarafı her paylaşım için bir yükleme yuvası açar, tüm yuvalar beklemeye geçince indirmeler aynı anda
+ * başlatılır; skor tüm aktarımların bitme süresidir. Yineleme boyunca Tomcat'in açık bağlantı sayısı
+ * örneklenir ve en yüksek değer peakConnections, aktarılan içerik de megabytesPerSecond olarak
+ * raporlanır. JMH bu sayaçları tabloda yinelemeler üzerinden toplar; yineleme başına değerler yineleme
+ * satırlarındadır.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RelayProtocolBenchmark {
+
+    @Param({ "HTTP_1_1", "HTTP_2" })
+    private HttpClient.Version version;
+
+    @Param("100")
+    private int uploads;
+
+    @Param("1048576")
+    private int fileSize;
+
+    private ConfigurableApplicationContext context;
+    private AbstractProtocol<?> protocol;
+    private RelayClient client;
+    private byte[] content;
+
+    @Setup(Level.Trial)
+    public void startServer() {
+        // Komut satırı argümanları application.yml ve profil dosyalarını geçersiz kılar
+        context = new SpringApplicationBuilder(CodeyzerP2PApplication.class).run(
+                "--server.port=0",
+                "--server.http2.enabled=true",
+                // JDK 17 istemcisi HTTP/2 trailer'larını okuyamaz
+                "--file-share.digest-algorithm=none",
+                "--file-share.upload-slots.max-total=" + Math.max(200, uploads),
+                "--logging.level.root=warn",
+                "--logging.level.com.codeyzer.p2p=warn");
+        TomcatWebServer webServer = (TomcatWebServer) ((ServletWebServerApplicationContext) context).getWebServer();
+        protocol = (AbstractProtocol<?>) webServer.getTomcat().getConnector().getProtocolHandler();
+        client = new RelayClient(webServer.getPort(), version);
+        content = new byte[fileSize];
+        new Random(28).nextBytes(content);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        context.close();
+    }
+
+    @Benchmark
+    public long relayConcurrentUploads(Connections connections) throws Exception {
+        List<ShareResponseDTO> shares = new ArrayList<>();
+        List<CompletableFuture<HttpResponse<Void>>> slots = new ArrayList<>();
+        for (int i = 0; i < uploads; i++) {
+            ShareResponseDTO share = client.share("dosya-" + i + ".bin", fileSize);
+            shares.add(share);
+            slots.add(client.parkSlot(share, content));
+        }
+        List<CompletableFuture<HttpResponse<byte[]>>> downloads = new ArrayList<>();
+        for (ShareResponseDTO share : shares) {
+            client.awaitParkedSlots(share.getShareHash(), 1);
+        }
+        for (ShareResponseDTO share : shares) {
+            downloads.add(client.download(share.getShareHash()));
+        }
+
+        long bytes = 0;
+        for (int i = 0; i < uploads; i++) {
+            HttpResponse<byte[]> download = downloads.get(i).get(60, TimeUnit.SECONDS);
+            if (download.statusCode() != 200 || download.body().length != fileSize
+                    || download.version() != version) {
+                throw new IllegalStateException("İndirme başarısız: " + download.statusCode() + " " + download.version());
+            }
+            slots.get(i).get(60, TimeUnit.SECONDS);
+            bytes += download.body().length;
+        }
+        connections.transferredBytes += bytes;
+        return bytes;
+    }
+
+    /**
+     * Yineleme boyunca Tomcat'in açık bağlantı sayısını ayrı bir iş parçacığında örnekler
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Connections {
+
+        public long peakConnections;
+        public double megabytesPerSecond;
+
+        private long transferredBytes;
+        private long startedAt;
+        private volatile boolean sampling;
+        private Thread sampler;
+
+        @Setup(Level.Iteration)
+        public void startSampling(RelayProtocolBenchmark benchmark) {
+            peakConnections = 0;
+            transferredBytes = 0;
+            sampling = true;
+            sampler = new Thread(() -> {
+                while (sampling) {
+                    peakConnections = Math.max(peakConnections, benchmark.protocol.getConnectionCount());
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "connection-sampler");
+            sampler.setDaemon(true);
+            sampler.start();
+            startedAt = System.nanoTime();
+        }
+
+        @TearDown(Level.Iteration)
+        public void stopSampling() throws InterruptedException {
+            double seconds = (System.nanoTime() - startedAt) / 1e9;
+            sampling = false;
+            sampler.join();
+            megabytesPerSecond = transferredBytes / (1024.0 * 1024.0) / seconds;
+        }
+    }
+}
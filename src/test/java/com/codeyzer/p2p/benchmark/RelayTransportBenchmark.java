@@ -0,0 +1,150 @@
+package com.codeyzer.p2p.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.codeyzer.p2p.CodeyzerP2PApplication;
+import com.codeyzer.p2p.dto.ShareResponseDTO;
+import com.codeyzer.p2p.support.RelayClient;
+import com.codeyzer.p2p.support.StompOwner;
+
+/**
+ * Servlet (Tomcat) ve Reactor Netty aktarım katmanlarını aynı yük altında karşılaştırır. Her işlemde
+ * paylaşımların hepsi aynı anda indirilir; sahip STOMP bildirimiyle yüklemeyi indirmenin açıldığı
+ * katmana gönderir, yani bildirim gidiş dönüşü iki katmanda da ölçüme dahildir. İşlem başına toplam hız
+ * megabytesPerSecond olarak raporlanır; kopya ve ayırma farkı için JMH'ye {@code -prof gc} verilebilir
+ * (istemci aynı JVM'de çalıştığından değer iki tarafı birlikte içerir). JMH bu sayaçları tabloda
+ * yinelemeler üzerinden toplar; yineleme başına değerler yineleme satırlarındadır.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx1g" })
+@State(Scope.Benchmark)
+public class RelayTransportBenchmark {
+
+    public enum Transport { TOMCAT, NETTY }
+
+    @Param({ "TOMCAT", "NETTY" })
+    private Transport transport;
+
+    @Param("50")
+    private int downloads;
+
+    @Param("4194304")
+    private int fileSize;
+
+    private ConfigurableApplicationContext context;
+    private RelayClient relay;
+    private StompOwner owner;
+    private ExecutorService readers;
+    private final List<ShareResponseDTO> shares = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void startServer() throws Exception {
+        int nettyPort = freePort();
+        context = new SpringApplicationBuilder(CodeyzerP2PApplication.class).run(
+                "--server.port=0",
+                "--file-share.netty.enabled=" + (transport == Transport.NETTY),
+                "--file-share.netty.port=" + nettyPort,
+                // Netty katmanı özet hesaplamaz; Tomcat da hesaplamasın
+                "--file-share.digest-algorithm=none",
+                "--logging.level.root=warn",
+                "--logging.level.com.codeyzer.p2p=warn");
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        RelayClient control = new RelayClient(port, HttpClient.Version.HTTP_1_1);
+        relay = transport == Transport.NETTY ? new RelayClient(nettyPort, HttpClient.Version.HTTP_1_1) : control;
+        owner = new StompOwner(port, context.getBean(SimpMessagingTemplate.class), relay);
+        readers = Executors.newFixedThreadPool(downloads);
+
+        byte[] content = new byte[fileSize];
+        new Random(43).nextBytes(content);
+        for (int i = 0; i < downloads; i++) {
+            ShareResponseDTO share = control.share("aktarim-" + i + ".bin", fileSize);
+            owner.serve(share, content);
+            shares.add(share);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        owner.close();
+        readers.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public long relay(Throughput throughput) throws Exception {
+        long start = System.nanoTime();
+        List<CompletableFuture<Long>> received = new ArrayList<>();
+        for (ShareResponseDTO share : shares) {
+            received.add(relay.downloadStream(share.getShareHash())
+                    .thenApplyAsync(RelayTransportBenchmark::drain, readers));
+        }
+        long bytes = 0;
+        for (CompletableFuture<Long> download : received) {
+            long length = download.get(120, TimeUnit.SECONDS);
+            if (length != fileSize) {
+                throw new IllegalStateException("İndirme eksik: " + length);
+            }
+            bytes += length;
+        }
+        throughput.megabytesPerSecond = bytes * 1e9 / (System.nanoTime() - start) / (1024 * 1024);
+        return bytes;
+    }
+
+    private static long drain(HttpResponse<InputStream> response) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("İndirme başarısız: " + response.statusCode());
+        }
+        try (InputStream in = response.body()) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Throughput {
+        public double megabytesPerSecond;
+    }
+}
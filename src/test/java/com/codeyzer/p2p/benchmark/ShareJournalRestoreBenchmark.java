@@ -0,0 +1,87 @@
+package com.codeyzer.p2p.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codeyzer.p2p.config.FileShareProperties;
+import com.codeyzer.p2p.dto.FileShareWrapper;
+import com.codeyzer.p2p.service.ShareRegistry;
+import com.codeyzer.p2p.service.persistence.ShareJournal;
+
+/**
+ * Paylaşım kaydının anlık görüntüden geri yüklenme süresini ölçer. Görüntü deneme başında bir kez
+ * yazılır; her işlem boş bir kayda görüntüyü ve görüntüden sonra açılan boş günlükleri okur. İşlem
+ * sonundaki kapanış görüntüyü yeniden yazar ve açılan günlüğü siler; bu süre ölçüme girmez.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms3g", "-Xmx3g" })
+@State(Scope.Benchmark)
+public class ShareJournalRestoreBenchmark {
+
+    @Param("1000000")
+    private int shares;
+
+    private Path directory;
+    private FileShareProperties.PersistenceProperties settings;
+    private ShareJournal journal;
+
+    @Setup(Level.Trial)
+    public void writeSnapshot() throws IOException {
+        directory = Files.createTempDirectory("share-journal");
+        settings = new FileShareProperties.PersistenceProperties();
+        settings.setDirectory(directory.toString());
+
+        ShareRegistry registry = new ShareRegistry(shares);
+        ShareJournal writer = new ShareJournal(settings);
+        writer.restore(registry);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < shares; i++) {
+            String hash = UUID.randomUUID().toString().substring(0, 8) + i;
+            registry.register(hash, new FileShareWrapper("ornek-" + i + ".bin", 1024L * i, now, UUID.randomUUID()));
+        }
+        writer.close();
+    }
+
+    @Benchmark
+    public int restore() throws IOException {
+        journal = new ShareJournal(settings);
+        return journal.restore(new ShareRegistry(shares));
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeJournal() {
+        journal.close();
+        journal = null;
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.codeyzer.p2p.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codeyzer.p2p.dto.FileShareWrapper;
+import com.codeyzer.p2p.service.ShareRegistry;
+
+/**
+ * Boşta paylaşım başına heap kullanımını ve kayıt süresini ölçer. Her yinelemede kayıt sıfırdan
+ * doldurulur; yineleme sonunda kaydın tuttuğu heap paylaşım sayısına bölünerek bytesPerShare olarak
+ * raporlanır. Hash'ler ve dosya adı önceden oluşturulduğundan ölçüme girmez; kayıt düğümü ve tablo
+ * dahildir. JMH bu sayacı tabloda yinelemeler üzerinden toplar; paylaşım başına değer yineleme
+ * satırlarında ve "Secondary result" ortalamasındadır.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xms3g", "-Xmx3g", "-XX:+UseSerialGC" })
+@State(Scope.Benchmark)
+public class ShareRegistryBenchmark {
+
+    private static final String FILENAME = "ornek.bin";
+
+    @Param("1000000")
+    private int shares;
+
+    private String[] hashes;
+    private ShareRegistry registry;
+
+    @Setup(Level.Trial)
+    public void createHashes() {
+        hashes = new String[shares];
+        for (int i = 0; i < shares; i++) {
+            hashes[i] = UUID.randomUUID().toString().substring(0, 8) + i;
+        }
+    }
+
+    @Benchmark
+    public void registerIdleShares(Footprint footprint) {
+        long now = System.currentTimeMillis();
+        ShareRegistry created = new ShareRegistry(shares);
+        for (String hash : hashes) {
+            created.register(hash, new FileShareWrapper(FILENAME, 1024, now, UUID.randomUUID()));
+        }
+        registry = created;
+    }
+
+    /**
+     * Yineleme sonunda kayıt tutulurken ve bırakıldıktan sonra tam GC sonrası heap kullanımını okur;
+     * iki okuma art arda yapıldığından ölçüm altyapısının yinelemeler arasındaki tahsisleri farka girmez
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+
+        public long bytesPerShare;
+
+        @TearDown(Level.Iteration)
+        public void measure(ShareRegistryBenchmark benchmark) {
+            long retained = usedHeapAfterGc();
+            benchmark.registry = null;
+            bytesPerShare = (retained - usedHeapAfterGc()) / benchmark.shares;
+        }
+
+        private static long usedHeapAfterGc() {
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            for (int i = 0; i < 3; i++) {
+                System.gc();
+            }
+            return memory.getHeapMemoryUsage().getUsed();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.codeyzer.p2p.benchmark;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import com.codeyzer.p2p.config.WebSocketConfig;
+import com.codeyzer.p2p.support.RelayClient;
+
+/**
+ * Sürecin başlatılmasından ilk /file/share yanıtına ve ilk STOMP bağlantısının kabulüne kadar geçen
+ * süreyi ölçer. {@code aot} profilinin ürettiği target/cds/application.jar her işlemde ayrı bir JVM'de
+ * açılır; PLAIN bu JAR'ı ek bayrak olmadan, AOT_CDS ise AOT bağlamı ve AppCDS arşiviyle başlatır. İki
+ * hazırlık ayrı iş parçacıklarından yoklanır; birincil sonuç ikisinin de hazır olduğu andır, ayrı
+ * süreler firstShareMillis ve websocketReadyMillis sayaçlarındadır. JMH bu sayaçları tabloda yinelemeler
+ * üzerinden toplar; işlem başına değerler yineleme satırlarındadır. Önce arşiv üretilmelidir:
+ * {@code mvn -Paot package}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private static final Path CDS_DIRECTORY = Path.of("target", "cds");
+    private static final long POLL_INTERVAL_MILLIS = 10;
+    private static final long TIMEOUT_MILLIS = 120_000;
+
+    public enum Launch { PLAIN, AOT_CDS }
+
+    @Param({ "PLAIN", "AOT_CDS" })
+    private Launch launch;
+
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void checkArchive() {
+        if (!Files.exists(CDS_DIRECTORY.resolve("application.jsa"))) {
+            throw new IllegalStateException("AppCDS arşivi yok; önce 'mvn -Paot package' çalıştırılmalı");
+        }
+    }
+
+    @Benchmark
+    public void startUntilReady(Readiness readiness) throws Exception {
+        int port = freePort();
+        long start = System.nanoTime();
+        process = new ProcessBuilder(command(port))
+                .directory(CDS_DIRECTORY.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        RelayClient client = new RelayClient(port, HttpClient.Version.HTTP_1_1);
+        CompletableFuture<Long> firstShare = pollUntilReady(start, () -> client.share("ilk.bin", 1));
+        CompletableFuture<Long> websocket = pollUntilReady(start, () -> connectStomp(port));
+        readiness.firstShareMillis = firstShare.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        readiness.websocketReadyMillis = websocket.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopProcess() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    private List<String> command(int port) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (launch == Launch.AOT_CDS) {
+            command.add("-XX:SharedArchiveFile=application.jsa");
+            command.add("-Dspring.aot.enabled=true");
+        }
+        command.add("-jar");
+        command.add("application.jar");
+        command.add("--server.port=" + port);
+        command.add("--logging.level.root=warn");
+        command.add("--logging.level.com.codeyzer.p2p=warn");
+        return command;
+    }
+
+    /**
+     * İşlem başarılı olana kadar tekrar dener ve başlangıçtan o ana kadar geçen süreyi döndürür.
+     * Süreç erken çıkarsa bekleme sonlandırılır.
+     */
+    private CompletableFuture<Long> pollUntilReady(long start, Callable<?> probe) {
+        return CompletableFuture.supplyAsync(() -> {
+            while (true) {
+                try {
+                    probe.call();
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                } catch (Exception e) {
+                    if (!process.isAlive()) {
+                        throw new IllegalStateException("Uygulama açılışta çıktı: " + process.exitValue());
+                    }
+                }
+                try {
+                    Thread.sleep(POLL_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+
+    private static StompSession connectStomp(int port) throws Exception {
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        try {
+            StompSession session = stompClient.connectAsync("ws://localhost:" + port + WebSocketConfig.NATIVE_ENDPOINT,
+                    new StompSessionHandlerAdapter() { }).get(5, TimeUnit.SECONDS);
+            session.disconnect();
+            return session;
+        } finally {
+            stompClient.stop();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Readiness {
+        public long firstShareMillis;
+        public long websocketReadyMillis;
+    }
+}
@@ -0,0 +1,121 @@
+package com.codeyzer.p2p.benchmark;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.codeyzer.p2p.CodeyzerP2PApplication;
+import com.codeyzer.p2p.dto.ShareResponseDTO;
+import com.codeyzer.p2p.support.RelayClient;
+import com.codeyzer.p2p.support.StompOwner;
+
+/**
+ * İndirmenin ilk byte'ına kadar geçen süreyi (TTFB) iki sahip davranışıyla ölçer. NOTIFY'da sahip STOMP
+ * bildirimini alınca yükleme bağlantısını açar; SLOT'ta sahip yuvayı indirmeden önce açmıştır ve
+ * bildirim gidiş dönüşü ile yeni bağlantı kurulumu aradan çıkar. İşlem, indirme isteğinin gönderilmesinden
+ * gövdenin ilk byte'ının okunmasına kadardır; gövdenin kalanı ölçüm dışında okunur. Yuva, ölçülmeyen
+ * çağrı hazırlığında açılır ve beklemeye geçmesi beklenir.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UploadSlotTtfbBenchmark {
+
+    public enum Owner { NOTIFY, SLOT }
+
+    @Param({ "NOTIFY", "SLOT" })
+    private Owner owner;
+
+    @Param("65536")
+    private int fileSize;
+
+    private ConfigurableApplicationContext context;
+    private RelayClient client;
+    private StompOwner stompOwner;
+    private ShareResponseDTO share;
+    private byte[] content;
+    private CompletableFuture<HttpResponse<Void>> slot;
+    private InputStream body;
+
+    @Setup(Level.Trial)
+    public void startServer() throws Exception {
+        context = new SpringApplicationBuilder(CodeyzerP2PApplication.class).run(
+                "--server.port=0",
+                "--file-share.digest-algorithm=none",
+                "--logging.level.root=warn",
+                "--logging.level.com.codeyzer.p2p=warn");
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        client = new RelayClient(port, HttpClient.Version.HTTP_1_1);
+        content = new byte[fileSize];
+        new Random(44).nextBytes(content);
+        share = client.share("ttfb.bin", fileSize);
+        if (owner == Owner.NOTIFY) {
+            stompOwner = new StompOwner(port, context.getBean(SimpMessagingTemplate.class), client);
+            stompOwner.serve(share, content);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        if (stompOwner != null) {
+            stompOwner.close();
+        }
+        context.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void parkSlot() throws Exception {
+        if (owner == Owner.SLOT) {
+            slot = client.parkSlot(share, content);
+            client.awaitParkedSlots(share.getShareHash(), 1);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void finishDownload() throws Exception {
+        long rest = body.transferTo(OutputStream.nullOutputStream());
+        body.close();
+        if (rest != fileSize - 1) {
+            throw new IllegalStateException("İndirme eksik: " + (rest + 1));
+        }
+        if (slot != null) {
+            slot.get(10, TimeUnit.SECONDS);
+            slot = null;
+        }
+    }
+
+    @Benchmark
+    public int firstByte() throws Exception {
+        HttpResponse<InputStream> response = client.downloadStream(share.getShareHash()).get(10, TimeUnit.SECONDS);
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("İndirme başarısız: " + response.statusCode());
+        }
+        body = response.body();
+        return body.read();
+    }
+}
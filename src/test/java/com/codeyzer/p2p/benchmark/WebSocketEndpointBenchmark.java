@@ -0,0 +1,183 @@
+package com.codeyzer.p2p.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.WebSocketClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.RestTemplateXhrTransport;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+
+import com.codeyzer.p2p.CodeyzerP2PApplication;
+import com.codeyzer.p2p.config.WebSocketConfig;
+
+/**
+ * Yerel WebSocket ucu ile SockJS yedeğini (xhr-streaming) aynı yük altında karşılaştırır. Oturumlar
+ * aynı konuya abone olur; her işlem art arda yayınlanan mesajların tüm oturumlara ulaşmasıdır ve
+ * saniyede teslim edilen mesaj sayısı messagesPerSecond olarak raporlanır. Oturumlar açılmadan önce ve
+ * açıldıktan sonra tam GC sonrası heap farkı oturum sayısına bölünerek bytesPerSession olarak
+ * raporlanır; istemci ve sunucu aynı JVM'de çalıştığından değer iki tarafı birlikte içerir. JMH bu
+ * sayaçları tabloda yinelemeler üzerinden toplar; yineleme başına değerler yineleme satırlarındadır.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class WebSocketEndpointBenchmark {
+
+    private static final int SESSIONS = 200;
+    private static final String TOPIC = "/topic/yuk";
+
+    public enum Endpoint { NATIVE, SOCKJS }
+
+    @Param({ "NATIVE", "SOCKJS" })
+    private Endpoint endpoint;
+
+    @Param("500")
+    private int broadcasts;
+
+    private ConfigurableApplicationContext context;
+    private SimpMessagingTemplate template;
+    private WebSocketStompClient stompClient;
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    // Her oturum bu işlemin bir sıra numarasını ilk aldığında bir izin bırakır
+    private final Semaphore delivered = new Semaphore(0);
+    private long sequence;
+    private volatile long firstSequence;
+    private long bytesPerSession;
+
+    @Setup(Level.Trial)
+    public void connectSessions() throws Exception {
+        context = new SpringApplicationBuilder(CodeyzerP2PApplication.class).run(
+                "--server.port=0",
+                "--logging.level.root=warn",
+                "--logging.level.com.codeyzer.p2p=warn");
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        template = context.getBean(SimpMessagingTemplate.class);
+
+        WebSocketClient transport = endpoint == Endpoint.NATIVE
+                ? new StandardWebSocketClient()
+                : new SockJsClient(List.of(new RestTemplateXhrTransport()));
+        String path = endpoint == Endpoint.NATIVE ? WebSocketConfig.NATIVE_ENDPOINT : WebSocketConfig.SOCKJS_ENDPOINT;
+        stompClient = new WebSocketStompClient(transport);
+        stompClient.setMessageConverter(new StringMessageConverter());
+
+        long before = usedHeapAfterGc();
+        for (int i = 0; i < SESSIONS; i++) {
+            Subscriber subscriber = new Subscriber(this);
+            subscriber.session = stompClient.connectAsync("ws://localhost:" + port + path,
+                    new StompSessionHandlerAdapter() { }).get(30, TimeUnit.SECONDS);
+            subscriber.session.subscribe(TOPIC, subscriber);
+            subscribers.add(subscriber);
+        }
+        // Aboneliklerin hepsi kaydedilene kadar yayın yapılır
+        firstSequence = 1;
+        while (!subscribers.stream().allMatch(subscriber -> !subscriber.seen.isEmpty())) {
+            publish();
+            Thread.sleep(10);
+        }
+        bytesPerSession = (usedHeapAfterGc() - before) / SESSIONS;
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        subscribers.forEach(subscriber -> subscriber.session.disconnect());
+        stompClient.stop();
+        context.close();
+    }
+
+    @Benchmark
+    public long broadcast(Delivery delivery) throws InterruptedException {
+        // Önceki işlemlerin geç gelen kopyaları sayılmaz; broker aynı aboneliği iki kez kaydedebilir
+        delivered.drainPermits();
+        subscribers.forEach(subscriber -> subscriber.seen.clear());
+        firstSequence = sequence + 1;
+        long start = System.nanoTime();
+        for (int i = 0; i < broadcasts; i++) {
+            publish();
+        }
+        if (!delivered.tryAcquire(SESSIONS * broadcasts, 60, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Yayınlar tüm oturumlara ulaşmadı");
+        }
+        long messages = (long) SESSIONS * broadcasts;
+        delivery.messagesPerSecond = messages * 1e9 / (System.nanoTime() - start);
+        delivery.bytesPerSession = bytesPerSession;
+        return messages;
+    }
+
+    private long publish() {
+        long current = ++sequence;
+        template.convertAndSend(TOPIC, Long.toString(current));
+        return current;
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static final class Subscriber implements StompFrameHandler {
+        // Dış kanal mesajları birden çok iş parçacığıyla ilettiğinden sıra korunmaz
+        private final Set<Long> seen = ConcurrentHashMap.newKeySet();
+        private final WebSocketEndpointBenchmark benchmark;
+        private StompSession session;
+
+        private Subscriber(WebSocketEndpointBenchmark benchmark) {
+            this.benchmark = benchmark;
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return String.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            long received = Long.parseLong(((String) payload).replace("\"", ""));
+            if (received >= benchmark.firstSequence && seen.add(received)) {
+                benchmark.delivered.release();
+            }
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Delivery {
+        public double messagesPerSecond;
+        public long bytesPerSession;
+    }
+}
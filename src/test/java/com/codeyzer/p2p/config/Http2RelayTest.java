@@ -0,0 +1,120 @@
+package com.codeyzer.p2p.config;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import com.codeyzer.p2p.dto.ShareResponseDTO;
+import com.codeyzer.p2p.support.RelayClient;
+
+/**
+ * Aktarımın h2c üzerinden, tek bağlantıda çoğullanmış ve küçük akış kontrolü pencereleriyle doğru
+ * çalıştığını dener. JDK 17'nin HTTP istemcisi HTTP/2 trailer'larını okuyamadığından özet trailer'ı kapatılır.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.http2.enabled=true",
+        "file-share.digest-algorithm=none",
+        "file-share.http2.initial-window-size=65535",
+        "file-share.http2.max-concurrent-stream-execution=50"
+})
+class Http2RelayTest {
+
+    private static final int UPLOADS = 8;
+    private static final int FILE_SIZE = 2 * 1024 * 1024;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    private RelayClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        client = new RelayClient(port, HttpClient.Version.HTTP_2);
+        // İlk istek bağlantıyı h2c'ye yükseltir; sonraki istekler aynı bağlantıda çoğullanır
+        HttpResponse<String> upgraded = client.get("/file/stats/global");
+        assertEquals(HttpClient.Version.HTTP_2, upgraded.version());
+    }
+
+    @Test
+    void appliesFlowControlSettingsToTheConnector() {
+        Http2Protocol http2 = http2Protocol();
+        assertEquals(65535, http2.getInitialWindowSize());
+        assertEquals(50, http2.getMaxConcurrentStreamExecution());
+        // Bağlantı penceresi tüm stream pencerelerini karşılar
+        assertEquals(65535 * 200, ((Http2Config.ConnectionWindowHttp2Protocol) http2).getConnectionWindowSize());
+    }
+
+    /**
+     * Yuvalar içeriği gövdede taşır ve bir indirme alana kadar okunmaz; okunmayan gövdeler bağlantının
+     * diğer isteklerini durdurmamalıdır
+     */
+    @Test
+    void relaysConcurrentUploadsMultiplexedOverOneConnection() throws Exception {
+        AbstractProtocol<?> protocol = (AbstractProtocol<?>) connector().getProtocolHandler();
+        long connectionsBefore = protocol.getConnectionCount();
+        Random random = new Random(28);
+        List<byte[]> contents = new ArrayList<>();
+        List<ShareResponseDTO> shares = new ArrayList<>();
+        List<CompletableFuture<HttpResponse<Void>>> uploads = new ArrayList<>();
+        for (int i = 0; i < UPLOADS; i++) {
+            byte[] content = new byte[FILE_SIZE];
+            random.nextBytes(content);
+            ShareResponseDTO share = client.share("dosya-" + i + ".bin", FILE_SIZE);
+            contents.add(content);
+            shares.add(share);
+            uploads.add(client.parkSlot(share, content));
+        }
+        List<CompletableFuture<HttpResponse<byte[]>>> downloads = new ArrayList<>();
+        for (ShareResponseDTO share : shares) {
+            client.awaitParkedSlots(share.getShareHash(), 1);
+            downloads.add(client.download(share.getShareHash()));
+        }
+
+        for (int i = 0; i < UPLOADS; i++) {
+            HttpResponse<byte[]> download = downloads.get(i).get(30, TimeUnit.SECONDS);
+            assertEquals(200, download.statusCode());
+            assertEquals(HttpClient.Version.HTTP_2, download.version());
+            assertArrayEquals(contents.get(i), download.body());
+            HttpResponse<Void> upload = uploads.get(i).get(30, TimeUnit.SECONDS);
+            assertEquals(200, upload.statusCode());
+            assertEquals(HttpClient.Version.HTTP_2, upload.version());
+        }
+        // Tüm yüklemeler ve indirmeler kurulumdaki yükseltilmiş bağlantıda çoğullanmıştır
+        assertEquals(connectionsBefore, protocol.getConnectionCount());
+    }
+
+    private Connector connector() {
+        return ((TomcatWebServer) context.getWebServer()).getTomcat().getConnector();
+    }
+
+    private Http2Protocol http2Protocol() {
+        for (UpgradeProtocol upgradeProtocol : connector().findUpgradeProtocols()) {
+            if (upgradeProtocol instanceof Http2Protocol http2Protocol) {
+                return http2Protocol;
+            }
+        }
+        throw new AssertionError("Bağlantıda HTTP/2 yok");
+    }
+}
@@ -0,0 +1,241 @@
+package com.codeyzer.p2p.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+/**
+ * Yerel WebSocket ucunun taşıma sınırlarını ham soket üzerinden dener. Yavaş istemci soketten hiç
+ * okumayan bir aboneyle taklit edilir; sunucunun gönderimi çekirdek tamponları dolunca takılır ve
+ * arkasında biriken mesajlar gönderim tamponu sınırını aşar.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "file-share.websocket.send-buffer-size-limit=65536",
+        "file-share.websocket.send-time-limit-ms=60000"
+})
+class WebSocketTransportTest {
+
+    private static final String TOPIC = "/topic/yavas";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private SimpMessagingTemplate template;
+
+    @Autowired
+    private SubProtocolWebSocketHandler webSocketHandler;
+
+    @Autowired
+    private FileShareProperties fileShareProperties;
+
+    private RawStompSocket socket;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (socket != null) {
+            socket.close();
+        }
+    }
+
+    @Test
+    void dropsSubscriberThatStopsReadingOnceSendBufferLimitIsExceeded() throws Exception {
+        socket = RawStompSocket.connect(port);
+        socket.send("SUBSCRIBE\nid:0\ndestination:" + TOPIC + "\n\n");
+        // Abonelik kaydedilene kadar deneme mesajı yayınlanır; ilk teslimden sonra soket okunmaz
+        while (!socket.poll(100).contains(TOPIC)) {
+            template.convertAndSend(TOPIC, "deneme");
+        }
+
+        int limitExceeded = webSocketHandler.getStats().getLimitExceededSessions();
+        String payload = "x".repeat(8 * 1024);
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (webSocketHandler.getStats().getLimitExceededSessions() == limitExceeded) {
+            assertTrue(System.currentTimeMillis() < deadline, "Yavaş abone düşürülmedi");
+            for (int i = 0; i < 100; i++) {
+                template.convertAndSend(TOPIC, payload);
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void closesSessionThatSendsMessageBeyondSizeLimit() throws Exception {
+        socket = RawStompSocket.connect(port);
+        int limit = fileShareProperties.getWebsocket().getMessageSizeLimit();
+
+        socket.send("SEND\ndestination:/app/yok\n\n" + "x".repeat(limit + 1));
+
+        // Sınırı Tomcat tamponundan önce STOMP çözücüsü uygular: ERROR çerçevesi ve protokol hatasıyla kapanış
+        String error = socket.poll(10_000);
+        assertTrue(error.startsWith("ERROR"), error);
+        assertTrue(error.contains(String.valueOf(limit)), error);
+        assertEquals(CloseStatus.PROTOCOL_ERROR.getCode(), socket.awaitCloseCode());
+    }
+
+    @Test
+    void keepsSockJsFallbackNextToNativeEndpoint() {
+        ResponseEntity<String> info = restTemplate.getForEntity(WebSocketConfig.SOCKJS_ENDPOINT + "/info", String.class);
+
+        assertEquals(200, info.getStatusCode().value());
+        assertTrue(info.getBody().contains("\"websocket\":true"));
+    }
+
+    /**
+     * El sıkışmayı ve çerçeveleri elle yazan en küçük WebSocket STOMP istemcisi; okuma yalnızca
+     * istendiğinde yapılır
+     */
+    private static final class RawStompSocket {
+        private static final int OPCODE_TEXT = 0x1;
+        private static final int OPCODE_CLOSE = 0x8;
+
+        private final Socket socket;
+        private final DataInputStream in;
+        private final OutputStream out;
+
+        private RawStompSocket(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = socket.getOutputStream();
+        }
+
+        static RawStompSocket connect(int port) throws IOException {
+            Socket socket = new Socket();
+            // Küçük alma tamponu sunucunun takılmasını öne çeker
+            socket.setReceiveBufferSize(4096);
+            socket.connect(new InetSocketAddress("localhost", port));
+            socket.setSoTimeout(10_000);
+            RawStompSocket stomp = new RawStompSocket(socket);
+            byte[] nonce = new byte[16];
+            new Random().nextBytes(nonce);
+            String key = Base64.getEncoder().encodeToString(nonce);
+            stomp.out.write(("GET " + WebSocketConfig.NATIVE_ENDPOINT + " HTTP/1.1\r\n"
+                    + "Host: localhost:" + port + "\r\n"
+                    + "Upgrade: websocket\r\nConnection: Upgrade\r\n"
+                    + "Sec-WebSocket-Key: " + key + "\r\n"
+                    + "Sec-WebSocket-Version: 13\r\n"
+                    + "Sec-WebSocket-Protocol: v12.stomp\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            String status = stomp.readLine();
+            if (!status.contains(" 101 ")) {
+                throw new IOException("El sıkışma reddedildi: " + status);
+            }
+            while (!stomp.readLine().isEmpty()) {
+                // Yanıt başlıkları
+            }
+            stomp.send("CONNECT\naccept-version:1.2\nhost:localhost\n\n");
+            String connected = stomp.poll(10_000);
+            if (!connected.startsWith("CONNECTED")) {
+                throw new IOException("STOMP bağlantısı kurulamadı: " + connected);
+            }
+            return stomp;
+        }
+
+        /**
+         * STOMP çerçevesini maskeli bir metin çerçevesi olarak gönderir
+         */
+        void send(String frame) throws IOException {
+            byte[] payload = (frame + "\0").getBytes(StandardCharsets.UTF_8);
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            header.write(0x80 | OPCODE_TEXT);
+            if (payload.length < 126) {
+                header.write(0x80 | payload.length);
+            } else if (payload.length <= 0xFFFF) {
+                header.write(0x80 | 126);
+                header.write(payload.length >>> 8);
+                header.write(payload.length);
+            } else {
+                header.write(0x80 | 127);
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    header.write((int) ((long) payload.length >>> shift));
+                }
+            }
+            // Maske sıfır; maskelenmiş içerik değişmeden kalır
+            header.write(new byte[4]);
+            out.write(header.toByteArray());
+            out.write(payload);
+            out.flush();
+        }
+
+        /**
+         * Sıradaki metin çerçevesini okur; süre içinde gelmezse boş döner
+         */
+        String poll(int timeoutMillis) throws IOException {
+            socket.setSoTimeout(timeoutMillis);
+            try {
+                Frame frame = readFrame();
+                return frame.opcode == OPCODE_TEXT ? new String(frame.payload, StandardCharsets.UTF_8) : "";
+            } catch (SocketTimeoutException e) {
+                return "";
+            } finally {
+                socket.setSoTimeout(10_000);
+            }
+        }
+
+        int awaitCloseCode() throws IOException {
+            Frame frame;
+            while ((frame = readFrame()).opcode != OPCODE_CLOSE) {
+                // Kapanıştan önceki çerçeveler atlanır
+            }
+            return ((frame.payload[0] & 0xFF) << 8) | (frame.payload[1] & 0xFF);
+        }
+
+        private Frame readFrame() throws IOException {
+            int opcode = in.readUnsignedByte() & 0x0F;
+            long length = in.readUnsignedByte() & 0x7F;
+            if (length == 126) {
+                length = in.readUnsignedShort();
+            } else if (length == 127) {
+                length = in.readLong();
+            }
+            byte[] payload = new byte[(int) length];
+            in.readFully(payload);
+            return new Frame(opcode, payload);
+        }
+
+        private String readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) {
+                    throw new IOException("Bağlantı kapandı");
+                }
+                if (b != '\r') {
+                    line.write(b);
+                }
+            }
+            return line.toString(StandardCharsets.US_ASCII);
+        }
+
+        void close() throws IOException {
+            socket.close();
+        }
+
+        private record Frame(int opcode, byte[] payload) {
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.codeyzer.p2p.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Sıkıştırılmış paylaşım kaydının sahip tokenı, stream tablosu ve grup kalp atışı davranışını dener
+ */
+class FileShareWrapperTest {
+
+    @Test
+    void matchesOnlyTheOwnerToken() {
+        UUID token = UUID.randomUUID();
+        FileShareWrapper share = new FileShareWrapper("rapor.pdf", 42, 1000, token);
+
+        assertEquals(token.toString(), share.getOwnerToken());
+        assertTrue(share.isOwner(token.toString()));
+        assertFalse(share.isOwner(UUID.randomUUID().toString()));
+        assertFalse(share.isOwner("token-degil"));
+        assertFalse(share.isOwner(null));
+    }
+
+    @Test
+    void derivesInfoFromFilename() {
+        FileShareWrapper share = new FileShareWrapper("arsiv.tar.gz", 42, 1000, UUID.randomUUID());
+        assertEquals("gz", share.getInfo().getFileType());
+        assertEquals(42, share.getSize());
+
+        assertEquals("unknown", new FileShareWrapper("README", 1, 1000, UUID.randomUUID()).getInfo().getFileType());
+        assertEquals("unknown", new FileShareWrapper("nokta.", 1, 1000, UUID.randomUUID()).getInfo().getFileType());
+    }
+
+    @Test
+    void replacesInfoWhenContentDigestChanges() {
+        FileShareWrapper share = new FileShareWrapper("a.bin", 42, 1000, UUID.randomUUID());
+        FileInfoDTO before = share.getInfo();
+
+        share.setContentDigest(null);
+        assertSame(before, share.getInfo());
+
+        share.setContentDigest("sha-256=abcd");
+        assertEquals("sha-256=abcd", share.getContentDigest());
+        assertNull(before.getContentDigest());
+    }
+
+    @Test
+    void growsAndShrinksStreamTable() {
+        FileShareWrapper share = new FileShareWrapper("a.bin", 42, 1000, UUID.randomUUID());
+        assertEquals(List.of(), share.getStreams());
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(share.addStream(stream("s" + i)));
+        }
+        assertFalse(share.addStream(stream("s3")));
+        assertEquals(5, share.getActiveStreamCount());
+
+        assertEquals("s1", share.removeStream("s1").getStreamHash());
+        assertNull(share.removeStream("s1"));
+        assertNull(share.getStream("s1"));
+        assertEquals("s4", share.getStream("s4").getStreamHash());
+
+        Set<String> remaining = new HashSet<>();
+        share.getStreams().forEach(stream -> remaining.add(stream.getStreamHash()));
+        assertEquals(Set.of("s0", "s2", "s3", "s4"), remaining);
+
+        remaining.forEach(share::removeStream);
+        assertEquals(0, share.getActiveStreamCount());
+        assertTrue(share.addStream(stream("s5")));
+    }
+
+    @Test
+    void groupedSharesShareTheHeartbeat() {
+        ShareGroup group = new ShareGroup(1000);
+        FileShareWrapper first = new FileShareWrapper("a.bin", 1, 1000, UUID.randomUUID(), group);
+        FileShareWrapper second = new FileShareWrapper("b.bin", 1, 1000, UUID.randomUUID(), group);
+
+        first.setLastHeartbeatTimestamp(5000);
+
+        assertTrue(second.isGrouped());
+        assertEquals(5000, second.getLastHeartbeatTimestamp());
+    }
+
+    private static FileStreamWrapper stream(String streamHash) {
+        return FileStreamWrapper.builder().streamHash(streamHash).build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.codeyzer.p2p.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Stream'in yükleme bağlama, devralma, askıya alma ve süre dolumu davranışını dener
+ */
+class FileStreamWrapperTest {
+
+    private final FileStreamWrapper stream = FileStreamWrapper.builder()
+            .streamHash("s1")
+            .latch(new CountDownLatch(1))
+            .build();
+
+    @Test
+    void refusesSecondUploadUnlessItTakesOver() {
+        assertEquals(1, stream.attachUpload(false));
+        assertEquals(-1, stream.attachUpload(false));
+        assertTrue(stream.isCurrentUpload(1));
+    }
+
+    @Test
+    void takeOverClosesStaleUploadAndLocksItOut() {
+        int stale = stream.attachUpload(false);
+        AtomicBoolean closed = new AtomicBoolean();
+        stream.setInputStream(new ByteArrayInputStream(new byte[0]) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        });
+
+        int current = stream.attachUpload(true);
+
+        assertEquals(stale + 1, current);
+        assertTrue(closed.get());
+        assertFalse(stream.isCurrentUpload(stale));
+        // Eski bağlantı koptuğunda stream'i askıya alamaz ve ayıramaz
+        assertFalse(stream.suspend(Long.MAX_VALUE, stale));
+        assertFalse(stream.detachUpload(stale));
+        assertEquals(FileStreamWrapper.STATUS_PENDING, stream.getStatus());
+        assertEquals(-1, stream.attachUpload(false));
+    }
+
+    @Test
+    void suspendedStreamAcceptsResumeUntilDeadline() {
+        int generation = stream.attachUpload(false);
+        assertTrue(stream.suspend(1000, generation));
+        assertEquals(FileStreamWrapper.STATUS_SUSPENDED, stream.getStatus());
+        assertFalse(stream.expireIfDue(1000));
+
+        int resumed = stream.attachUpload(false);
+        assertEquals(generation + 1, resumed);
+        assertEquals(FileStreamWrapper.STATUS_PENDING, stream.getStatus());
+        assertFalse(stream.expireIfDue(Long.MAX_VALUE));
+    }
+
+    @Test
+    void expiredSuspensionFailsTheStream() {
+        int generation = stream.attachUpload(false);
+        stream.suspend(1000, generation);
+
+        assertTrue(stream.expireIfDue(1001));
+        assertEquals(FileStreamWrapper.STATUS_FAILED, stream.getStatus());
+        assertEquals(-1, stream.attachUpload(true));
+    }
+
+    @Test
+    void pendingDeadlineAppliesOnlyUntilTheOwnerConnects() {
+        stream.setPendingDeadline(500);
+        assertFalse(stream.expireIfDue(500));
+        assertTrue(stream.expireIfDue(501));
+
+        FileStreamWrapper connected = FileStreamWrapper.builder().pendingDeadline(500).build();
+        connected.attachUpload(false);
+        assertEquals(0, connected.getPendingDeadline());
+        assertFalse(connected.expireIfDue(501));
+    }
+
+    @Test
+    void abortedStreamIsNotSuspended() {
+        int generation = stream.attachUpload(false);
+        stream.abort();
+
+        assertFalse(stream.suspend(Long.MAX_VALUE, generation));
+        assertEquals(FileStreamWrapper.STATUS_FAILED, stream.getStatus());
+        assertEquals(0, stream.getLatch().getCount());
+    }
+}
@@ -0,0 +1,197 @@
+package com.codeyzer.p2p.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import com.codeyzer.p2p.dto.ShareResponseDTO;
+import com.codeyzer.p2p.service.digest.StreamDigest;
+import com.codeyzer.p2p.support.RelayClient;
+
+/**
+ * İndirmenin özet trailer'ını HTTP/1.1 üzerinde ham soketle dener. JDK istemcisi trailer'ları
+ * okumadığından chunked gövde ve trailer burada ayrıştırılır. Yeniden bağlanma süresi kapatıldığından
+ * kopan yükleme indirmeyi hemen sonlandırır.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "file-share.digest-algorithm=xxhash64",
+        "file-share.resume-grace-period-seconds=0"
+})
+class DigestTrailerTest {
+
+    private static final int FILE_SIZE = 300_000;
+
+    @LocalServerPort
+    private int port;
+
+    private RelayClient client;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() {
+        client = new RelayClient(port, HttpClient.Version.HTTP_1_1);
+        content = new byte[FILE_SIZE];
+        new Random(33).nextBytes(content);
+    }
+
+    @Test
+    void sendsDigestOfDeliveredBytesAsTrailerWhenRequested() throws Exception {
+        ShareResponseDTO share = client.share("ozet.bin", FILE_SIZE);
+        client.parkSlot(share, content);
+        client.awaitParkedSlots(share.getShareHash(), 1);
+
+        RawResponse response = download(share, "TE: trailers");
+
+        assertEquals(200, response.status);
+        assertEquals("chunked", response.headers.get("transfer-encoding"));
+        assertNull(response.headers.get("content-length"));
+        assertTrue(response.complete);
+        assertArrayEquals(content, response.body);
+        assertEquals(expectedDigest(), response.trailers.get("x-content-digest"));
+    }
+
+    @Test
+    void keepsContentLengthWithoutTrailersForClientsThatDidNotAsk() throws Exception {
+        ShareResponseDTO share = client.share("duz.bin", FILE_SIZE);
+        client.parkSlot(share, content);
+        client.awaitParkedSlots(share.getShareHash(), 1);
+
+        RawResponse response = download(share);
+
+        assertEquals(200, response.status);
+        assertEquals(String.valueOf(FILE_SIZE), response.headers.get("content-length"));
+        assertNull(response.headers.get("trailer"));
+        assertArrayEquals(content, response.body);
+    }
+
+    /**
+     * Sahip dosya bitmeden koparsa chunked yanıt sonlandırıcı yazılmadan kesilir; alıcı eksik gövdeyi
+     * tam sanmaz ve özet trailer'ı gönderilmez
+     */
+    @Test
+    void abortsChunkedResponseWithoutTerminatorWhenUploadDrops() throws Exception {
+        ShareResponseDTO share = client.share("kesik.bin", FILE_SIZE);
+        client.parkSlotWithBody(share, RelayClient.truncatedMultipart(content, FILE_SIZE / 3));
+        client.awaitParkedSlots(share.getShareHash(), 1);
+
+        RawResponse response = download(share, "TE: trailers");
+
+        assertEquals(200, response.status);
+        assertFalse(response.complete);
+        // Hata sayfası kesik gövdenin sonuna eklenmez
+        assertArrayEquals(Arrays.copyOf(content, response.body.length), response.body);
+        assertTrue(response.body.length <= FILE_SIZE / 3);
+        assertTrue(response.trailers.isEmpty());
+    }
+
+    private String expectedDigest() {
+        StreamDigest digest = StreamDigest.create(StreamDigest.XXHASH64);
+        digest.update(content, 0, content.length);
+        return digest.getValue();
+    }
+
+    private RawResponse download(ShareResponseDTO share, String... headers) throws IOException {
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(10_000);
+            StringBuilder request = new StringBuilder("GET /file/download/" + share.getShareHash() + " HTTP/1.1\r\n")
+                    .append("Host: localhost\r\n")
+                    .append("Connection: close\r\n");
+            for (String header : headers) {
+                request.append(header).append("\r\n");
+            }
+            OutputStream out = socket.getOutputStream();
+            out.write(request.append("\r\n").toString().getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            return RawResponse.read(new BufferedInputStream(socket.getInputStream()));
+        }
+    }
+
+    /**
+     * Ham HTTP/1.1 yanıtı; chunked gövde sonlandırıcıya ulaşmadan kesilirse complete false olur
+     */
+    private static final class RawResponse {
+        private int status;
+        private final Map<String, String> headers = new HashMap<>();
+        private final Map<String, String> trailers = new HashMap<>();
+        private byte[] body;
+        private boolean complete;
+
+        static RawResponse read(InputStream in) throws IOException {
+            RawResponse response = new RawResponse();
+            response.status = Integer.parseInt(readLine(in).split(" ")[1]);
+            readFields(in, response.headers);
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            String contentLength = response.headers.get("content-length");
+            try {
+                if ("chunked".equals(response.headers.get("transfer-encoding"))) {
+                    int size;
+                    while ((size = Integer.parseInt(readLine(in).split(";")[0].trim(), 16)) > 0) {
+                        body.write(readExactly(in, size));
+                        readLine(in);
+                    }
+                    readFields(in, response.trailers);
+                } else if (contentLength != null) {
+                    body.write(readExactly(in, Integer.parseInt(contentLength)));
+                }
+                response.complete = true;
+            } catch (EOFException | NumberFormatException e) {
+                response.complete = false;
+            }
+            response.body = body.toByteArray();
+            return response;
+        }
+
+        private static void readFields(InputStream in, Map<String, String> fields) throws IOException {
+            String line;
+            while (!(line = readLine(in)).isEmpty()) {
+                int colon = line.indexOf(':');
+                fields.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) {
+                    throw new EOFException();
+                }
+                if (b != '\r') {
+                    line.write(b);
+                }
+            }
+            return line.toString(StandardCharsets.US_ASCII);
+        }
+
+        private static byte[] readExactly(InputStream in, int size) throws IOException {
+            byte[] bytes = in.readNBytes(size);
+            if (bytes.length < size) {
+                throw new EOFException();
+            }
+            return bytes;
+        }
+    }
+}
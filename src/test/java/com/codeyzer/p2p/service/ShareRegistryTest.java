@@ -0,0 +1,80 @@
+package com.codeyzer.p2p.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.codeyzer.p2p.dto.FileShareWrapper;
+
+/**
+ * Paylaşım kaydının tekil kayıt, içerik özeti indeksi ve silme davranışını dener
+ */
+class ShareRegistryTest {
+
+    private final ShareRegistry registry = new ShareRegistry(16);
+
+    @Test
+    void keepsFirstShareWhenHashIsTaken() {
+        FileShareWrapper first = share("a.bin", null);
+        assertTrue(registry.register("hash", first));
+        assertFalse(registry.register("hash", share("b.bin", null)));
+
+        assertSame(first, registry.get("hash"));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void indexesSharesByContentHashUntilTheLastOneIsRemoved() {
+        registry.register("h1", share("a.bin", "sha256=ab"));
+        registry.register("h2", share("b.bin", "sha256=ab"));
+        registry.register("h3", share("c.bin", "sha256=cd"));
+
+        assertEquals(Set.of("h1", "h2"), Set.copyOf(registry.findByContentHash("sha256=ab")));
+        assertEquals(List.of("h3"), registry.findByContentHash("sha256=cd"));
+
+        registry.remove("h1");
+        assertEquals(List.of("h2"), registry.findByContentHash("sha256=ab"));
+        registry.remove("h2");
+        assertEquals(List.of(), registry.findByContentHash("sha256=ab"));
+        // Aynı özetle yeniden kayıt boşalıp silinen kümenin yerine yenisini açar
+        registry.register("h4", share("d.bin", "sha256=ab"));
+        assertEquals(List.of("h4"), registry.findByContentHash("sha256=ab"));
+    }
+
+    @Test
+    void removeReturnsTheShareOnlyOnce() {
+        FileShareWrapper share = share("a.bin", null);
+        registry.register("hash", share);
+
+        assertSame(share, registry.remove("hash"));
+        assertNull(registry.remove("hash"));
+        assertFalse(registry.contains("hash"));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void visitsEveryRegisteredShare() {
+        registry.register("h1", share("a.bin", null));
+        registry.register("h2", share("b.bin", null));
+
+        Map<String, String> visited = new HashMap<>();
+        registry.forEach((hash, share) -> visited.put(hash, share.getFilename()));
+
+        assertEquals(Map.of("h1", "a.bin", "h2", "b.bin"), visited);
+    }
+
+    private static FileShareWrapper share(String filename, String contentHash) {
+        return new FileShareWrapper(filename, 10, System.currentTimeMillis(), UUID.randomUUID(), null, null,
+                contentHash);
+    }
+}
@@ -0,0 +1,236 @@
+package com.codeyzer.p2p.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import com.codeyzer.p2p.config.WebSocketConfig;
+import com.codeyzer.p2p.dto.ShareRequestDTO;
+import com.codeyzer.p2p.dto.ShareResponseDTO;
+
+/**
+ * Sinyal protokolünü gerçek STOMP bağlantıları üzerinden iki yerel vekil eşle (indiren ve sahip) dener
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "file-share.signaling.enabled=true",
+        "file-share.signaling.max-sessions-per-ip=2"
+})
+class SignalingStandInPeerTest {
+
+    private static final long FILE_SIZE = 1234;
+    private static final String PROBE = "probe";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private SimpMessagingTemplate template;
+
+    private WebSocketStompClient stompClient;
+    private String shareHash;
+    private String ownerToken;
+    private StandInPeer owner;
+    private StandInPeer downloader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        ShareResponseDTO share = restTemplate.postForObject("/file/share",
+                ShareRequestDTO.builder().filename("ornek.bin").size(FILE_SIZE).build(), ShareResponseDTO.class);
+        shareHash = share.getShareHash();
+        ownerToken = share.getOwnerToken();
+
+        owner = connect();
+        owner.subscribe("/topic/" + shareHash);
+        downloader = connect();
+    }
+
+    @AfterEach
+    void tearDown() {
+        owner.session.disconnect();
+        downloader.session.disconnect();
+        stompClient.stop();
+    }
+
+    @Test
+    void relaysOfferAnswerAndCandidatesBetweenPeersAndRecordsDeclaredSize() throws Exception {
+        String sessionId = openSession();
+
+        downloader.session.send("/app/p2p/signal/answer", Map.of(
+                "sessionId", sessionId, "sdp", "sahte-cevap", "ownerToken", UUID.randomUUID().toString()));
+        owner.session.send("/app/p2p/signal/answer", Map.of(
+                "sessionId", sessionId, "sdp", "v=0 cevap", "ownerToken", ownerToken));
+        Map<String, Object> answer = downloader.next();
+        assertEquals("rtc-answer", answer.get("type"));
+        assertEquals("v=0 cevap", answer.get("sdp"));
+
+        downloader.session.send("/app/p2p/signal/candidate", Map.of(
+                "sessionId", sessionId, "candidate", Map.of("candidate", "indiren-aday")));
+        Map<String, Object> toOwner = owner.next();
+        assertEquals("rtc-candidate", toOwner.get("type"));
+        assertEquals(Map.of("candidate", "indiren-aday"), toOwner.get("candidate"));
+
+        owner.session.send("/app/p2p/signal/candidate", Map.of(
+                "sessionId", sessionId, "ownerToken", ownerToken, "candidate", Map.of("candidate", "sahip-aday")));
+        Map<String, Object> toDownloader = downloader.next();
+        assertEquals("rtc-candidate", toDownloader.get("type"));
+        assertEquals(Map.of("candidate", "sahip-aday"), toDownloader.get("candidate"));
+        // Geçersiz tokenla gönderilen cevap iletilmemiş olmalı
+        assertNull(downloader.messages.poll(200, TimeUnit.MILLISECONDS));
+
+        downloader.session.send("/app/p2p/signal/result", Map.of(
+                "sessionId", sessionId, "direct", true, "bytes", Long.MAX_VALUE));
+        Map<?, ?> stats = awaitStats(1);
+        assertEquals(FILE_SIZE, ((Number) stats.get("directBytesSaved")).longValue());
+    }
+
+    @Test
+    void rejectsOffersBeyondTheClientSessionCap() throws Exception {
+        String first = openSession();
+        openSession();
+
+        String sessionId = UUID.randomUUID().toString();
+        downloader.subscribe("/topic/signal/" + sessionId);
+        downloader.session.send("/app/p2p/signal/offer", Map.of(
+                "shareHash", shareHash, "sessionId", sessionId, "sdp", "v=0 teklif"));
+        Map<String, Object> rejected = downloader.next();
+        assertEquals("rtc-rejected", rejected.get("type"));
+        assertEquals(429, rejected.get("status"));
+        assertNull(owner.messages.poll(200, TimeUnit.MILLISECONDS));
+
+        // Sonucu bildirilen oturum sınırdan düşer
+        downloader.session.send("/app/p2p/signal/result", Map.of("sessionId", first, "direct", false));
+        awaitStats(0);
+        openSession();
+    }
+
+    /**
+     * İndiren taraf adına yeni bir oturum açar ve teklifin sahibe ulaştığını doğrular
+     */
+    private String openSession() throws Exception {
+        String sessionId = UUID.randomUUID().toString();
+        downloader.subscribe("/topic/signal/" + sessionId);
+        downloader.session.send("/app/p2p/signal/offer", Map.of(
+                "shareHash", shareHash, "sessionId", sessionId, "sdp", "v=0 teklif"));
+        Map<String, Object> offer = owner.next();
+        assertEquals("rtc-offer", offer.get("type"));
+        assertEquals(sessionId, offer.get("sessionId"));
+        assertEquals("v=0 teklif", offer.get("sdp"));
+        return sessionId;
+    }
+
+    /**
+     * Sonuç mesajı ayrı iş parçacığında işlendiğinden istatistik güncellenene kadar bekler
+     */
+    private Map<?, ?> awaitStats(int directTransfers) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            Map<?, ?> stats = restTemplate.getForObject("/file/stats/" + shareHash, Map.class);
+            Number direct = (Number) stats.get("directTransfers");
+            Number fallback = (Number) stats.get("fallbackTransfers");
+            if (direct != null && direct.intValue() == directTransfers
+                    && (directTransfers > 0 || (fallback != null && fallback.intValue() > 0))) {
+                return stats;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Sinyal sonucu kaydedilmedi: " + stats);
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private StandInPeer connect() throws Exception {
+        StompSession session = stompClient
+                .connectAsync("ws://localhost:" + port + WebSocketConfig.NATIVE_ENDPOINT, new StompSessionHandlerAdapter() {
+                })
+                .get(5, TimeUnit.SECONDS);
+        return new StandInPeer(session);
+    }
+
+    /**
+     * Gelen mesajları kuyrukta toplayan vekil eş
+     */
+    private final class StandInPeer {
+        private final StompSession session;
+        private final BlockingQueue<Map<String, Object>> messages = new LinkedBlockingQueue<>();
+        // Abonelik denemeleri ayrı tutulur; geç gelen bir deneme sinyal mesajı yerine okunmaz
+        private final BlockingQueue<Map<String, Object>> probes = new LinkedBlockingQueue<>();
+        // Deneme mesajı aracının hedef önbelleğini abonelik kaydıyla aynı anda doldurursa abonelik önbellekte
+        // iki kez yer alabilir ve konudaki her mesaj iki kopya gelir; aynı içerikli ikinci kopya yok sayılır
+        private final Set<Map<String, Object>> received = ConcurrentHashMap.newKeySet();
+
+        private StandInPeer(StompSession session) {
+            this.session = session;
+        }
+
+        /**
+         * Konuya abone olur ve aboneliğin aracıda etkin olduğunu bir deneme mesajıyla doğrular
+         */
+        void subscribe(String destination) throws InterruptedException {
+            session.subscribe(destination, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return Map.class;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    Map<String, Object> message = (Map<String, Object>) payload;
+                    if (PROBE.equals(message.get("type"))) {
+                        probes.add(message);
+                    } else if (received.add(message)) {
+                        messages.add(message);
+                    }
+                }
+            });
+            long deadline = System.currentTimeMillis() + 5000;
+            while (true) {
+                template.convertAndSend(destination, Map.of("type", PROBE, "destination", destination));
+                Map<String, Object> probe = probes.poll(50, TimeUnit.MILLISECONDS);
+                if (probe != null && destination.equals(probe.get("destination"))) {
+                    break;
+                }
+                if (System.currentTimeMillis() > deadline) {
+                    throw new AssertionError("Abonelik etkinleşmedi: " + destination);
+                }
+            }
+        }
+
+        Map<String, Object> next() throws InterruptedException {
+            Map<String, Object> message = messages.poll(5, TimeUnit.SECONDS);
+            assertNotNull(message, "Mesaj gelmedi");
+            return message;
+        }
+    }
+}
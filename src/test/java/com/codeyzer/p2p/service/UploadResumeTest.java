@@ -0,0 +1,125 @@
+package com.codeyzer.p2p.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import com.codeyzer.p2p.dto.FileStreamWrapper;
+import com.codeyzer.p2p.dto.ShareResponseDTO;
+import com.codeyzer.p2p.support.RelayClient;
+
+/**
+ * Sahibin yüklemesi aktarım ortasında koptuğunda indirmenin açık kaldığını ve yeni yüklemenin iletilen
+ * byte'tan devam ettiğini dener. Kopan yükleme, kapanış sınırı olmadan biten bir yuva gövdesiyle taklit
+ * edilir; stream'in hash'i ve offset'i sahibe giden resume mesajı yerine kayıttan okunur.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class UploadResumeTest {
+
+    private static final int FILE_SIZE = 256 * 1024;
+    private static final int DROPPED_AT = 100_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ShareRegistry shareRegistry;
+
+    private RelayClient client;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() {
+        client = new RelayClient(port, HttpClient.Version.HTTP_1_1);
+        content = new byte[FILE_SIZE];
+        new Random(29).nextBytes(content);
+    }
+
+    @Test
+    void resumesFromTheDeliveredOffset() throws Exception {
+        ShareResponseDTO share = client.share("devam.bin", FILE_SIZE);
+        CompletableFuture<HttpResponse<byte[]>> download = startDownloadAndDropUpload(share);
+        FileStreamWrapper stream = awaitSuspended(share);
+        assertEquals(DROPPED_AT, stream.getBytesDelivered());
+
+        byte[] rest = new byte[FILE_SIZE - DROPPED_AT];
+        System.arraycopy(content, DROPPED_AT, rest, 0, rest.length);
+        HttpResponse<String> resumed = client.upload(share, stream.getStreamHash(), rest,
+                "X-Upload-Offset", String.valueOf(DROPPED_AT));
+
+        assertEquals(200, resumed.statusCode());
+        assertReceivedWholeFile(download);
+    }
+
+    @Test
+    void skipsDeliveredBytesWhenOwnerRestartsFromTheBeginning() throws Exception {
+        ShareResponseDTO share = client.share("bastan.bin", FILE_SIZE);
+        CompletableFuture<HttpResponse<byte[]>> download = startDownloadAndDropUpload(share);
+        FileStreamWrapper stream = awaitSuspended(share);
+
+        HttpResponse<String> restarted = client.upload(share, stream.getStreamHash(), content);
+
+        assertEquals(200, restarted.statusCode());
+        assertReceivedWholeFile(download);
+    }
+
+    @Test
+    void rejectsOffsetBeyondTheDeliveredBytes() throws Exception {
+        ShareResponseDTO share = client.share("ileri.bin", FILE_SIZE);
+        CompletableFuture<HttpResponse<byte[]>> download = startDownloadAndDropUpload(share);
+        FileStreamWrapper stream = awaitSuspended(share);
+
+        HttpResponse<String> ahead = client.upload(share, stream.getStreamHash(), new byte[0],
+                "X-Upload-Offset", String.valueOf(DROPPED_AT + 1));
+        assertEquals(409, ahead.statusCode());
+        assertEquals(FileStreamWrapper.STATUS_SUSPENDED, stream.getStatus());
+
+        // Reddedilen istek stream'i bozmaz; doğru offset'le devam edilebilir
+        byte[] rest = new byte[FILE_SIZE - DROPPED_AT];
+        System.arraycopy(content, DROPPED_AT, rest, 0, rest.length);
+        client.upload(share, stream.getStreamHash(), rest, "X-Upload-Offset", String.valueOf(DROPPED_AT));
+        assertReceivedWholeFile(download);
+    }
+
+    /**
+     * Yuvayı içeriğin ilk DROPPED_AT byte'ıyla açar ve yuvayı alacak indirmeyi başlatır
+     */
+    private CompletableFuture<HttpResponse<byte[]>> startDownloadAndDropUpload(ShareResponseDTO share)
+            throws Exception {
+        client.parkSlotWithBody(share, RelayClient.truncatedMultipart(content, DROPPED_AT));
+        client.awaitParkedSlots(share.getShareHash(), 1);
+        return client.download(share.getShareHash());
+    }
+
+    private FileStreamWrapper awaitSuspended(ShareResponseDTO share) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            for (FileStreamWrapper stream : shareRegistry.get(share.getShareHash()).getStreams()) {
+                if (stream.getStatus() == FileStreamWrapper.STATUS_SUSPENDED) {
+                    return stream;
+                }
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Stream askıya alınmadı: " + share.getShareHash());
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private void assertReceivedWholeFile(CompletableFuture<HttpResponse<byte[]>> download) throws Exception {
+        HttpResponse<byte[]> response = download.get(10, TimeUnit.SECONDS);
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(content, response.body());
+    }
+}
@@ -0,0 +1,109 @@
+package com.codeyzer.p2p.service.buffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.codeyzer.p2p.config.FileShareProperties;
+
+/**
+ * Tampon boyutunun ölçülen hıza göre seçilmesini ve bütçe hesabını dener. Örnekleme aralığı sıfır
+ * verildiğinde her kayıt bir örnektir; arka arkaya yapılan kayıtlar hızlı, aralarında beklenen küçük
+ * kayıtlar yavaş bir bağlantıyı taklit eder.
+ */
+class AdaptiveBufferTest {
+
+    private static final int KB = 1024;
+
+    private final FileShareProperties properties = new FileShareProperties();
+    private final TransferBufferBudget budget = new TransferBufferBudget(properties);
+
+    @Test
+    void roundsInitialSizeUpToPowerOfTwoWithinBounds() {
+        try (AdaptiveBuffer buffer = buffer(100_000, 8 * KB, 1024 * KB)) {
+            assertEquals(128 * KB, buffer.size());
+            assertEquals(128 * KB, budget.getReservedBytes());
+        }
+        try (AdaptiveBuffer buffer = buffer(1, 8 * KB, 1024 * KB)) {
+            assertEquals(8 * KB, buffer.size());
+        }
+        assertEquals(0, budget.getReservedBytes());
+    }
+
+    @Test
+    void growsAtMostTwofoldPerSampleOnFastLinkUpToMaximum() {
+        try (AdaptiveBuffer buffer = buffer(64 * KB, 8 * KB, 1024 * KB)) {
+            int[] expected = { 128 * KB, 256 * KB, 512 * KB, 1024 * KB };
+            for (int size : expected) {
+                assertTrue(buffer.record(buffer.size()));
+                assertEquals(size, buffer.size());
+                assertEquals(size, buffer.array().length);
+                assertEquals(size, budget.getReservedBytes());
+            }
+            assertFalse(buffer.record(buffer.size()));
+            assertEquals(1024 * KB, buffer.size());
+        }
+        assertEquals(0, budget.getReservedBytes());
+    }
+
+    @Test
+    void shrinksToMinimumInOneStepOnSlowLink() throws InterruptedException {
+        try (AdaptiveBuffer buffer = buffer(512 * KB, 8 * KB, 1024 * KB)) {
+            Thread.sleep(50);
+
+            assertTrue(buffer.record(100));
+
+            assertEquals(8 * KB, buffer.size());
+            assertEquals(8 * KB, budget.getReservedBytes());
+            assertTrue(buffer.getThroughputBytesPerSecond() < 8 * KB);
+        }
+    }
+
+    @Test
+    void staysAtCurrentSizeWhenBudgetCannotCoverGrowth() {
+        properties.getAdaptiveBuffer().setMemoryBudgetBytes(100 * KB);
+        try (AdaptiveBuffer first = buffer(64 * KB, 8 * KB, 1024 * KB);
+             AdaptiveBuffer second = buffer(64 * KB, 8 * KB, 1024 * KB)) {
+            // İkinci tampon bütçede kalan 36KB'ı alır
+            assertEquals(64 * KB, first.size());
+            assertEquals(36 * KB, second.size());
+
+            assertFalse(first.record(first.size()));
+
+            assertEquals(64 * KB, first.size());
+            assertEquals(100 * KB, budget.getReservedBytes());
+        }
+        assertEquals(0, budget.getReservedBytes());
+    }
+
+    @Test
+    void alwaysGrantsMinimumEvenBeyondBudget() {
+        properties.getAdaptiveBuffer().setMemoryBudgetBytes(8 * KB);
+        try (AdaptiveBuffer first = buffer(8 * KB, 8 * KB, 1024 * KB);
+             AdaptiveBuffer second = buffer(64 * KB, 8 * KB, 1024 * KB)) {
+            assertEquals(8 * KB, second.size());
+            assertEquals(16 * KB, budget.getReservedBytes());
+        }
+    }
+
+    @Test
+    void fixedBufferNeverResizesAndIsReleasedOnce() {
+        properties.getAdaptiveBuffer().setEnabled(false);
+        AdaptiveBuffer buffer = budget.open();
+
+        for (int i = 0; i < 100; i++) {
+            assertFalse(buffer.record(buffer.size()));
+        }
+        assertEquals(properties.getBufferSize(), buffer.size());
+
+        buffer.close();
+        buffer.close();
+        assertEquals(0, budget.getReservedBytes());
+    }
+
+    private AdaptiveBuffer buffer(int initialSize, int minSize, int maxSize) {
+        return new AdaptiveBuffer(budget, initialSize, minSize, maxSize, 20, 0);
+    }
+}
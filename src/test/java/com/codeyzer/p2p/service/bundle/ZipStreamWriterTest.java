@@ -0,0 +1,224 @@
+package com.codeyzer.p2p.service.bundle;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Yazılan arşivin önceden hesaplanan uzunlukla eşleştiğini ve JDK'nın ZIP okuyucularıyla açıldığını
+ * dener. ZIP64 sınırlarını aşan arşivler, girdi içeriği sıfırlardan oluştuğundan dosyada boşluk
+ * bırakılarak (sparse) yazılır; böylece 4GB'lık girdi diskte yer tutmaz.
+ */
+class ZipStreamWriterTest {
+
+    private static final long ZIP32_LIMIT = 0xFFFFFFFFL;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writesReadableArchiveOfPredictedLength() throws IOException {
+        List<String> names = List.of("rapor.pdf", "klasör/özet ğüş.txt", "bos.bin");
+        List<byte[]> contents = List.of(content(10_000, 1), content(123, 2), new byte[0]);
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        ZipStreamWriter writer = new ZipStreamWriter(archive);
+        for (int i = 0; i < names.size(); i++) {
+            try (OutputStream entry = writer.startEntry(names.get(i), contents.get(i).length)) {
+                entry.write(contents.get(i));
+            }
+            writer.finishEntry();
+        }
+        writer.finish();
+
+        assertEquals(ZipStreamWriter.archiveLength(names, sizes(contents)), archive.size());
+        // ZipInputStream data descriptor'lı stored girdileri okumaz; arşiv merkez dizininden okunur
+        Path file = tempDir.resolve("kucuk.zip");
+        Files.write(file, archive.toByteArray());
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            List<? extends ZipEntry> entries = zip.stream().toList();
+            assertEquals(names.size(), entries.size());
+            for (int i = 0; i < names.size(); i++) {
+                ZipEntry entry = entries.get(i);
+                assertEquals(names.get(i), entry.getName());
+                assertEquals(ZipEntry.STORED, entry.getMethod());
+                assertEquals(crc(contents.get(i)), entry.getCrc());
+                assertArrayEquals(contents.get(i), read(zip, names.get(i)));
+            }
+        }
+    }
+
+    @Test
+    void rejectsEntryWhoseSizeDoesNotMatch() throws IOException {
+        ZipStreamWriter writer = new ZipStreamWriter(new ByteArrayOutputStream());
+        writer.startEntry("a.bin", 10).write(new byte[9]);
+
+        assertThrows(IOException.class, writer::finishEntry);
+        assertThrows(IllegalStateException.class, () -> writer.startEntry("b.bin", 1));
+    }
+
+    /**
+     * 4GB'ı aşan girdi yerel başlıkta ve merkez dizinde ZIP64 alanı, data descriptor'da 8 byte'lık
+     * boyutlar kullanır; ardından gelen girdinin 4GB'ın ötesindeki offset'i de ZIP64 alanındadır
+     */
+    @Test
+    void usesZip64RecordsForEntriesAndOffsetsBeyondFourGigabytes() throws IOException {
+        long largeSize = ZIP32_LIMIT + 1;
+        byte[] small = content(1000, 3);
+        List<String> names = List.of("buyuk.iso", "sonra.txt");
+        long[] sizes = { largeSize, small.length };
+
+        Path file = tempDir.resolve("buyuk.zip");
+        try (SparseOutputStream out = new SparseOutputStream(file)) {
+            ZipStreamWriter writer = new ZipStreamWriter(out);
+            try (OutputStream entry = writer.startEntry(names.get(0), largeSize)) {
+                byte[] zeros = new byte[1 << 20];
+                for (long left = largeSize; left > 0; left -= zeros.length) {
+                    entry.write(zeros, 0, (int) Math.min(zeros.length, left));
+                }
+            }
+            writer.finishEntry();
+            try (OutputStream entry = writer.startEntry(names.get(1), small.length)) {
+                entry.write(small);
+            }
+            writer.finishEntry();
+            writer.finish();
+            assertEquals(ZipStreamWriter.archiveLength(names, sizes), out.position());
+        }
+
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            ZipEntry large = zip.getEntry(names.get(0));
+            assertEquals(largeSize, large.getSize());
+            assertEquals(largeSize, large.getCompressedSize());
+            assertEquals(zeroCrc(largeSize), large.getCrc());
+            assertArrayEquals(small, read(zip, names.get(1)));
+        }
+    }
+
+    /**
+     * 65535 ve daha fazla girdide sayılar yalnızca ZIP64 arşiv sonu kaydına sığar
+     */
+    @Test
+    void usesZip64EndRecordBeyondEntryCountLimit() throws IOException {
+        int count = 0x10000;
+        List<String> names = new ArrayList<>(count);
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        ZipStreamWriter writer = new ZipStreamWriter(archive);
+        for (int i = 0; i < count; i++) {
+            String name = "g" + i;
+            names.add(name);
+            writer.startEntry(name, 1).write(i);
+            writer.finishEntry();
+        }
+        writer.finish();
+
+        assertEquals(ZipStreamWriter.archiveLength(names, filled(count, 1)), archive.size());
+        Path file = tempDir.resolve("cok.zip");
+        Files.write(file, archive.toByteArray());
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            assertEquals(count, zip.size());
+            assertArrayEquals(new byte[] { (byte) 0xFF }, read(zip, "g" + (count - 1)));
+        }
+    }
+
+    private static byte[] read(ZipFile zip, String name) throws IOException {
+        try (InputStream in = zip.getInputStream(zip.getEntry(name))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] content(int size, int seed) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31 + seed);
+        }
+        return content;
+    }
+
+    private static long[] sizes(List<byte[]> contents) {
+        return contents.stream().mapToLong(content -> content.length).toArray();
+    }
+
+    private static long[] filled(int count, long size) {
+        long[] sizes = new long[count];
+        Arrays.fill(sizes, size);
+        return sizes;
+    }
+
+    private static long crc(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    private static long zeroCrc(long size) {
+        CRC32 crc = new CRC32();
+        byte[] zeros = new byte[1 << 20];
+        for (long left = size; left > 0; left -= zeros.length) {
+            crc.update(zeros, 0, (int) Math.min(zeros.length, left));
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Tamamı sıfır olan yazmaları dosyada boşluk bırakarak atlar; dosya sistemi boşluğu sıfır olarak okur
+     */
+    private static final class SparseOutputStream extends OutputStream {
+        private static final byte[] ZEROS = new byte[1 << 20];
+
+        private final FileChannel channel;
+
+        private SparseOutputStream(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+
+        long position() throws IOException {
+            return channel.position();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (isZero(b, off, len)) {
+                channel.position(channel.position() + len);
+                return;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private static boolean isZero(byte[] b, int off, int len) {
+            return len <= ZEROS.length && Arrays.mismatch(b, off, off + len, ZEROS, 0, len) < 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.codeyzer.p2p.service.coalesce;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.codeyzer.p2p.config.FileShareProperties;
+import com.codeyzer.p2p.dto.FileStreamWrapper;
+import com.codeyzer.p2p.service.buffer.TransferBufferBudget;
+
+/**
+ * Birleştirilmiş indirmenin izleyicilere dağıtımını, öncünün devrini ve tamponun bütçeye yansımasını dener
+ */
+class CoalescedDownloadTest {
+
+    private static final int BUDGET = 1024;
+    private static final int CHUNK = 100;
+
+    private final FileShareProperties properties = new FileShareProperties();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private TransferBufferBudget budget;
+
+    @BeforeEach
+    void setUp() {
+        properties.getAdaptiveBuffer().setMemoryBudgetBytes(BUDGET);
+        budget = new TransferBufferBudget(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void followerReceivesEveryByteWhileBufferStaysWithinBudget() throws Exception {
+        ByteArrayOutputStream leaderOutput = new ByteArrayOutputStream();
+        CoalescedDownload download = new CoalescedDownload(leaderOutput, budget, 64 * 1024, 10_000);
+        CoalescedDownload.Follower follower = download.join();
+        assertNotNull(follower);
+
+        AtomicLong maxReserved = new AtomicLong();
+        ByteArrayOutputStream followerOutput = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                maxReserved.accumulateAndGet(budget.getReservedBytes(), Math::max);
+                super.write(b, off, len);
+            }
+        };
+        Future<Boolean> result = executor.submit(() -> follower.transferTo(followerOutput));
+
+        byte[] content = content(20 * CHUNK);
+        writeInChunks(download.getOutput(), content);
+        // İlk byte'tan sonra katılım kapanır
+        assertNull(download.join());
+        download.finish(true);
+
+        assertTrue(result.get(5, TimeUnit.SECONDS));
+        assertArrayEquals(content, leaderOutput.toByteArray());
+        assertArrayEquals(content, followerOutput.toByteArray());
+        assertTrue(maxReserved.get() <= BUDGET, "Tampon bütçeyi aştı: " + maxReserved.get());
+        assertEquals(0, budget.getReservedBytes());
+    }
+
+    @Test
+    void refusesFollowersWhileBudgetIsExhausted() {
+        CoalescedDownload download = new CoalescedDownload(new ByteArrayOutputStream(), budget, 4096, 10_000);
+        assertTrue(budget.tryReserve(BUDGET, false));
+        assertNull(download.join());
+
+        budget.release(BUDGET);
+        assertNotNull(download.join());
+    }
+
+    @Test
+    void handsUploadOffToFollowersWhenLeaderReceiverDrops() throws Exception {
+        OutputStream brokenLeader = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Alıcı koptu");
+            }
+        };
+        CoalescedDownload download = new CoalescedDownload(brokenLeader, budget, 4096, 10_000);
+        CoalescedDownload.Follower follower = download.join();
+        FileStreamWrapper stream = FileStreamWrapper.builder().latch(new CountDownLatch(1)).build();
+        download.setStream(stream);
+        assertEquals(stream, follower.awaitStream());
+
+        ByteArrayOutputStream followerOutput = new ByteArrayOutputStream();
+        Future<Boolean> result = executor.submit(() -> follower.transferTo(followerOutput));
+
+        byte[] content = content(10 * CHUNK);
+        writeInChunks(download.getOutput(), content);
+        assertTrue(download.isLeaderDetached());
+
+        AtomicBoolean released = new AtomicBoolean();
+        assertTrue(download.handOff(() -> released.set(true)));
+        assertFalse(result.isDone());
+
+        stream.setStatus(FileStreamWrapper.STATUS_COMPLETED);
+        stream.getLatch().countDown();
+
+        assertTrue(result.get(5, TimeUnit.SECONDS));
+        assertArrayEquals(content, followerOutput.toByteArray());
+        assertTrue(released.get());
+        assertEquals(0, budget.getReservedBytes());
+    }
+
+    @Test
+    void leaderWithoutFollowersCannotHandOff() throws IOException {
+        CoalescedDownload download = new CoalescedDownload(new ByteArrayOutputStream(), budget, 4096, 10_000);
+        writeInChunks(download.getOutput(), content(CHUNK));
+
+        assertFalse(download.handOff(() -> {
+        }));
+        assertEquals(0, budget.getReservedBytes());
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        return content;
+    }
+
+    private static void writeInChunks(OutputStream output, byte[] content) throws IOException {
+        for (int off = 0; off < content.length; off += CHUNK) {
+            output.write(content, off, Math.min(CHUNK, content.length - off));
+        }
+        output.flush();
+    }
+}
@@ -0,0 +1,92 @@
+package com.codeyzer.p2p.service.coalesce;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import com.codeyzer.p2p.dto.ShareResponseDTO;
+import com.codeyzer.p2p.service.monitoring.PerformanceMonitorService;
+import com.codeyzer.p2p.support.RelayClient;
+
+/**
+ * Aynı istemciden art arda gelen aynı indirmelerin tek sahip yüklemesinden beslendiğini uçtan uca dener.
+ * Sahibin tek yuvası gövdesi yazılmadan açılır; ikinci istek böylece sahipten ilk byte gelmeden ulaşır.
+ * İkinci istek birleştirilmeseydi sahipten yeni bir yükleme bekler ve süresinde bitmezdi.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "file-share.digest-algorithm=none")
+class CoalescedRelayTest {
+
+    private static final int FILE_SIZE = 512 * 1024;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private PerformanceMonitorService monitorService;
+
+    @Test
+    void servesIdenticalParallelDownloadsFromOneOwnerUpload() throws Exception {
+        RelayClient client = new RelayClient(port, HttpClient.Version.HTTP_1_1);
+        byte[] content = new byte[FILE_SIZE];
+        new Random(46).nextBytes(content);
+        byte[] body = RelayClient.multipart(content);
+        ShareResponseDTO share = client.share("birlesik.bin", FILE_SIZE);
+        monitorService.sample();
+        long coalescedBefore = (long) monitorService.getGlobalStats().get("coalescedDownloads");
+        long savedBefore = (long) monitorService.getGlobalStats().get("coalescedBytesSaved");
+
+        PipedInputStream source = new PipedInputStream(body.length);
+        try (PipedOutputStream owner = new PipedOutputStream(source)) {
+            CompletableFuture<HttpResponse<Void>> slot = client.parkSlotWithBody(share,
+                    HttpRequest.BodyPublishers.ofInputStream(() -> source));
+            client.awaitParkedSlots(share.getShareHash(), 1);
+            long activeBefore = monitorService.getActiveDownloads();
+
+            CompletableFuture<HttpResponse<byte[]>> first = client.download(share.getShareHash());
+            await(() -> monitorService.getActiveDownloads() == activeBefore + 1);
+            CompletableFuture<HttpResponse<byte[]>> second = client.download(share.getShareHash());
+            await(() -> monitorService.getActiveDownloads() == activeBefore + 2);
+            // İki istek de beklerken paylaşımda tek stream vardır
+            assertEquals(1, ((List<?>) client.stats(share.getShareHash()).get("streams")).size());
+
+            owner.write(body);
+            owner.close();
+            for (CompletableFuture<HttpResponse<byte[]>> download : List.of(first, second)) {
+                HttpResponse<byte[]> response = download.get(10, TimeUnit.SECONDS);
+                assertEquals(200, response.statusCode());
+                assertArrayEquals(content, response.body());
+            }
+            assertEquals(200, slot.get(10, TimeUnit.SECONDS).statusCode());
+        }
+
+        monitorService.sample();
+        assertEquals(coalescedBefore + 1, monitorService.getGlobalStats().get("coalescedDownloads"));
+        assertEquals(savedBefore + FILE_SIZE, monitorService.getGlobalStats().get("coalescedBytesSaved"));
+        assertTrue((double) monitorService.getGlobalStats().get("coalescingRatio") > 0);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Koşul sağlanmadı");
+            Thread.sleep(10);
+        }
+    }
+}
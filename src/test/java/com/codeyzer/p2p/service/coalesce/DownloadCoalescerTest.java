@@ -0,0 +1,86 @@
+package com.codeyzer.p2p.service.coalesce;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.codeyzer.p2p.config.FileShareProperties;
+import com.codeyzer.p2p.service.buffer.TransferBufferBudget;
+
+/**
+ * Aynı isteklerin parmak iziyle eşleştirilmesini ve katılım penceresini dener
+ */
+class DownloadCoalescerTest {
+
+    private final FileShareProperties properties = new FileShareProperties();
+    private final DownloadCoalescer coalescer = new DownloadCoalescer(properties, new TransferBufferBudget(properties));
+
+    @Test
+    void matchesOnlyRequestsWithSameShareClientAgentAndRange() {
+        String base = coalescer.fingerprint("pay", "10.0.0.1", request("yonetici/1.0", null));
+
+        assertEquals(base, coalescer.fingerprint("pay", "10.0.0.1", request("yonetici/1.0", null)));
+        assertNotEquals(base, coalescer.fingerprint("diger", "10.0.0.1", request("yonetici/1.0", null)));
+        assertNotEquals(base, coalescer.fingerprint("pay", "10.0.0.2", request("yonetici/1.0", null)));
+        assertNotEquals(base, coalescer.fingerprint("pay", "10.0.0.1", request("tarayici/2.0", null)));
+        assertNotEquals(base, coalescer.fingerprint("pay", "10.0.0.1", request("yonetici/1.0", "bytes=0-99")));
+    }
+
+    @Test
+    void returnsNoFingerprintWhenDisabled() {
+        properties.getCoalescing().setEnabled(false);
+
+        assertNull(coalescer.fingerprint("pay", "10.0.0.1", request("yonetici/1.0", null)));
+    }
+
+    @Test
+    void sendsSecondRequestToTheOpenGroupUntilItFinishes() {
+        String fingerprint = coalescer.fingerprint("pay", "10.0.0.1", request("yonetici/1.0", null));
+        assertNull(coalescer.join(fingerprint));
+
+        CoalescedDownload leader = coalescer.lead(fingerprint, new ByteArrayOutputStream());
+        assertNotNull(leader);
+        // Aynı anda öncü olmaya çalışan ikinci istek gruba katılmaya yönlendirilir
+        assertNull(coalescer.lead(fingerprint, new ByteArrayOutputStream()));
+        assertNotNull(coalescer.join(fingerprint));
+
+        coalescer.finish(fingerprint, leader, true);
+
+        assertNull(coalescer.join(fingerprint));
+        CoalescedDownload next = coalescer.lead(fingerprint, new ByteArrayOutputStream());
+        assertNotNull(next);
+        coalescer.finish(fingerprint, next, true);
+    }
+
+    @Test
+    void startsNewGroupOnceJoinWindowHasPassed() throws InterruptedException {
+        properties.getCoalescing().setJoinWindowMs(20);
+        String fingerprint = coalescer.fingerprint("pay", "10.0.0.1", request("yonetici/1.0", null));
+        CoalescedDownload first = coalescer.lead(fingerprint, new ByteArrayOutputStream());
+
+        Thread.sleep(50);
+
+        assertNull(coalescer.join(fingerprint));
+        CoalescedDownload second = coalescer.lead(fingerprint, new ByteArrayOutputStream());
+        assertNotNull(second);
+        assertNotSame(first, second);
+        coalescer.finish(fingerprint, first, true);
+        coalescer.finish(fingerprint, second, true);
+    }
+
+    private static MockHttpServletRequest request(String userAgent, String range) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file/download/pay");
+        request.addHeader("User-Agent", userAgent);
+        if (range != null) {
+            request.addHeader("Range", range);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,84 @@
+package com.codeyzer.p2p.service.digest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Özetlerin bilinen değerleri ürettiğini ve parçalı beslemenin tek seferlik beslemeyle aynı sonucu
+ * verdiğini dener
+ */
+class StreamDigestTest {
+
+    @Test
+    void xxHash64MatchesReferenceVectors() {
+        assertEquals("xxhash64=ef46db3751d8e999", xxHash64(""));
+        assertEquals("xxhash64=d24ec4f1a98c6e5b", xxHash64("a"));
+        assertEquals("xxhash64=44bc2cf5ad770999", xxHash64("abc"));
+        // 32 byte'tan uzun girdi dört şeritli döngüden geçer
+        assertEquals("xxhash64=fbcea83c8a378bf1", xxHash64("Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    void xxHash64IsIndependentOfChunking() {
+        assertIndependentOfChunking(StreamDigest.XXHASH64);
+    }
+
+    @Test
+    void sha256MatchesMessageDigest() throws Exception {
+        byte[] content = content(10_000);
+        StreamDigest digest = StreamDigest.create("SHA-256");
+        digest.update(content, 0, content.length);
+
+        String expected = "sha-256=" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        assertEquals(expected, digest.getValue());
+        // Değer bir kez hesaplanır; tekrar okumak sonucu değiştirmez
+        assertEquals(expected, digest.getValue());
+        assertIndependentOfChunking(StreamDigest.SHA256);
+    }
+
+    @Test
+    void createsNothingForNoneAndRejectsUnknownAlgorithms() {
+        assertNull(StreamDigest.create("none"));
+        assertNull(StreamDigest.create(null));
+        assertThrows(IllegalArgumentException.class, () -> StreamDigest.create("md5"));
+    }
+
+    private static void assertIndependentOfChunking(String algorithm) {
+        byte[] content = content(100_003);
+        StreamDigest whole = StreamDigest.create(algorithm);
+        whole.update(content, 0, content.length);
+
+        Random random = new Random(33);
+        for (int run = 0; run < 20; run++) {
+            StreamDigest chunked = StreamDigest.create(algorithm);
+            int off = 0;
+            while (off < content.length) {
+                int len = Math.min(content.length - off, random.nextInt(run % 2 == 0 ? 40 : 9000));
+                chunked.update(content, off, len);
+                off += len;
+            }
+            assertEquals(whole.getValue(), chunked.getValue());
+        }
+    }
+
+    private static String xxHash64(String input) {
+        byte[] bytes = input.getBytes(StandardCharsets.US_ASCII);
+        StreamDigest digest = StreamDigest.create(StreamDigest.XXHASH64);
+        digest.update(bytes, 0, bytes.length);
+        return digest.getValue();
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+}
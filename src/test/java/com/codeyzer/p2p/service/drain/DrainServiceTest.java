@@ -0,0 +1,170 @@
+package com.codeyzer.p2p.service.drain;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+
+import com.codeyzer.p2p.dto.ShareResponseDTO;
+import com.codeyzer.p2p.service.monitoring.PerformanceMonitorService;
+import com.codeyzer.p2p.support.RelayClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Boşaltmayı süren bir aktarımla dener. Sahibin gövdesi bir boru üzerinden parça parça yazılır; böylece
+ * aktarım boşaltma başladığında ortasındadır. Boşaltma geri alınamadığından her test yeni bir bağlam kullanır.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "file-share.drain.admin-token=bosalt",
+        "file-share.drain.deadline-seconds=2",
+        "file-share.drain.retry-after-seconds=7",
+        "file-share.digest-algorithm=none"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class DrainServiceTest {
+
+    private static final int FILE_SIZE = 256 * 1024;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private PerformanceMonitorService monitorService;
+
+    private RelayClient client;
+    private byte[] content;
+    private byte[] body;
+    private PipedOutputStream owner;
+
+    @BeforeEach
+    void setUp() {
+        client = new RelayClient(port, HttpClient.Version.HTTP_1_1);
+        content = new byte[FILE_SIZE];
+        new Random(45).nextBytes(content);
+        body = RelayClient.multipart(content);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (owner != null) {
+            owner.close();
+        }
+    }
+
+    @Test
+    void refusesNewWorkAndLetsInFlightTransferFinish() throws Exception {
+        ShareResponseDTO share = client.share("bosalt.bin", FILE_SIZE);
+        CompletableFuture<HttpResponse<byte[]>> download = startTransfer(share);
+
+        Map<?, ?> started = startDrain();
+        assertEquals(true, started.get("draining"));
+        assertEquals(1, ((Number) started.get("transfersAtStart")).intValue());
+
+        HttpResponse<String> refused = client.get("/file/download/" + share.getShareHash());
+        assertEquals(503, refused.statusCode());
+        assertEquals("7", refused.headers().firstValue("Retry-After").orElseThrow());
+        IOException refusedShare = assertThrows(IOException.class,
+                () -> client.share("yeni.bin", 1));
+        assertTrue(refusedShare.getMessage().contains("503"), refusedShare.getMessage());
+
+        // Sahip gövdenin kalanını gönderir; aktarım boşaltma sürerken tamamlanır
+        owner.write(body, body.length / 2, body.length - body.length / 2);
+        owner.close();
+        HttpResponse<byte[]> completed = download.get(10, TimeUnit.SECONDS);
+        assertEquals(200, completed.statusCode());
+        assertArrayEquals(content, completed.body());
+
+        Map<?, ?> status = awaitFinished();
+        assertEquals(0, ((Number) status.get("remainingTransfers")).intValue());
+        assertEquals(FILE_SIZE, ((Number) status.get("bytesSaved")).intValue());
+        assertTrue(((Number) status.get("durationMs")).longValue() < 2000, status.toString());
+    }
+
+    @Test
+    void cutsTransfersStillRunningAtDeadline() throws Exception {
+        ShareResponseDTO share = client.share("takili.bin", FILE_SIZE);
+        CompletableFuture<HttpResponse<byte[]>> download = startTransfer(share);
+
+        startDrain();
+        Map<?, ?> status = awaitFinished();
+
+        assertEquals(1, ((Number) status.get("remainingTransfers")).intValue());
+        assertEquals(0, ((Number) status.get("bytesSaved")).intValue());
+        // Kesilen indirme eksik Content-Length ile biter
+        try {
+            HttpResponse<byte[]> cut = download.get(10, TimeUnit.SECONDS);
+            assertNotEquals(FILE_SIZE, cut.body().length);
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException, e.toString());
+        }
+    }
+
+    /**
+     * Yuvayı gövdenin yarısı yazılmış olarak açar ve indirmeyi başlatır; alıcı ilk byte'ları alana kadar bekler
+     */
+    private CompletableFuture<HttpResponse<byte[]>> startTransfer(ShareResponseDTO share) throws Exception {
+        PipedInputStream source = new PipedInputStream(body.length);
+        owner = new PipedOutputStream(source);
+        owner.write(body, 0, body.length / 2);
+        client.parkSlotWithBody(share, HttpRequest.BodyPublishers.ofInputStream(() -> source));
+        client.awaitParkedSlots(share.getShareHash(), 1);
+        CompletableFuture<HttpResponse<byte[]>> download = client.download(share.getShareHash());
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (monitorService.getActiveDownloads() == 0 || bytesDelivered(share) == 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "Aktarım başlamadı");
+            Thread.sleep(20);
+        }
+        return download;
+    }
+
+    private long bytesDelivered(ShareResponseDTO share) throws IOException, InterruptedException {
+        List<?> streams = (List<?>) client.stats(share.getShareHash()).get("streams");
+        return streams == null || streams.isEmpty() ? 0 : ((Number) ((Map<?, ?>) streams.get(0)).get("bytesDelivered")).longValue();
+    }
+
+    private Map<?, ?> startDrain() throws IOException, InterruptedException {
+        HttpResponse<String> response = client.getHttpClient().send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/admin/drain"))
+                .header("X-Admin-Token", "bosalt")
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return MAPPER.readValue(response.body(), Map.class);
+    }
+
+    private Map<?, ?> awaitFinished() throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            Map<?, ?> status = MAPPER.readValue(client.get("/admin/drain").body(), Map.class);
+            if (Boolean.TRUE.equals(status.get("finished"))) {
+                return status;
+            }
+            assertTrue(System.currentTimeMillis() < deadline, "Boşaltma bitmedi: " + status);
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.codeyzer.p2p.service.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import com.codeyzer.p2p.dto.ShareResponseDTO;
+import com.codeyzer.p2p.dto.UnshareRequestDTO;
+import com.codeyzer.p2p.support.RelayClient;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Paylaşım ve aktarım yaşam döngüsünün JFR olaylarını, uygulamanın kendi sürecinde açılan bir kayıt
+ * akışından okuyarak dener
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class LifecycleEventsTest {
+
+    private static final String PREFIX = "com.codeyzer.p2p.";
+    private static final int FILE_SIZE = 256 * 1024;
+
+    @LocalServerPort
+    private int port;
+
+    private final List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+    private RecordingStream recording;
+
+    @BeforeEach
+    void startRecording() {
+        recording = new RecordingStream();
+        for (String name : List.of("ShareCreated", "StreamPending", "OwnerConnected", "TransferCompleted",
+                "ShareUnshared")) {
+            recording.enable(PREFIX + name);
+        }
+        // Eşik kaldırılınca her parça yazımı bir olay üretir
+        recording.enable(PREFIX + "ChunkFlushStall").withThreshold(Duration.ZERO);
+        recording.setMaxAge(Duration.ofMinutes(1));
+        recording.onEvent(events::add);
+        recording.startAsync();
+    }
+
+    @AfterEach
+    void stopRecording() {
+        recording.close();
+    }
+
+    @Test
+    void recordsShareAndTransferLifecycle() throws Exception {
+        RelayClient client = new RelayClient(port, HttpClient.Version.HTTP_1_1);
+        byte[] content = new byte[FILE_SIZE];
+        new Random(27).nextBytes(content);
+        ShareResponseDTO share = client.share("olay.bin", FILE_SIZE);
+        String shareHash = share.getShareHash();
+
+        client.parkSlot(share, content);
+        client.awaitParkedSlots(shareHash, 1);
+        HttpResponse<byte[]> download = client.download(shareHash).get(10, TimeUnit.SECONDS);
+        assertArrayEquals(content, download.body());
+        client.post("/file/unshare", UnshareRequestDTO.builder()
+                .shareHash(shareHash).ownerToken(share.getOwnerToken()).build(), Void.class);
+
+        RecordedEvent created = await("ShareCreated", shareHash);
+        assertEquals(FILE_SIZE, created.getLong("fileSize"));
+
+        RecordedEvent pending = await("StreamPending", shareHash);
+        String streamHash = pending.getString("streamHash");
+
+        RecordedEvent connected = await("OwnerConnected", shareHash);
+        assertEquals(streamHash, connected.getString("streamHash"));
+        assertTrue(connected.getBoolean("slot"));
+
+        RecordedEvent completed = await("TransferCompleted", shareHash);
+        assertEquals(streamHash, completed.getString("streamHash"));
+        assertTrue(completed.getBoolean("success"));
+        assertEquals(FILE_SIZE, completed.getLong("bytesTransferred"));
+
+        RecordedEvent stall = await("ChunkFlushStall", shareHash);
+        assertTrue(stall.getInt("chunkBytes") >= 0);
+
+        RecordedEvent unshared = await("ShareUnshared", shareHash);
+        assertEquals(0, unshared.getInt("activeStreams"));
+    }
+
+    /**
+     * Kayıt akışı olayları periyodik olarak teslim ettiğinden olay gelene kadar bekler
+     */
+    private RecordedEvent await(String name, String shareHash) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            for (RecordedEvent event : events) {
+                if (event.getEventType().getName().equals(PREFIX + name)
+                        && shareHash.equals(event.getString("shareHash"))) {
+                    return event;
+                }
+            }
+            assertTrue(System.currentTimeMillis() < deadline, name + " olayı gelmedi: " + Map.of("kayitlar", events.size()));
+            Thread.sleep(50);
+        }
+    }
+}
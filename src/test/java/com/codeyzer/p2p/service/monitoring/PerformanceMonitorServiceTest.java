@@ -0,0 +1,103 @@
+package com.codeyzer.p2p.service.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Genel özetin yalnızca örneklemede yenilendiğini ve eşzamanlı kayıtların kaybolmadığını dener.
+ */
+class PerformanceMonitorServiceTest {
+
+    private final PerformanceMonitorService service = new PerformanceMonitorService();
+
+    @Test
+    void publishesSnapshotOnlyWhenSampled() {
+        assertTrue(service.getGlobalStats().isEmpty());
+
+        service.downloadStarted();
+        service.recordBytesRelayed(4096);
+        service.recordDownload("a", 4096, 10);
+        assertTrue(service.getGlobalStats().isEmpty());
+
+        service.sample();
+        Map<String, Object> stats = service.getGlobalStats();
+        assertEquals(1L, stats.get("activeDownloads"));
+        assertEquals(1L, stats.get("totalDownloads"));
+        assertEquals(4096L, stats.get("totalBytesRelayed"));
+
+        // Sonraki kayıtlar yayımlanmış özeti değiştirmez
+        service.downloadEnded();
+        service.recordFailure("a");
+        assertSame(stats, service.getGlobalStats());
+        assertEquals(1L, stats.get("activeDownloads"));
+        assertThrows(UnsupportedOperationException.class, () -> stats.put("x", 1));
+
+        service.sample();
+        assertEquals(0L, service.getGlobalStats().get("activeDownloads"));
+        assertEquals(1L, service.getGlobalStats().get("totalFailures"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reportsRatesForEachWindow() throws InterruptedException {
+        service.sample();
+        Map<String, Double> idle = (Map<String, Double>) service.getGlobalStats().get("bytesPerSecond");
+        assertEquals(List.of("1m", "5m", "15m"), new ArrayList<>(idle.keySet()));
+        idle.values().forEach(rate -> assertEquals(0.0, rate));
+
+        service.recordBytesRelayed(1_000_000);
+        Thread.sleep(50);
+        service.sample();
+
+        Map<String, Double> bytes = (Map<String, Double>) service.getGlobalStats().get("bytesPerSecond");
+        // İki örnek arası en fazla birkaç yüz ms sürer; hız en az 1MB/s olmalıdır
+        bytes.values().forEach(rate -> assertTrue(rate >= 1_000_000, String.valueOf(rate)));
+        Map<String, Double> failures = (Map<String, Double>) service.getGlobalStats().get("failuresPerSecond");
+        failures.values().forEach(rate -> assertEquals(0.0, rate));
+    }
+
+    @Test
+    void keepsEveryRecordUnderConcurrentWriters() throws Exception {
+        int threads = 8;
+        int perThread = 10_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int t = 0; t < threads; t++) {
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        service.recordBytesRelayed(3);
+                        service.downloadStarted();
+                        service.downloadEnded();
+                    }
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        service.sample();
+        assertEquals(3L * threads * perThread, service.getGlobalStats().get("totalBytesRelayed"));
+        assertEquals(0L, service.getActiveDownloads());
+    }
+}
@@ -0,0 +1,67 @@
+package com.codeyzer.p2p.service.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Kayan pencere hızını elle verilen örnek zamanlarıyla dener; örnekler saniyede bir alınmış gibidir.
+ */
+class RollingWindowTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void reportsZeroUntilThereIsAnInterval() {
+        RollingWindow window = new RollingWindow(4);
+        assertEquals(0.0, window.ratePerSecond(3));
+
+        window.sample(100, SECOND);
+        assertEquals(0.0, window.ratePerSecond(3));
+    }
+
+    @Test
+    void reportsZeroWhenSamplesShareTimestamp() {
+        RollingWindow window = new RollingWindow(4);
+        window.sample(100, SECOND);
+        window.sample(200, SECOND);
+
+        assertEquals(0.0, window.ratePerSecond(1));
+    }
+
+    @Test
+    void measuresRateOverRequestedSpanOnly() {
+        RollingWindow window = new RollingWindow(8);
+        // İlk üç saniye 10/s, son iki saniye 100/s
+        long[] values = { 0, 10, 20, 30, 130, 230 };
+        for (int i = 0; i < values.length; i++) {
+            window.sample(values[i], i * SECOND);
+        }
+
+        assertEquals(100.0, window.ratePerSecond(2), 1e-9);
+        assertEquals(230.0 / 5, window.ratePerSecond(5), 1e-9);
+    }
+
+    @Test
+    void usesAllSamplesWhenFewerThanRequested() {
+        RollingWindow window = new RollingWindow(8);
+        window.sample(0, 0);
+        window.sample(50, 2 * SECOND);
+
+        assertEquals(25.0, window.ratePerSecond(60), 1e-9);
+    }
+
+    @Test
+    void overwritesOldestSamplesAfterWrapping() {
+        RollingWindow window = new RollingWindow(4);
+        // Kapasitenin iki katı örnek; yalnızca son dördü (değerler 40, 50, 60, 1060) kalır
+        long[] values = { 0, 1000, 2000, 3000, 40, 50, 60, 1060 };
+        for (int i = 0; i < values.length; i++) {
+            window.sample(values[i], i * SECOND);
+        }
+
+        assertEquals(1000.0, window.ratePerSecond(1), 1e-9);
+        // Pencere kapasiteyle sınırlanır: üç aralık, 40'tan 1060'a
+        assertEquals(1020.0 / 3, window.ratePerSecond(100), 1e-9);
+    }
+}
@@ -0,0 +1,194 @@
+package com.codeyzer.p2p.service.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.codeyzer.p2p.config.FileShareProperties;
+import com.codeyzer.p2p.dto.FileShareWrapper;
+import com.codeyzer.p2p.dto.PieceHashes;
+import com.codeyzer.p2p.dto.ShareGroup;
+import com.codeyzer.p2p.service.ShareRegistry;
+
+/**
+ * Paylaşım kaydının anlık görüntü ve günlükten geri yüklenmesini dener. Her denemede kayıt yeni bir
+ * {@link ShareJournal} ile aynı dizinden okunur; bu yeniden başlatmanın karşılığıdır.
+ */
+class ShareJournalTest {
+
+    private static final long CREATED = 1_700_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoresEveryFieldFromTheSnapshotWrittenOnClose() throws IOException {
+        UUID owner = UUID.randomUUID();
+        ShareGroup group = new ShareGroup(CREATED);
+        PieceHashes pieces = new PieceHashes(1024, new byte[2 * PieceHashes.DIGEST_LENGTH]);
+
+        ShareRegistry registry = new ShareRegistry(16);
+        ShareJournal journal = journal();
+        journal.restore(registry);
+        FileShareWrapper single = new FileShareWrapper("rapor ğüş.pdf", 4096, CREATED, owner, null, null,
+                "sha256=ab", pieces);
+        single.setContentDigest("xxhash64=0011223344556677");
+        registry.register("tekil", single);
+        registry.register("uye1", new FileShareWrapper("a.txt", 1, CREATED, owner, group));
+        registry.register("uye2", new FileShareWrapper("b.txt", 2, CREATED, owner, group));
+        registry.register("paket", new FileShareWrapper("paket.zip", 3, CREATED, owner, group,
+                List.of("uye1", "uye2")));
+        journal.close();
+
+        long beforeRestore = System.currentTimeMillis();
+        ShareRegistry restored = restore();
+
+        assertEquals(4, restored.size());
+        FileShareWrapper share = restored.get("tekil");
+        assertEquals("rapor ğüş.pdf", share.getFilename());
+        assertEquals(4096, share.getSize());
+        assertEquals(CREATED, share.getCreationTimestamp());
+        assertTrue(share.isOwner(owner.toString()));
+        assertFalse(share.isGrouped());
+        assertEquals("sha256=ab", share.getContentHash());
+        assertEquals("xxhash64=0011223344556677", share.getContentDigest());
+        assertEquals(1024, share.getPieceHashes().getPieceSize());
+        assertArrayEquals(pieces.toByteArray(), share.getPieceHashes().toByteArray());
+        assertEquals(List.of("tekil"), restored.findByContentHash("sha256=ab"));
+        // Kalp atışı oluşturma anından değil geri yükleme anından başlar
+        assertTrue(share.getLastHeartbeatTimestamp() >= beforeRestore);
+
+        assertEquals(List.of("uye1", "uye2"), restored.get("paket").getMemberHashes());
+        assertNull(restored.get("paket").getContentHash());
+    }
+
+    @Test
+    void rejoinsGroupedSharesOfTheSameOwnerUnderOneHeartbeat() throws IOException {
+        UUID owner = UUID.randomUUID();
+        ShareGroup group = new ShareGroup(CREATED);
+
+        ShareRegistry registry = new ShareRegistry(16);
+        ShareJournal journal = journal();
+        journal.restore(registry);
+        registry.register("uye1", new FileShareWrapper("a.txt", 1, CREATED, owner, group));
+        registry.register("uye2", new FileShareWrapper("b.txt", 2, CREATED, owner, group));
+        registry.register("baska", new FileShareWrapper("c.txt", 3, CREATED, UUID.randomUUID(), new ShareGroup(CREATED)));
+        journal.close();
+
+        ShareRegistry restored = restore();
+        long heartbeat = System.currentTimeMillis() + 60_000;
+        restored.get("uye1").setLastHeartbeatTimestamp(heartbeat);
+
+        assertTrue(restored.get("uye2").isGrouped());
+        assertEquals(heartbeat, restored.get("uye2").getLastHeartbeatTimestamp());
+        assertTrue(restored.get("baska").getLastHeartbeatTimestamp() < heartbeat);
+    }
+
+    /**
+     * Çökmede anlık görüntü alınmaz; kayıtlar yalnızca diske yazılmış günlükten geri gelir
+     */
+    @Test
+    void replaysRegistrationsAndRemovalsFromTheLogAfterACrash() throws IOException {
+        ShareRegistry registry = new ShareRegistry(16);
+        ShareJournal journal = journal();
+        journal.restore(registry);
+        registry.register("kalan", share("kalan.bin"));
+        registry.register("silinen", share("silinen.bin"));
+        registry.remove("silinen");
+        journal.flush();
+
+        ShareRegistry restored = restore();
+
+        assertEquals(1, restored.size());
+        assertEquals("kalan.bin", restored.get("kalan").getFilename());
+        assertFalse(restored.contains("silinen"));
+    }
+
+    @Test
+    void appliesLogWrittenAfterTheSnapshotAndDropsOlderLogs() throws IOException {
+        ShareRegistry registry = new ShareRegistry(16);
+        ShareJournal journal = journal();
+        journal.restore(registry);
+        registry.register("once", share("once.bin"));
+        journal.snapshot();
+        registry.register("sonra", share("sonra.bin"));
+        registry.remove("once");
+        journal.flush();
+
+        // Görüntüden önceki günlük silinmiştir; yalnızca görüntüyle açılan günlük kalır
+        assertEquals(List.of("shares-1.log"), logFiles());
+
+        ShareRegistry restored = restore();
+
+        assertEquals(1, restored.size());
+        assertTrue(restored.contains("sonra"));
+    }
+
+    @Test
+    void ignoresTruncatedLastRecord() throws IOException {
+        ShareRegistry registry = new ShareRegistry(16);
+        ShareJournal journal = journal();
+        journal.restore(registry);
+        registry.register("tam", share("tam.bin"));
+        journal.flush();
+        Path log = directory.resolve("shares-0.log");
+        long complete = Files.size(log);
+        registry.register("yarim", share("yarim.bin"));
+        journal.flush();
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(complete + (Files.size(log) - complete) / 2);
+        }
+
+        ShareRegistry restored = restore();
+
+        assertEquals(1, restored.size());
+        assertTrue(restored.contains("tam"));
+    }
+
+    @Test
+    void refusesFilesOfAnotherFormat() throws IOException {
+        Files.write(directory.resolve("shares.snapshot"), new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+
+        assertThrows(IOException.class, () -> journal().restore(new ShareRegistry(16)));
+    }
+
+    private ShareJournal journal() {
+        FileShareProperties.PersistenceProperties settings = new FileShareProperties.PersistenceProperties();
+        settings.setDirectory(directory.toString());
+        return new ShareJournal(settings);
+    }
+
+    private ShareRegistry restore() throws IOException {
+        ShareRegistry restored = new ShareRegistry(16);
+        journal().restore(restored);
+        return restored;
+    }
+
+    private List<String> logFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(".log"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static FileShareWrapper share(String filename) {
+        return new FileShareWrapper(filename, 10, CREATED, UUID.randomUUID());
+    }
+}
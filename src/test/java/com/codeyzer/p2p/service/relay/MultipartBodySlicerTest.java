@@ -0,0 +1,119 @@
+package com.codeyzer.p2p.service.relay;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.codeyzer.p2p.support.RelayClient;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Multipart gövdesinin parça başlıklarının ve kapanış sınırının, içerik kopyalanmadan ayıklandığını
+ * dener. Gövde, ağdan geliyormuş gibi farklı sınırlardan bölünmüş tamponlarla verilir.
+ */
+class MultipartBodySlicerTest {
+
+    @Test
+    void extractsContentFromEverySplitOfBody() {
+        byte[] content = new byte[300];
+        new Random(43).nextBytes(content);
+        byte[] body = RelayClient.multipart(content);
+
+        // Başlık sonu, içerik ve kapanış sınırı her olası noktadan bölünür
+        for (int chunk = 1; chunk <= body.length; chunk++) {
+            assertArrayEquals(content, slice(body, content.length, chunk), "parça boyutu " + chunk);
+        }
+    }
+
+    @Test
+    void recognisesHeaderEndAfterPartialMatches() {
+        byte[] content = "icerik".getBytes(StandardCharsets.US_ASCII);
+        // "\r\n\r" ve "\r\r\n" yarım eşleşmeleri başlık sonu sayılmamalıdır
+        byte[] head = "--b\r\nX: 1\r\n\rY: \r\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] body = Arrays.copyOf(head, head.length + content.length + 5);
+        System.arraycopy(content, 0, body, head.length, content.length);
+        System.arraycopy("\r\n--b".getBytes(StandardCharsets.US_ASCII), 0, body, head.length + content.length, 5);
+
+        assertArrayEquals(content, slice(body, content.length, 3));
+    }
+
+    @Test
+    void slicesWithoutCopyingAndTransfersReference() {
+        byte[] content = new byte[64];
+        Arrays.fill(content, (byte) 7);
+        byte[] body = RelayClient.multipart(content);
+        ByteBuf buf = Unpooled.wrappedBuffer(body);
+        MultipartBodySlicer slicer = new MultipartBodySlicer(content.length);
+
+        ByteBuf slice = slicer.next(buf);
+
+        assertSame(buf, slice.unwrap());
+        assertEquals(content.length, slice.readableBytes());
+        assertEquals(1, buf.refCnt());
+        assertTrue(slicer.isComplete());
+        slice.release();
+        assertEquals(0, buf.refCnt());
+    }
+
+    @Test
+    void releasesBuffersWithoutContent() {
+        MultipartBodySlicer slicer = new MultipartBodySlicer(4);
+        ByteBuf header = Unpooled.copiedBuffer("--b\r\nX: 1\r\n", StandardCharsets.US_ASCII);
+        ByteBuf headerEnd = Unpooled.copiedBuffer("\r\n", StandardCharsets.US_ASCII);
+        ByteBuf content = Unpooled.copiedBuffer("abcd", StandardCharsets.US_ASCII);
+        ByteBuf trailer = Unpooled.copiedBuffer("\r\n--b--\r\n", StandardCharsets.US_ASCII);
+
+        assertNull(slicer.next(header));
+        assertNull(slicer.next(headerEnd));
+        ByteBuf slice = slicer.next(content);
+        assertNull(slicer.next(trailer));
+
+        assertEquals(0, header.refCnt());
+        assertEquals(0, headerEnd.refCnt());
+        assertEquals(0, trailer.refCnt());
+        assertEquals("abcd", slice.toString(StandardCharsets.US_ASCII));
+        slice.release();
+    }
+
+    @Test
+    void isIncompleteWhenBodyEndsEarly() {
+        byte[] content = new byte[100];
+        MultipartBodySlicer slicer = new MultipartBodySlicer(content.length);
+
+        ByteBuf slice = slicer.next(Unpooled.wrappedBuffer(RelayClient.truncatedMultipart(content, 60)));
+
+        assertEquals(60, slice.readableBytes());
+        assertFalse(slicer.isComplete());
+        slice.release();
+    }
+
+    private static byte[] slice(byte[] body, long length, int chunk) {
+        MultipartBodySlicer slicer = new MultipartBodySlicer(length);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int offset = 0; offset < body.length; offset += chunk) {
+            ByteBuf buf = Unpooled.copiedBuffer(body, offset, Math.min(chunk, body.length - offset));
+            ByteBuf slice = slicer.next(buf);
+            if (slice != null) {
+                byte[] bytes = new byte[slice.readableBytes()];
+                slice.readBytes(bytes);
+                out.writeBytes(bytes);
+                slice.release();
+            }
+            assertEquals(0, buf.refCnt());
+        }
+        assertTrue(slicer.isComplete());
+        return out.toByteArray();
+    }
+}
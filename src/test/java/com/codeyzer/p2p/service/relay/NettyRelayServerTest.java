@@ -0,0 +1,112 @@
+package com.codeyzer.p2p.service.relay;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.codeyzer.p2p.dto.ShareResponseDTO;
+import com.codeyzer.p2p.service.monitoring.PerformanceMonitorService;
+import com.codeyzer.p2p.support.RelayClient;
+import com.codeyzer.p2p.support.StompOwner;
+
+/**
+ * Netty aktarım katmanını uçtan uca dener: paylaşım ve bildirim Tomcat üzerinden, yükleme ve indirme
+ * Netty portu üzerinden yapılır.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "file-share.netty.enabled=true")
+class NettyRelayServerTest {
+
+    private static final int NETTY_PORT = freePort();
+
+    @DynamicPropertySource
+    static void nettyPort(DynamicPropertyRegistry registry) {
+        registry.add("file-share.netty.port", () -> NETTY_PORT);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SimpMessagingTemplate template;
+
+    @Autowired
+    private PerformanceMonitorService monitorService;
+
+    private RelayClient control;
+    private RelayClient relay;
+    private StompOwner owner;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        control = new RelayClient(port, HttpClient.Version.HTTP_1_1);
+        relay = new RelayClient(NETTY_PORT, HttpClient.Version.HTTP_1_1);
+        owner = new StompOwner(port, template, relay);
+    }
+
+    @AfterEach
+    void tearDown() {
+        owner.close();
+    }
+
+    @Test
+    void relaysOwnerUploadToDownloaderThroughNetty() throws Exception {
+        // Birden çok okuma olayına yayılacak kadar büyük içerik
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(43).nextBytes(content);
+        ShareResponseDTO share = control.share("netty.bin", content.length);
+        owner.serve(share, content);
+        long relayedBefore = monitorService.getTotalBytesDownloaded();
+
+        HttpResponse<byte[]> download = relay.download(share.getShareHash()).get(30, TimeUnit.SECONDS);
+
+        assertEquals(200, download.statusCode());
+        assertEquals(String.valueOf(content.length), download.headers().firstValue("Content-Length").orElseThrow());
+        assertArrayEquals(content, download.body());
+        awaitDownloaded(relayedBefore + content.length);
+    }
+
+    @Test
+    void rejectsUnknownShareWithServiceStatus() throws Exception {
+        HttpResponse<byte[]> download = relay.download("yok").get(10, TimeUnit.SECONDS);
+
+        assertEquals(404, download.statusCode());
+    }
+
+    /**
+     * İndirme, yanıt gönderildikten sonra olay döngüsünde kaydedilir
+     */
+    private void awaitDownloaded(long bytes) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (monitorService.getTotalBytesDownloaded() < bytes) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("İndirme tamamlanmış kaydedilmedi");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
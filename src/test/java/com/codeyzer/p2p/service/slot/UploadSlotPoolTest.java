@@ -0,0 +1,130 @@
+package com.codeyzer.p2p.service.slot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.codeyzer.p2p.config.FileShareProperties;
+import com.codeyzer.p2p.dto.FileStreamWrapper;
+
+/**
+ * Bekleyen yükleme yuvalarının paylaşım başına ve toplam sınırlarını ve indirmelere dağıtılmasını dener
+ */
+class UploadSlotPoolTest {
+
+    private final FileShareProperties properties = new FileShareProperties();
+    private final UploadSlotPool pool = new UploadSlotPool(properties);
+
+    @BeforeEach
+    void setUp() {
+        properties.getUploadSlots().setMaxPerShare(2);
+        properties.getUploadSlots().setMaxTotal(3);
+    }
+
+    @Test
+    void capsSlotsPerShare() {
+        assertNotNull(pool.park("a"));
+        assertNotNull(pool.park("a"));
+
+        assertNull(pool.park("a"));
+        assertEquals(2, pool.getParkedCount("a"));
+        assertNotNull(pool.park("b"));
+    }
+
+    @Test
+    void capsSlotsAcrossSharesAndFreesCapacityOnRemove() {
+        UploadSlot first = pool.park("a");
+        pool.park("a");
+        // Paylaşım sınırına takılan deneme toplamdan yer tüketmez
+        assertNull(pool.park("a"));
+        assertNotNull(pool.park("b"));
+
+        assertNull(pool.park("c"));
+
+        pool.remove("a", first);
+        assertEquals(1, pool.getParkedCount("a"));
+        assertNotNull(pool.park("c"));
+        // Aynı yuvanın ikinci kez çıkarılması sayacı bozmaz
+        pool.remove("a", first);
+        assertNull(pool.park("d"));
+    }
+
+    @Test
+    void handsStreamToOldestOpenSlot() throws InterruptedException {
+        UploadSlot closed = pool.park("a");
+        UploadSlot waiting = pool.park("a");
+        // Bekleme süresi dolmuş ama henüz kuyruktan çıkarılmamış yuva atlanır
+        closed.close();
+        FileStreamWrapper stream = new FileStreamWrapper();
+
+        assertTrue(pool.claim("a", stream));
+
+        assertSame(stream, waiting.await(1, TimeUnit.SECONDS));
+        assertEquals(0, pool.getParkedCount("a"));
+        assertFalse(pool.claim("a", new FileStreamWrapper()));
+        // Alınan ve atlanan yuvalar toplam sınırdan düşmüştür
+        assertNotNull(pool.park("b"));
+        assertNotNull(pool.park("c"));
+        assertNotNull(pool.park("d"));
+    }
+
+    @Test
+    void closeAllReleasesWaitingOwners() throws InterruptedException {
+        UploadSlot slot = pool.park("a");
+        pool.park("a");
+        pool.park("b");
+
+        pool.closeAll("a");
+
+        assertNull(slot.await(1, TimeUnit.SECONDS));
+        assertEquals(0, pool.getParkedCount("a"));
+        assertFalse(pool.claim("a", new FileStreamWrapper()));
+        assertNotNull(pool.park("c"));
+        assertNotNull(pool.park("d"));
+        assertNull(pool.park("e"));
+    }
+
+    @Test
+    void neverExceedsTotalUnderConcurrentParking() throws Exception {
+        properties.getUploadSlots().setMaxPerShare(4);
+        properties.getUploadSlots().setMaxTotal(50);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<UploadSlot>> attempts = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                String shareHash = "s" + (i % 40);
+                attempts.add(() -> pool.park(shareHash));
+            }
+            int parked = 0;
+            for (Future<UploadSlot> attempt : executor.invokeAll(attempts)) {
+                if (attempt.get() != null) {
+                    parked++;
+                }
+            }
+            assertEquals(50, parked);
+
+            int perShare = 0;
+            for (int i = 0; i < 40; i++) {
+                assertTrue(pool.getParkedCount("s" + i) <= 4);
+                perShare += pool.getParkedCount("s" + i);
+            }
+            assertEquals(50, perShare);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
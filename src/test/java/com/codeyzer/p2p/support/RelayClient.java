@@ -0,0 +1,177 @@
+package com.codeyzer.p2p.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.codeyzer.p2p.dto.ShareRequestDTO;
+import com.codeyzer.p2p.dto.ShareResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Testlerde ve ölçümlerde sahip ile indiren tarafını tek bir HTTP istemcisiyle oynar. Sahip yüklemesi
+ * bekleyen yükleme yuvası üzerinden yapıldığından WebSocket bildirimine gerek kalmaz: yuva açılır,
+ * yuvanın beklediği görüldükten sonra indirme isteği gönderilir.
+ */
+public class RelayClient {
+
+    private static final String BOUNDARY = "RelayClientBoundary";
+    private static final byte[] MULTIPART_HEAD = ("--" + BOUNDARY
+            + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"f\"\r\n"
+            + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient client;
+    private final String baseUrl;
+
+    public RelayClient(int port, HttpClient.Version version) {
+        this.client = HttpClient.newBuilder().version(version).connectTimeout(Duration.ofSeconds(5)).build();
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    public HttpClient getHttpClient() {
+        return client;
+    }
+
+    public ShareResponseDTO share(String filename, long size) throws IOException, InterruptedException {
+        return post("/file/share", ShareRequestDTO.builder().filename(filename).size(size).build(),
+                ShareResponseDTO.class);
+    }
+
+    public <T> T post(String path, Object body, Class<T> responseType) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(body)))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException(path + " yanıtı " + response.statusCode());
+        }
+        return responseType == Void.class ? null : MAPPER.readValue(response.body(), responseType);
+    }
+
+    public HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    public Map<?, ?> stats(String shareHash) throws IOException, InterruptedException {
+        return MAPPER.readValue(get("/file/stats/" + shareHash).body(), Map.class);
+    }
+
+    /**
+     * Paylaşım için içeriği gövdede taşıyan bir yükleme yuvası açar; yanıt bir indirme yuvayı alıp
+     * aktarım bittiğinde gelir
+     */
+    public CompletableFuture<HttpResponse<Void>> parkSlot(ShareResponseDTO share, byte[] content) {
+        return parkSlotWithBody(share, multipart(content));
+    }
+
+    /**
+     * Yuvayı verilen ham gövdeyle açar; gövde {@link #truncatedMultipart} ile kesilerek kopan bir yükleme
+     * taklit edilebilir
+     */
+    public CompletableFuture<HttpResponse<Void>> parkSlotWithBody(ShareResponseDTO share, byte[] body) {
+        return parkSlotWithBody(share, HttpRequest.BodyPublishers.ofByteArray(body));
+    }
+
+    /**
+     * Yuvayı gövdesi verilen kaynaktan okunan bir istekle açar; gövde parça parça yazılarak aktarımı
+     * süren bir sahip taklit edilebilir
+     */
+    public CompletableFuture<HttpResponse<Void>> parkSlotWithBody(ShareResponseDTO share, HttpRequest.BodyPublisher body) {
+        return client.sendAsync(HttpRequest.newBuilder(uri("/file/upload-slot/" + share.getShareHash()))
+                .header("X-Owner-Token", share.getOwnerToken())
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(body)
+                .build(), HttpResponse.BodyHandlers.discarding());
+    }
+
+    /**
+     * Sahibin bir stream'e yüklemesi
+     * @param headers Ek başlıklar (ör. X-Upload-Offset), ad ve değer sırasıyla
+     */
+    public HttpResponse<String> upload(ShareResponseDTO share, String streamHash, byte[] content, String... headers)
+            throws IOException, InterruptedException {
+        return client.send(uploadRequest(share, streamHash, content, headers), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sahibin yüklemesini bekletmeden gönderir; yanıt indirme bittiğinde gelir
+     */
+    public CompletableFuture<HttpResponse<String>> uploadAsync(ShareResponseDTO share, String streamHash, byte[] content) {
+        return client.sendAsync(uploadRequest(share, streamHash, content), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private HttpRequest uploadRequest(ShareResponseDTO share, String streamHash, byte[] content, String... headers) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri("/file/upload/" + share.getShareHash() + "/" + streamHash))
+                .header("X-Owner-Token", share.getOwnerToken())
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(multipart(content)));
+        if (headers.length > 0) {
+            request.headers(headers);
+        }
+        return request.build();
+    }
+
+    /**
+     * Paylaşımda verilen sayıda yuvanın beklemeye geçmesini bekler
+     */
+    public void awaitParkedSlots(String shareHash, int count) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (((Number) stats(shareHash).get("parkedUploadSlots")).intValue() < count) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IOException("Yuva beklemeye geçmedi: " + shareHash);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    public CompletableFuture<HttpResponse<byte[]>> download(String shareHash, String... headers) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri("/file/download/" + shareHash)).GET();
+        if (headers.length > 0) {
+            request.headers(headers);
+        }
+        return client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * İndirmeyi gövdeyi belleğe toplamadan okunacak bir akış olarak başlatır
+     */
+    public CompletableFuture<HttpResponse<InputStream>> downloadStream(String shareHash) {
+        return client.sendAsync(HttpRequest.newBuilder(uri("/file/download/" + shareHash)).GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    /**
+     * İçeriği sunucunun beklediği tek parçalı multipart gövdesine sarar
+     */
+    public static byte[] multipart(byte[] content) {
+        byte[] tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] body = Arrays.copyOf(truncatedMultipart(content, content.length), MULTIPART_HEAD.length
+                + content.length + tail.length);
+        System.arraycopy(tail, 0, body, MULTIPART_HEAD.length + content.length, tail.length);
+        return body;
+    }
+
+    /**
+     * İçeriğin yalnızca ilk length byte'ını taşıyan, kapanış sınırı olmayan multipart gövdesi; sahibin
+     * bağlantısı aktarım ortasında koptuğunda sunucunun gördüğü gövdedir
+     */
+    public static byte[] truncatedMultipart(byte[] content, int length) {
+        byte[] body = Arrays.copyOf(MULTIPART_HEAD, MULTIPART_HEAD.length + length);
+        System.arraycopy(content, 0, body, MULTIPART_HEAD.length, length);
+        return body;
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+}
@@ -0,0 +1,91 @@
+package com.codeyzer.p2p.support;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import com.codeyzer.p2p.config.WebSocketConfig;
+import com.codeyzer.p2p.dto.ShareResponseDTO;
+
+/**
+ * Paylaşım konusundaki yükleme bildirimlerine gerçek bir sahip gibi cevap verir: her yeni stream için
+ * içeriği verilen istemcinin adresine yükler. Yükleme yuvası kullanılmadığından bildirim gidiş dönüşü
+ * ölçüme dahildir; yükleme istemcisi Tomcat veya Netty portuna bağlanabilir.
+ */
+public class StompOwner implements AutoCloseable {
+
+    private static final String PROBE = "probe";
+
+    private final WebSocketStompClient stompClient;
+    private final StompSession session;
+    private final SimpMessagingTemplate template;
+    private final RelayClient uploader;
+    // Aynı abonelik aracıda iki kez kaydedilirse bildirim iki kez gelir; stream bir kez yüklenir
+    private final Set<String> uploaded = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param port STOMP ucunun dinlendiği (Tomcat) port
+     * @param template Aboneliğin etkinleştiğini doğrulayan deneme mesajları için
+     * @param uploader Yüklemelerin gönderileceği aktarım katmanının istemcisi
+     */
+    public StompOwner(int port, SimpMessagingTemplate template, RelayClient uploader) throws Exception {
+        this.stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        this.stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        this.session = stompClient.connectAsync("ws://localhost:" + port + WebSocketConfig.NATIVE_ENDPOINT,
+                new StompSessionHandlerAdapter() { }).get(10, TimeUnit.SECONDS);
+        this.template = template;
+        this.uploader = uploader;
+    }
+
+    /**
+     * Paylaşımın konusuna abone olur ve abonelik etkinleşene kadar bekler
+     */
+    public void serve(ShareResponseDTO share, byte[] content) throws IOException, InterruptedException {
+        String destination = "/topic/" + share.getShareHash();
+        CountDownLatch subscribed = new CountDownLatch(1);
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                Map<?, ?> message = (Map<?, ?>) payload;
+                if (PROBE.equals(message.get("type"))) {
+                    subscribed.countDown();
+                } else if (message.get("type") == null && message.get("streamHash") instanceof String streamHash
+                        && uploaded.add(streamHash)) {
+                    // Türü olmayan mesaj yükleme isteğidir (SocketShareDTO)
+                    uploader.uploadAsync(share, streamHash, content);
+                }
+            }
+        });
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!subscribed.await(50, TimeUnit.MILLISECONDS)) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IOException("Abonelik etkinleşmedi: " + destination);
+            }
+            template.convertAndSend(destination, Map.of("type", PROBE));
+        }
+    }
+
+    @Override
+    public void close() {
+        session.disconnect();
+        stompClient.stop();
+    }
+}